@@ -0,0 +1,81 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.content;
+
+import com.google.common.collect.ImmutableList;
+import org.wisdom.content.bodyparsers.BodyParserForm;
+import org.wisdom.content.bodyparsers.BodyParserJson;
+import org.wisdom.content.bodyparsers.BodyParserXML;
+import org.wisdom.content.engines.Engine;
+import org.wisdom.content.jackson.JacksonSingleton;
+import org.wisdom.content.serializers.JSONSerializer;
+import org.wisdom.content.serializers.XMLSerializer;
+
+import java.lang.reflect.Field;
+
+/**
+ * Creates the content-manager components outside of an OSGi container. The dependencies are injected in the fields,
+ * as iPOJO would do.
+ */
+final class Components {
+
+    final JacksonSingleton jackson;
+
+    final JSONSerializer jsonSerializer;
+
+    final XMLSerializer xmlSerializer;
+
+    final BodyParserJson jsonParser;
+
+    final BodyParserXML xmlParser;
+
+    final Engine engine;
+
+    Components() {
+        jackson = new JacksonSingleton();
+        jackson.validate();
+
+        jsonSerializer = inject(new JSONSerializer(), "json", jackson);
+        xmlSerializer = inject(new XMLSerializer(), "xml", jackson);
+        jsonParser = inject(new BodyParserJson(), "json", jackson);
+        xmlParser = inject(new BodyParserXML(), "xml", jackson);
+
+        engine = new Engine();
+        inject(engine, "parsers", ImmutableList.of(new BodyParserForm(), jsonParser, xmlParser));
+        inject(engine, "serializers", ImmutableList.of(jsonSerializer, xmlSerializer));
+    }
+
+    private static <T> T inject(T component, String name, Object value) {
+        Class<?> clazz = component.getClass();
+        while (clazz != null) {
+            try {
+                Field field = clazz.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(component, value);
+                return component;
+            } catch (NoSuchFieldException e) { //NOSONAR
+                clazz = clazz.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot inject " + name + " in " + component, e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + name + " in " + component);
+    }
+}
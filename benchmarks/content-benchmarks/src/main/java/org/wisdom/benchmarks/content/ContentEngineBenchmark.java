@@ -0,0 +1,71 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.content;
+
+import com.google.common.net.MediaType;
+import org.openjdk.jmh.annotations.*;
+import org.wisdom.api.content.BodyParser;
+import org.wisdom.api.content.ContentSerializer;
+import org.wisdom.api.http.MimeTypes;
+import org.wisdom.test.parents.FakeContext;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the selection of the body parsers and of the serializers by the content engine, done for each request
+ * with a body and for each result requiring a serializer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentEngineBenchmark {
+
+    private Components components;
+
+    private Collection<MediaType> accept;
+
+    @Setup
+    public void setUp() {
+        components = new Components();
+        // XML is preferred, so the JSON serializer is checked first and skipped.
+        accept = new FakeContext()
+                .setHeader("Accept", "application/json;q=0.8, text/plain;q=0.5, application/xml")
+                .request().mediaTypes();
+    }
+
+    @Benchmark
+    public BodyParser bodyParser() {
+        return components.engine.getBodyParserEngineForContentType(MimeTypes.XML);
+    }
+
+    @Benchmark
+    public ContentSerializer serializer() {
+        return components.engine.getContentSerializerForContentType(MimeTypes.XML);
+    }
+
+    @Benchmark
+    public ContentSerializer bestSerializer() {
+        return components.engine.getBestSerializer(accept);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.content;
+
+import org.openjdk.jmh.annotations.*;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.cookies.SessionCookie;
+import org.wisdom.api.crypto.Crypto;
+import org.wisdom.api.crypto.Hash;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Results;
+import org.wisdom.api.utils.CookieDataCodec;
+import org.wisdom.crypto.CryptoServiceSingleton;
+import org.wisdom.framework.vertx.cookies.SessionCookieImpl;
+import org.wisdom.test.parents.FakeConfiguration;
+import org.wisdom.test.parents.FakeContext;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cookie codecs with a 10-key session: the encoding and decoding of the cookie data
+ * ({@link CookieDataCodec}), and the reading and writing of the session cookie ({@link SessionCookieImpl}), including
+ * the signature.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CookieBenchmark {
+
+    private Crypto crypto;
+
+    private ApplicationConfiguration configuration;
+
+    private Map<String, String> data;
+
+    private String encoded;
+
+    private Context context;
+
+    @Setup
+    public void setUp() throws Exception {
+        crypto = new CryptoServiceSingleton(CryptoBenchmark.SECRET, Hash.MD5, 128, Crypto.AES_CBC_ALGORITHM, 20);
+        configuration = new BenchmarkConfiguration();
+        data = Payloads.session(10);
+        encoded = CookieDataCodec.encode(data);
+
+        // The session cookie sent by the client, with a timestamp so it is not considered as expired.
+        Map<String, String> session = new HashMap<>(data);
+        session.put("___TS", Long.toString(System.currentTimeMillis()));
+        String payload = CookieDataCodec.encode(session);
+        context = new FakeContext()
+                .setCookie("wisdom" + SessionCookieImpl.SESSION_SUFFIX, crypto.sign(payload) + "-" + payload);
+    }
+
+    @Benchmark
+    public String encode() throws Exception {
+        return CookieDataCodec.encode(data);
+    }
+
+    @Benchmark
+    public Map<String, String> decode() throws Exception {
+        Map<String, String> map = new HashMap<>();
+        CookieDataCodec.decode(map, encoded);
+        return map;
+    }
+
+    /**
+     * Reads the session from the request cookie: decoding and signature check.
+     */
+    @Benchmark
+    public SessionCookie readSession() {
+        SessionCookie session = new SessionCookieImpl(crypto, configuration);
+        session.init(context);
+        return session;
+    }
+
+    /**
+     * Writes the session in the result: encoding and signature.
+     */
+    @Benchmark
+    public Result writeSession() {
+        SessionCookie session = new SessionCookieImpl(crypto, configuration);
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            session.put(entry.getKey(), entry.getValue());
+        }
+        Result result = Results.ok();
+        session.save(context, result);
+        return result;
+    }
+
+    /**
+     * The application configuration, only the default values are used.
+     */
+    private static class BenchmarkConfiguration extends FakeConfiguration implements ApplicationConfiguration {
+
+        BenchmarkConfiguration() {
+            super(Collections.<String, Object>emptyMap());
+        }
+
+        @Override
+        public File getBaseDir() {
+            return new File(".");
+        }
+
+        @Override
+        public boolean isDev() {
+            return false;
+        }
+
+        @Override
+        public boolean isTest() {
+            return false;
+        }
+
+        @Override
+        public boolean isProd() {
+            return true;
+        }
+
+        @Override
+        public File getFileWithDefault(String key, String file) {
+            return new File(file);
+        }
+
+        @Override
+        public File getFileWithDefault(String key, File file) {
+            return file;
+        }
+    }
+}
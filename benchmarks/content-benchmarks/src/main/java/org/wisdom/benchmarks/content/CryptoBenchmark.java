@@ -0,0 +1,94 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.content;
+
+import org.openjdk.jmh.annotations.*;
+import org.wisdom.api.crypto.Crypto;
+import org.wisdom.api.crypto.Hash;
+import org.wisdom.api.utils.CookieDataCodec;
+import org.wisdom.crypto.CryptoServiceSingleton;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the crypto service on the payload of a 10-key session cookie: the signature, computed twice per request
+ * using the session (verification and save), the AES encryption and decryption (ECB and CBC), and the hash.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoBenchmark {
+
+    static final String SECRET = "JYFVq6:^jrh:KIy:yM5Xb<sH58WW80OLL4_gCL4Ne[PnAJ9QC/Z?LG2dbwoSkiBL";
+
+    private static final String SALT = "0123456789abcdef0123456789abcdef";
+
+    private Crypto crypto;
+
+    private String payload;
+
+    private String encrypted;
+
+    private String encryptedWithCBC;
+
+    @Setup
+    public void setUp() throws Exception {
+        crypto = new CryptoServiceSingleton(SECRET, Hash.MD5, 128, Crypto.AES_CBC_ALGORITHM, 20);
+        payload = CookieDataCodec.encode(Payloads.session(10));
+        encrypted = crypto.encryptAES(payload);
+        encryptedWithCBC = crypto.encryptAESWithCBC(payload, SALT);
+    }
+
+    @Benchmark
+    public String sign() {
+        return crypto.sign(payload);
+    }
+
+    @Benchmark
+    public String encryptAES() {
+        return crypto.encryptAES(payload);
+    }
+
+    @Benchmark
+    public String decryptAES() {
+        return crypto.decryptAES(encrypted);
+    }
+
+    /**
+     * The CBC encryption derives the key from the salt (PBKDF2) on each call.
+     */
+    @Benchmark
+    public String encryptAESWithCBC() {
+        return crypto.encryptAESWithCBC(payload, SALT);
+    }
+
+    @Benchmark
+    public String decryptAESWithCBC() {
+        return crypto.decryptAESWithCBC(encryptedWithCBC, SALT);
+    }
+
+    @Benchmark
+    public String hash() {
+        return crypto.hash(payload);
+    }
+}
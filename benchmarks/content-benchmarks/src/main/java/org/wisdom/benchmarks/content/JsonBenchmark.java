@@ -0,0 +1,98 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.content;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Charsets;
+import org.openjdk.jmh.annotations.*;
+import org.wisdom.api.bodies.RenderableObject;
+import org.wisdom.api.http.Context;
+import org.wisdom.benchmarks.content.Payloads.Catalog;
+import org.wisdom.test.parents.FakeContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the JSON support: the serialization of results ({@code JSONSerializer}), the parsing of request bodies
+ * ({@code BodyParserJson}) and the raw Jackson operations they rely on, with 1KB, 100KB and 5MB documents.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"1KB", "100KB", "5MB"})
+    public String size;
+
+    private Components components;
+
+    private Catalog catalog;
+
+    private byte[] bytes;
+
+    private String json;
+
+    private Context context;
+
+    @Setup
+    public void setUp() throws Exception {
+        components = new Components();
+        catalog = Payloads.catalog(components.jackson.mapper(), Payloads.bytes(size));
+        bytes = components.jackson.mapper().writeValueAsBytes(catalog);
+        json = new String(bytes, Charsets.UTF_8);
+        context = new FakeContext().setBody(json);
+    }
+
+    /**
+     * The serialization of a result, going through a {@link JsonNode} as {@code JSONSerializer} does.
+     */
+    @Benchmark
+    public RenderableObject serialize() {
+        RenderableObject renderable = new RenderableObject(catalog);
+        components.jsonSerializer.serialize(renderable);
+        return renderable;
+    }
+
+    /**
+     * The direct serialization by Jackson, for comparison with {@link #serialize()}.
+     */
+    @Benchmark
+    public byte[] writeBytes() throws Exception {
+        return components.jackson.mapper().writeValueAsBytes(catalog);
+    }
+
+    @Benchmark
+    public Catalog parseBytes() {
+        return components.jsonParser.invoke(bytes, Catalog.class);
+    }
+
+    @Benchmark
+    public Catalog parseContext() {
+        return components.jsonParser.invoke(context, Catalog.class);
+    }
+
+    @Benchmark
+    public JsonNode parseTree() {
+        return components.jackson.parse(json);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.content;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the payloads used by the benchmarks. The payloads are deterministic, so the results of two runs can be
+ * compared.
+ */
+final class Payloads {
+
+    private Payloads() {
+        // Avoid direct instantiation.
+    }
+
+    /**
+     * Gets the size in bytes from the benchmark parameter.
+     *
+     * @param size the size, such as {@code 1KB}, {@code 100KB} or {@code 5MB}
+     * @return the number of bytes
+     */
+    static int bytes(String size) {
+        if (size.endsWith("MB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024 * 1024;
+        }
+        if (size.endsWith("KB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024;
+        }
+        return Integer.parseInt(size);
+    }
+
+    /**
+     * Creates a catalog whose JSON form has approximately the given size.
+     *
+     * @param mapper the mapper used to measure the size of an item
+     * @param bytes  the expected size
+     * @return the catalog
+     * @throws Exception if the item cannot be serialized
+     */
+    static Catalog catalog(ObjectMapper mapper, int bytes) throws Exception {
+        // The items have roughly the same size, the ids have the same number of digits.
+        int size = mapper.writeValueAsBytes(item(0)).length + 1;
+        int count = Math.max(1, bytes / size);
+        Catalog catalog = new Catalog();
+        catalog.name = "benchmark";
+        catalog.items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            catalog.items.add(item(i));
+        }
+        return catalog;
+    }
+
+    private static Item item(int i) {
+        Item item = new Item();
+        item.id = 100000 + i;
+        item.name = "item-" + (100000 + i);
+        item.description = "A representative description of the item, with some words to parse and to escape: \"\\\".";
+        item.tags = Arrays.asList("wisdom", "benchmark", "json");
+        item.price = 9.99 + (i % 100);
+        item.active = i % 2 == 0;
+        return item;
+    }
+
+    /**
+     * Creates the data of a session.
+     *
+     * @param keys the number of entries
+     * @return the session data
+     */
+    static Map<String, String> session(int keys) {
+        Map<String, String> data = new LinkedHashMap<>();
+        for (int i = 0; i < keys; i++) {
+            data.put("key-" + i, "value " + i + " with spaces & symbols=;");
+        }
+        return data;
+    }
+
+    /**
+     * The root of the JSON and XML documents.
+     */
+    public static class Catalog {
+        public String name;
+        public List<Item> items;
+    }
+
+    /**
+     * An item of the catalog.
+     */
+    public static class Item {
+        public long id;
+        public String name;
+        public String description;
+        public List<String> tags;
+        public double price;
+        public boolean active;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.content;
+
+import com.google.common.base.Charsets;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Document;
+import org.wisdom.api.bodies.RenderableObject;
+import org.wisdom.benchmarks.content.Payloads.Catalog;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the XML support: the serialization of results ({@code XMLSerializer}) and the parsing of request bodies
+ * ({@code BodyParserXML}), both to objects and to DOM documents, with 1KB, 100KB and 5MB documents (the sizes are the
+ * sizes of the JSON form, the XML form is larger).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlBenchmark {
+
+    @Param({"1KB", "100KB", "5MB"})
+    public String size;
+
+    private Components components;
+
+    private Catalog catalog;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        components = new Components();
+        catalog = Payloads.catalog(components.jackson.mapper(), Payloads.bytes(size));
+        bytes = components.jackson.xmlMapper().writeValueAsString(catalog).getBytes(Charsets.UTF_8);
+    }
+
+    @Benchmark
+    public RenderableObject serialize() {
+        RenderableObject renderable = new RenderableObject(catalog);
+        components.xmlSerializer.serialize(renderable);
+        return renderable;
+    }
+
+    @Benchmark
+    public Catalog parseObject() {
+        return components.xmlParser.invoke(bytes, Catalog.class);
+    }
+
+    @Benchmark
+    public Document parseDocument() {
+        return components.xmlParser.invoke(bytes, Document.class);
+    }
+}
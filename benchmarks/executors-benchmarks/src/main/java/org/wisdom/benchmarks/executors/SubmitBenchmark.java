@@ -0,0 +1,138 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.executors;
+
+import org.openjdk.jmh.annotations.*;
+import org.wisdom.api.concurrent.ExecutionContext;
+import org.wisdom.api.concurrent.ExecutionContextService;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.executors.ManagedExecutorServiceImpl;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the submission path of {@link ManagedExecutorServiceImpl}: task creation, preparation of the execution
+ * contexts, task tracking and statistics recording. Each operation submits a task and waits for its completion.
+ * <p>
+ * Run it with an increasing number of submitting threads (for instance {@code -t 1} then {@code -t 8}) to check
+ * that the throughput scales: the submitters must not serialize on a lock of the executor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubmitBenchmark {
+
+    /**
+     * The number of execution context services applied to each task.
+     */
+    @Param({"0", "2"})
+    public int contexts;
+
+    private ManagedExecutorServiceImpl executor;
+
+    private final ManagedExecutorService.ExecutionStatistics statistics = new ManagedExecutorService.ExecutionStatistics();
+
+    private final Runnable task = () -> {
+        // Nothing, only the submission path is measured.
+    };
+
+    @Setup
+    public void setUp() {
+        executor = new ManagedExecutorServiceImpl(
+                "benchmark",
+                ManagedExecutorService.ThreadType.POOLED,
+                60000,
+                8,
+                8,
+                5000,
+                false,
+                Integer.MAX_VALUE,
+                Thread.NORM_PRIORITY,
+                null);
+        ExecutionContextService[] services = new ExecutionContextService[contexts];
+        for (int i = 0; i < contexts; i++) {
+            services[i] = new NoopContextService("context-" + i);
+        }
+        executor.setExecutionContextServices(Arrays.asList(services));
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object submitOneThread() throws ExecutionException, InterruptedException {
+        return executor.submit(task).get();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object submitEightThreads() throws ExecutionException, InterruptedException {
+        return executor.submit(task).get();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void recordStatistics() {
+        statistics.accept(42L);
+    }
+
+    /**
+     * An execution context service doing nothing, so only the cost of the bookkeeping is measured.
+     */
+    private static class NoopContextService implements ExecutionContextService {
+
+        private static final ExecutionContext NOOP = new ExecutionContext() {
+            @Override
+            public void apply() {
+                // Nothing.
+            }
+
+            @Override
+            public void unapply() {
+                // Nothing.
+            }
+        };
+
+        private final String name;
+
+        NoopContextService(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public ExecutionContext prepare() {
+            return NOOP;
+        }
+    }
+}
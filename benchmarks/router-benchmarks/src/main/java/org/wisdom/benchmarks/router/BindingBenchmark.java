@@ -0,0 +1,143 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.router;
+
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.*;
+import org.wisdom.api.annotations.HttpParameter;
+import org.wisdom.api.annotations.Parameter;
+import org.wisdom.api.annotations.QueryParameter;
+import org.wisdom.api.content.ParameterConverter;
+import org.wisdom.api.content.ParameterFactories;
+import org.wisdom.api.content.ParameterFactory;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.RouteUtils;
+import org.wisdom.api.router.parameters.ActionParameter;
+import org.wisdom.content.converters.ParamConverterEngine;
+import org.wisdom.router.parameter.Bindings;
+import org.wisdom.test.parents.FakeContext;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the creation of the action method parameters from the request ({@link Bindings}) and the underlying
+ * conversions ({@link ParamConverterEngine}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindingBenchmark {
+
+    private ParameterFactories engine;
+
+    private Context context;
+
+    private ActionParameter id;
+
+    private ActionParameter query;
+
+    private ActionParameter ids;
+
+    private ActionParameter http;
+
+    private List<ActionParameter> all;
+
+    private Type listOfIntegers;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        engine = new ParamConverterEngine(Collections.<ParameterConverter>emptyList(),
+                Collections.<ParameterFactory>emptyList());
+        context = new FakeContext()
+                .setParameter("id", "42")
+                .setParameter("q", "wisdom")
+                .setParameter("flag", "true")
+                .setParameter("ids", ImmutableList.of("1", "2", "3", "4", "5"));
+
+        Method method = BindingBenchmark.class.getMethod("action", int.class, String.class, boolean.class,
+                List.class, Context.class);
+        all = RouteUtils.buildActionParameterList(method);
+        id = all.get(0);
+        query = all.get(1);
+        ids = all.get(3);
+        http = all.get(4);
+        listOfIntegers = method.getGenericParameterTypes()[3];
+    }
+
+    /**
+     * The action method whose parameters are bound.
+     */
+    public Result action(@Parameter("id") int id, @QueryParameter("q") String q, @Parameter("flag") boolean flag,
+                         @QueryParameter("ids") List<Integer> ids, @HttpParameter Context context) {
+        return null;
+    }
+
+    @Benchmark
+    public Object bindInteger() {
+        return Bindings.create(id, context, engine);
+    }
+
+    @Benchmark
+    public Object bindString() {
+        return Bindings.create(query, context, engine);
+    }
+
+    @Benchmark
+    public Object bindList() {
+        return Bindings.create(ids, context, engine);
+    }
+
+    @Benchmark
+    public Object bindContext() {
+        return Bindings.create(http, context, engine);
+    }
+
+    @Benchmark
+    public Object[] bindAll() {
+        Object[] parameters = new Object[all.size()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = Bindings.create(all.get(i), context, engine);
+        }
+        return parameters;
+    }
+
+    @Benchmark
+    public Integer convertInteger() {
+        return engine.convertValue("42", Integer.class, null, null);
+    }
+
+    @Benchmark
+    public Boolean convertBooleanDefault() {
+        return engine.convertValue(null, Boolean.class, null, "true");
+    }
+
+    @Benchmark
+    public List convertList() {
+        return engine.convertValue("1,2,3,4,5", List.class, listOfIntegers, null);
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.router;
+
+import org.openjdk.jmh.annotations.*;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.annotations.Interception;
+import org.wisdom.api.annotations.Parameter;
+import org.wisdom.api.annotations.QueryParameter;
+import org.wisdom.api.content.ParameterConverter;
+import org.wisdom.api.content.ParameterFactory;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.interception.Filter;
+import org.wisdom.api.interception.Interceptor;
+import org.wisdom.api.interception.RequestContext;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.content.converters.ParamConverterEngine;
+import org.wisdom.router.RequestRouter;
+import org.wisdom.router.RouteDelegate;
+import org.wisdom.test.parents.FakeContext;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the invocation of an action method through {@link RouteDelegate#invoke()}: computation of the filter and
+ * interceptor chain, parameter binding and invocation of the action method. Each invocation goes through the given
+ * number of filters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    /**
+     * The number of filters.
+     */
+    @Param({"0", "3"})
+    public int filters;
+
+    private RequestRouter router;
+
+    private Route plain;
+
+    private Route withParameters;
+
+    private Route intercepted;
+
+    @Setup
+    public void setUp() {
+        router = new RequestRouter();
+        router.setParameterConverterEngine(new ParamConverterEngine(Collections.<ParameterConverter>emptyList(),
+                Collections.<ParameterFactory>emptyList()));
+        router.setInterceptors(Collections.<Interceptor<?>>singletonList(new TracedInterceptor()));
+        for (int i = 0; i < filters; i++) {
+            router.bindFilter(new PassThroughFilter(i));
+        }
+        router.bindController(new DispatchController());
+
+        FakeContext context = new FakeContext()
+                .setParameter("id", "42")
+                .setParameter("q", "wisdom");
+        // The state is per thread, so the context is set on the benchmark thread.
+        Context.CONTEXT.set(context);
+
+        plain = router.getRouteFor(HttpMethod.GET, "/plain", context.request());
+        withParameters = router.getRouteFor(HttpMethod.GET, "/items/42", context.request());
+        intercepted = router.getRouteFor(HttpMethod.GET, "/intercepted", context.request());
+    }
+
+    @TearDown
+    public void tearDown() {
+        Context.CONTEXT.remove();
+        router.stop();
+    }
+
+    @Benchmark
+    public Result invokePlain() throws Exception {
+        return plain.invoke();
+    }
+
+    @Benchmark
+    public Result invokeWithParameters() throws Exception {
+        return withParameters.invoke();
+    }
+
+    @Benchmark
+    public Result invokeIntercepted() throws Exception {
+        return intercepted.invoke();
+    }
+
+    /**
+     * The annotation handled by the {@link TracedInterceptor}.
+     */
+    @Interception
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.TYPE, ElementType.METHOD})
+    public @interface Traced {
+
+    }
+
+    /**
+     * An interceptor only calling the next element of the chain.
+     */
+    public static class TracedInterceptor extends Interceptor<Traced> {
+
+        @Override
+        public Result call(Traced configuration, RequestContext context) throws Exception {
+            return context.proceed();
+        }
+
+        @Override
+        public Class<Traced> annotation() {
+            return Traced.class;
+        }
+    }
+
+    /**
+     * A filter applied to all the routes, only calling the next element of the chain.
+     */
+    public static class PassThroughFilter implements Filter {
+
+        private static final Pattern ALL = Pattern.compile(".*");
+
+        private final int priority;
+
+        PassThroughFilter(int priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public Result call(Route route, RequestContext context) throws Exception {
+            return context.proceed();
+        }
+
+        @Override
+        public Pattern uri() {
+            return ALL;
+        }
+
+        @Override
+        public int priority() {
+            return priority;
+        }
+    }
+
+    /**
+     * The controller invoked by the benchmark.
+     */
+    public static class DispatchController extends DefaultController {
+
+        @Override
+        public List<Route> routes() {
+            return Arrays.asList(
+                    new RouteBuilder().route(HttpMethod.GET).on("/plain").to(this, "plain"),
+                    new RouteBuilder().route(HttpMethod.GET).on("/items/{id}").to(this, "item"),
+                    new RouteBuilder().route(HttpMethod.GET).on("/intercepted").to(this, "intercepted"));
+        }
+
+        public Result plain() {
+            return ok();
+        }
+
+        public Result item(@Parameter("id") int id, @QueryParameter("q") String q) {
+            return ok();
+        }
+
+        @Traced
+        public Result intercepted() {
+            return ok();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.router;
+
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.*;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Results;
+import org.wisdom.api.interception.Filter;
+import org.wisdom.api.interception.Interceptor;
+import org.wisdom.api.interception.RequestContext;
+import org.wisdom.api.router.Route;
+import org.wisdom.framework.filters.RateLimitFilter;
+import org.wisdom.test.parents.FakeConfiguration;
+import org.wisdom.test.parents.FakeContext;
+import org.wisdom.test.parents.FakeRequest;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the {@link RateLimitFilter} on accepted requests: lookup or creation of the buckets and acquisition of a
+ * token. The filter is shared by 4 threads, each one sending requests from the given number of clients, identified
+ * by their IP address or by a header (in this case, the IP addresses are also limited).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+
+    private static final String API_KEY = "X-Api-Key";
+
+    /**
+     * How the clients are identified.
+     */
+    @Param({"ip", "header:" + API_KEY})
+    public String key;
+
+    /**
+     * The number of clients per thread.
+     */
+    @Param({"1", "1000"})
+    public int clients;
+
+    private RateLimitFilter filter;
+
+    @Setup
+    public void setUp() {
+        // The limits are never reached, so only the accepted requests are measured.
+        filter = new RateLimitFilter(new FakeConfiguration(ImmutableMap.<String, Object>of(
+                "key", key,
+                "burst", 100000000,
+                "refill", 1.0e9)));
+    }
+
+    @Benchmark
+    public Result call(Clients state) throws Exception {
+        Context.CONTEXT.set(state.next());
+        try {
+            return filter.call(null, new RequestContext(null, Collections.<Filter>emptyList(),
+                    Collections.<Interceptor<?>, Object>emptyMap(), null, OkFilter.INSTANCE));
+        } finally {
+            Context.CONTEXT.remove();
+        }
+    }
+
+    /**
+     * The contexts of the clients of a thread, used in turn.
+     */
+    @State(Scope.Thread)
+    public static class Clients {
+
+        private FakeContext[] contexts;
+
+        private int index;
+
+        @Setup
+        public void setUp(RateLimitFilterBenchmark benchmark) {
+            long thread = Thread.currentThread().getId();
+            contexts = new FakeContext[benchmark.clients];
+            for (int i = 0; i < contexts.length; i++) {
+                contexts[i] = new ClientContext("10." + thread % 256 + "." + i / 256 + "." + i % 256)
+                        .setPath("/items")
+                        .setHeader(API_KEY, "key-" + thread + "-" + i);
+            }
+        }
+
+        FakeContext next() {
+            FakeContext context = contexts[index];
+            index = (index + 1) % contexts.length;
+            return context;
+        }
+    }
+
+    /**
+     * A fake context whose request comes from the given IP address.
+     */
+    private static class ClientContext extends FakeContext {
+
+        private final Request request;
+
+        ClientContext(final String ip) {
+            request = new FakeRequest(this) {
+                @Override
+                public String remoteAddress() {
+                    return ip;
+                }
+            };
+        }
+
+        @Override
+        public Request request() {
+            return request;
+        }
+    }
+
+    /**
+     * The end of the chain, returning an empty result.
+     */
+    private static class OkFilter implements Filter {
+
+        static final OkFilter INSTANCE = new OkFilter();
+
+        private static final Pattern ALL = Pattern.compile(".*");
+
+        @Override
+        public Result call(Route route, RequestContext context) {
+            return Results.ok();
+        }
+
+        @Override
+        public Pattern uri() {
+            return ALL;
+        }
+
+        @Override
+        public int priority() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.router;
+
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.*;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.router.RequestRouter;
+import org.wisdom.test.parents.FakeContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the route lookup ({@link RequestRouter#getRouteFor(HttpMethod, String, Request)}) and the reverse routing
+ * ({@link RequestRouter#getReverseRouteFor(String, String, Map)}) with an increasing number of routes.
+ * <p>
+ * Half of the routes are static ({@code /static/page12}), the other half contains a path parameter
+ * ({@code /api/resource13/{id}}). The last route is the only one targeting the {@code target} action method, so the
+ * reverse routing must go through all the routes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+
+    /**
+     * The number of routes.
+     */
+    @Param({"10", "100", "1000"})
+    public int routes;
+
+    private RequestRouter router;
+
+    private Request request;
+
+    private String first;
+
+    private String last;
+
+    private final Map<String, Object> parameters = ImmutableMap.<String, Object>of("id", 42, "q", "hello wisdom");
+
+    @Setup
+    public void setUp() {
+        router = new RequestRouter();
+        router.bindController(new GeneratedController(routes));
+        request = new FakeContext().getFakeRequest();
+        first = "/static/page0";
+        last = GeneratedController.url(routes - 1).replace("{id}", "42");
+    }
+
+    @TearDown
+    public void tearDown() {
+        router.stop();
+    }
+
+    @Benchmark
+    public Route routeFirst() {
+        return router.getRouteFor(HttpMethod.GET, first, request);
+    }
+
+    @Benchmark
+    public Route routeLast() {
+        return router.getRouteFor(HttpMethod.GET, last, request);
+    }
+
+    @Benchmark
+    public Route routeMissing() {
+        return router.getRouteFor(HttpMethod.GET, "/missing", request);
+    }
+
+    @Benchmark
+    public String reverseRoute() {
+        return router.getReverseRouteFor(GeneratedController.class.getName(), "target", parameters);
+    }
+
+    /**
+     * A controller declaring a given number of routes.
+     */
+    public static class GeneratedController extends DefaultController {
+
+        private final int count;
+
+        GeneratedController(int count) {
+            this.count = count;
+        }
+
+        static String url(int index) {
+            if (index % 2 == 0) {
+                return "/static/page" + index;
+            }
+            return "/api/resource" + index + "/{id}";
+        }
+
+        @Override
+        public List<Route> routes() {
+            List<Route> list = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                list.add(new RouteBuilder().route(HttpMethod.GET).on(url(i)).to(this, i == count - 1 ? "target" :
+                        "handle"));
+            }
+            return list;
+        }
+
+        public Result handle() {
+            return ok();
+        }
+
+        public Result target() {
+            return ok();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.vertx;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.net.MediaType;
+import io.vertx.core.Vertx;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.concurrent.ExecutionContextService;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.content.BodyParser;
+import org.wisdom.api.content.ContentEngine;
+import org.wisdom.api.content.ContentSerializer;
+import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.*;
+import org.wisdom.api.http.websockets.WebSocketListener;
+import org.wisdom.api.router.AbstractRouter;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.executors.ManagedExecutorServiceImpl;
+import org.wisdom.framework.vertx.Server;
+import org.wisdom.framework.vertx.ServiceAccessor;
+import org.wisdom.framework.vertx.WisdomVertxServer;
+import org.wisdom.test.parents.FakeConfiguration;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the HTTP {@link Server} of the Vert.x engine on the loopback interface, without OSGi. Requests are routed
+ * by a stub router to the {@link BenchmarkController}, and the messages received on the {@code /echo} web socket
+ * are sent back to their sender.
+ */
+public class BenchmarkServer {
+
+    /**
+     * The size of the served static file.
+     */
+    public static final int FILE_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * The size of the chunked response.
+     */
+    public static final int CHUNKED_SIZE = 256 * 1024;
+
+    /**
+     * A small, already serialized, JSON document.
+     */
+    static final String JSON = "{\"id\":42,\"name\":\"wisdom\",\"tags\":[\"web\",\"osgi\",\"vertx\"],\"active\":true}";
+
+    private final Vertx vertx;
+
+    private final ManagedExecutorService executor;
+
+    private final WisdomVertxServer dispatcher;
+
+    private final Server server;
+
+    private final File file;
+
+    /**
+     * Creates and starts the server.
+     *
+     * @param vertx the vert.x instance
+     * @throws Exception if the server cannot be started
+     */
+    public BenchmarkServer(Vertx vertx) throws Exception {
+        this.vertx = vertx;
+        this.file = File.createTempFile("wisdom-benchmark", ".bin");
+        byte[] content = new byte[FILE_SIZE];
+        new Random(0).nextBytes(content);
+        Files.write(file.toPath(), content);
+
+        ApplicationConfiguration configuration = new BenchmarkConfiguration();
+        executor = new ManagedExecutorServiceImpl("benchmark", configuration,
+                Collections.<ExecutionContextService>emptyList());
+        dispatcher = new WisdomVertxServer();
+        dispatcher.register(new EchoListener());
+        ServiceAccessor accessor = new ServiceAccessor(null, configuration,
+                new StubRouter(new BenchmarkController(file)), new NoContentEngine(), executor, dispatcher,
+                Collections.<ExceptionMapper>emptyList());
+        server = new Server(accessor, vertx, "benchmark", 0, false, false, "127.0.0.1",
+                Collections.<String>emptyList(), Collections.<String>emptyList(), null);
+
+        CompletableFuture<Void> bound = new CompletableFuture<>();
+        server.bind(ar -> {
+            if (ar.succeeded()) {
+                bound.complete(null);
+            } else {
+                bound.completeExceptionally(ar.cause());
+            }
+        });
+        bound.get(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return the port on which the server is listening.
+     */
+    public int port() {
+        return server.port();
+    }
+
+    /**
+     * Stops the server and deletes the served file.
+     *
+     * @throws Exception if the server cannot be stopped
+     */
+    public void stop() throws Exception {
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        server.close(ar -> closed.complete(null));
+        closed.get(30, TimeUnit.SECONDS);
+        executor.shutdownNow();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    /**
+     * The controller serving the benchmarked requests.
+     */
+    public static class BenchmarkController extends DefaultController {
+
+        private final File file;
+
+        private final byte[] chunked;
+
+        BenchmarkController(File file) {
+            this.file = file;
+            this.chunked = new byte[CHUNKED_SIZE];
+            new Random(0).nextBytes(chunked);
+        }
+
+        @Override
+        public List<Route> routes() {
+            return Arrays.asList(
+                    new RouteBuilder().route(HttpMethod.GET).on("/json").to(this, "json"),
+                    new RouteBuilder().route(HttpMethod.GET).on("/file").to(this, "file"),
+                    new RouteBuilder().route(HttpMethod.GET).on("/chunked").to(this, "chunked"),
+                    new RouteBuilder().route(HttpMethod.POST).on("/upload").to(this, "upload"));
+        }
+
+        public Result json() {
+            return ok(JSON).as(MimeTypes.JSON);
+        }
+
+        public Result file() {
+            return ok(file);
+        }
+
+        public Result chunked() {
+            return ok(chunked, true);
+        }
+
+        public Result upload() {
+            long size = 0;
+            for (FileItem item : context().files()) {
+                size += item.size();
+            }
+            return ok(Long.toString(size));
+        }
+    }
+
+    /**
+     * Sends the received messages back to their sender.
+     */
+    private class EchoListener implements WebSocketListener {
+
+        @Override
+        public void received(String uri, String client, byte[] content) {
+            received(uri, client, content, false);
+        }
+
+        @Override
+        public void received(String uri, String client, byte[] content, boolean binary) {
+            if (binary) {
+                dispatcher.send(uri, client, content);
+            } else {
+                dispatcher.send(uri, client, new String(content, Charsets.UTF_8));
+            }
+        }
+
+        @Override
+        public void opened(String uri, String client) {
+            // Nothing.
+        }
+
+        @Override
+        public void closed(String uri, String client) {
+            // Nothing.
+        }
+    }
+
+    /**
+     * A router serving the routes of the controller, by path only.
+     */
+    private static class StubRouter extends AbstractRouter {
+
+        private final Map<String, Route> routes;
+
+        StubRouter(DefaultController controller) {
+            ImmutableMap.Builder<String, Route> builder = ImmutableMap.builder();
+            for (Route route : controller.routes()) {
+                builder.put(route.getUrl(), route);
+            }
+            routes = builder.build();
+        }
+
+        @Override
+        public Route getRouteFor(HttpMethod method, String uri, Request request) {
+            Route route = routes.get(uri);
+            if (route == null || route.getHttpMethod() != method) {
+                return new Route(method, uri, Status.NOT_FOUND);
+            }
+            return route;
+        }
+
+        @Override
+        public String getReverseRouteFor(String className, String method, Map<String, Object> params) {
+            return null;
+        }
+
+        @Override
+        public Collection<Route> getRoutes() {
+            return routes.values();
+        }
+
+        @Override
+        public long getRoutesGeneration() {
+            // The routes never change.
+            return 0;
+        }
+    }
+
+    /**
+     * The responses are already serialized, no content engine is required.
+     */
+    private static class NoContentEngine implements ContentEngine {
+
+        @Override
+        public BodyParser getBodyParserEngineForContentType(String contentType) {
+            return null;
+        }
+
+        @Override
+        public ContentSerializer getContentSerializerForContentType(String contentType) {
+            return null;
+        }
+
+        @Override
+        public ContentSerializer getBestSerializer(Collection<MediaType> mediaTypes) {
+            return null;
+        }
+    }
+
+    /**
+     * The application configuration, all the values are the default ones.
+     */
+    private static class BenchmarkConfiguration extends FakeConfiguration implements ApplicationConfiguration {
+
+        BenchmarkConfiguration() {
+            super(Collections.<String, Object>emptyMap());
+        }
+
+        @Override
+        public File getBaseDir() {
+            return new File(".");
+        }
+
+        @Override
+        public boolean isDev() {
+            return false;
+        }
+
+        @Override
+        public boolean isTest() {
+            return false;
+        }
+
+        @Override
+        public boolean isProd() {
+            return true;
+        }
+
+        @Override
+        public File getFileWithDefault(String key, String file) {
+            return new File(file);
+        }
+
+        @Override
+        public File getFileWithDefault(String key, File file) {
+            return file;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.benchmarks.vertx;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.WebSocket;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the request path of the Vert.x engine ({@code HttpHandler}, {@code ContextFromVertx},
+ * {@code WebSocketHandler}) end-to-end: the {@link BenchmarkServer} is started on the loopback interface and a vert.x
+ * {@link HttpClient} sends the requests. Each operation sends a request and waits for the complete response.
+ * <p>
+ * The throughput (requests per second) and the sampled latency (with percentiles) are reported.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class EngineBenchmark {
+
+    /**
+     * The size of the uploaded file.
+     */
+    public static final int UPLOAD_SIZE = 256 * 1024;
+
+    private static final String BOUNDARY = "wisdom-benchmark-boundary";
+
+    private Vertx vertx;
+
+    private BenchmarkServer server;
+
+    private HttpClient client;
+
+    private Buffer multipart;
+
+    @Setup
+    public void setUp() throws Exception {
+        vertx = Vertx.vertx();
+        server = new BenchmarkServer(vertx);
+        client = vertx.createHttpClient(new HttpClientOptions()
+                .setDefaultHost("127.0.0.1")
+                .setDefaultPort(server.port())
+                .setKeepAlive(true)
+                .setMaxPoolSize(16));
+
+        byte[] content = new byte[UPLOAD_SIZE];
+        new Random(0).nextBytes(content);
+        multipart = Buffer.buffer()
+                .appendString("--" + BOUNDARY + "\r\n")
+                .appendString("Content-Disposition: form-data; name=\"upload\"; filename=\"upload.bin\"\r\n")
+                .appendString("Content-Type: application/octet-stream\r\n\r\n")
+                .appendBytes(content)
+                .appendString("\r\n--" + BOUNDARY + "--\r\n");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop();
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        vertx.close(ar -> closed.complete(null));
+        closed.get(30, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public int smallJson() throws Exception {
+        return get("/json");
+    }
+
+    @Benchmark
+    public int largeFile() throws Exception {
+        return get("/file");
+    }
+
+    @Benchmark
+    public int chunked() throws Exception {
+        return get("/chunked");
+    }
+
+    @Benchmark
+    public int multipartUpload() throws Exception {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        // The buffer is copied as it is written concurrently by several threads.
+        Buffer body = multipart.copy();
+        client.post("/upload", response(future))
+                .putHeader("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .putHeader("Content-Length", Integer.toString(body.length()))
+                .exceptionHandler(future::completeExceptionally)
+                .end(body);
+        return future.get(30, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public String webSocketEcho(EchoClient echo) throws Exception {
+        return echo.echo(BenchmarkServer.JSON);
+    }
+
+    private int get(String uri) throws Exception {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        client.get(uri, response(future))
+                .exceptionHandler(future::completeExceptionally)
+                .end();
+        return future.get(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates the handler reading the whole response, completing the future with the length of the body.
+     *
+     * @param future the future
+     * @return the handler
+     */
+    private static Handler<HttpClientResponse> response(CompletableFuture<Integer> future) {
+        return response -> response
+                .exceptionHandler(future::completeExceptionally)
+                .bodyHandler(body -> {
+                    if (response.statusCode() == 200) {
+                        future.complete(body.length());
+                    } else {
+                        future.completeExceptionally(new IllegalStateException("Unexpected status "
+                                + response.statusCode()));
+                    }
+                });
+    }
+
+    /**
+     * A web socket connection per benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class EchoClient {
+
+        private final BlockingQueue<String> received = new ArrayBlockingQueue<>(16);
+
+        private WebSocket socket;
+
+        @Setup
+        public void connect(EngineBenchmark benchmark) throws Exception {
+            CompletableFuture<WebSocket> connected = new CompletableFuture<>();
+            benchmark.client.websocket("/echo", ws -> {
+                ws.handler(buffer -> received.offer(buffer.toString("UTF-8")));
+                connected.complete(ws);
+            });
+            socket = connected.get(30, TimeUnit.SECONDS);
+        }
+
+        @TearDown
+        public void close() {
+            socket.close();
+        }
+
+        String echo(String message) throws InterruptedException {
+            socket.writeFinalTextFrame(message);
+            String response = received.poll(30, TimeUnit.SECONDS);
+            if (response == null) {
+                throw new IllegalStateException("No response received on the web socket");
+            }
+            return response;
+        }
+    }
+}
@@ -32,7 +32,8 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -187,6 +188,26 @@ public class DefaultWebSocketCallback {
     public void invoke(String uri, String client, byte[] content) throws
             InvocationTargetException,
             IllegalAccessException {
+        invoke(uri, client, content, false);
+    }
+
+    /**
+     * Invokes the callback.
+     * <p>
+     * The payload is injected as it is in {@code byte[]} and {@link ByteBuffer} parameters, and decoded as UTF-8
+     * in {@link String} parameters. For other types, text payloads are converted using the parameter converters
+     * or parsed as JSON, while binary payloads are only parsed as JSON.
+     *
+     * @param uri     the uri
+     * @param client  the client identifier (the one having sent the message)
+     * @param content the payload of the message
+     * @param binary  whether the message was sent as binary or text frames
+     * @throws InvocationTargetException when the callback throws an exception
+     * @throws IllegalAccessException    when the callback cannot be called
+     */
+    public void invoke(String uri, String client, byte[] content, boolean binary) throws
+            InvocationTargetException,
+            IllegalAccessException {
         Map<String, String> values = getPathParametersEncoded(uri);
         Object[] parameters = new Object[arguments.size()];
         for (int i = 0; i < arguments.size(); i++) {
@@ -200,20 +221,33 @@ public class DefaultWebSocketCallback {
                 }
             } else {
                 // Body
-                parameters[i] = transform(argument, content);
+                parameters[i] = transform(argument, content, binary);
             }
         }
         getMethod().invoke(getController(), parameters);
     }
 
-    private Object transform(ActionParameter parameter, byte[] content) {
-        String data = new String(content, Charset.defaultCharset());
-        try {
-            return router.converter().convertValue(data, parameter.getRawType(), parameter.getGenericType(), null);
-        } catch (IllegalArgumentException | NoSuchElementException e) { //NOSONAR
-            // The NoSuchElementException is thrown when there are no suitable converter,
-            // while the IllegalArgumentException is thrown when the conversion fails. In both case,
-            // the conversion failed.
+    private Object transform(ActionParameter parameter, byte[] content, boolean binary) {
+        Class<?> type = parameter.getRawType();
+        if (type == byte[].class) {
+            return content;
+        }
+        if (type == ByteBuffer.class) {
+            return ByteBuffer.wrap(content);
+        }
+        if (type == String.class) {
+            return new String(content, StandardCharsets.UTF_8);
+        }
+
+        if (!binary) {
+            String data = new String(content, StandardCharsets.UTF_8);
+            try {
+                return router.converter().convertValue(data, type, parameter.getGenericType(), null);
+            } catch (IllegalArgumentException | NoSuchElementException e) { //NOSONAR
+                // The NoSuchElementException is thrown when there are no suitable converter,
+                // while the IllegalArgumentException is thrown when the conversion fails. In both case,
+                // the conversion failed.
+            }
         }
 
         // For all the other cases, we need a binder, however, we have no idea about the type of message,
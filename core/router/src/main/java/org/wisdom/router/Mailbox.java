@@ -0,0 +1,259 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.concurrent.ManagedFutureTask;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The serial mailbox of a web socket client. Messages received from the client are processed one at a time, in the
+ * order they were received, on the router's executor. The number of pending messages is bounded, the behavior on
+ * overflow depends on the {@link Overflow} policy.
+ */
+class Mailbox {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Mailbox.class);
+
+    /**
+     * The maximum number of messages processed in a row before giving the thread back to the executor.
+     */
+    private static final int BATCH = 64;
+
+    /**
+     * What happens when a message is received while the mailbox is full.
+     */
+    enum Overflow {
+        /**
+         * Stop reading from the socket until half of the pending messages have been processed. Messages already
+         * read are kept.
+         */
+        PAUSE,
+        /**
+         * Drop the message.
+         */
+        DROP,
+        /**
+         * Drop the message and close the connection.
+         */
+        CLOSE
+    }
+
+    private final WebSocketRouter router;
+
+    private final String uri;
+
+    private final String client;
+
+    private final int capacity;
+
+    private final Overflow overflow;
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final AtomicBoolean paused = new AtomicBoolean();
+    /**
+     * Whether the current drain task replaces a drain task that has been cancelled before running.
+     */
+    private final AtomicBoolean rescheduled = new AtomicBoolean();
+
+    private final Callable<Void> drain = new Callable<Void>() {
+        @Override
+        public Void call() {
+            drain();
+            return null;
+        }
+    };
+
+    /**
+     * Creates a mailbox.
+     *
+     * @param router   the router, giving access to the executor and to the dispatchers
+     * @param uri      the web socket url
+     * @param client   the client id
+     * @param capacity the maximum number of pending messages
+     * @param overflow the overflow policy
+     */
+    Mailbox(WebSocketRouter router, String uri, String client, int capacity, Overflow overflow) {
+        this.router = router;
+        this.uri = uri;
+        this.client = client;
+        this.capacity = capacity;
+        this.overflow = overflow;
+    }
+
+    /**
+     * @return the web socket url.
+     */
+    String uri() {
+        return uri;
+    }
+
+    /**
+     * @return the number of pending messages.
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * @return whether or not the reading from the client is paused.
+     */
+    boolean isPaused() {
+        return paused.get();
+    }
+
+    /**
+     * Enqueues a message.
+     *
+     * @param task the processing of the message
+     * @return {@literal true} if the message has been enqueued, {@literal false} if it was dropped.
+     */
+    boolean offer(Runnable task) {
+        int pending = size.incrementAndGet();
+        if (pending > capacity && overflow != Overflow.PAUSE) {
+            size.decrementAndGet();
+            if (overflow == Overflow.CLOSE) {
+                LOGGER.warn("Too many pending messages from {} on {}, closing the connection", client, uri);
+                router.closeClient(uri, client);
+            } else {
+                LOGGER.warn("Too many pending messages from {} on {}, dropping the message", client, uri);
+            }
+            return false;
+        }
+        if (pending >= capacity && overflow == Overflow.PAUSE && paused.compareAndSet(false, true)) {
+            LOGGER.debug("Too many pending messages from {} on {}, pausing the connection", client, uri);
+            router.pauseClient(uri, client);
+        }
+        queue.add(task);
+        schedule();
+        return true;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            final ManagedFutureTask<Void> future;
+            try {
+                future = router.executor.submit(drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                LOGGER.error("Cannot process the messages from {} on {}, the executor rejected the task", client, uri,
+                        e);
+                discard();
+                return;
+            }
+            if (future != null) {
+                // The executor may cancel the queued drain task to make room (DROP_OLDEST rejection policy).
+                future.addListener(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (future.isCancelled()) {
+                            cancelled();
+                        }
+                    }
+                }, new DirectExecutor());
+            }
+        }
+    }
+
+    /**
+     * Called when the drain task has been cancelled before running. The drain is submitted again once. If the
+     * replacement is cancelled too, the executor is saturated, and the pending messages are discarded. Retrying
+     * forever would let two mailboxes evict each other's drain task endlessly.
+     */
+    private void cancelled() {
+        scheduled.set(false);
+        if (rescheduled.compareAndSet(false, true)) {
+            LOGGER.warn("The processing of the messages from {} on {} has been cancelled by the executor, " +
+                    "retrying", client, uri);
+            schedule();
+        } else {
+            LOGGER.error("The processing of the messages from {} on {} has been cancelled by the executor again",
+                    client, uri);
+            rescheduled.set(false);
+            discard();
+        }
+    }
+
+    /**
+     * Applies the overflow policy when the pending messages cannot be processed because the executor refuses to run
+     * the drain task. With {@link Overflow#CLOSE}, the connection is closed. In all cases, the pending messages are
+     * dropped and the reading is resumed if it was paused, so the client does not stall forever.
+     */
+    private void discard() {
+        if (overflow == Overflow.CLOSE) {
+            LOGGER.warn("Closing the connection of {} on {}", client, uri);
+            router.closeClient(uri, client);
+        }
+        int dropped = 0;
+        while (queue.poll() != null) {
+            dropped++;
+        }
+        size.addAndGet(-dropped);
+        LOGGER.warn("{} pending message(s) from {} on {} dropped", dropped, client, uri);
+        if (paused.compareAndSet(true, false)) {
+            router.resumeClient(uri, client);
+        }
+    }
+
+    private void drain() {
+        rescheduled.set(false);
+        int processed = 0;
+        Runnable task;
+        while (processed < BATCH && (task = queue.poll()) != null) {
+            try {
+                task.run();
+            } finally {
+                processed++;
+                int remaining = size.decrementAndGet();
+                if (remaining <= capacity / 2 && paused.compareAndSet(true, false)) {
+                    router.resumeClient(uri, client);
+                }
+            }
+        }
+        scheduled.set(false);
+        // Messages may have been enqueued after the last poll, or the batch is complete.
+        if (!queue.isEmpty()) {
+            schedule();
+        }
+    }
+
+    /**
+     * Runs the listeners in the thread completing the future.
+     */
+    private static class DirectExecutor implements Executor {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    }
+}
@@ -21,7 +21,6 @@ package org.wisdom.router;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.net.MediaType;
 import org.apache.felix.ipojo.annotations.*;
@@ -40,9 +39,8 @@ import org.wisdom.api.router.RouteUtils;
 import org.wisdom.api.router.RoutingException;
 
 import javax.validation.Validator;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -55,31 +53,6 @@ public class RequestRouter extends AbstractRouter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RequestRouter.class);
 
-    private static final Map<String, String> PERCENT_ENCODING_MAP = new TreeMap<>();
-
-    static {
-        // Reserved characters.
-        PERCENT_ENCODING_MAP.put("/", "%2F");
-
-        // Common characters
-        PERCENT_ENCODING_MAP.put(" ", "%20");
-        PERCENT_ENCODING_MAP.put("\"", "%22");
-        PERCENT_ENCODING_MAP.put("%", "%25");
-        PERCENT_ENCODING_MAP.put("-", "%2D");
-        PERCENT_ENCODING_MAP.put("<", "%3C");
-        PERCENT_ENCODING_MAP.put(">", "%3E");
-        PERCENT_ENCODING_MAP.put("\\", "%5C");
-        PERCENT_ENCODING_MAP.put("ˆ", "%5E");
-        PERCENT_ENCODING_MAP.put("_", "%5F");
-        PERCENT_ENCODING_MAP.put("`", "%60");
-        PERCENT_ENCODING_MAP.put("{", "%7B");
-        PERCENT_ENCODING_MAP.put("|", "%7C");
-        PERCENT_ENCODING_MAP.put("}", "%7D");
-
-        // New line
-        PERCENT_ENCODING_MAP.put("\n", "%0A");
-    }
-
     /**
      * The comparator used to sort filters.
      */
@@ -96,6 +69,17 @@ public class RequestRouter extends AbstractRouter {
 
     private Set<RouteDelegate> routes = new LinkedHashSet<>();
 
+    /**
+     * The reverse routing index: controller class name - action method name - url template of the first route
+     * invoking the action method. It is rebuilt when controllers come and go, and read without lock.
+     */
+    private volatile Map<String, Map<String, UrlTemplate>> reverseRoutes = Collections.emptyMap();
+
+    /**
+     * The generation of the routes, incremented once the routes have been added or removed.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
     /**
      * Binds a new controller.
      *
@@ -126,6 +110,7 @@ public class RequestRouter extends AbstractRouter {
             // remove all new routes as one has failed
             routes.removeAll(newRoutes); //NOSONAR
         }
+        routesChanged();
     }
 
     /**
@@ -142,6 +127,21 @@ public class RequestRouter extends AbstractRouter {
                 routes.remove(r);
             }
         }
+        routesChanged();
+    }
+
+    private void routesChanged() {
+        indexReverseRoutes();
+        generation.incrementAndGet();
+    }
+
+    private void indexReverseRoutes() {
+        Map<String, Map<String, UrlTemplate>> index = new HashMap<>();
+        for (RouteDelegate route : routes) {
+            index.computeIfAbsent(route.getControllerClass().getName(), k -> new HashMap<>())
+                    .putIfAbsent(route.getControllerMethod().getName(), UrlTemplate.compile(route.getUrl()));
+        }
+        reverseRoutes = index;
     }
 
     private void ensureNoConflicts(List<Route> newRoutes) {
@@ -219,6 +219,8 @@ public class RequestRouter extends AbstractRouter {
     @Invalidate
     public void stop() {
         routes.clear();
+        reverseRoutes = Collections.emptyMap();
+        generation.incrementAndGet();
     }
 
     private synchronized Set<Route> copy() {
@@ -303,13 +305,15 @@ public class RequestRouter extends AbstractRouter {
      */
     @Override
     public String getReverseRouteFor(String className, String method, Map<String, Object> params) {
-        for (Route route : copy()) {
-            if (route.getControllerClass().getName().equals(className)
-                    && route.getControllerMethod().getName().equals(method)) {
-                return computeUrlForRoute(route, params);
-            }
+        Map<String, UrlTemplate> actions = reverseRoutes.get(className);
+        if (actions == null) {
+            return null;
+        }
+        UrlTemplate template = actions.get(method);
+        if (template == null) {
+            return null;
         }
-        return null;
+        return template.expand(params);
     }
 
     /**
@@ -320,85 +324,12 @@ public class RequestRouter extends AbstractRouter {
         return copy();
     }
 
-    private String computeUrlForRoute(Route route, Map<String, Object> params) {
-        if (params == null) {
-            // No variables, return the raw url.
-            return route.getUrl();
-        }
-
-        // The original url. Something like route/user/{id}/{email}/userDashboard
-        String urlWithReplacedPlaceholders = route.getUrl();
-
-        Map<String, Object> queryParameterMap = Maps.newHashMap();
-
-        for (Map.Entry<String, Object> entry : params.entrySet()) {
-            String originalRegexEscaped = String.format("\\{%s(\\+)?\\}", entry.getKey());
-            // If regex is in the url as placeholder we replace the placeholder
-            final boolean containVar = urlWithReplacedPlaceholders.contains("{" + entry.getKey() + "}");
-            final boolean containAndCanSpreadOnSeveralSegment
-                    = urlWithReplacedPlaceholders.contains("{" + entry.getKey() + "+}");
-            if (containVar || containAndCanSpreadOnSeveralSegment) {
-                urlWithReplacedPlaceholders = urlWithReplacedPlaceholders.replaceAll(
-                        originalRegexEscaped,
-                        pathEncode(entry.getValue().toString(), containAndCanSpreadOnSeveralSegment));
-                // If the parameter is not there as placeholder we add it as queryParameter
-            } else {
-                queryParameterMap.put(entry.getKey(), entry.getValue());
-            }
-        }
-
-        // now prepare the query string for this url if we got some query params
-        if (!queryParameterMap.entrySet().isEmpty()) {
-
-            StringBuilder queryParameterStringBuffer = new StringBuilder();
-
-            // The uri is now replaced => we now have to add potential query parameters
-            for (Iterator<Map.Entry<String, Object>> iterator = queryParameterMap.entrySet().iterator();
-                 iterator.hasNext(); ) {
-
-                Map.Entry<String, Object> queryParameterEntry = iterator.next();
-                queryParameterStringBuffer.append(queryParameterEntry.getKey());
-                queryParameterStringBuffer.append("=");
-                // Don't forget to encode the value.
-                queryParameterStringBuffer.append(encode(queryParameterEntry.getValue().toString()));
-
-                if (iterator.hasNext()) {
-                    queryParameterStringBuffer.append("&");
-                }
-
-            }
-
-            urlWithReplacedPlaceholders = urlWithReplacedPlaceholders
-                    + "?"
-                    + queryParameterStringBuffer.toString();
-        }
-
-
-        return urlWithReplacedPlaceholders;
-    }
-
-    private String pathEncode(String s, boolean canSpreadOnSeveralSegments) {
-        String copy = s;
-        for (Map.Entry<String, String> c : PERCENT_ENCODING_MAP.entrySet()) {
-            if (s.contains(c.getKey())) {
-                if (c.getKey().endsWith("/") && canSpreadOnSeveralSegments) {
-                    // The canSpreadOnSeveralSegments parameter is true when the uri contains + such as in {path+}. In this
-                    // case, we must not convert "/" by the percent value.
-                    continue;
-                }
-                copy = copy.replace(c.getKey(), c.getValue());
-            }
-        }
-        return copy;
-    }
-
-    private String encode(String v) {
-        try {
-            return URLEncoder.encode(v, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            // UTF-8 is part of the JVM specification.
-            throw new IllegalArgumentException("UTF-8 not supported", e);
-        }
+    /**
+     * @return the generation of the routes, incremented each time controllers are bound or unbound.
+     */
+    @Override
+    public long getRoutesGeneration() {
+        return generation.get();
     }
 
     /**
@@ -466,6 +397,15 @@ public class RequestRouter extends AbstractRouter {
         this.engine = parameterConverterEngine;
     }
 
+    /**
+     * Sets the interceptors. For testing purpose only.
+     *
+     * @param interceptors the interceptors
+     */
+    public void setInterceptors(List<Interceptor<?>> interceptors) {
+        this.interceptors = interceptors;
+    }
+
     private static final Comparator<Filter> COMPARATOR = (o1, o2) -> {
 
         // In case of object equality, returns 0.
@@ -0,0 +1,214 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The url of a route compiled into a sequence of literal and parameter segments, so the reverse routing builds the
+ * url in a single pass. A parameter is written {@code {name}}, or {@code {name+}} when its value can spread on
+ * several path segments (in this case "/" is not encoded).
+ * <p>
+ * Parameter values are percent-encoded (RFC 3986), parameters that are not used in the path are appended to the
+ * query string. Placeholders without value are left as they are.
+ */
+final class UrlTemplate {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * The characters that do not need to be encoded in a path segment: the unreserved characters, the
+     * sub-delimiters, ':' and '@'.
+     */
+    private static final boolean[] SEGMENT_CHARACTERS = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            SEGMENT_CHARACTERS[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            SEGMENT_CHARACTERS[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            SEGMENT_CHARACTERS[c] = true;
+        }
+        for (char c : "-._~!$&'()*+,;=:@".toCharArray()) {
+            SEGMENT_CHARACTERS[c] = true;
+        }
+    }
+
+    private final String url;
+
+    /**
+     * The literal segments, {@code literals[i]} precedes the parameter {@code i}, the last one ends the url.
+     */
+    private final String[] literals;
+
+    private final String[] names;
+
+    private final String[] placeholders;
+
+    private final boolean[] spread;
+
+    private UrlTemplate(String url, List<String> literals, List<String> names, List<String> placeholders,
+                        List<Boolean> spread) {
+        this.url = url;
+        this.literals = literals.toArray(new String[literals.size()]);
+        this.names = names.toArray(new String[names.size()]);
+        this.placeholders = placeholders.toArray(new String[placeholders.size()]);
+        this.spread = new boolean[spread.size()];
+        for (int i = 0; i < this.spread.length; i++) {
+            this.spread[i] = spread.get(i);
+        }
+    }
+
+    /**
+     * Compiles the url of a route.
+     *
+     * @param url the url, such as {@code /user/{id}/{path+}}
+     * @return the template
+     */
+    static UrlTemplate compile(String url) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        List<Boolean> spread = new ArrayList<>();
+
+        int start = 0;
+        int open = url.indexOf('{');
+        while (open != -1) {
+            int close = url.indexOf('}', open);
+            if (close == -1) {
+                break;
+            }
+            String name = url.substring(open + 1, close);
+            boolean canSpreadOnSeveralSegments = name.endsWith("+");
+            literals.add(url.substring(start, open));
+            names.add(canSpreadOnSeveralSegments ? name.substring(0, name.length() - 1) : name);
+            placeholders.add(url.substring(open, close + 1));
+            spread.add(canSpreadOnSeveralSegments);
+            start = close + 1;
+            open = url.indexOf('{', start);
+        }
+        literals.add(url.substring(start));
+        return new UrlTemplate(url, literals, names, placeholders, spread);
+    }
+
+    /**
+     * @return the url of the route, as declared.
+     */
+    String url() {
+        return url;
+    }
+
+    /**
+     * Builds the url with the given parameters.
+     *
+     * @param params the parameters (name - value), may be {@code null}
+     * @return the url
+     */
+    String expand(Map<String, Object> params) {
+        if (params == null || params.isEmpty()) {
+            // No variables, return the raw url.
+            return url;
+        }
+
+        StringBuilder builder = new StringBuilder(url.length() + 32);
+        for (int i = 0; i < names.length; i++) {
+            builder.append(literals[i]);
+            Object value = params.get(names[i]);
+            if (value == null) {
+                builder.append(placeholders[i]);
+            } else {
+                appendPathEncoded(builder, value.toString(), spread[i]);
+            }
+        }
+        builder.append(literals[names.length]);
+
+        char separator = '?';
+        for (Map.Entry<String, Object> entry : params.entrySet()) {
+            if (entry.getValue() != null && !isParameter(entry.getKey())) {
+                builder.append(separator).append(entry.getKey()).append('=')
+                        .append(encode(entry.getValue().toString()));
+                separator = '&';
+            }
+        }
+        return builder.toString();
+    }
+
+    private boolean isParameter(String name) {
+        for (String n : names) {
+            if (n.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends the percent-encoded form of a path parameter value.
+     *
+     * @param builder                    the builder
+     * @param value                      the value
+     * @param canSpreadOnSeveralSegments whether or not "/" is kept as it is
+     */
+    static void appendPathEncoded(StringBuilder builder, String value, boolean canSpreadOnSeveralSegments) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 128) {
+                if (SEGMENT_CHARACTERS[c] || c == '/' && canSpreadOnSeveralSegments) {
+                    builder.append(c);
+                } else {
+                    appendEncodedByte(builder, c);
+                }
+            } else {
+                // Encode the UTF-8 form of the code point, surrogate pairs included.
+                int end = Character.isHighSurrogate(c) && i + 1 < value.length() ? i + 2 : i + 1;
+                for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                    appendEncodedByte(builder, b);
+                }
+                i = end - 1;
+            }
+        }
+    }
+
+    private static void appendEncodedByte(StringBuilder builder, int b) {
+        builder.append('%').append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is part of the JVM specification.
+            throw new IllegalArgumentException("UTF-8 not supported", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
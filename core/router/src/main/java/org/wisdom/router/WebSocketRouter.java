@@ -21,6 +21,8 @@ package org.wisdom.router;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.NullNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.felix.ipojo.annotations.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +31,7 @@ import org.wisdom.api.annotations.Closed;
 import org.wisdom.api.annotations.OnMessage;
 import org.wisdom.api.annotations.Opened;
 import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.content.ContentEngine;
 import org.wisdom.api.content.ParameterFactories;
 import org.wisdom.api.http.websockets.Publisher;
@@ -39,10 +42,19 @@ import org.wisdom.api.router.RouteUtils;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
-import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Component handling web socket frame routing.
+ * <p>
+ * Each client has a {@link Mailbox}: the messages it sends are processed one at a time, in order, on the system
+ * executor. The number of pending messages per client is bounded by {@code websocket.mailbox.capacity}. When the
+ * mailbox is full, the {@code websocket.mailbox.overflow} policy decides whether the reading from the client is
+ * paused ({@code pause}, the default), the message is dropped ({@code drop}) or the connection closed
+ * ({@code close}).
  */
 @Component(immediate = true)
 @Provides(specifications = Publisher.class)
@@ -51,12 +63,31 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WebSocketRouter.class);
 
+    /**
+     * The configuration key setting the maximum number of pending messages per client.
+     */
+    public static final String MAILBOX_CAPACITY = "websocket.mailbox.capacity";
+
+    /**
+     * The default maximum number of pending messages per client.
+     */
+    public static final int MAILBOX_CAPACITY_DEFAULT = 1024;
+
+    /**
+     * The configuration key setting the policy applied when a client mailbox is full: {@code pause},
+     * {@code drop} or {@code close}.
+     */
+    public static final String MAILBOX_OVERFLOW = "websocket.mailbox.overflow";
+
     @Requires
     WebSocketDispatcher[] dispatchers;
 
     Set<DefaultWebSocketCallback> opens = new LinkedHashSet<>();
     Set<DefaultWebSocketCallback> closes = new LinkedHashSet<>();
-    Set<OnMessageWebSocketCallback> listeners = new LinkedHashSet<>();
+    /**
+     * The {@link OnMessage} callbacks, read without lock for each received message.
+     */
+    final List<OnMessageWebSocketCallback> listeners = new CopyOnWriteArrayList<>();
 
     @Requires(optional = true)
     private ContentEngine contentEngine;
@@ -67,6 +98,23 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
     @Requires(filter = "(name=" + ManagedExecutorService.SYSTEM + ")")
     ManagedExecutorService executor;
 
+    @Requires(optional = true, nullable = false)
+    ApplicationConfiguration configuration;
+
+    /**
+     * The mailboxes of the connected clients, indexed by client id.
+     */
+    final ConcurrentMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * The ids of the recently closed clients. A message from one of these clients, dispatched after the closing, must
+     * not recreate its mailbox. Client ids are not reused, so the entries only need to outlive the in-flight messages.
+     */
+    final Cache<String, Boolean> closedClients = CacheBuilder.newBuilder()
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .maximumSize(10000)
+            .build();
+
     /**
      * @return the logger.
      */
@@ -152,7 +200,7 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
                 OnMessageWebSocketCallback callback = new OnMessageWebSocketCallback(controller, method,
                         RouteUtils.getPrefixedUri(prefix, on.value()), this);
                 if (callback.check()) {
-                    listeners.add(callback);
+                    listeners.addIfAbsent(callback);
                 }
             }
         }
@@ -199,27 +247,122 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
      * @param content the received content
      */
     @Override
-    public void received(final String uri, final String from, final byte[] content) {
-        for (final OnMessageWebSocketCallback listener : listeners) {
+    public void received(String uri, String from, byte[] content) {
+        received(uri, from, content, false);
+    }
+
+    /**
+     * Handles the reception of a message.
+     *
+     * @param uri     the url of the web socket
+     * @param from    the client having sent the message (octal id).
+     * @param content the received content
+     * @param binary  whether the message was sent as binary or text frames
+     */
+    @Override
+    public void received(final String uri, final String from, final byte[] content, final boolean binary) {
+        final List<OnMessageWebSocketCallback> matching = new ArrayList<>(1);
+        for (OnMessageWebSocketCallback listener : listeners) {
             if (listener.matches(uri)) {
-                 executor.submit(new Callable<Void>() {
-                     @Override
-                     public Void call() throws Exception {
-                         try {
-                             listener.invoke(uri, from, content);
-                         } catch (InvocationTargetException e) { //NOSONAR
-                             LOGGER.error("An error occurred in the @OnMessage callback {}#{} : {}",
-                                     listener.getController().getClass().getName(), listener.getMethod().getName
-                                             (), e.getTargetException().getMessage(), e.getTargetException()
-                             );
-                         } catch (Exception e) {
-                             LOGGER.error("An error occurred in the @OnMessage callback {}#{} : {}",
-                                     listener.getController().getClass().getName(), listener.getMethod().getName(), e.getMessage(), e);
-                         }
-                         return null;
-                     }
-                 });
+                matching.add(listener);
+            }
+        }
+        if (matching.isEmpty()) {
+            return;
+        }
+
+        // The mailbox is normally created when the client is opened. Clients connected before this router was
+        // bound have not been seen opening, their mailbox is created on their first message. A message from a closed
+        // client (or processed after its closing) is dropped, it must not recreate the mailbox.
+        Mailbox mailbox = mailboxes.get(from);
+        if (mailbox == null) {
+            if (closedClients.getIfPresent(from) != null) {
+                LOGGER.debug("Dropping a message received on {} from {}, the client is closed", uri, from);
+                return;
+            }
+            Mailbox created = createMailbox(uri, from);
+            mailbox = mailboxes.putIfAbsent(from, created);
+            if (mailbox == null) {
+                if (closedClients.getIfPresent(from) != null) {
+                    // The client has been closed concurrently.
+                    mailboxes.remove(from, created);
+                    return;
+                }
+                LOGGER.warn("Message received on {} from {} without a prior opening, creating its mailbox", uri,
+                        from);
+                mailbox = created;
+            }
+        }
+        mailbox.offer(new Runnable() {
+            @Override
+            public void run() {
+                for (OnMessageWebSocketCallback listener : matching) {
+                    try {
+                        listener.invoke(uri, from, content, binary);
+                    } catch (InvocationTargetException e) { //NOSONAR
+                        LOGGER.error("An error occurred in the @OnMessage callback {}#{} : {}",
+                                listener.getController().getClass().getName(), listener.getMethod().getName
+                                        (), e.getTargetException().getMessage(), e.getTargetException()
+                        );
+                    } catch (Exception e) {
+                        LOGGER.error("An error occurred in the @OnMessage callback {}#{} : {}",
+                                listener.getController().getClass().getName(), listener.getMethod().getName(), e.getMessage(), e);
+                    }
+                }
             }
+        });
+    }
+
+    private Mailbox createMailbox(String uri, String client) {
+        int capacity = MAILBOX_CAPACITY_DEFAULT;
+        Mailbox.Overflow overflow = Mailbox.Overflow.PAUSE;
+        if (configuration != null) {
+            capacity = configuration.getIntegerWithDefault(MAILBOX_CAPACITY, MAILBOX_CAPACITY_DEFAULT);
+            String policy = configuration.get(MAILBOX_OVERFLOW);
+            if (policy != null) {
+                try {
+                    overflow = Mailbox.Overflow.valueOf(policy.trim().toUpperCase(Locale.ENGLISH));
+                } catch (IllegalArgumentException e) { //NOSONAR
+                    LOGGER.error("Invalid value for {} : '{}', using 'pause'", MAILBOX_OVERFLOW, policy);
+                }
+            }
+        }
+        return new Mailbox(this, uri, client, capacity, overflow);
+    }
+
+    /**
+     * Stops reading the frames sent by the given client.
+     *
+     * @param uri    the url of the web socket
+     * @param client the client id
+     */
+    void pauseClient(String uri, String client) {
+        for (WebSocketDispatcher dispatcher : dispatchers) {
+            dispatcher.pause(uri, client);
+        }
+    }
+
+    /**
+     * Reads again the frames sent by the given client.
+     *
+     * @param uri    the url of the web socket
+     * @param client the client id
+     */
+    void resumeClient(String uri, String client) {
+        for (WebSocketDispatcher dispatcher : dispatchers) {
+            dispatcher.resume(uri, client);
+        }
+    }
+
+    /**
+     * Closes the connection of the given client.
+     *
+     * @param uri    the url of the web socket
+     * @param client the client id
+     */
+    void closeClient(String uri, String client) {
+        for (WebSocketDispatcher dispatcher : dispatchers) {
+            dispatcher.close(uri, client);
         }
     }
 
@@ -231,6 +374,11 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
      */
     @Override
     public void opened(String uri, String client) {
+        closedClients.invalidate(client);
+        // Keep the mailbox if it has been created by a message received before the opening notification.
+        if (mailboxes.putIfAbsent(client, createMailbox(uri, client)) != null) {
+            LOGGER.debug("The mailbox of {} on {} already exists", client, uri);
+        }
         for (DefaultWebSocketCallback open : opens) {
             if (open.matches(uri)) {
                 try {
@@ -256,6 +404,8 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
      */
     @Override
     public void closed(String uri, String client) {
+        closedClients.put(client, Boolean.TRUE);
+        mailboxes.remove(client);
         for (DefaultWebSocketCallback close : closes) {
             if (close.matches(uri)) {
                 try {
@@ -102,6 +102,32 @@ public class ReverseRouterTest {
 
     }
 
+    @Test
+    public void testIndexMaintainedOnBindAndUnbind() {
+        FakeController controller1 = new FakeController();
+        controller1.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo").to(controller1, "foo")
+        ));
+        FakeController controller2 = new FakeController();
+        controller2.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/bar/{id}").to(controller2, "foo"),
+                new RouteBuilder().route(HttpMethod.GET).on("/bar").to(controller2, "bar")
+        ));
+        router.bindController(controller1);
+        router.bindController(controller2);
+
+        // The first route invoking the action method is used.
+        assertThat(router.getReverseRouteFor(FakeController.class, "foo", "id", 1)).isEqualTo("/foo?id=1");
+        assertThat(router.getReverseRouteFor(FakeController.class, "bar")).isEqualTo("/bar");
+
+        router.unbindController(controller1);
+        assertThat(router.getReverseRouteFor(FakeController.class, "foo", "id", 1)).isEqualTo("/bar/1");
+
+        router.unbindController(controller2);
+        assertThat(router.getReverseRouteFor(FakeController.class, "foo")).isNull();
+        assertThat(router.getReverseRouteFor(FakeController.class, "bar")).isNull();
+    }
+
     @Test
     public void testURLEncoding() throws Exception {
         router.bindController(new UrlCodingController());
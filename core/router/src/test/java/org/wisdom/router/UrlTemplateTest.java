@@ -0,0 +1,82 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the compilation and the expansion of the route urls.
+ */
+public class UrlTemplateTest {
+
+    @Test
+    public void testUrlWithoutParameters() {
+        UrlTemplate template = UrlTemplate.compile("/foo/bar");
+        assertThat(template.expand(null)).isEqualTo("/foo/bar");
+        assertThat(template.expand(Collections.<String, Object>emptyMap())).isEqualTo("/foo/bar");
+        assertThat(template.expand(ImmutableMap.<String, Object>of("q", "v", "p", 1))).isEqualTo("/foo/bar?q=v&p=1");
+    }
+
+    @Test
+    public void testParameters() {
+        UrlTemplate template = UrlTemplate.compile("/foo/{id}/{email}/dashboard");
+        assertThat(template.expand(ImmutableMap.<String, Object>of("id", 1, "email", "foo@aol.com")))
+                .isEqualTo("/foo/1/foo@aol.com/dashboard");
+        // Missing parameters are left as they are.
+        assertThat(template.expand(ImmutableMap.<String, Object>of("id", 1)))
+                .isEqualTo("/foo/1/{email}/dashboard");
+        // The same parameter used twice.
+        assertThat(UrlTemplate.compile("/{id}/{id}").expand(ImmutableMap.<String, Object>of("id", "x")))
+                .isEqualTo("/x/x");
+    }
+
+    @Test
+    public void testParameterSpreadingOnSeveralSegments() {
+        UrlTemplate template = UrlTemplate.compile("/assets/{path+}");
+        assertThat(template.expand(ImmutableMap.<String, Object>of("path", "css/my style.css")))
+                .isEqualTo("/assets/css/my%20style.css");
+        assertThat(UrlTemplate.compile("/assets/{path}").expand(ImmutableMap.<String, Object>of("path", "css/a.css")))
+                .isEqualTo("/assets/css%2Fa.css");
+    }
+
+    @Test
+    public void testPercentEncoding() {
+        UrlTemplate template = UrlTemplate.compile("/{p}");
+        // Every character is encoded once.
+        assertThat(template.expand(ImmutableMap.<String, Object>of("p", "100% sure"))).isEqualTo("/100%25%20sure");
+        assertThat(template.expand(ImmutableMap.<String, Object>of("p", "a-b_c.d~e"))).isEqualTo("/a-b_c.d~e");
+        assertThat(template.expand(ImmutableMap.<String, Object>of("p", "<{|}>^`\"\\")))
+                .isEqualTo("/%3C%7B%7C%7D%3E%5E%60%22%5C");
+        assertThat(template.expand(ImmutableMap.<String, Object>of("p", "a?b#c\n"))).isEqualTo("/a%3Fb%23c%0A");
+        // UTF-8, surrogate pairs included.
+        assertThat(template.expand(ImmutableMap.<String, Object>of("p", "\u00e9t\u00e9")))
+                .isEqualTo("/%C3%A9t%C3%A9");
+        assertThat(template.expand(ImmutableMap.<String, Object>of("p", "\uD83D\uDE00")))
+                .isEqualTo("/%F0%9F%98%80");
+        // The query string is form-encoded.
+        assertThat(template.expand(ImmutableMap.<String, Object>of("p", "a b", "q", "a b&c")))
+                .isEqualTo("/a%20b?q=a+b%26c");
+    }
+}
@@ -30,16 +30,23 @@ import org.mockito.stubbing.Answer;
 import org.wisdom.api.DefaultController;
 import org.wisdom.api.annotations.*;
 import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.concurrent.ManagedFutureTask;
+import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.content.ParameterConverter;
 import org.wisdom.api.content.ParameterFactory;
 import org.wisdom.api.http.websockets.WebSocketDispatcher;
 import org.wisdom.content.converters.ParamConverterEngine;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
@@ -124,6 +131,7 @@ public class WebSocketRouterTest {
         assertThat(router.listeners.iterator().next().check()).isTrue();
         assertThat(router.listeners.iterator().next().getController()).isEqualTo(controller);
 
+        router.opened("/ws", "client");
         router.received("/ws", "client", "hello".getBytes(Charset.defaultCharset()));
 
         assertThat(message).isEqualTo("hello");
@@ -167,6 +175,7 @@ public class WebSocketRouterTest {
         assertThat(router.listeners.iterator().next().check()).isTrue();
         assertThat(router.listeners.iterator().next().getController()).isEqualTo(controller);
 
+        router.opened("/ws/foo", "client");
         router.received("/ws/foo", "client", "hello".getBytes(Charset.defaultCharset()));
 
         assertThat(results)
@@ -333,5 +342,329 @@ public class WebSocketRouterTest {
         verify(dispatcher, times(1)).publish("/ws", NullNode.getInstance().toString());
     }
 
+    /**
+     * Creates a router whose executor only records the submitted tasks, so the test decides when they run.
+     */
+    private WebSocketRouter routerWithManualExecutor(final List<Callable<Void>> tasks) {
+        WebSocketRouter router = new WebSocketRouter();
+        router.dispatchers = new WebSocketDispatcher[]{mock(WebSocketDispatcher.class)};
+        router.executor = mock(ManagedExecutorService.class);
+        router.converter = new ParamConverterEngine(
+                Collections.<ParameterConverter>emptyList(),
+                Collections.<ParameterFactory>emptyList());
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                tasks.add((Callable<Void>) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(router.executor).submit(any(Callable.class));
+        return router;
+    }
+
+    private static void runAll(List<Callable<Void>> tasks) throws Exception {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).call();
+        }
+    }
+
+    @Test
+    public void testMessagesFromAClientAreProcessedInOrder() throws Exception {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        WebSocketRouter router = routerWithManualExecutor(tasks);
+        final List<String> received = new ArrayList<>();
+        final DefaultController controller = new DefaultController() {
+
+            @OnMessage("/ws")
+            public void foo(@Body String message) {
+                received.add(message);
+            }
+
+        };
+        router.bindController(controller);
+        router.opened("/ws", "client");
+
+        for (int i = 0; i < 10; i++) {
+            router.received("/ws", "client", Integer.toString(i).getBytes(Charset.defaultCharset()));
+        }
+        // A single task drains the mailbox.
+        assertThat(tasks).hasSize(1);
+        runAll(tasks);
+        assertThat(received).containsExactly("0", "1", "2", "3", "4", "5", "6", "7", "8", "9");
+
+        router.closed("/ws", "client");
+        assertThat(router.mailboxes).isEmpty();
+    }
+
+    @Test
+    public void testReadingIsPausedWhenTheMailboxIsFull() throws Exception {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        WebSocketRouter router = routerWithManualExecutor(tasks);
+        router.configuration = mock(ApplicationConfiguration.class);
+        when(router.configuration.getIntegerWithDefault(WebSocketRouter.MAILBOX_CAPACITY,
+                WebSocketRouter.MAILBOX_CAPACITY_DEFAULT)).thenReturn(4);
+        WebSocketDispatcher dispatcher = router.dispatchers[0];
+        final List<String> received = new ArrayList<>();
+        router.bindController(new DefaultController() {
+
+            @OnMessage("/ws")
+            public void foo(@Body String message) {
+                received.add(message);
+            }
+
+        });
+        router.opened("/ws", "client");
+
+        for (int i = 0; i < 5; i++) {
+            router.received("/ws", "client", Integer.toString(i).getBytes(Charset.defaultCharset()));
+        }
+        verify(dispatcher, times(1)).pause("/ws", "client");
+        assertThat(router.mailboxes.get("client").isPaused()).isTrue();
+
+        runAll(tasks);
+        // Nothing was lost
+        assertThat(received).hasSize(5);
+        verify(dispatcher, times(1)).resume("/ws", "client");
+        assertThat(router.mailboxes.get("client").isPaused()).isFalse();
+    }
+
+    @Test
+    public void testDropAndCloseOverflowPolicies() throws Exception {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        WebSocketRouter router = routerWithManualExecutor(tasks);
+        router.configuration = mock(ApplicationConfiguration.class);
+        when(router.configuration.getIntegerWithDefault(WebSocketRouter.MAILBOX_CAPACITY,
+                WebSocketRouter.MAILBOX_CAPACITY_DEFAULT)).thenReturn(2);
+        when(router.configuration.get(WebSocketRouter.MAILBOX_OVERFLOW)).thenReturn("drop");
+        WebSocketDispatcher dispatcher = router.dispatchers[0];
+        final List<String> received = new ArrayList<>();
+        router.bindController(new DefaultController() {
+
+            @OnMessage("/ws")
+            public void foo(@Body String message) {
+                received.add(message);
+            }
+
+        });
+
+        router.opened("/ws", "client");
+        for (int i = 0; i < 5; i++) {
+            router.received("/ws", "client", Integer.toString(i).getBytes(Charset.defaultCharset()));
+        }
+        runAll(tasks);
+        assertThat(received).containsExactly("0", "1");
+        verify(dispatcher, never()).pause("/ws", "client");
+        verify(dispatcher, never()).close("/ws", "client");
+
+        received.clear();
+        when(router.configuration.get(WebSocketRouter.MAILBOX_OVERFLOW)).thenReturn("close");
+        router.opened("/ws", "other");
+        for (int i = 0; i < 3; i++) {
+            router.received("/ws", "other", Integer.toString(i).getBytes(Charset.defaultCharset()));
+        }
+        runAll(tasks);
+        assertThat(received).containsExactly("0", "1");
+        verify(dispatcher, times(1)).close("/ws", "other");
+    }
+
+    @Test
+    public void testMessagesFromClosedClientsAreDropped() throws Exception {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        WebSocketRouter router = routerWithManualExecutor(tasks);
+        final List<String> received = new ArrayList<>();
+        router.bindController(new DefaultController() {
+
+            @OnMessage("/ws")
+            public void foo(@Body String message) {
+                received.add(message);
+            }
+
+        });
+
+        router.opened("/ws", "client");
+        router.received("/ws", "client", "before".getBytes(Charset.defaultCharset()));
+        router.closed("/ws", "client");
+        // A message read before the closing, but dispatched after.
+        router.received("/ws", "client", "after".getBytes(Charset.defaultCharset()));
+        runAll(tasks);
+
+        assertThat(received).containsExactly("before");
+        assertThat(router.mailboxes).isEmpty();
+    }
+
+    @Test
+    public void testMailboxIsCreatedForClientsConnectedBeforeTheRouter() throws Exception {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        WebSocketRouter router = routerWithManualExecutor(tasks);
+        final List<String> received = new ArrayList<>();
+        router.bindController(new DefaultController() {
+
+            @OnMessage("/ws")
+            public void foo(@Body String message) {
+                received.add(message);
+            }
+
+        });
+
+        // The client was connected before the router was bound, its opening has not been seen.
+        router.received("/ws", "client", "first".getBytes(Charset.defaultCharset()));
+        assertThat(router.mailboxes).containsKey("client");
+        // A late opening notification keeps the mailbox and its pending messages.
+        Mailbox mailbox = router.mailboxes.get("client");
+        router.opened("/ws", "client");
+        assertThat(router.mailboxes.get("client")).isSameAs(mailbox);
+        router.received("/ws", "client", "second".getBytes(Charset.defaultCharset()));
+        runAll(tasks);
+        assertThat(received).containsExactly("first", "second");
+
+        router.closed("/ws", "client");
+        router.received("/ws", "client", "third".getBytes(Charset.defaultCharset()));
+        runAll(tasks);
+        assertThat(received).containsExactly("first", "second");
+        assertThat(router.mailboxes).isEmpty();
+    }
+
+    @Test
+    public void testPendingMessagesAreDroppedWhenTheExecutorRejectsTheDrain() throws Exception {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        WebSocketRouter router = routerWithManualExecutor(tasks);
+        router.configuration = mock(ApplicationConfiguration.class);
+        when(router.configuration.getIntegerWithDefault(WebSocketRouter.MAILBOX_CAPACITY,
+                WebSocketRouter.MAILBOX_CAPACITY_DEFAULT)).thenReturn(1);
+        WebSocketDispatcher dispatcher = router.dispatchers[0];
+        final List<String> received = new ArrayList<>();
+        router.bindController(new DefaultController() {
+
+            @OnMessage("/ws")
+            public void foo(@Body String message) {
+                received.add(message);
+            }
+
+        });
+        router.opened("/ws", "client");
+
+        // The drain task is rejected: the message cannot be processed.
+        doThrow(new RejectedExecutionException("saturated")).when(router.executor).submit(any(Callable.class));
+        router.received("/ws", "client", "0".getBytes(Charset.defaultCharset()));
+        Mailbox mailbox = router.mailboxes.get("client");
+        assertThat(mailbox.size()).isEqualTo(0);
+        // The reading has been resumed, so the client is not stalled.
+        verify(dispatcher, times(1)).pause("/ws", "client");
+        verify(dispatcher, times(1)).resume("/ws", "client");
+        assertThat(mailbox.isPaused()).isFalse();
+        verify(dispatcher, never()).close("/ws", "client");
+
+        // Once the executor accepts the task again, the messages are processed.
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                tasks.add((Callable<Void>) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(router.executor).submit(any(Callable.class));
+        router.received("/ws", "client", "1".getBytes(Charset.defaultCharset()));
+        runAll(tasks);
+        assertThat(received).containsExactly("1");
+
+        // With the close policy, the connection is closed.
+        when(router.configuration.get(WebSocketRouter.MAILBOX_OVERFLOW)).thenReturn("close");
+        router.opened("/ws", "other");
+        doThrow(new RejectedExecutionException("saturated")).when(router.executor).submit(any(Callable.class));
+        router.received("/ws", "other", "2".getBytes(Charset.defaultCharset()));
+        verify(dispatcher, times(1)).close("/ws", "other");
+        assertThat(router.mailboxes.get("other").size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCancelledDrainIsRescheduled() throws Exception {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        final List<Runnable> listeners = new ArrayList<>();
+        final ManagedFutureTask<Void> future = mock(ManagedFutureTask.class);
+        when(future.isCancelled()).thenReturn(true);
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                listeners.add((Runnable) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(future).addListener(any(Runnable.class), any(Executor.class));
+        WebSocketRouter router = routerWithManualExecutor(tasks);
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                tasks.add((Callable<Void>) invocation.getArguments()[0]);
+                return future;
+            }
+        }).when(router.executor).submit(any(Callable.class));
+        final List<String> received = new ArrayList<>();
+        router.bindController(new DefaultController() {
+
+            @OnMessage("/ws")
+            public void foo(@Body String message) {
+                received.add(message);
+            }
+
+        });
+        router.opened("/ws", "client");
+
+        router.received("/ws", "client", "0".getBytes(Charset.defaultCharset()));
+        assertThat(tasks).hasSize(1);
+        assertThat(listeners).hasSize(1);
+
+        // The executor cancels the queued drain task (DROP_OLDEST), it is submitted again.
+        tasks.clear();
+        listeners.remove(0).run();
+        assertThat(tasks).hasSize(1);
+        assertThat(listeners).hasSize(1);
+
+        // The replacement is cancelled too, the pending messages are dropped.
+        tasks.clear();
+        listeners.remove(0).run();
+        assertThat(tasks).isEmpty();
+        assertThat(router.mailboxes.get("client").size()).isEqualTo(0);
+
+        // The mailbox is not stuck.
+        router.received("/ws", "client", "1".getBytes(Charset.defaultCharset()));
+        assertThat(tasks).hasSize(1);
+        runAll(tasks);
+        assertThat(received).containsExactly("1");
+    }
+
+    @Test
+    public void testBinaryMessages() throws Exception {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        WebSocketRouter router = routerWithManualExecutor(tasks);
+        final Map<String, Object> results = new HashMap<>();
+        router.bindController(new DefaultController() {
+
+            @OnMessage("/bytes")
+            public void bytes(@Body byte[] message) {
+                results.put("bytes", message);
+            }
+
+            @OnMessage("/buffer")
+            public void buffer(@Body ByteBuffer message) {
+                results.put("buffer", message);
+            }
+
+            @OnMessage("/text")
+            public void text(@Body String message) {
+                results.put("text", message);
+            }
+
+        });
+
+        byte[] payload = new byte[]{0, 1, 2, (byte) 0xFF};
+        router.opened("/bytes", "client");
+        router.received("/bytes", "client", payload, true);
+        router.received("/buffer", "client", payload, true);
+        router.received("/text", "client", "h\u00e9llo".getBytes(Charset.forName("UTF-8")), false);
+        runAll(tasks);
+
+        assertThat((byte[]) results.get("bytes")).isSameAs(payload);
+        assertThat(((ByteBuffer) results.get("buffer")).remaining()).isEqualTo(4);
+        assertThat(((ByteBuffer) results.get("buffer")).get(3)).isEqualTo((byte) 0xFF);
+        assertThat(results.get("text")).isEqualTo("h\u00e9llo");
+    }
 
 }
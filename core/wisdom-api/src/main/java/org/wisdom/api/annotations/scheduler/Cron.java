@@ -0,0 +1,76 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.annotations.scheduler;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation to a job executed at the times described by a cron expression, using the Quartz syntax:
+ * <code>
+ *     <pre>
+ *         seconds minutes hours day-of-month month day-of-week [year]
+ *         0 0 3 * * ?: every day at 3:00:00
+ *         0 0/15 9-17 ? * MON-FRI: every 15 minutes from 9:00 to 17:45, from Monday to Friday
+ *         0 30 2 L * ?: at 2:30 on the last day of every month
+ *         0 0 4 ? * 1#1: at 4:00 on the first Sunday of every month
+ *     </pre>
+ * </code>
+ * Each field accepts single values, lists ({@code 1,3,5}), ranges ({@code 1-5}), increments ({@code 0/15}) and
+ * {@code *}. Months and days of week accept their three letters names ({@code JAN}, {@code MON}...), days of week are
+ * numbered from 1 (Sunday) to 7 (Saturday). One of the day-of-month or day-of-week fields must be {@code ?} (or
+ * {@code *}). The day-of-month field accepts {@code L} (last day of the month) and {@code L-n}, the day-of-week field
+ * accepts {@code nL} (last day n of the month) and {@code n#k} (k-th day n of the month). The {@code W} modifier is
+ * not supported.
+ * <p>
+ * The method must be declared by a {@link org.wisdom.api.scheduler.Scheduled} service, be public and take no
+ * parameter.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cron {
+
+    /**
+     * Sets the cron expression.
+     */
+    String value();
+
+    /**
+     * Sets the time zone in which the expression is evaluated, such as {@code Europe/Paris} or {@code UTC}. The
+     * default time zone of the JVM is used if not set.
+     */
+    String timezone() default "";
+
+    /**
+     * Sets the maximum random delay added to each execution, using the same syntax as {@link Every} ({@code 5m},
+     * {@code 1h30m}...). It spreads the executions of the same job scheduled on several nodes. No delay is added
+     * if not set.
+     */
+    String jitter() default "";
+
+    /**
+     * Sets whether or not an execution can start while the previous one is still running. If set to {@code false},
+     * the execution is skipped when the previous one is still running. Executions may overlap by default.
+     */
+    boolean overlap() default true;
+
+}
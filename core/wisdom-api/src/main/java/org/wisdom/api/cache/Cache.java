@@ -21,8 +21,17 @@ package org.wisdom.api.cache;
 
 import org.joda.time.Duration;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
 /**
  * Interface of the case service.
+ * <p>
+ * Besides the basic {@code set} / {@code get} / {@code remove} operations, the service provides bulk operations,
+ * and atomic operations ({@link #putIfAbsent(String, Object, Duration)}, {@link #compareAndSet(String, Object,
+ * Object, Duration)} and {@link #computeIfAbsent(String, Callable, Duration)}) avoiding get-then-set races.
  */
 public interface Cache {
 
@@ -62,4 +71,70 @@ public interface Cache {
      * @return {@literal true} if the value was effectively removed form the cache, {@literal false} otherwise.
      */
     public boolean remove(String key);
+
+    /**
+     * Sets a value into the cache, with both a time-to-live and a time-to-idle. The entry expires when either
+     * the time-to-live is reached, or it was not accessed during the time-to-idle.
+     *
+     * @param key        Item key.
+     * @param value      Item value.
+     * @param expiration Expiration time, {@literal null} means eternity.
+     * @param idle       Maximum time between two accesses, {@literal null} means no idle expiration.
+     * @param <T> the type of the value.
+     */
+    public <T> void set(String key, T value, Duration expiration, Duration idle);
+
+    /**
+     * Retrieves a set of values from the cache.
+     *
+     * @param keys the keys
+     * @param <T>  the expected type of values.
+     * @return the cached values indexed by key. Keys not cached are not contained in the returned map.
+     */
+    public <T> Map<String, T> getAll(Collection<String> keys);
+
+    /**
+     * Sets a set of values into the cache.
+     *
+     * @param entries    the values indexed by key
+     * @param expiration Expiration time.
+     */
+    public void setAll(Map<String, ?> entries, Duration expiration);
+
+    /**
+     * Sets a value into the cache if no value is cached for the given key.
+     *
+     * @param key        Item key.
+     * @param value      Item value.
+     * @param expiration Expiration time.
+     * @param <T> the type of the value.
+     * @return the value already cached, {@literal null} if the given value was stored.
+     */
+    public <T> T putIfAbsent(String key, T value, Duration expiration);
+
+    /**
+     * Replaces the value cached for the given key only if the current value is equal to the expected one.
+     *
+     * @param key        Item key.
+     * @param expected   the expected current value, {@literal null} to only set the value if none is cached.
+     * @param value      the new value.
+     * @param expiration Expiration time.
+     * @param <T> the type of the value.
+     * @return {@literal true} if the value was replaced, {@literal false} otherwise.
+     */
+    public <T> boolean compareAndSet(String key, T expected, T value, Duration expiration);
+
+    /**
+     * Retrieves a value from the cache, or computes it using the given loader and stores it if not cached.
+     * Concurrent calls for the same key invoke the loader only once.
+     *
+     * @param key        Item key.
+     * @param loader     the loader computing the value, must not return {@literal null}
+     * @param expiration Expiration time of the computed value.
+     * @param <T> the type of the value.
+     * @return the cached or computed value.
+     * @throws ExecutionException if the loader has thrown an exception
+     */
+    public <T> T computeIfAbsent(String key, Callable<? extends T> loader, Duration expiration)
+            throws ExecutionException;
 }
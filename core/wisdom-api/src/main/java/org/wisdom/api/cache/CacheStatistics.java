@@ -0,0 +1,62 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.cache;
+
+/**
+ * Statistics of a cache. Cache service implementations collecting statistics expose this service in addition to the
+ * {@link Cache} service. It is used by the monitor extension to track the cache efficiency and size.
+ */
+public interface CacheStatistics {
+
+    /**
+     * @return the name of the cache.
+     */
+    public String name();
+
+    /**
+     * @return the number of lookups that have found a value.
+     */
+    public long getHitCount();
+
+    /**
+     * @return the number of lookups that have not found a value (missing or expired).
+     */
+    public long getMissCount();
+
+    /**
+     * @return the number of entries evicted to honor the cache size limits.
+     */
+    public long getEvictionCount();
+
+    /**
+     * @return the number of entries stored in the cache.
+     */
+    public long getSize();
+
+    /**
+     * @return the approximate amount of heap used by the cache entries, {@literal -1} if unknown.
+     */
+    public long getHeapSizeInBytes();
+
+    /**
+     * @return the approximate amount of disk used by the cache entries, {@literal 0} if the cache has no disk tier.
+     */
+    public long getDiskSizeInBytes();
+}
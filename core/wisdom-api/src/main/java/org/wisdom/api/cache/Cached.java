@@ -20,6 +20,7 @@
 package org.wisdom.api.cache;
 
 import org.wisdom.api.annotations.Interception;
+import org.wisdom.api.http.HeaderNames;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -30,6 +31,13 @@ import java.lang.annotation.Target;
  * Mark an action to be cached on server side using the Cache Service.
  * So the result of the action is stored in the cache service for the specified time. All requests on this action
  * reuse this stored result (until it is invalidated).
+ * <p>
+ * The result is stored in its serialized form (status, headers and body). Cached responses carry a strong
+ * {@literal ETag}, and requests with a matching {@literal If-None-Match} header get a {@literal 304 Not Modified}
+ * response without the action being invoked.
+ * <p>
+ * Concurrent requests missing the cache for the same key are coalesced: only one of them invokes the action, the
+ * others wait for its result.
  */
 @Interception
 @Target({ElementType.TYPE, ElementType.METHOD})
@@ -47,4 +55,17 @@ public @interface Cached {
      */
     int duration() default 0;
 
+    /**
+     * The duration (in second) during which an expired result can still be served while it is recomputed. The first
+     * request reading the expired result recomputes it, concurrent requests are served the expired result meanwhile.
+     * Defaults to 0, meaning that expired results are never served.
+     */
+    int staleWhileRevalidate() default 0;
+
+    /**
+     * The request headers that select the cached representation. The values of these headers are part of the
+     * cache key, and are listed in the {@literal Vary} header of the response. Defaults to {@literal Accept}.
+     */
+    String[] vary() default {HeaderNames.ACCEPT};
+
 }
\ No newline at end of file
@@ -26,6 +26,8 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Executor Service exposed as a service to execute tasks. This interface
@@ -55,6 +57,40 @@ public interface ManagedExecutorService extends ListeningExecutorService {
         DAEMON
     }
 
+    /**
+     * The type of queue holding the tasks waiting for a thread.
+     */
+    enum WorkQueueType {
+        /**
+         * A queue backed by an array allocated for its full capacity.
+         */
+        ARRAY,
+        /**
+         * A queue backed by linked nodes, allocated when tasks are enqueued.
+         */
+        LINKED
+    }
+
+    /**
+     * What happens to a task submitted while the pool and its queue are full.
+     */
+    enum RejectionPolicy {
+        /**
+         * The submission throws a {@link RejectedExecutionException}. The HTTP engine answers requests whose
+         * processing is rejected with a {@literal 503 Service Unavailable} response.
+         */
+        ABORT,
+        /**
+         * The task is executed by the submitting thread, slowing down the submitter. Do not use it for executors
+         * receiving tasks from the HTTP engine, as it would block the event loop.
+         */
+        CALLER_RUNS,
+        /**
+         * The oldest task of the queue is cancelled and the submission is retried.
+         */
+        DROP_OLDEST
+    }
+
     /**
      * @return the name of the thread pool.
      */
@@ -181,6 +217,12 @@ public interface ManagedExecutorService extends ListeningExecutorService {
      */
     public long getTaskCount();
 
+    /**
+     * @return the number of tasks that have been rejected or dropped because the executor was saturated or shut
+     * down.
+     */
+    public long getRejectedTaskCount();
+
     /**
      * @return the execution statistics.
      */
@@ -188,13 +230,18 @@ public interface ManagedExecutorService extends ListeningExecutorService {
 
     /**
      * Represents execution statistics of a thread pool.
+     * <p>
+     * Recording is lock-free: the count and sum are kept in {@link LongAdder}s and the bounds in
+     * {@link LongAccumulator}s, so concurrent threads completing tasks do not contend on a monitor. Reads are
+     * consistent per value, but a read racing with a {@link #accept(long)} may observe the new count before the
+     * new sum.
      */
     public static class ExecutionStatistics {
 
-        private long count;
-        private long sum;
-        private long min = Long.MAX_VALUE;
-        private long max = Long.MIN_VALUE;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
 
         /**
          * Records a new {@code int} value into the statistics.
@@ -210,11 +257,11 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @param value the input value
          */
-        public synchronized void accept(long value) {
-            ++count;
-            sum += value;
-            min = Math.min(min, value);
-            max = Math.max(max, value);
+        public void accept(long value) {
+            count.increment();
+            sum.add(value);
+            min.accumulate(value);
+            max.accumulate(value);
         }
 
         /**
@@ -224,11 +271,11 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          * @param other another {@code ExecutionStatistics}
          * @throws NullPointerException if {@code other} is null
          */
-        public synchronized void combine(final ExecutionStatistics other) {
-            count += other.getCount();
-            sum += other.getTotalExecutionTime();
-            min = Math.min(min, other.getMinimumExecutionTime());
-            max = Math.max(max, other.getMaximumExecutionTime());
+        public void combine(final ExecutionStatistics other) {
+            count.add(other.getCount());
+            sum.add(other.getTotalExecutionTime());
+            min.accumulate(other.getMinimumExecutionTime());
+            max.accumulate(other.getMaximumExecutionTime());
         }
 
         /**
@@ -236,7 +283,7 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the copied object
          */
-        public synchronized ExecutionStatistics copy() {
+        public ExecutionStatistics copy() {
             ExecutionStatistics statistics = new ExecutionStatistics();
             statistics.combine(this);
             return statistics;
@@ -247,8 +294,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the count of values
          */
-        public final synchronized long getCount() {
-            return count;
+        public final long getCount() {
+            return count.sum();
         }
 
         /**
@@ -256,7 +303,7 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the number of tasks
          */
-        public final synchronized long getNumberOfTasks() {
+        public final long getNumberOfTasks() {
             return getCount();
         }
 
@@ -266,8 +313,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the sum of values, or zero if none
          */
-        public final synchronized long getTotalExecutionTime() {
-            return sum;
+        public final long getTotalExecutionTime() {
+            return sum.sum();
         }
 
         /**
@@ -276,8 +323,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the minimum value, or {@code Long.MAX_VALUE} if none
          */
-        public final synchronized long getMinimumExecutionTime() {
-            return min;
+        public final long getMinimumExecutionTime() {
+            return min.get();
         }
 
         /**
@@ -286,8 +333,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the maximum value, or {@code Long.MIN_VALUE} if none
          */
-        public final synchronized long getMaximumExecutionTime() {
-            return max;
+        public final long getMaximumExecutionTime() {
+            return max.get();
         }
 
         /**
@@ -296,8 +343,9 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return The arithmetic mean of values, or zero if none
          */
-        public final synchronized double getAverageExecutionTime() {
-            return getCount() > 0 ? (double) getTotalExecutionTime() / getNumberOfTasks() : 0.0d;
+        public final double getAverageExecutionTime() {
+            long tasks = getCount();
+            return tasks > 0 ? (double) getTotalExecutionTime() / tasks : 0.0d;
         }
 
         @Override
@@ -308,7 +356,7 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          * debugging. The exact presentation format is unspecified and may vary
          * between implementations and versions.
          */
-        public synchronized String toString() {
+        public String toString() {
             return String.format(
                     "%s{count=%d, sum=%d, min=%d, average=%f, max=%d}",
                     this.getClass().getSimpleName(),
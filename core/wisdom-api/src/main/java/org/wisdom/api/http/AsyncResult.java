@@ -20,11 +20,17 @@
 package org.wisdom.api.http;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 
 /**
  * An extension of result instructing the engine to render the result asynchronously. That means that the result
  * computation is delegated to another thread (and not the request thread), and is written and sent to the client
  * when the computation is completed.
+ * <p>
+ * An asynchronous result can also be built from a {@link CompletionStage} completed by non-blocking code (such as an
+ * asynchronous HTTP client). In this case, no thread is held while waiting for the result, it is written when the
+ * stage completes.
  */
 public class AsyncResult extends Result {
 
@@ -33,6 +39,11 @@ public class AsyncResult extends Result {
      */
     private final Callable<Result> callable;
 
+    /**
+     * The stage completed with the result, {@literal null} if the result is computed by {@link #callable}.
+     */
+    private final CompletionStage<Result> completion;
+
     /**
      * Creates a new asynchronous result.
      *
@@ -41,12 +52,43 @@ public class AsyncResult extends Result {
      */
     public AsyncResult(Callable<Result> callable) {
         this.callable = callable;
+        this.completion = null;
+    }
+
+    /**
+     * Creates a new asynchronous result completed by non-blocking code.
+     *
+     * @param completion the stage completed with the result. It must not be {@literal null}.
+     */
+    public AsyncResult(final CompletionStage<Result> completion) {
+        this.completion = completion;
+        this.callable = new Callable<Result>() {
+            @Override
+            public Result call() throws Exception {
+                try {
+                    return completion.toCompletableFuture().get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        };
     }
 
     /**
-     * @return the callable.
+     * @return the callable. When the result is completed by non-blocking code, the returned callable waits for the
+     * completion.
      */
     public Callable<Result> callable() {
         return callable;
     }
+
+    /**
+     * @return the stage completed with the result, {@literal null} if the result is computed by a callable.
+     */
+    public CompletionStage<Result> completion() {
+        return completion;
+    }
 }
@@ -347,6 +347,18 @@ public interface Context {
      */
     void route(Route route);
 
+    /**
+     * Registers a callback invoked once the response to the request has been written, or once the engine has given
+     * up writing it. Unlike the code following {@link org.wisdom.api.interception.RequestContext#proceed()} in a
+     * filter, the callback runs after the completion of asynchronous and streamed results.
+     * <p>
+     * Callbacks are generally invoked from an I/O thread, and so must not block.
+     *
+     * @param callback the callback
+     * @since 0.10.1
+     */
+    void onComplete(Runnable callback);
+
     /**
      * Check if request is of type multipart. Important when you want to process
      * uploads for instance.
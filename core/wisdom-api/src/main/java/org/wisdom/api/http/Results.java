@@ -28,6 +28,7 @@ import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
 
 
 /**
@@ -491,4 +492,15 @@ public abstract class Results {
         return new AsyncResult(task);
     }
 
+    /**
+     * Creates a new async result completed by non-blocking code. No thread is held while waiting for the result, it
+     * is sent to the client when the given stage completes.
+     *
+     * @param completion the stage completed with the result.
+     * @return the async result.
+     */
+    public static AsyncResult async(CompletionStage<Result> completion) {
+        return new AsyncResult(completion);
+    }
+
 }
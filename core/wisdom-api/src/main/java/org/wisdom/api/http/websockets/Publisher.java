@@ -30,6 +30,10 @@ public interface Publisher {
 
     /**
      * Publishes a message to all clients connected to a websocket.
+     * <p>
+     * The message may be encoded once per client (the Vert.x engine does), so the allocated memory grows with the
+     * number of clients. To broadcast large payloads to many clients, prefer {@link #publish(String, byte[])} if the
+     * clients accept binary frames.
      *
      * @param uri     the websocket's url
      * @param message the message
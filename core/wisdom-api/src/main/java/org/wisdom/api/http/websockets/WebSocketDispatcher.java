@@ -78,6 +78,33 @@ public interface WebSocketDispatcher {
      */
     public void send(String uri, String client, byte[] message);
 
+    /**
+     * Asks the engine to stop reading the frames sent by a specific client, for instance because the messages
+     * already received are not processed yet. Does nothing if the client is not connected to this engine.
+     *
+     * @param uri    the web socket url
+     * @param client the client id
+     */
+    public void pause(String uri, String client);
+
+    /**
+     * Asks the engine to read again the frames sent by a specific client after a {@link #pause(String, String)}.
+     * Does nothing if the client is not connected to this engine.
+     *
+     * @param uri    the web socket url
+     * @param client the client id
+     */
+    public void resume(String uri, String client);
+
+    /**
+     * Asks the engine to close the connection of a specific client. Does nothing if the client is not connected to
+     * this engine.
+     *
+     * @param uri    the web socket url
+     * @param client the client id
+     */
+    public void close(String uri, String client);
+
     /**
      * Get map of uri and number oppened sockets
      *
@@ -34,6 +34,18 @@ public interface WebSocketListener {
      */
     public void received(String uri, String client, byte[] content);
 
+    /**
+     * Callback invoked when a message is received on the web socket identified by its url. Unlike
+     * {@link #received(String, String, byte[])}, it indicates whether the message was sent as binary or text
+     * frames. The content of a text message is encoded in UTF-8.
+     *
+     * @param uri     the url of the web socket
+     * @param client  the client id
+     * @param content the received content
+     * @param binary  {@literal true} if the message was sent as binary frames, {@literal false} for text frames
+     */
+    public void received(String uri, String client, byte[] content, boolean binary);
+
     /**
      * Callback invoked when a new client connects on a web socket identified by its url.
      *
@@ -142,6 +142,16 @@ public interface Router {
      */
     Collection<Route> getRoutes();
 
+    /**
+     * Gets the generation of the routes, a counter incremented each time routes are added or removed. Components
+     * caching data computed from {@link #getRoutes()} can compare it with the generation read before computing the
+     * data to detect that the data is stale.
+     *
+     * @return the current generation
+     * @since 0.10.1
+     */
+    long getRoutesGeneration();
+
     // Method avoiding using maps in controllers.
 
     /**
@@ -21,6 +21,11 @@ package org.wisdom.api.concurrent;
 
 import org.junit.Test;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -68,5 +73,35 @@ public class ExecutionStatisticsTest {
         assertThat(statistics.getTotalExecutionTime()).isEqualTo(20);
     }
 
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        final ManagedExecutorService.ExecutionStatistics statistics = new ManagedExecutorService.ExecutionStatistics();
+        final int threads = 8;
+        final int values = 10000;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 1; i <= values; i++) {
+                    statistics.accept(i);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(statistics.getCount()).isEqualTo(threads * values);
+        assertThat(statistics.getTotalExecutionTime()).isEqualTo(threads * ((long) values * (values + 1) / 2));
+        assertThat(statistics.getMinimumExecutionTime()).isEqualTo(1);
+        assertThat(statistics.getMaximumExecutionTime()).isEqualTo(values);
+    }
+
 
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ package org.wisdom.api.http;
 import org.junit.Test;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -42,4 +43,14 @@ public class AsyncResultTest {
         assertThat(async.callable()).isNotNull();
         assertThat(async.callable().call().getStatusCode()).isEqualTo(200);
     }
+
+    @Test
+    public void testAsyncCompletion() throws Exception {
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        AsyncResult async = Results.async(future);
+
+        assertThat(async.completion()).isSameAs(future);
+        future.complete(Results.ok());
+        assertThat(async.callable().call().getStatusCode()).isEqualTo(200);
+    }
 }
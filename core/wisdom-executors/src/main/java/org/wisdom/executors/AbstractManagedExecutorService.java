@@ -28,33 +28,62 @@ import org.wisdom.api.concurrent.*;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
  * Common methods used in the different
  * {@link org.wisdom.api.concurrent.ManagedExecutorService} implementations.
+ * <p>
+ * The submission path does not take any lock: running tasks are tracked in a concurrent set, the statistics are
+ * lock-free and the execution context services are read from an immutable array replaced as a whole when the set of
+ * services changes.
  */
 public abstract class AbstractManagedExecutorService implements ManagedExecutorService {
 
+    private static final ExecutionContextService[] NO_SERVICES = new ExecutionContextService[0];
+
     protected final String name;
     protected final long hungTime;
 
     protected ListeningExecutorService executor;
     protected ThreadPoolExecutor internalPool;
 
-    protected final Set<Task<?>> tasks = new LinkedHashSet<>();
+    protected final Set<Task<?>> tasks = ConcurrentHashMap.newKeySet();
     protected final Logger logger;
 
-    protected ExecutionStatistics statistics = new ExecutionStatistics();
+    protected final ExecutionStatistics statistics = new ExecutionStatistics();
+
+    /**
+     * The number of rejected tasks, incremented by the rejection handler of the internal pool.
+     */
+    protected final LongAdder rejected = new LongAdder();
 
-    protected List<ExecutionContextService> ecs;
+    /**
+     * The execution context services, never modified once published.
+     */
+    private volatile ExecutionContextService[] ecs = NO_SERVICES;
 
     protected AbstractManagedExecutorService(String name, long hungTime, List<ExecutionContextService> ecs) {
         Preconditions.checkNotNull(name);
         this.name = name;
         this.logger = LoggerFactory.getLogger("executor-" + name);
         this.hungTime = hungTime;
-        this.ecs = ecs;
+        setExecutionContextServices(ecs);
+    }
+
+    /**
+     * Sets the execution context services applied to the tasks submitted from now on. The given collection is
+     * copied, so later changes are not seen by this executor.
+     *
+     * @param services the services, {@code null} for none
+     */
+    public void setExecutionContextServices(Collection<ExecutionContextService> services) {
+        if (services == null || services.isEmpty()) {
+            ecs = NO_SERVICES;
+        } else {
+            ecs = services.toArray(new ExecutionContextService[services.size()]);
+        }
     }
 
     protected AbstractManagedExecutorService setInternalPool(ThreadPoolExecutor executor) {
@@ -81,38 +110,43 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
     }
 
     @Override
-    public synchronized Collection<ManagedFutureTask> getHungTasks() {
+    public long getRejectedTaskCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public Collection<ManagedFutureTask> getHungTasks() {
         return tasks.stream().filter(task -> task.isTaskHang()).collect(Collectors.toList());
     }
 
     @Override
-    public synchronized void shutdown() {
+    public void shutdown() {
         executor.shutdown();
     }
 
 
     @Override
-    public synchronized List<Runnable> shutdownNow() {
+    public List<Runnable> shutdownNow() {
         for (Task task : tasks) {
             task.cancel(true);
         }
         return executor.shutdownNow();
     }
 
-    protected synchronized ExecutionContext createExecutionContext() {
-        if (ecs == null) {
+    protected ExecutionContext createExecutionContext() {
+        ExecutionContextService[] services = ecs;
+        if (services.length == 0) {
             return null;
         }
-        List<ExecutionContextService> copy = new ArrayList<>(ecs);
-        List<ExecutionContext> ec = new ArrayList<>();
-        for (ExecutionContextService svc : copy) {
+        List<ExecutionContext> ec = new ArrayList<>(services.length);
+        for (ExecutionContextService svc : services) {
             ec.add(svc.prepare());
         }
         return CompositeExecutionContext.create(ec);
     }
 
     @Override
-    public synchronized boolean isShutdown() {
+    public boolean isShutdown() {
         return executor.isShutdown();
     }
 
@@ -124,18 +158,18 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return {@code true} if all tasks have completed following shut down
      */
     @Override
-    public synchronized boolean isTerminated() {
+    public boolean isTerminated() {
         return executor.isTerminated();
     }
 
     @Override
-    public synchronized boolean awaitTermination(long timeout, TimeUnit unit)
+    public boolean awaitTermination(long timeout, TimeUnit unit)
             throws InterruptedException {
         return executor.awaitTermination(timeout, unit);
     }
 
     @Override
-    public synchronized <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
         List<Future<T>> futures = executor.invokeAll(tasks);
         List<Future<T>> manageable = new ArrayList<>(futures.size());
         int i = 0;
@@ -154,7 +188,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
 
 
     @Override
-    public synchronized <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
         List<Future<T>> futures = executor.invokeAll(tasks, timeout, unit);
         List<Future<T>> manageable = new ArrayList<>(futures.size());
         int i = 0;
@@ -169,20 +203,20 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
 
 
     @Override
-    public synchronized <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
             throws InterruptedException, ExecutionException {
         return executor.invokeAny(tasks);
     }
 
     @Override
-    public synchronized <T> T invokeAny(Collection<? extends Callable<T>> tasks,
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks,
                            long timeout, TimeUnit unit)
             throws InterruptedException, ExecutionException, TimeoutException {
         return executor.invokeAny(tasks, timeout, unit);
     }
 
     @Override
-    public synchronized void execute(Runnable command) {
+    public void execute(Runnable command) {
         Task<Void> task = getNewTaskFor(command, null);
         task.execute();
     }
@@ -195,7 +229,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of threads
      */
     @Override
-    public synchronized int getLargestPoolSize() {
+    public int getLargestPoolSize() {
         return internalPool.getLargestPoolSize();
     }
 
@@ -205,7 +239,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the maximum allowed number of threads
      */
     @Override
-    public synchronized int getMaximumPoolSize() {
+    public int getMaximumPoolSize() {
         return internalPool.getMaximumPoolSize();
     }
 
@@ -215,7 +249,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of threads
      */
     @Override
-    public synchronized int getPoolSize() {
+    public int getPoolSize() {
         return internalPool.getPoolSize();
     }
 
@@ -225,7 +259,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the core number of threads
      */
     @Override
-    public synchronized int getCorePoolSize() {
+    public int getCorePoolSize() {
         return internalPool.getCorePoolSize();
     }
 
@@ -239,7 +273,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of tasks
      */
     @Override
-    public synchronized long getCompletedTaskCount() {
+    public long getCompletedTaskCount() {
         return internalPool.getCompletedTaskCount();
     }
 
@@ -250,7 +284,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of threads
      */
     @Override
-    public synchronized int getActiveCount() {
+    public int getActiveCount() {
         return internalPool.getActiveCount();
     }
 
@@ -263,7 +297,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the task queue
      */
     @Override
-    public synchronized BlockingQueue<Runnable> getQueue() {
+    public BlockingQueue<Runnable> getQueue() {
         return internalPool.getQueue();
     }
 
@@ -278,7 +312,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * the presence of interference by other threads.
      */
     @Override
-    public synchronized void purge() {
+    public void purge() {
         internalPool.purge();
     }
 
@@ -299,7 +333,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return {@code true} if the task was removed
      */
     @Override
-    public synchronized boolean remove(Runnable task) {
+    public boolean remove(Runnable task) {
         return internalPool.remove(task);
     }
 
@@ -312,7 +346,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of tasks
      */
     @Override
-    public synchronized long getTaskCount() {
+    public long getTaskCount() {
         return internalPool.getTaskCount();
     }
 
@@ -325,12 +359,12 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the time limit
      */
     @Override
-    public synchronized long getKeepAliveTime(TimeUnit unit) {
+    public long getKeepAliveTime(TimeUnit unit) {
         return internalPool.getKeepAliveTime(unit);
     }
 
     @Override
-    public synchronized <T> ManagedFutureTask<T> submit(Callable<T> task) {
+    public <T> ManagedFutureTask<T> submit(Callable<T> task) {
         if (task == null) {
             throw new NullPointerException();
         }
@@ -338,13 +372,21 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
     }
 
     @Override
-    public synchronized <T> ManagedFutureTask<T> submit(Runnable task, T result) {
+    public <T> ManagedFutureTask<T> submit(Runnable task, T result) {
         if (task == null) {
             throw new NullPointerException();
         }
-        final Task t = getNewTaskFor(task, result).execute();
-        t.addListener(() -> tasks.remove(t));
+        final Task<T> t = getNewTaskFor(task, result);
+        // Register the task before it starts, so a fast task cannot complete before being tracked.
         tasks.add(t);
+        try {
+            t.execute();
+        } catch (RejectedExecutionException e) {
+            tasks.remove(t);
+            throw e;
+        }
+        // The removal is cheap, run it in the completing thread instead of submitting another task.
+        t.addListener(() -> tasks.remove(t), Runnable::run);
         return t;
     }
 
@@ -359,7 +401,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      *
      * @param task the completed task
      */
-    protected synchronized void addToStatistics(Task task) {
+    protected void addToStatistics(Task task) {
         statistics.accept(task.getTaskCompletionTime() - task.getTaskStartTime());
     }
 }
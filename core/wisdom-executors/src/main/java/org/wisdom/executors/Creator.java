@@ -31,6 +31,7 @@ import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.configuration.Configuration;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -59,11 +60,44 @@ public class Creator {
     @Context
     BundleContext context;
 
-    @Requires(specification = ExecutionContextService.class)
-    List<ExecutionContextService> ecs;
+    /**
+     * The execution context services. The executors get a snapshot of this list, pushed again on every arrival and
+     * departure, so they never look at it when tasks are submitted.
+     */
+    final List<ExecutionContextService> ecs = new CopyOnWriteArrayList<>();
 
     private final Map<ServiceRegistration, ExecutorService> instances = new HashMap<>();
 
+    /**
+     * A new execution context service is available, it is applied to the tasks submitted from now on.
+     *
+     * @param service the service
+     */
+    @Bind(aggregate = true)
+    public void bindExecutionContextService(ExecutionContextService service) {
+        ecs.add(service);
+        updateExecutionContextServices();
+    }
+
+    /**
+     * An execution context service has left, it is not applied to the tasks submitted from now on.
+     *
+     * @param service the service
+     */
+    @Unbind
+    public void unbindExecutionContextService(ExecutionContextService service) {
+        ecs.remove(service);
+        updateExecutionContextServices();
+    }
+
+    private void updateExecutionContextServices() {
+        synchronized (instances) {
+            for (ExecutorService executor : instances.values()) {
+                ((AbstractManagedExecutorService) executor).setExecutionContextServices(ecs);
+            }
+        }
+    }
+
     /**
      * Creates the system executors and the others specified executors.
      */
@@ -133,7 +167,11 @@ public class Creator {
                 EXPOSED_CLASSES_FOR_EXECUTORS,
                 executor,
                 getPublishedProperties(executor));
-        instances.put(reg, executor);
+        synchronized (instances) {
+            instances.put(reg, executor);
+            // A service may have arrived since the creation of the executor.
+            executor.setExecutionContextServices(ecs);
+        }
     }
 
     private void createScheduler(String name, Configuration conf) {
@@ -154,7 +192,11 @@ public class Creator {
                 EXPOSED_CLASSES_FOR_SCHEDULERS,
                 executor,
                 getPublishedProperties(executor));
-        instances.put(reg, executor);
+        synchronized (instances) {
+            instances.put(reg, executor);
+            // A service may have arrived since the creation of the executor.
+            executor.setExecutionContextServices(ecs);
+        }
     }
 
     private Dictionary<String, String> getPublishedProperties(AbstractManagedExecutorService executor) {
@@ -168,10 +210,12 @@ public class Creator {
      */
     @Invalidate
     public void stop() {
-        for (Map.Entry<ServiceRegistration, ExecutorService> entry : instances.entrySet()) {
-            entry.getKey().unregister();
-            entry.getValue().shutdownNow();
+        synchronized (instances) {
+            for (Map.Entry<ServiceRegistration, ExecutorService> entry : instances.entrySet()) {
+                entry.getKey().unregister();
+                entry.getValue().shutdownNow();
+            }
+            instances.clear();
         }
-        instances.clear();
     }
 }
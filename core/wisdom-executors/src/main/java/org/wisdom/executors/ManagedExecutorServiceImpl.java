@@ -24,8 +24,7 @@ import org.wisdom.api.concurrent.ExecutionContextService;
 import org.wisdom.api.concurrent.ManagedExecutorService;
 import org.wisdom.api.configuration.Configuration;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.*;
 
@@ -46,6 +45,8 @@ public class ManagedExecutorServiceImpl extends AbstractManagedExecutorService
                 configuration.getBooleanWithDefault("allowCoreThreadTimeOut", true),
                 configuration.getIntegerWithDefault("workQueueCapacity",
                         Integer.MAX_VALUE),
+                configuration.get("workQueueType", WorkQueueType.class, WorkQueueType.ARRAY),
+                configuration.get("rejectionPolicy", RejectionPolicy.class, RejectionPolicy.ABORT),
                 configuration.getIntegerWithDefault("priority", Thread.NORM_PRIORITY),
                 ecs);
     }
@@ -61,6 +62,41 @@ public class ManagedExecutorServiceImpl extends AbstractManagedExecutorService
             int workQueueCapacity,
             int priority,
             List<ExecutionContextService> ecs) {
+        this(name, tu, hungTime, coreSize, maxSize, keepAlive, allowCoreThreadTimeOut, workQueueCapacity,
+                WorkQueueType.ARRAY, RejectionPolicy.ABORT, priority, ecs);
+    }
+
+    /**
+     * Creates the executor.
+     *
+     * @param name                   the name
+     * @param tu                     the type of threads
+     * @param hungTime               the time in milliseconds after which a running task is considered as hung
+     * @param coreSize               the core number of threads
+     * @param maxSize                the maximum number of threads, only reached when the queue is full
+     * @param keepAlive              the time in milliseconds an idle thread is kept when there are more threads than
+     *                               the core size
+     * @param allowCoreThreadTimeOut whether or not core threads are stopped when idle
+     * @param workQueueCapacity      the capacity of the work queue, {@link Integer#MAX_VALUE} for an unbounded queue,
+     *                               0 to hand the tasks directly to the threads
+     * @param workQueueType          the type of the work queue when it is bounded
+     * @param rejectionPolicy        what happens to the tasks submitted while the threads and the queue are busy
+     * @param priority               the priority of the threads
+     * @param ecs                    the execution context services
+     */
+    public ManagedExecutorServiceImpl(
+            String name,
+            ThreadType tu,
+            long hungTime,
+            int coreSize,
+            int maxSize,
+            long keepAlive,
+            boolean allowCoreThreadTimeOut,
+            int workQueueCapacity,
+            WorkQueueType workQueueType,
+            RejectionPolicy rejectionPolicy,
+            int priority,
+            List<ExecutionContextService> ecs) {
 
         super(name, hungTime, ecs);
         ThreadFactoryBuilder builder = new ThreadFactoryBuilder()
@@ -76,34 +112,51 @@ public class ManagedExecutorServiceImpl extends AbstractManagedExecutorService
                             }
                         });
 
-        BlockingQueue<Runnable> queue = createWorkQueue(workQueueCapacity);
+        // The default type goes through the historical hook, so subclasses overriding it are still honored.
+        BlockingQueue<Runnable> queue = workQueueType == null || workQueueType == WorkQueueType.ARRAY
+                ? createWorkQueue(workQueueCapacity) : createWorkQueue(workQueueCapacity, workQueueType);
         final ThreadPoolExecutor executor = new ThreadPoolExecutor(coreSize, maxSize, keepAlive,
-                TimeUnit.MILLISECONDS, queue, builder.build(), new RejectedExecutionHandler() {
-            @Override
-            public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
-                System.out.println("REJECTED EXECUTION : " + r);
-            }
-        });
+                TimeUnit.MILLISECONDS, queue, builder.build(), new Rejection(rejectionPolicy));
         executor.allowCoreThreadTimeOut(allowCoreThreadTimeOut);
         setInternalPool(executor);
     }
 
+    /**
+     * Creates the work queue of the internal pool when the queue type is {@link WorkQueueType#ARRAY} (default).
+     *
+     * @param workQueueCapacity the capacity of the queue
+     * @return the queue
+     */
     protected BlockingQueue<Runnable> createWorkQueue(int workQueueCapacity) {
+        return createWorkQueue(workQueueCapacity, WorkQueueType.ARRAY);
+    }
+
+    /**
+     * Creates the work queue of the internal pool. When the type is {@link WorkQueueType#ARRAY}, the constructor
+     * calls {@link #createWorkQueue(int)} instead, which delegates to this method by default.
+     *
+     * @param workQueueCapacity the capacity of the queue
+     * @param type              the type of queue
+     * @return the queue
+     */
+    protected BlockingQueue<Runnable> createWorkQueue(int workQueueCapacity, WorkQueueType type) {
         if (workQueueCapacity < 0) {
-            throw new IllegalArgumentException();
+            throw new IllegalArgumentException("The work queue capacity of " + name + " cannot be negative");
         }
         BlockingQueue<Runnable> queue;
         if (workQueueCapacity == Integer.MAX_VALUE) {
             queue = new LinkedBlockingQueue<>();
         } else if (workQueueCapacity == 0) {
             queue = new SynchronousQueue<>();
+        } else if (type == WorkQueueType.LINKED) {
+            queue = new LinkedBlockingQueue<>(workQueueCapacity);
         } else {
             queue = new ArrayBlockingQueue<>(workQueueCapacity);
         }
         return queue;
     }
 
-    protected synchronized <V> Task<V> getNewTaskFor(Runnable task, V result) {
+    protected <V> Task<V> getNewTaskFor(Runnable task, V result) {
         return new Task<>(executor, task, result, createExecutionContext(),
                 hungTime, this);
     }
@@ -120,8 +173,50 @@ public class ManagedExecutorServiceImpl extends AbstractManagedExecutorService
      * @param services the context services
      */
     public void setExecutionContextService(ExecutionContextService... services) {
-        ecs = new ArrayList<>();
-        Collections.addAll(ecs, services);
+        setExecutionContextServices(Arrays.asList(services));
+    }
+
+    /**
+     * Handles the tasks the internal pool cannot accept, according to the configured policy. Every rejection is
+     * counted, including the tasks dropped from the queue.
+     */
+    private class Rejection implements RejectedExecutionHandler {
+
+        private final RejectionPolicy policy;
+
+        private Rejection(RejectionPolicy policy) {
+            this.policy = policy == null ? RejectionPolicy.ABORT : policy;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor pool) {
+            rejected.increment();
+            if (pool.isShutdown()) {
+                throw new RejectedExecutionException("The executor " + name + " is shut down");
+            }
+            switch (policy) {
+                case CALLER_RUNS:
+                    r.run();
+                    break;
+                case DROP_OLDEST:
+                    Runnable oldest = pool.getQueue().poll();
+                    if (oldest == null) {
+                        // Nothing to drop (no queue), reject the new task.
+                        throw new RejectedExecutionException("The executor " + name + " is saturated");
+                    }
+                    if (oldest instanceof Future) {
+                        // Complete the future of the dropped task, so nobody waits for it forever.
+                        ((Future) oldest).cancel(false);
+                    }
+                    logger.debug("The executor {} is saturated, dropping the oldest queued task", name);
+                    pool.execute(r);
+                    break;
+                default:
+                    throw new RejectedExecutionException("The executor " + name + " is saturated ("
+                            + pool.getActiveCount() + " active threads, " + pool.getQueue().size()
+                            + " queued tasks)");
+            }
+        }
     }
 
 }
@@ -69,7 +69,11 @@ public class ManagedScheduledExecutorServiceImpl
                             }
                         });
 
-        setInternalPool(new ScheduledThreadPoolExecutor(coreSize, builder.build()));
+        // The queue of a scheduled pool is unbounded, tasks are only rejected once the pool is shut down.
+        setInternalPool(new ScheduledThreadPoolExecutor(coreSize, builder.build(), (r, pool) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("The scheduler " + name + " is shut down");
+        }));
     }
 
     protected <V> Task<V> getNewTaskFor(Runnable task, V result) {
@@ -77,7 +81,7 @@ public class ManagedScheduledExecutorServiceImpl
                 hungTime, this);
     }
 
-    protected synchronized <V> Task<V> getNewTaskFor(Callable<V> callable) {
+    protected <V> Task<V> getNewTaskFor(Callable<V> callable) {
         return new Task(executor, callable, createExecutionContext(), hungTime, this);
     }
 
@@ -94,7 +98,7 @@ public class ManagedScheduledExecutorServiceImpl
      * @throws NullPointerException                            if callable is null
      */
     @Override
-    public synchronized <V> ManagedScheduledFutureTask<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+    public <V> ManagedScheduledFutureTask<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
         ScheduledTask<V> task = getNewScheduledTaskFor(callable, false);
         ScheduledFuture<V> future =
                 ((ScheduledExecutorService) executor).schedule(task.callable, delay, unit);
@@ -127,7 +131,7 @@ public class ManagedScheduledExecutorServiceImpl
      * @throws NullPointerException                            if command is null
      */
     @Override
-    public synchronized ManagedScheduledFutureTask<?> schedule(Runnable command, long delay, TimeUnit unit) {
+    public ManagedScheduledFutureTask<?> schedule(Runnable command, long delay, TimeUnit unit) {
         ScheduledTask<?> task = getNewScheduledTaskFor(command, false);
         ScheduledFuture<?> future =
                 ((ScheduledExecutorService) executor).schedule(task.callable, delay, unit);
@@ -137,7 +141,7 @@ public class ManagedScheduledExecutorServiceImpl
 
 
     @Override
-    public synchronized ManagedScheduledFutureTask<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+    public ManagedScheduledFutureTask<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
         ScheduledTask<?> task = getNewScheduledTaskFor(command, true);
         ScheduledFuture<?> future =
                 ((ScheduledExecutorService) executor).scheduleAtFixedRate(task.asRunnable(),
@@ -148,7 +152,7 @@ public class ManagedScheduledExecutorServiceImpl
 
 
     @Override
-    public synchronized ManagedScheduledFutureTask<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+    public ManagedScheduledFutureTask<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
         ScheduledTask<?> task = getNewScheduledTaskFor(command, true);
         ScheduledFuture<?> future =
                 ((ScheduledExecutorService) executor).scheduleWithFixedDelay(task.asRunnable(),
@@ -40,9 +40,9 @@ public class Task<V> extends FutureTask<V> implements ListenableFuture<V>, Manag
     private Throwable taskRunThrowable;
     private final AbstractManagedExecutorService parent;
 
-    protected long submissionDate;
-    private long startDate;
-    private long completionDate;
+    protected volatile long submissionDate;
+    private volatile long startDate;
+    private volatile long completionDate;
     private long hungTime;
 
     protected Task(
@@ -192,8 +192,9 @@ public class Task<V> extends FutureTask<V> implements ListenableFuture<V>, Manag
 
     @Override
     public boolean isTaskHang() {
-        // The task was completed.
-        return completionDate == 0 && System.currentTimeMillis() - submissionDate >= hungTime;
+        // A task not submitted yet (registered before its submission) or already completed is not hung.
+        long submitted = submissionDate;
+        return submitted != 0 && completionDate == 0 && System.currentTimeMillis() - submitted >= hungTime;
     }
 
     @Override
@@ -0,0 +1,326 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors.scheduler;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * A parsed cron expression, using the Quartz syntax (see {@link org.wisdom.api.annotations.scheduler.Cron}).
+ * Instances are immutable and compute the next time matching the expression after a given time, so they can be
+ * tested without waiting.
+ */
+public final class CronExpression {
+
+    private static final String[] MONTHS = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT",
+            "NOV", "DEC"};
+
+    private static final String[] DAYS = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+
+    /**
+     * The number of years searched for a matching time, expressions such as {@code 0 0 0 30 2 ?} never match.
+     */
+    private static final int MAX_YEARS = 100;
+
+    private final String expression;
+
+    private final BitSet seconds;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final TreeSet<Integer> years;
+
+    /**
+     * Whether or not the day-of-month field is restricted (not {@code *} or {@code ?}).
+     */
+    private final boolean domRestricted;
+    /**
+     * Whether or not the day-of-week field is restricted (not {@code *} or {@code ?}).
+     */
+    private final boolean dowRestricted;
+
+    /**
+     * The offset from the last day of the month, -1 if {@code L} is not used.
+     */
+    private final int lastDayOffset;
+    /**
+     * The day of week (1 - 7) for {@code nL}, -1 if not used.
+     */
+    private final int lastDayOfWeek;
+    /**
+     * The day of week (1 - 7) for {@code n#k}, -1 if not used.
+     */
+    private final int nthDayOfWeek;
+    /**
+     * The k of {@code n#k}.
+     */
+    private final int nth;
+
+    /**
+     * Parses a cron expression.
+     *
+     * @param expression the expression
+     * @throws IllegalArgumentException if the expression is invalid
+     */
+    public CronExpression(String expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("The cron expression must not be null");
+        }
+        this.expression = expression.trim();
+        String[] fields = this.expression.toUpperCase(Locale.ENGLISH).split("\\s+");
+        if (fields.length != 6 && fields.length != 7) {
+            throw invalid("6 or 7 fields expected");
+        }
+        seconds = parse(fields[0], 0, 59, null);
+        minutes = parse(fields[1], 0, 59, null);
+        hours = parse(fields[2], 0, 23, null);
+        months = parse(fields[4], 1, 12, MONTHS);
+
+        String dom = fields[3];
+        String dow = fields[5];
+        domRestricted = !isAny(dom);
+        dowRestricted = !isAny(dow);
+        if (domRestricted && dowRestricted) {
+            throw invalid("the day-of-month or the day-of-week field must be '?'");
+        }
+
+        if (dom.startsWith("L")) {
+            lastDayOffset = dom.length() == 1 ? 0 : positive(dom.substring(dom.startsWith("L-") ? 2 : 1), 30);
+            daysOfMonth = null;
+        } else {
+            lastDayOffset = -1;
+            daysOfMonth = parse(dom, 1, 31, null);
+        }
+
+        if (dow.length() > 1 && dow.endsWith("L")) {
+            lastDayOfWeek = dayOfWeek(dow.substring(0, dow.length() - 1));
+            nthDayOfWeek = -1;
+            nth = 0;
+            daysOfWeek = null;
+        } else if (dow.contains("#")) {
+            lastDayOfWeek = -1;
+            nthDayOfWeek = dayOfWeek(dow.substring(0, dow.indexOf('#')));
+            nth = positive(dow.substring(dow.indexOf('#') + 1), 5);
+            if (nth == 0) {
+                throw invalid("the occurrence of '#' must be between 1 and 5");
+            }
+            daysOfWeek = null;
+        } else {
+            lastDayOfWeek = -1;
+            nthDayOfWeek = -1;
+            nth = 0;
+            daysOfWeek = parse(dow, 1, 7, DAYS);
+        }
+
+        if (fields.length == 7 && !isAny(fields[6])) {
+            years = new TreeSet<>();
+            BitSet set = parse(fields[6], 1970, 2199, null);
+            for (int year = set.nextSetBit(0); year >= 0; year = set.nextSetBit(year + 1)) {
+                years.add(year);
+            }
+        } else {
+            years = null;
+        }
+    }
+
+    /**
+     * Computes the next time matching the expression, strictly after the given time. The time is computed in the
+     * time zone of the given time. If the matching local time does not exist because of a daylight saving time
+     * transition, the time is shifted by the length of the transition.
+     *
+     * @param after the time
+     * @return the next matching time, {@code null} if the expression does not match any time in the future.
+     */
+    public ZonedDateTime next(ZonedDateTime after) {
+        LocalDateTime time = after.toLocalDateTime().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        int limit = after.getYear() + MAX_YEARS;
+        while (time.getYear() <= limit) {
+            if (years != null && !years.contains(time.getYear())) {
+                Integer year = years.higher(time.getYear());
+                if (year == null) {
+                    return null;
+                }
+                time = LocalDateTime.of(year, 1, 1, 0, 0);
+                continue;
+            }
+            if (!months.get(time.getMonthValue())) {
+                time = time.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+                continue;
+            }
+            if (!matches(time.toLocalDate())) {
+                time = time.toLocalDate().plusDays(1).atStartOfDay();
+                continue;
+            }
+            int hour = hours.nextSetBit(time.getHour());
+            if (hour < 0) {
+                time = time.toLocalDate().plusDays(1).atStartOfDay();
+                continue;
+            }
+            if (hour != time.getHour()) {
+                time = time.toLocalDate().atTime(hour, 0);
+            }
+            int minute = minutes.nextSetBit(time.getMinute());
+            if (minute < 0) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                continue;
+            }
+            if (minute != time.getMinute()) {
+                time = time.toLocalDate().atTime(time.getHour(), minute);
+            }
+            int second = seconds.nextSetBit(time.getSecond());
+            if (second < 0) {
+                time = time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+                continue;
+            }
+            time = time.withSecond(second);
+            ZonedDateTime result = ZonedDateTime.ofLocal(time, after.getZone(), after.getOffset());
+            if (result.isAfter(after)) {
+                return result;
+            }
+            // The local time is repeated because of a daylight saving time transition, it has already been seen.
+            time = time.plusSeconds(1);
+        }
+        return null;
+    }
+
+    private boolean matches(LocalDate date) {
+        if (domRestricted) {
+            if (lastDayOffset >= 0) {
+                return date.getDayOfMonth() == date.lengthOfMonth() - lastDayOffset;
+            }
+            return daysOfMonth.get(date.getDayOfMonth());
+        }
+        if (dowRestricted) {
+            int dow = toCronDayOfWeek(date.getDayOfWeek());
+            if (lastDayOfWeek > 0) {
+                return dow == lastDayOfWeek && date.plusWeeks(1).getMonthValue() != date.getMonthValue();
+            }
+            if (nthDayOfWeek > 0) {
+                return dow == nthDayOfWeek
+                        && date.equals(date.with(TemporalAdjusters.dayOfWeekInMonth(nth, date.getDayOfWeek())));
+            }
+            return daysOfWeek.get(dow);
+        }
+        return true;
+    }
+
+    private static int toCronDayOfWeek(DayOfWeek day) {
+        // Cron: 1 = Sunday ... 7 = Saturday, java.time: 1 = Monday ... 7 = Sunday.
+        return day.getValue() % 7 + 1;
+    }
+
+    private static boolean isAny(String field) {
+        return "*".equals(field) || "?".equals(field);
+    }
+
+    private BitSet parse(String field, int min, int max, String[] names) {
+        BitSet set = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            if (part.isEmpty()) {
+                throw invalid("empty value in '" + field + "'");
+            }
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = positive(part.substring(slash + 1), max);
+                if (step == 0) {
+                    throw invalid("the increment of '" + part + "' must be positive");
+                }
+                part = part.substring(0, slash);
+            }
+            int from;
+            int to;
+            if ("*".equals(part) || "?".equals(part)) {
+                from = min;
+                to = max;
+            } else if (part.contains("-")) {
+                from = value(part.substring(0, part.indexOf('-')), min, max, names);
+                to = value(part.substring(part.indexOf('-') + 1), min, max, names);
+            } else {
+                from = value(part, min, max, names);
+                // 'a/s' means from a to the max, every s.
+                to = slash >= 0 ? max : from;
+            }
+            if (from <= to) {
+                for (int i = from; i <= to; i += step) {
+                    set.set(i);
+                }
+            } else {
+                // The range wraps, such as FRI-MON or 22-2.
+                int span = (max - from + 1) + (to - min + 1);
+                for (int i = 0; i < span; i += step) {
+                    int value = from + i;
+                    set.set(value > max ? value - max - 1 + min : value);
+                }
+            }
+        }
+        return set;
+    }
+
+    private int value(String value, int min, int max, String[] names) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(value)) {
+                    return i + min;
+                }
+            }
+        }
+        int result;
+        try {
+            result = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw invalid("'" + value + "' is not a valid value", e);
+        }
+        if (result < min || result > max) {
+            throw invalid("'" + value + "' is not between " + min + " and " + max);
+        }
+        return result;
+    }
+
+    private int dayOfWeek(String value) {
+        return value(value, 1, 7, DAYS);
+    }
+
+    private int positive(String value, int max) {
+        return value(value, 0, max, null);
+    }
+
+    private IllegalArgumentException invalid(String message) {
+        return new IllegalArgumentException("Invalid cron expression '" + expression + "': " + message);
+    }
+
+    private IllegalArgumentException invalid(String message, Throwable cause) {
+        return new IllegalArgumentException("Invalid cron expression '" + expression + "': " + message, cause);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors.scheduler;
+
+import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
+import org.wisdom.api.concurrent.ManagedScheduledFutureTask;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Executes a function at the times described by a {@link CronExpression}. Each execution is a one-shot task
+ * submitted to the scheduler. The next execution is scheduled when the current one starts, so a long execution
+ * does not delay the next ones.
+ * <p>
+ * The current time is read from the given {@link Clock}, so the computed delays can be checked with a virtual clock.
+ */
+public class CronTrigger {
+
+    private final ManagedScheduledExecutorService scheduler;
+    private final CronExpression expression;
+    private final ZoneId zone;
+    private final long jitter;
+    private final boolean overlap;
+    private final Runnable function;
+    private final Clock clock;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private ManagedScheduledFutureTask<?> task;
+    private ZonedDateTime next;
+    private boolean cancelled;
+
+    /**
+     * Creates the trigger, not started.
+     *
+     * @param scheduler  the scheduler executing the function
+     * @param expression the cron expression
+     * @param zone       the time zone in which the expression is evaluated
+     * @param jitter     the maximum random delay in milliseconds added to each execution, 0 to disable it
+     * @param overlap    whether or not an execution can start while the previous one is still running
+     * @param function   the function
+     * @param clock      the clock
+     */
+    public CronTrigger(ManagedScheduledExecutorService scheduler, CronExpression expression, ZoneId zone,
+                       long jitter, boolean overlap, Runnable function, Clock clock) {
+        this.scheduler = scheduler;
+        this.expression = expression;
+        this.zone = zone;
+        this.jitter = jitter;
+        this.overlap = overlap;
+        this.function = function;
+        this.clock = clock;
+    }
+
+    /**
+     * Schedules the first execution.
+     *
+     * @return the current trigger
+     */
+    public synchronized CronTrigger start() {
+        cancelled = false;
+        next = null;
+        scheduleNext();
+        return this;
+    }
+
+    /**
+     * Cancels the pending execution. A running execution is not interrupted.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    /**
+     * @return the time of the next execution (without jitter), {@code null} if there is none.
+     */
+    public synchronized ZonedDateTime next() {
+        return next;
+    }
+
+    /**
+     * @return the task of the next execution, {@code null} if there is none.
+     */
+    public synchronized ManagedScheduledFutureTask<?> task() {
+        return task;
+    }
+
+    private void scheduleNext() {
+        ZonedDateTime now = ZonedDateTime.now(clock.withZone(zone));
+        // The scheduler may run the task slightly before the expected time, never compute the same time twice.
+        ZonedDateTime from = next != null && next.isAfter(now) ? next : now;
+        next = expression.next(from);
+        if (next == null) {
+            WisdomTaskScheduler.getLogger().warn("The cron expression '{}' does not match any time after {}, the " +
+                    "job is not scheduled anymore", expression, from);
+            task = null;
+            return;
+        }
+        long delay = Duration.between(now.toInstant(), next.toInstant()).toMillis();
+        if (jitter > 0) {
+            delay += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        task = scheduler.schedule(this::fire, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void fire() {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            scheduleNext();
+        }
+        if (!overlap && !running.compareAndSet(false, true)) {
+            WisdomTaskScheduler.getLogger().warn("Skipping the execution of the cron job '{}', the previous " +
+                    "execution is still running", expression);
+            return;
+        }
+        try {
+            function.run();
+        } finally {
+            if (!overlap) {
+                running.set(false);
+            }
+        }
+    }
+}
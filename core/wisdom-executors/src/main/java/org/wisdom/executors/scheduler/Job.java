@@ -23,12 +23,17 @@ import com.google.common.base.Strings;
 import org.joda.time.Period;
 import org.joda.time.format.PeriodFormatter;
 import org.joda.time.format.PeriodFormatterBuilder;
+import org.wisdom.api.annotations.scheduler.Cron;
 import org.wisdom.api.annotations.scheduler.Every;
+import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
 import org.wisdom.api.concurrent.ManagedScheduledFutureTask;
 import org.wisdom.api.scheduler.Scheduled;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.ZoneId;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -59,6 +64,12 @@ public class Job {
     private ManagedScheduledFutureTask task;
     private long period;
 
+    private final CronExpression cron;
+    private final ZoneId zone;
+    private final long jitter;
+    private final boolean overlap;
+    private CronTrigger trigger;
+
     /**
      * Creates a new instance of Job.
      *
@@ -69,6 +80,10 @@ public class Job {
     public Job(Scheduled scheduled, Method method, Every every) {
         this.method = method;
         this.scheduled = scheduled;
+        this.cron = null;
+        this.zone = null;
+        this.jitter = 0;
+        this.overlap = true;
         if (every.period() > 0) {
             this.period = every.period();
             this.unit = every.unit();
@@ -82,6 +97,30 @@ public class Job {
         }
     }
 
+    /**
+     * Creates a new instance of Job executed at the times described by a cron expression.
+     *
+     * @param scheduled the scheduled object, must not be {@literal null}
+     * @param method    the method to call on this scheduled object, must not be {@literal null}
+     * @param cron      the cron annotation
+     * @throws IllegalArgumentException if the expression, the time zone or the jitter is invalid
+     */
+    public Job(Scheduled scheduled, Method method, Cron cron) {
+        this.method = method;
+        this.scheduled = scheduled;
+        this.cron = new CronExpression(cron.value());
+        try {
+            this.zone = Strings.isNullOrEmpty(cron.timezone()) ? ZoneId.systemDefault() : ZoneId.of(cron.timezone());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid time zone '" + cron.timezone() + "'", e);
+        }
+        this.jitter = Strings.isNullOrEmpty(cron.jitter()) ? 0 :
+                TimeUnit.SECONDS.toMillis(toDuration(PERIOD_FORMATTER.parsePeriod(cron.jitter())));
+        this.overlap = cron.overlap();
+        this.period = -1;
+        this.unit = TimeUnit.MILLISECONDS;
+    }
+
     /**
      * Translates the given (Joda) Period to duration in seconds.
      *
@@ -132,6 +171,55 @@ public class Job {
         };
     }
 
+    /**
+     * Submits the job to the given scheduler. Periodic jobs are submitted at fixed rate, cron jobs are submitted
+     * to a {@link CronTrigger}.
+     *
+     * @param scheduler the scheduler
+     * @param clock     the clock used to compute the time of the cron executions
+     */
+    public void schedule(ManagedScheduledExecutorService scheduler, Clock clock) {
+        if (cron != null) {
+            trigger = new CronTrigger(scheduler, cron, zone, jitter, overlap, function(), clock).start();
+        } else {
+            submitted(scheduler.scheduleAtFixedRate(function(), period, period, unit));
+        }
+    }
+
+    /**
+     * Cancels the job, interrupting the running periodic execution if any.
+     */
+    public void cancel() {
+        if (trigger != null) {
+            trigger.cancel();
+            trigger = null;
+        } else if (task != null) {
+            task.cancel(true);
+        }
+        task = null;
+    }
+
+    /**
+     * @return whether or not the job is submitted.
+     */
+    public boolean isScheduled() {
+        return trigger != null || task != null;
+    }
+
+    /**
+     * @return the cron expression, {@code null} for periodic jobs.
+     */
+    public CronExpression cron() {
+        return cron;
+    }
+
+    /**
+     * @return the cron trigger, {@code null} for periodic jobs or if the job is not submitted.
+     */
+    public CronTrigger trigger() {
+        return trigger;
+    }
+
     /**
      * Method called when the job is submitted. It provides a reference to the task object.
      *
@@ -142,9 +230,13 @@ public class Job {
     }
 
     /**
-     * @return the Cancellable object, {@literal null} if the job is not yet submitted.
+     * @return the Cancellable object, {@literal null} if the job is not yet submitted. For cron jobs, it is the task
+     * of the next execution.
      */
     public ManagedScheduledFutureTask task() {
+        if (trigger != null) {
+            return trigger.task();
+        }
         return task;
     }
 
@@ -22,12 +22,13 @@ package org.wisdom.executors.scheduler;
 import org.apache.felix.ipojo.annotations.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wisdom.api.annotations.scheduler.Cron;
 import org.wisdom.api.annotations.scheduler.Every;
 import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
-import org.wisdom.api.concurrent.ManagedScheduledFutureTask;
 import org.wisdom.api.scheduler.Scheduled;
 
 import java.lang.reflect.Method;
+import java.time.Clock;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -45,6 +46,11 @@ public class WisdomTaskScheduler {
 
     List<Job> jobs = new ArrayList<>();
 
+    /**
+     * The clock used to compute the time of the cron executions.
+     */
+    Clock clock = Clock.systemDefaultZone();
+
     /**
      * @return the logger.
      */
@@ -63,9 +69,7 @@ public class WisdomTaskScheduler {
         List<Job> extracted = extractJobsFromScheduled(scheduled);
         for (Job job : extracted) {
             LOGGER.info("Job extracted from {} : {}", scheduled, job.method().getName());
-            ManagedScheduledFutureTask task = scheduler.scheduleAtFixedRate(job.function(),
-                    job.period(), job.period(), job.unit());
-            job.submitted(task);
+            job.schedule(scheduler, clock);
         }
         jobs.addAll(extracted);
     }
@@ -79,8 +83,7 @@ public class WisdomTaskScheduler {
         for (Job job : jobs) {
             LOGGER.info("Cancelling periodic task {}#{} on invalidation", job.scheduled().getClass().getName(),
                     job.method().getName());
-            job.task().cancel(true);
-            job.submitted(null);
+            job.cancel();
         }
     }
 
@@ -91,10 +94,8 @@ public class WisdomTaskScheduler {
     @Validate
     public synchronized void validate() {
         for (Job job : jobs) {
-            if (job.task() == null) {
-                ManagedScheduledFutureTask task = scheduler.scheduleAtFixedRate(job.function(),
-                        job.period(), job.period(), job.unit());
-                job.submitted(task);
+            if (!job.isScheduled()) {
+                job.schedule(scheduler, clock);
             }
         }
     }
@@ -110,7 +111,7 @@ public class WisdomTaskScheduler {
             if (job.scheduled().equals(scheduled)) {
                 LOGGER.info("Cancelling periodic task {}#{}", job.scheduled().getClass().getName(),
                         job.method().getName());
-                job.task().cancel(true);
+                job.cancel();
                 jobs.remove(job);
             }
         }
@@ -118,7 +119,7 @@ public class WisdomTaskScheduler {
 
     /**
      * Extracts the {@link Job} from a {@link Scheduled} service. If creates an instance of {@link Job} for each
-     * method annotated with {@link Every} contained in the {@link Scheduled} class.
+     * method annotated with {@link Every} or {@link Cron} contained in the {@link Scheduled} class.
      *
      * @param scheduled the scheduled object
      * @return the list of job
@@ -128,7 +129,18 @@ public class WisdomTaskScheduler {
         List<Job> listOfJobs = new ArrayList<>();
         for (Method method : methods) {
             Every every = method.getAnnotation(Every.class);
-            if (every != null) {
+            Cron cron = method.getAnnotation(Cron.class);
+            if (every != null && cron != null) {
+                LOGGER.error("The scheduled method {}.{} cannot be annotated with both @Every and @Cron",
+                        scheduled.getClass().getName(), method.getName());
+            } else if (cron != null) {
+                try {
+                    listOfJobs.add(new Job(scheduled, method, cron));
+                } catch (IllegalArgumentException e) {
+                    LOGGER.error("Cannot parse the cron expression '{}' from scheduled method {}.{}", cron.value(),
+                            scheduled.getClass().getName(), method.getName(), e);
+                }
+            } else if (every != null) {
                 try {
                     listOfJobs.add(new Job(scheduled, method, every));
                 } catch (IllegalArgumentException e) {
@@ -27,7 +27,6 @@ import org.mockito.stubbing.Answer;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.wisdom.api.annotations.scheduler.Async;
-import org.wisdom.api.concurrent.ManagedExecutorService;
 import org.wisdom.api.concurrent.ManagedFutureTask;
 import org.wisdom.api.exceptions.HttpException;
 import org.wisdom.api.http.AsyncResult;
@@ -36,21 +35,20 @@ import org.wisdom.api.http.Results;
 import org.wisdom.api.http.Status;
 import org.wisdom.api.interception.RequestContext;
 import org.wisdom.api.router.Route;
-import org.wisdom.test.parents.FakeConfiguration;
+import org.wisdom.test.parents.FakeScheduledExecutorService;
 
-import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 /**
- * Checks the Async Interceptor.
+ * Checks the Async Interceptor. The tasks are executed by an executor driven by a virtual clock.
  */
 public class AsyncInterceptorTest {
 
     AsyncInterceptor interceptor = new AsyncInterceptor();
-    ManagedExecutorService executor = new ManagedExecutorServiceImpl("test", new FakeConfiguration(Collections.<String, Object>emptyMap()), null);
+    FakeScheduledExecutorService executor = new FakeScheduledExecutorService();
 
     @Before
     public void setUp() throws ClassNotFoundException {
@@ -96,7 +94,7 @@ public class AsyncInterceptorTest {
                         code[0] = result.getStatusCode();
                     }
                 });
-        Thread.sleep(100);
+        executor.runDueTasks();
         assertThat(code[0]).isEqualTo(200);
     }
 
@@ -121,7 +119,7 @@ public class AsyncInterceptorTest {
                     }
                 });
 
-        Thread.sleep(100);
+        executor.runDueTasks();
         assertThat(code[0]).isEqualTo(200);
     }
 
@@ -156,7 +154,7 @@ public class AsyncInterceptorTest {
                     }
                 });
 
-        Thread.sleep(100);
+        executor.runDueTasks();
         assertThat(errors[0]).isNotNull().isInstanceOf(HttpException.class);
         assertThat(errors[0].getCause().getMessage())
                 .contains("Bad, but expected");
@@ -169,7 +167,8 @@ public class AsyncInterceptorTest {
 
             @Override
             public Result answer(InvocationOnMock invocation) throws Throwable {
-                Thread.sleep(1000);
+                // Simulates a computation taking one second.
+                executor.advance(1, TimeUnit.SECONDS);
                 return Results.ok("Done");
             }
         }).when(rc).proceed();
@@ -178,7 +177,7 @@ public class AsyncInterceptorTest {
         when(rc.route()).thenReturn(route);
 
         Async async = mock(Async.class);
-        // Must be below the thread.sleep from the action.
+        // Must be below the duration of the action.
         when(async.timeout()).thenReturn(10l);
         when(async.unit()).thenReturn(TimeUnit.MILLISECONDS);
 
@@ -201,7 +200,7 @@ public class AsyncInterceptorTest {
                         errors[0] = throwable;
                     }
                 });
-        Thread.sleep(100);
+        executor.runDueTasks();
         assertThat(retrieved[0]).isNull();
         assertThat(errors[0]).isNotNull().isInstanceOf(HttpException.class);
         assertThat(errors[0].getMessage())
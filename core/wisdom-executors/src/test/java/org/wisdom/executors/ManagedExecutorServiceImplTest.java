@@ -31,11 +31,13 @@ import org.wisdom.api.concurrent.ManagedFutureTask;
 import org.wisdom.test.parents.FakeConfiguration;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 
 public class ManagedExecutorServiceImplTest {
 
@@ -56,7 +58,7 @@ public class ManagedExecutorServiceImplTest {
     @Before
     public void setUp() {
         counter.set(0);
-        executor.ecs = new ArrayList<>();
+        executor.setExecutionContextServices(Collections.emptyList());
     }
 
     @Test
@@ -202,12 +204,43 @@ public class ManagedExecutorServiceImplTest {
         assertThat(executor.getActiveCount()).isEqualTo(1);
     }
 
+    @Test
+    public void testTaskNotSubmittedYetIsNotHung() throws InterruptedException {
+        // submit(Runnable) tracks the task before its submission.
+        Task<Void> task = executor.getNewTaskFor(() -> counter.incrementAndGet(), null);
+        Thread.sleep(50);
+        assertThat(task.isTaskHang()).isFalse();
+        assertThat(task.execute().isTaskHang()).isFalse();
+    }
+
+    @Test
+    public void testCompletedTasksAreNotTracked() throws InterruptedException, ExecutionException {
+        // Stay below the pool and queue capacities.
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(executor.submit(() -> {
+                counter.incrementAndGet();
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        assertThat(counter.get()).isEqualTo(40);
+        // The removal happens right after the completion, in the completing thread.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!executor.tasks.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(executor.tasks).isEmpty();
+        assertThat(executor.getExecutionTimeStatistics().getCount()).isEqualTo(40);
+    }
+
     @Test
     public void testExecutionContextSwitch() throws InterruptedException {
         final ThreadLocal<String> context = new ThreadLocal();
         final Semaphore semaphore = new Semaphore(0);
         final StringBuilder builder = new StringBuilder();
-        executor.ecs = new ArrayList<>();
+        executor.setExecutionContextServices(Collections.emptyList());
 
 
         // First call without context
@@ -225,7 +258,7 @@ public class ManagedExecutorServiceImplTest {
 
         // Then, set a context service, but nothing in the context.
 
-        executor.ecs.add(new ExecutionContextService() {
+        executor.setExecutionContextService(new ExecutionContextService() {
 
             @Override
             public String name() {
@@ -354,6 +387,95 @@ public class ManagedExecutorServiceImplTest {
         assertThat(service.getQueue()).isInstanceOf(LinkedBlockingQueue.class);
     }
 
+    @Test
+    public void testCreationWithBoundedLinkedQueue() {
+        FakeConfiguration configuration = new FakeConfiguration(ImmutableMap.<String, Object>of(
+                "workQueueCapacity", 10,
+                "workQueueType", ManagedExecutorService.WorkQueueType.LINKED,
+                "rejectionPolicy", ManagedExecutorService.RejectionPolicy.CALLER_RUNS));
+        ManagedExecutorServiceImpl service = new ManagedExecutorServiceImpl("bounded", configuration, null);
+        assertThat(service.getQueue()).isInstanceOf(LinkedBlockingQueue.class);
+        assertThat(service.getQueue().remainingCapacity()).isEqualTo(10);
+        service.shutdownNow();
+    }
+
+    @Test
+    public void testWorkQueueHookIsHonored() {
+        final BlockingQueue<Runnable> custom = new PriorityBlockingQueue<>();
+        ManagedExecutorServiceImpl service = new ManagedExecutorServiceImpl("custom",
+                ManagedExecutorService.ThreadType.POOLED, 60000, 1, 1, 1000, true, 10, Thread.NORM_PRIORITY, null) {
+            @Override
+            protected BlockingQueue<Runnable> createWorkQueue(int workQueueCapacity) {
+                return custom;
+            }
+        };
+        assertThat(service.getQueue()).isSameAs(custom);
+        service.shutdownNow();
+    }
+
+    @Test
+    public void testAbortPolicy() throws InterruptedException {
+        ManagedExecutorServiceImpl service = saturated(ManagedExecutorService.RejectionPolicy.ABORT);
+        try {
+            service.submit(() -> counter.incrementAndGet());
+            fail("Rejection expected");
+        } catch (RejectedExecutionException e) {
+            // Expected.
+        }
+        assertThat(service.getRejectedTaskCount()).isEqualTo(1);
+        // The rejected task is not tracked.
+        assertThat(service.tasks).hasSize(2);
+        service.shutdownNow();
+    }
+
+    @Test
+    public void testCallerRunsPolicy() throws InterruptedException, ExecutionException {
+        ManagedExecutorServiceImpl service = saturated(ManagedExecutorService.RejectionPolicy.CALLER_RUNS);
+        final Thread caller = Thread.currentThread();
+        Future<Boolean> future = service.submit(() -> Thread.currentThread() == caller);
+        assertThat(future.isDone()).isTrue();
+        assertThat(future.get()).isTrue();
+        assertThat(service.getRejectedTaskCount()).isEqualTo(1);
+        service.shutdownNow();
+    }
+
+    @Test
+    public void testDropOldestPolicy() throws InterruptedException {
+        ManagedExecutorServiceImpl service = saturated(ManagedExecutorService.RejectionPolicy.DROP_OLDEST);
+        Future<?> queued = (Future<?>) service.getQueue().peek();
+        assertThat(queued).isNotNull();
+        service.submit(() -> counter.incrementAndGet());
+        assertThat(queued.isCancelled()).isTrue();
+        assertThat(service.getQueue()).hasSize(1);
+        assertThat(service.getRejectedTaskCount()).isEqualTo(1);
+        service.shutdownNow();
+    }
+
+    /**
+     * Creates an executor with a single thread and a queue of one task, and fills both with blocked tasks.
+     */
+    private ManagedExecutorServiceImpl saturated(ManagedExecutorService.RejectionPolicy policy)
+            throws InterruptedException {
+        ManagedExecutorServiceImpl service = new ManagedExecutorServiceImpl("saturated",
+                ManagedExecutorService.ThreadType.POOLED, 60000, 1, 1, 1000, false, 1,
+                ManagedExecutorService.WorkQueueType.ARRAY, policy, Thread.NORM_PRIORITY, null);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch block = new CountDownLatch(1);
+        Runnable blocked = () -> {
+            started.countDown();
+            try {
+                block.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        service.submit(blocked);
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        service.submit(blocked);
+        assertThat(service.getQueue()).hasSize(1);
+        return service;
+    }
+
     private class MyCallable implements Callable<String> {
 
         @Override
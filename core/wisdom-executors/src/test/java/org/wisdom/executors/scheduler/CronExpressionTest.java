@@ -0,0 +1,133 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors.scheduler;
+
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Checks the parsing and the evaluation of cron expressions.
+ */
+public class CronExpressionTest {
+
+    private static final ZoneId UTC = ZoneId.of("UTC");
+
+    private static ZonedDateTime utc(int year, int month, int day, int hour, int minute, int second) {
+        return ZonedDateTime.of(year, month, day, hour, minute, second, 0, UTC);
+    }
+
+    @Test
+    public void testEveryDayAtThree() {
+        CronExpression cron = new CronExpression("0 0 3 * * ?");
+        assertThat(cron.next(utc(2015, 6, 1, 2, 59, 59))).isEqualTo(utc(2015, 6, 1, 3, 0, 0));
+        // Strictly after.
+        assertThat(cron.next(utc(2015, 6, 1, 3, 0, 0))).isEqualTo(utc(2015, 6, 2, 3, 0, 0));
+        // End of the month and of the year.
+        assertThat(cron.next(utc(2015, 12, 31, 4, 0, 0))).isEqualTo(utc(2016, 1, 1, 3, 0, 0));
+    }
+
+    @Test
+    public void testIncrementsRangesAndNames() {
+        CronExpression cron = new CronExpression("0 0/15 9-17 ? * MON-FRI");
+        // Friday 17:50 -> Monday 9:00
+        assertThat(cron.next(utc(2015, 6, 5, 17, 50, 0))).isEqualTo(utc(2015, 6, 8, 9, 0, 0));
+        assertThat(cron.next(utc(2015, 6, 8, 9, 0, 0))).isEqualTo(utc(2015, 6, 8, 9, 15, 0));
+        assertThat(cron.next(utc(2015, 6, 8, 17, 45, 0))).isEqualTo(utc(2015, 6, 9, 9, 0, 0));
+
+        cron = new CronExpression("30 10,20 * * JAN,jul ?");
+        assertThat(cron.next(utc(2015, 2, 1, 0, 0, 0))).isEqualTo(utc(2015, 7, 1, 0, 10, 30));
+        assertThat(cron.next(utc(2015, 7, 1, 0, 10, 30))).isEqualTo(utc(2015, 7, 1, 0, 20, 30));
+    }
+
+    @Test
+    public void testWrappingRange() {
+        CronExpression cron = new CronExpression("0 0 22-2 * * ?");
+        assertThat(cron.next(utc(2015, 6, 1, 12, 0, 0))).isEqualTo(utc(2015, 6, 1, 22, 0, 0));
+        assertThat(cron.next(utc(2015, 6, 1, 23, 0, 0))).isEqualTo(utc(2015, 6, 2, 0, 0, 0));
+        assertThat(cron.next(utc(2015, 6, 2, 2, 0, 0))).isEqualTo(utc(2015, 6, 2, 22, 0, 0));
+    }
+
+    @Test
+    public void testLastDays() {
+        CronExpression cron = new CronExpression("0 30 2 L * ?");
+        assertThat(cron.next(utc(2016, 2, 1, 0, 0, 0))).isEqualTo(utc(2016, 2, 29, 2, 30, 0));
+        assertThat(cron.next(utc(2015, 2, 1, 0, 0, 0))).isEqualTo(utc(2015, 2, 28, 2, 30, 0));
+
+        cron = new CronExpression("0 0 0 L-2 * ?");
+        assertThat(cron.next(utc(2015, 4, 1, 0, 0, 0))).isEqualTo(utc(2015, 4, 28, 0, 0, 0));
+
+        // Last Friday of the month.
+        cron = new CronExpression("0 0 12 ? * 6L");
+        assertThat(cron.next(utc(2015, 6, 1, 0, 0, 0))).isEqualTo(utc(2015, 6, 26, 12, 0, 0));
+    }
+
+    @Test
+    public void testNthDayOfWeek() {
+        // First Sunday of the month.
+        CronExpression cron = new CronExpression("0 0 4 ? * 1#1");
+        assertThat(cron.next(utc(2015, 6, 1, 0, 0, 0))).isEqualTo(utc(2015, 6, 7, 4, 0, 0));
+        assertThat(cron.next(utc(2015, 6, 7, 4, 0, 0))).isEqualTo(utc(2015, 7, 5, 4, 0, 0));
+    }
+
+    @Test
+    public void testYears() {
+        CronExpression cron = new CronExpression("0 0 0 1 1 ? 2020-2021");
+        assertThat(cron.next(utc(2015, 6, 1, 0, 0, 0))).isEqualTo(utc(2020, 1, 1, 0, 0, 0));
+        assertThat(cron.next(utc(2020, 1, 1, 0, 0, 0))).isEqualTo(utc(2021, 1, 1, 0, 0, 0));
+        assertThat(cron.next(utc(2021, 1, 1, 0, 0, 0))).isNull();
+    }
+
+    @Test
+    public void testNeverMatching() {
+        assertThat(new CronExpression("0 0 0 30 2 ?").next(utc(2015, 1, 1, 0, 0, 0))).isNull();
+    }
+
+    @Test
+    public void testDaylightSavingTime() {
+        ZoneId paris = ZoneId.of("Europe/Paris");
+        CronExpression cron = new CronExpression("0 30 2 * * ?");
+        // 2:30 does not exist on the 29th of March 2015, it is shifted by one hour.
+        ZonedDateTime next = cron.next(ZonedDateTime.of(2015, 3, 29, 0, 0, 0, 0, paris));
+        assertThat(next.toLocalDateTime()).isEqualTo(ZonedDateTime.of(2015, 3, 29, 3, 30, 0, 0, paris)
+                .toLocalDateTime());
+        // 2:30 exists twice on the 25th of October 2015, the job is executed once.
+        next = cron.next(ZonedDateTime.of(2015, 10, 25, 0, 0, 0, 0, paris));
+        assertThat(next.getDayOfMonth()).isEqualTo(25);
+        assertThat(cron.next(next).getDayOfMonth()).isEqualTo(26);
+    }
+
+    @Test
+    public void testInvalidExpressions() {
+        for (String expression : new String[]{"0 0 3 * *", "0 0 3 1 * MON", "60 0 3 * * ?", "0 0 3 * FOO ?",
+                "0 0/0 3 * * ?", "0 0 3 LW * ?", "0 0 3 ? * 1#6"}) {
+            try {
+                new CronExpression(expression);
+                fail("Invalid expression accepted: " + expression);
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors.scheduler;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
+import org.wisdom.api.concurrent.ManagedScheduledFutureTask;
+
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the cron trigger with a virtual clock: the delays computed by the trigger are captured instead of being
+ * waited for.
+ */
+public class CronTriggerTest {
+
+    private static final ZoneId UTC = ZoneId.of("UTC");
+
+    private VirtualClock clock;
+    private ManagedScheduledExecutorService scheduler;
+    private List<Long> delays;
+    private List<Runnable> submitted;
+
+    @Before
+    public void setUp() {
+        clock = new VirtualClock(ZonedDateTime.of(2015, 6, 1, 12, 0, 0, 0, UTC).toInstant());
+        delays = new ArrayList<>();
+        submitted = new ArrayList<>();
+        scheduler = mock(ManagedScheduledExecutorService.class);
+        doAnswer(invocation -> {
+            submitted.add((Runnable) invocation.getArguments()[0]);
+            delays.add(((TimeUnit) invocation.getArguments()[2]).toMillis((Long) invocation.getArguments()[1]));
+            return mock(ManagedScheduledFutureTask.class);
+        }).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    /**
+     * Advances the clock to the last scheduled execution and runs it.
+     */
+    private void fireLast() {
+        clock.advance(delays.get(delays.size() - 1));
+        submitted.get(submitted.size() - 1).run();
+    }
+
+    @Test
+    public void testExecutionsFollowTheExpression() {
+        AtomicInteger counter = new AtomicInteger();
+        CronTrigger trigger = new CronTrigger(scheduler, new CronExpression("0 0/30 * * * ?"), UTC, 0, true,
+                counter::incrementAndGet, clock).start();
+
+        assertThat(delays).containsExactly(Duration.ofMinutes(30).toMillis());
+        assertThat(trigger.next()).isEqualTo(ZonedDateTime.of(2015, 6, 1, 12, 30, 0, 0, UTC));
+
+        fireLast();
+        assertThat(counter.get()).isEqualTo(1);
+        assertThat(delays).hasSize(2);
+        assertThat(delays.get(1)).isEqualTo(Duration.ofMinutes(30).toMillis());
+        assertThat(trigger.next()).isEqualTo(ZonedDateTime.of(2015, 6, 1, 13, 0, 0, 0, UTC));
+
+        // The scheduler fires one second early, the same time must not be computed again.
+        clock.advance(delays.get(1) - 1000);
+        submitted.get(1).run();
+        assertThat(counter.get()).isEqualTo(2);
+        assertThat(trigger.next()).isEqualTo(ZonedDateTime.of(2015, 6, 1, 13, 30, 0, 0, UTC));
+        assertThat(delays.get(2)).isEqualTo(Duration.ofMinutes(30).toMillis() + 1000);
+    }
+
+    @Test
+    public void testTimeZone() {
+        ZoneId paris = ZoneId.of("Europe/Paris");
+        CronTrigger trigger = new CronTrigger(scheduler, new CronExpression("0 0 3 * * ?"), paris, 0, true,
+                () -> { }, clock).start();
+        // 12:00 UTC is 14:00 in Paris, next execution tomorrow at 3:00 Paris time, so 1:00 UTC.
+        assertThat(trigger.next()).isEqualTo(ZonedDateTime.of(2015, 6, 2, 3, 0, 0, 0, paris));
+        assertThat(delays).containsExactly(Duration.ofHours(13).toMillis());
+    }
+
+    @Test
+    public void testJitter() {
+        long jitter = Duration.ofMinutes(5).toMillis();
+        CronTrigger trigger = new CronTrigger(scheduler, new CronExpression("0 0 * * * ?"), UTC, jitter, true,
+                () -> { }, clock).start();
+        for (int i = 0; i < 20; i++) {
+            fireLast();
+        }
+        for (long delay : delays.subList(1, delays.size())) {
+            // The delay is computed from the jittered time of the previous execution.
+            assertThat(delay).isBetween(Duration.ofMinutes(55).toMillis(), Duration.ofMinutes(65).toMillis());
+        }
+        assertThat(delays.get(0)).isBetween(Duration.ofHours(1).toMillis(), Duration.ofHours(1).toMillis() + jitter);
+        assertThat(trigger.next().getMinute()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCancel() {
+        AtomicInteger counter = new AtomicInteger();
+        CronTrigger trigger = new CronTrigger(scheduler, new CronExpression("0 * * * * ?"), UTC, 0, true,
+                counter::incrementAndGet, clock).start();
+        ManagedScheduledFutureTask<?> task = trigger.task();
+        trigger.cancel();
+        verify(task).cancel(false);
+        assertThat(trigger.task()).isNull();
+        // A late execution does nothing.
+        fireLast();
+        assertThat(counter.get()).isEqualTo(0);
+        assertThat(delays).hasSize(1);
+    }
+
+    @Test
+    public void testNoOverlap() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger counter = new AtomicInteger();
+        new CronTrigger(scheduler, new CronExpression("* * * * * ?"), UTC, 0, false, () -> {
+            counter.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, clock).start();
+
+        clock.advance(1000);
+        Thread first = new Thread(submitted.get(0));
+        first.start();
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // The second execution starts while the first one is still running, it is skipped.
+        fireLast();
+        assertThat(counter.get()).isEqualTo(1);
+
+        release.countDown();
+        first.join(10000);
+        // Once the first execution has completed, the next one runs.
+        fireLast();
+        assertThat(counter.get()).isEqualTo(2);
+    }
+
+    /**
+     * A clock whose time only changes when advanced.
+     */
+    private static class VirtualClock extends Clock {
+
+        private Instant now;
+
+        VirtualClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(long millis) {
+            now = now.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new Clock() {
+                @Override
+                public ZoneId getZone() {
+                    return zone;
+                }
+
+                @Override
+                public Clock withZone(ZoneId other) {
+                    return VirtualClock.this.withZone(other);
+                }
+
+                @Override
+                public Instant instant() {
+                    return VirtualClock.this.instant();
+                }
+            };
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -26,12 +26,11 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
+import org.wisdom.api.annotations.scheduler.Cron;
 import org.wisdom.api.annotations.scheduler.Every;
 import org.wisdom.api.scheduler.Scheduled;
-import org.wisdom.executors.ManagedScheduledExecutorServiceImpl;
-import org.wisdom.test.parents.FakeConfiguration;
+import org.wisdom.test.parents.FakeScheduledExecutorService;
 
-import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -39,11 +38,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 /**
- * Checks the Wisdom Scheduler.
+ * Checks the Wisdom Scheduler. The jobs are executed by an executor driven by a virtual clock.
  */
 public class WisdomSchedulerTest {
 
     WisdomTaskScheduler scheduler = new WisdomTaskScheduler();
+    FakeScheduledExecutorService executor = new FakeScheduledExecutorService();
 
     @Before
     public void setUp() throws ClassNotFoundException {
@@ -59,38 +59,83 @@ public class WisdomSchedulerTest {
                     }
                 }
         ).when(bundle).loadClass(anyString());
-        scheduler.scheduler = new ManagedScheduledExecutorServiceImpl("test",
-                new FakeConfiguration(Collections.<String, Object>emptyMap()), null);
+        scheduler.scheduler = executor;
+        scheduler.clock = executor.clock();
     }
 
     @After
-    public void tearDown() throws InterruptedException {
-        scheduler.scheduler.shutdown();
-        scheduler.scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    public void tearDown() {
+        executor.shutdownNow();
     }
 
     @Test
-    public void testScheduled() throws InterruptedException {
+    public void testScheduled() {
         MyScheduled scheduled = new MyScheduled();
         scheduler.bindScheduled(scheduled);
         assertThat(scheduler.jobs).hasSize(1);
-        Thread.sleep(2000);
-        assertThat(scheduled.counter.get()).isGreaterThan(0);
+        executor.advance(999, TimeUnit.MILLISECONDS);
+        assertThat(scheduled.counter.get()).isEqualTo(0);
+        executor.advance(2, TimeUnit.SECONDS);
+        assertThat(scheduled.counter.get()).isEqualTo(2);
         scheduler.unbindScheduled(scheduled);
         assertThat(scheduler.jobs).hasSize(0);
     }
 
     @Test
-    public void testScheduledWithAmountAndUnit() throws InterruptedException {
+    public void testScheduledWithAmountAndUnit() {
         MySecondScheduled scheduled = new MySecondScheduled();
         scheduler.bindScheduled(scheduled);
         assertThat(scheduler.jobs).hasSize(1);
-        Thread.sleep(2000);
-        assertThat(scheduled.counter.get()).isGreaterThan(0);
+        executor.advance(999, TimeUnit.MILLISECONDS);
+        assertThat(scheduled.counter.get()).isEqualTo(0);
+        executor.advance(2, TimeUnit.SECONDS);
+        assertThat(scheduled.counter.get()).isEqualTo(2);
         scheduler.unbindScheduled(scheduled);
         assertThat(scheduler.jobs).hasSize(0);
     }
 
+    @Test
+    public void testCronJobs() {
+        MyCronScheduled scheduled = new MyCronScheduled();
+        scheduler.bindScheduled(scheduled);
+        // The invalid expression is ignored.
+        assertThat(scheduler.jobs).hasSize(1);
+        Job job = scheduler.jobs.get(0);
+        assertThat(job.cron().toString()).isEqualTo("0 0 3 * * ?");
+        assertThat(job.isScheduled()).isTrue();
+        assertThat(job.task()).isNotNull();
+        assertThat(job.trigger().next().getHour()).isEqualTo(3);
+
+        executor.advance(1, TimeUnit.DAYS);
+        assertThat(scheduled.counter.get()).isEqualTo(1);
+        executor.advance(1, TimeUnit.DAYS);
+        assertThat(scheduled.counter.get()).isEqualTo(2);
+
+        scheduler.invalidate();
+        assertThat(job.isScheduled()).isFalse();
+        scheduler.validate();
+        assertThat(job.isScheduled()).isTrue();
+
+        scheduler.unbindScheduled(scheduled);
+        assertThat(scheduler.jobs).hasSize(0);
+        assertThat(job.isScheduled()).isFalse();
+    }
+
+    private class MyCronScheduled implements Scheduled {
+
+        AtomicInteger counter = new AtomicInteger();
+
+        @Cron(value = "0 0 3 * * ?", timezone = "Europe/Paris", jitter = "5m", overlap = false)
+        public void nightly() {
+            counter.incrementAndGet();
+        }
+
+        @Cron("0 0 3 * *")
+        public void invalid() {
+            // Never called.
+        }
+    }
+
     private class MyScheduled implements Scheduled {
 
         AtomicInteger counter = new AtomicInteger();
@@ -108,6 +108,11 @@ public class FakeContext implements Context {
      */
     private Route route;
 
+    /**
+     * The completion callbacks.
+     */
+    private List<Runnable> completionCallbacks = new ArrayList<>();
+
     /**
      * Creates a new instance of {@link FakeContext}.
      */
@@ -500,6 +505,31 @@ public class FakeContext implements Context {
         this.route = route;
     }
 
+    /**
+     * Registers a completion callback. As there is no response written in tests, the callbacks are invoked when
+     * {@link #complete()} is called.
+     *
+     * @param callback the callback
+     */
+    @Override
+    public void onComplete(Runnable callback) {
+        completionCallbacks.add(callback);
+    }
+
+    /**
+     * Simulates the completion of the response, invoking the registered completion callbacks.
+     *
+     * @return the current fake context
+     */
+    public FakeContext complete() {
+        List<Runnable> callbacks = completionCallbacks;
+        completionCallbacks = new ArrayList<>();
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+        return this;
+    }
+
     /**
      * Sets the context's path.
      *
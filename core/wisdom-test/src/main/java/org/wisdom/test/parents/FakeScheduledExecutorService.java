@@ -0,0 +1,709 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.test.parents;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import org.wisdom.api.concurrent.ExecutionContext;
+import org.wisdom.api.concurrent.ManagedFutureTask;
+import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
+import org.wisdom.api.concurrent.ManagedScheduledFutureTask;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * An implementation of {@link ManagedScheduledExecutorService} driven by a virtual clock. For testing purpose only.
+ * <p>
+ * Submitted and scheduled tasks are never executed on their own: they are executed synchronously, in the caller
+ * thread, when the test moves the clock forward using {@link #advance(long, TimeUnit)} or {@link #runDueTasks()}.
+ * Tasks are executed in the order of their due time, and in submission order when they are due at the same time.
+ * While a task is running, the clock is set to its due time, so periodic tasks and tasks scheduled by other tasks
+ * are executed at the expected (virtual) time. A task can simulate a long computation by advancing the clock
+ * itself.
+ * <p>
+ * Waiting for the result of a task, with or without timeout, also happens in virtual time: the due tasks are
+ * executed until the awaited task completes, and a {@link TimeoutException} is thrown if it has not completed
+ * before the deadline. The task run times and the hung task detection use the virtual clock too. The clock can be
+ * shared with code depending on a {@link Clock} using {@link #clock()}.
+ * <p>
+ * The resolution of the clock is the millisecond. This executor does not support execution contexts.
+ */
+public class FakeScheduledExecutorService implements ManagedScheduledExecutorService {
+
+    private final String name;
+
+    private final long hungTime;
+
+    private volatile long now;
+
+    private volatile boolean shutdown;
+
+    private final PriorityQueue<FakeTask<?>> queue = new PriorityQueue<>();
+
+    private final Set<FakeTask<?>> tasks = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final ExecutionStatistics statistics = new ExecutionStatistics();
+
+    /**
+     * Creates an executor named {@literal fake}, whose clock starts at the epoch. Tasks are considered as hung after
+     * one minute.
+     */
+    public FakeScheduledExecutorService() {
+        this("fake");
+    }
+
+    /**
+     * Creates an executor whose clock starts at the epoch. Tasks are considered as hung after one minute.
+     *
+     * @param name the name of the executor
+     */
+    public FakeScheduledExecutorService(String name) {
+        this(name, 0, TimeUnit.MINUTES.toMillis(1));
+    }
+
+    /**
+     * Creates an executor.
+     *
+     * @param name     the name of the executor
+     * @param start    the initial time of the clock, in milliseconds since the epoch
+     * @param hungTime the time in milliseconds after which a task not yet completed is considered as hung
+     */
+    public FakeScheduledExecutorService(String name, long start, long hungTime) {
+        this.name = name;
+        this.now = start;
+        this.hungTime = hungTime;
+    }
+
+    /**
+     * @return the current time of the virtual clock, in milliseconds since the epoch.
+     */
+    public long now() {
+        return now;
+    }
+
+    /**
+     * @return a view of the virtual clock, in the UTC time zone.
+     */
+    public Clock clock() {
+        return clock(ZoneOffset.UTC);
+    }
+
+    /**
+     * @param zone the time zone
+     * @return a view of the virtual clock, in the given time zone.
+     */
+    public Clock clock(ZoneId zone) {
+        return new VirtualClock(zone);
+    }
+
+    /**
+     * Moves the clock forward, executing all the tasks that are due until the new time. If the executed tasks move
+     * the clock further, the clock is not moved back.
+     *
+     * @param duration the duration
+     * @param unit     the unit of the duration
+     */
+    public void advance(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("Cannot move the clock backward");
+        }
+        long target = deadline(unit.toMillis(duration));
+        runUntil(null, target);
+        if (now < target) {
+            now = target;
+        }
+    }
+
+    /**
+     * Executes the tasks that are due at the current time, including the submitted tasks, without moving the
+     * clock.
+     */
+    public void runDueTasks() {
+        runUntil(null, now);
+    }
+
+    /**
+     * Executes the tasks in order until the awaited task is completed, or until the next task is due after the
+     * deadline.
+     *
+     * @param awaited  the awaited task, {@code null} to execute all the tasks due before the deadline
+     * @param deadline the deadline
+     */
+    private void runUntil(FakeTask<?> awaited, long deadline) {
+        while (awaited == null || !awaited.isDone()) {
+            FakeTask<?> next;
+            synchronized (queue) {
+                next = queue.peek();
+                if (next == null || next.due > deadline) {
+                    return;
+                }
+                queue.poll();
+            }
+            if (now < next.due) {
+                now = next.due;
+            }
+            next.run();
+        }
+    }
+
+    private long deadline(long delay) {
+        long deadline = now + delay;
+        // Overflow, the deadline is in a far, far away future.
+        return deadline < now ? Long.MAX_VALUE : deadline;
+    }
+
+    private <V> FakeTask<V> enqueue(FakeTask<V> task) {
+        if (shutdown) {
+            rejected.increment();
+            throw new RejectedExecutionException("The executor " + name + " is shut down");
+        }
+        tasks.add(task);
+        synchronized (queue) {
+            queue.add(task);
+        }
+        return task;
+    }
+
+    private void dequeue(FakeTask<?> task) {
+        synchronized (queue) {
+            queue.remove(task);
+        }
+        tasks.remove(task);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Collection<ManagedFutureTask> getHungTasks() {
+        return tasks.stream().filter(FakeTask::isTaskHang).map(ManagedFutureTask.class::cast)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public <T> ManagedFutureTask<T> submit(Callable<T> task) {
+        return enqueue(new FakeTask<>(task, 0, 0));
+    }
+
+    @Override
+    public ManagedFutureTask submit(Runnable task) {
+        return submit(task, null);
+    }
+
+    @Override
+    public <T> ManagedFutureTask<T> submit(Runnable task, T result) {
+        return submit(Executors.callable(task, result));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        submit(command);
+    }
+
+    @Override
+    public <V> ManagedScheduledFutureTask<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return enqueue(new FakeTask<>(callable, unit.toMillis(delay), 0));
+    }
+
+    @Override
+    public ManagedScheduledFutureTask<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return schedule(Executors.callable(command), delay, unit);
+    }
+
+    @Override
+    public ManagedScheduledFutureTask<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period,
+                                                             TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("The period must be positive");
+        }
+        return enqueue(new FakeTask<>(Executors.callable(command), unit.toMillis(initialDelay),
+                Math.max(1, unit.toMillis(period))));
+    }
+
+    @Override
+    public ManagedScheduledFutureTask<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+                                                                TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("The delay must be positive");
+        }
+        return enqueue(new FakeTask<>(Executors.callable(command), unit.toMillis(initialDelay),
+                -Math.max(1, unit.toMillis(delay))));
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> callables) throws InterruptedException {
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> callable : callables) {
+            futures.add(submit(callable));
+        }
+        runDueTasks();
+        return futures;
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> callables, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> callable : callables) {
+            futures.add(submit(callable));
+        }
+        long deadline = deadline(unit.toMillis(timeout));
+        for (Future<T> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - now), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | CancellationException e) { //NOSONAR
+                // Reported by the future.
+            } catch (TimeoutException e) { //NOSONAR
+                break;
+            }
+        }
+        futures.forEach(future -> future.cancel(true));
+        return futures;
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> callables)
+            throws InterruptedException, ExecutionException {
+        try {
+            return invokeAny(callables, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ExecutionException(e);
+        }
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> callables, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = deadline(unit.toMillis(timeout));
+        ExecutionException failure = null;
+        for (Callable<T> callable : callables) {
+            try {
+                return submit(callable).get(Math.max(0, deadline - now), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                failure = e;
+            }
+        }
+        if (failure == null) {
+            throw new IllegalArgumentException("No task to execute");
+        }
+        throw failure;
+    }
+
+    /**
+     * Prevents the submission of new tasks and cancels the periodic tasks. The delayed tasks already submitted are
+     * still executed when the clock moves forward.
+     */
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        List<FakeTask<?>> periodic;
+        synchronized (queue) {
+            periodic = queue.stream().filter(FakeTask::isPeriodic).collect(Collectors.toList());
+        }
+        periodic.forEach(task -> task.cancel(false));
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> pending;
+        synchronized (queue) {
+            pending = new ArrayList<>(queue);
+            queue.clear();
+        }
+        tasks.removeAll(pending);
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        synchronized (queue) {
+            return shutdown && queue.isEmpty() && active.get() == 0;
+        }
+    }
+
+    /**
+     * Does not wait, as the pending tasks can only be executed by moving the clock forward.
+     *
+     * @return whether or not the executor is terminated
+     */
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return isTerminated();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return completed.sum();
+    }
+
+    @Override
+    public int getCorePoolSize() {
+        return 1;
+    }
+
+    @Override
+    public long getKeepAliveTime(TimeUnit unit) {
+        return 0;
+    }
+
+    @Override
+    public int getLargestPoolSize() {
+        return 1;
+    }
+
+    @Override
+    public int getMaximumPoolSize() {
+        return 1;
+    }
+
+    @Override
+    public int getPoolSize() {
+        return 1;
+    }
+
+    /**
+     * @return a copy of the queue, with the pending tasks in execution order.
+     */
+    @Override
+    public BlockingQueue<Runnable> getQueue() {
+        List<FakeTask<?>> pending;
+        synchronized (queue) {
+            pending = new ArrayList<>(queue);
+        }
+        Collections.sort(pending);
+        return new LinkedBlockingQueue<>(pending);
+    }
+
+    @Override
+    public void purge() {
+        synchronized (queue) {
+            queue.removeIf(FakeTask::isCancelled);
+        }
+    }
+
+    @Override
+    public boolean remove(Runnable task) {
+        synchronized (queue) {
+            if (!queue.remove(task)) {
+                return false;
+            }
+        }
+        tasks.remove(task);
+        return true;
+    }
+
+    @Override
+    public long getTaskCount() {
+        return sequence.get();
+    }
+
+    @Override
+    public long getRejectedTaskCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public ExecutionStatistics getExecutionTimeStatistics() {
+        return statistics;
+    }
+
+    /**
+     * A task executed by the {@link FakeScheduledExecutorService}.
+     *
+     * @param <V> the type of result
+     */
+    private class FakeTask<V> extends AbstractFuture<V> implements ManagedScheduledFutureTask<V> {
+
+        private final Callable<V> callable;
+
+        /**
+         * The period, positive for fixed rate tasks, negative for fixed delay tasks, {@literal 0} for one-shot tasks.
+         */
+        private final long period;
+
+        private final long submissionDate;
+
+        private volatile long due;
+
+        private volatile long seq;
+
+        private volatile long startDate;
+
+        private volatile long completionDate;
+
+        private volatile boolean running;
+
+        private volatile boolean executed;
+
+        FakeTask(Callable<V> callable, long delay, long period) {
+            this.callable = callable;
+            this.period = period;
+            this.submissionDate = now;
+            this.due = deadline(Math.max(0, delay));
+            this.seq = sequence.getAndIncrement();
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                return;
+            }
+            active.incrementAndGet();
+            startDate = now;
+            running = true;
+            try {
+                if (!isPeriodic()) {
+                    set(callable.call());
+                } else {
+                    callable.call();
+                }
+            } catch (Throwable e) { //NOSONAR
+                setException(e);
+            } finally {
+                completionDate = now;
+                running = false;
+                executed = true;
+                statistics.accept(completionDate - startDate);
+                completed.increment();
+                active.decrementAndGet();
+            }
+            if (isPeriodic() && !isDone() && !shutdown) {
+                due = period > 0 ? due + period : deadline(-period);
+                seq = sequence.getAndIncrement();
+                synchronized (queue) {
+                    queue.add(this);
+                }
+            } else {
+                tasks.remove(this);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                dequeue(this);
+            }
+            return cancelled;
+        }
+
+        /**
+         * Waits for the result in virtual time: the due tasks are executed until this task completes.
+         */
+        @Override
+        public V get() throws InterruptedException, ExecutionException {
+            runUntil(this, due);
+            return super.get();
+        }
+
+        /**
+         * Waits for the result in virtual time: the due tasks are executed until this task completes, or until the
+         * next task is due after the timeout. If the task completes after the timeout, the result is not returned.
+         */
+        @Override
+        public V get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException, ExecutionException {
+            long deadline = deadline(unit.toMillis(timeout));
+            runUntil(this, deadline);
+            if (!isDone() || completionDate > deadline) {
+                if (now < deadline) {
+                    now = deadline;
+                }
+                throw new TimeoutException("The task has not completed within " + timeout + " " + unit);
+            }
+            return super.get();
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(due - now, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            if (other instanceof FakeTask) {
+                FakeTask<?> task = (FakeTask<?>) other;
+                int result = Long.compare(due, task.due);
+                return result != 0 ? result : Long.compare(seq, task.seq);
+            }
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+
+        /**
+         * The callback is called in the thread completing the task.
+         */
+        @Override
+        public ManagedFutureTask<V> onSuccess(final SuccessCallback<V> callback, Executor executor) {
+            Futures.addCallback(this, new FutureCallback<V>() {
+                @Override
+                public void onSuccess(V result) {
+                    callback.onSuccess(FakeTask.this, result);
+                }
+
+                @Override
+                public void onFailure(Throwable throwable) {
+                    // Do nothing.
+                }
+            }, executor);
+            return this;
+        }
+
+        @Override
+        public ManagedFutureTask<V> onSuccess(SuccessCallback<V> callback) {
+            return onSuccess(callback, Runnable::run);
+        }
+
+        @Override
+        public ManagedFutureTask<V> onFailure(final FailureCallback callback, Executor executor) {
+            Futures.addCallback(this, new FutureCallback<V>() {
+                @Override
+                public void onSuccess(V result) {
+                    // Do nothing.
+                }
+
+                @Override
+                public void onFailure(Throwable throwable) {
+                    callback.onFailure(FakeTask.this, throwable);
+                }
+            }, executor);
+            return this;
+        }
+
+        /**
+         * The callback is called in the thread completing the task.
+         */
+        @Override
+        public ManagedFutureTask<V> onFailure(FailureCallback callback) {
+            return onFailure(callback, Runnable::run);
+        }
+
+        @Override
+        public boolean isTaskHang() {
+            // The task was completed at least once.
+            return !executed && now - submissionDate >= hungTime;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public long getTaskRunTime() {
+            if (running) {
+                return now - startDate;
+            }
+            if (!executed) {
+                return 0;
+            }
+            return completionDate - startDate;
+        }
+
+        @Override
+        public long getTaskStartTime() {
+            return startDate;
+        }
+
+        @Override
+        public long getTaskCompletionTime() {
+            return completionDate;
+        }
+
+        @Override
+        public long getHungTaskThreshold() {
+            return hungTime;
+        }
+
+        @Override
+        public ExecutionContext getExecutionContext() {
+            return null;
+        }
+    }
+
+    /**
+     * A view of the virtual clock.
+     */
+    private class VirtualClock extends Clock {
+
+        private final ZoneId zone;
+
+        VirtualClock(ZoneId zone) {
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new VirtualClock(zone);
+        }
+
+        @Override
+        public long millis() {
+            return now;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(now);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.test.parents;
+
+import org.junit.Test;
+import org.wisdom.api.concurrent.ManagedFutureTask;
+import org.wisdom.api.concurrent.ManagedScheduledFutureTask;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Fail.fail;
+
+/**
+ * Checks the executor driven by a virtual clock.
+ */
+public class FakeScheduledExecutorServiceTest {
+
+    private final FakeScheduledExecutorService executor = new FakeScheduledExecutorService("test", 1000, 60000);
+
+    @Test
+    public void testTasksRunOnlyWhenTheClockMoves() throws Exception {
+        List<String> log = new ArrayList<>();
+        ManagedFutureTask<String> task = executor.submit(() -> {
+            log.add("submitted");
+            return "done";
+        });
+        executor.schedule(() -> log.add("delayed"), 1, TimeUnit.SECONDS);
+        assertThat(log).isEmpty();
+        assertThat(executor.getQueue()).hasSize(2);
+
+        executor.runDueTasks();
+        assertThat(log).containsExactly("submitted");
+        assertThat(task.isDone()).isTrue();
+        assertThat(task.get()).isEqualTo("done");
+        assertThat(executor.now()).isEqualTo(1000);
+
+        executor.advance(999, TimeUnit.MILLISECONDS);
+        assertThat(log).containsExactly("submitted");
+        executor.advance(1, TimeUnit.MILLISECONDS);
+        assertThat(log).containsExactly("submitted", "delayed");
+        assertThat(executor.now()).isEqualTo(2000);
+        assertThat(executor.getCompletedTaskCount()).isEqualTo(2);
+        assertThat(executor.getQueue()).isEmpty();
+    }
+
+    @Test
+    public void testPeriodicTasks() {
+        List<String> log = new ArrayList<>();
+        ManagedScheduledFutureTask<?> rate = executor.scheduleAtFixedRate(() -> log.add("rate@" + executor.now()),
+                1, 1, TimeUnit.SECONDS);
+        executor.scheduleWithFixedDelay(() -> {
+            log.add("delay@" + executor.now());
+            // Simulates a computation taking 500 ms.
+            executor.advance(500, TimeUnit.MILLISECONDS);
+        }, 0, 2, TimeUnit.SECONDS);
+
+        executor.advance(4, TimeUnit.SECONDS);
+        assertThat(log).containsExactly("delay@1000", "rate@2000", "rate@3000", "delay@3500", "rate@4000",
+                "rate@5000");
+        assertThat(rate.isPeriodic()).isTrue();
+        assertThat(rate.getDelay(TimeUnit.MILLISECONDS)).isEqualTo(1000);
+
+        rate.cancel(false);
+        log.clear();
+        executor.advance(3, TimeUnit.SECONDS);
+        assertThat(log).containsExactly("delay@6000");
+    }
+
+    @Test
+    public void testTimeoutInVirtualTime() throws Exception {
+        ManagedFutureTask<String> slow = executor.submit(() -> {
+            executor.advance(1, TimeUnit.SECONDS);
+            return "slow";
+        });
+        try {
+            slow.get(10, TimeUnit.MILLISECONDS);
+            fail("Timeout expected");
+        } catch (TimeoutException e) {
+            // Expected, the task took one second.
+        }
+        assertThat(slow.getTaskRunTime()).isEqualTo(1000);
+        assertThat(slow.get(0, TimeUnit.MILLISECONDS)).isEqualTo("slow");
+
+        Future<String> late = executor.schedule(() -> "late", 1, TimeUnit.HOURS);
+        long before = executor.now();
+        try {
+            late.get(1, TimeUnit.MINUTES);
+            fail("Timeout expected");
+        } catch (TimeoutException e) {
+            // Expected, the task is due in one hour.
+        }
+        assertThat(executor.now()).isEqualTo(before + 60000);
+        assertThat(late.get()).isEqualTo("late");
+        assertThat(executor.now()).isEqualTo(before + 3600000);
+    }
+
+    @Test
+    public void testHungTasks() {
+        final int[] hung = {0};
+        executor.submit(() -> {
+            executor.advance(2, TimeUnit.MINUTES);
+            hung[0] = executor.getHungTasks().size();
+        });
+        executor.runDueTasks();
+        assertThat(hung[0]).isEqualTo(1);
+        assertThat(executor.getHungTasks()).isEmpty();
+        assertThat(executor.getExecutionTimeStatistics().getMaximumExecutionTime()).isEqualTo(120000);
+    }
+
+    @Test
+    public void testCallbacksAndFailures() {
+        final Object[] results = {null, null};
+        executor.submit(() -> "ok").onSuccess((future, result) -> results[0] = result);
+        executor.submit(() -> {
+            throw new IllegalStateException("expected");
+        }).onFailure((future, throwable) -> results[1] = throwable);
+        executor.runDueTasks();
+        assertThat(results[0]).isEqualTo("ok");
+        assertThat(results[1]).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testClock() {
+        assertThat(executor.clock().instant()).isEqualTo(Instant.ofEpochMilli(1000));
+        executor.advance(1, TimeUnit.DAYS);
+        assertThat(executor.clock().millis()).isEqualTo(1000 + TimeUnit.DAYS.toMillis(1));
+    }
+
+    @Test
+    public void testShutdown() {
+        executor.scheduleAtFixedRate(() -> {
+            // Nothing.
+        }, 1, 1, TimeUnit.SECONDS);
+        executor.schedule(() -> {
+            // Nothing.
+        }, 1, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertThat(executor.isShutdown()).isTrue();
+        // The delayed task is still pending.
+        assertThat(executor.isTerminated()).isFalse();
+        try {
+            executor.submit(() -> {
+                // Nothing.
+            });
+            fail("Rejection expected");
+        } catch (RejectedExecutionException e) {
+            // Expected.
+        }
+        assertThat(executor.getRejectedTaskCount()).isEqualTo(1);
+        executor.advance(1, TimeUnit.SECONDS);
+        assertThat(executor.isTerminated()).isTrue();
+    }
+}
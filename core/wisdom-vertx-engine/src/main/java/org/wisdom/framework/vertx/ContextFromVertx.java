@@ -24,6 +24,8 @@ import com.google.common.base.Strings;
 import io.vertx.core.*;
 import io.vertx.core.http.HttpServerRequest;
 import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wisdom.api.content.BodyParser;
 import org.wisdom.api.cookies.Cookie;
 import org.wisdom.api.cookies.Cookies;
@@ -46,6 +48,8 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -53,6 +57,8 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class ContextFromVertx implements Context {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContextFromVertx.class);
+
     private static AtomicLong ids = new AtomicLong();
     private final long id;
     private final ServiceAccessor services;
@@ -68,6 +74,11 @@ public class ContextFromVertx implements Context {
     private RequestFromVertx request;
     private io.vertx.core.Context vertxContext;
 
+    /**
+     * The callbacks to invoke once the response is written.
+     */
+    private final Queue<Runnable> completionCallbacks = new ConcurrentLinkedQueue<>();
+
 
     /**
      * Creates a new context.
@@ -589,10 +600,39 @@ public class ContextFromVertx implements Context {
     }
 
     /**
-     * Releases uploaded files.
+     * Registers a callback invoked when the response has been written, or when the connection has been closed
+     * before, i.e. when {@link #cleanup()} or {@link #complete()} is called.
+     *
+     * @param callback the callback
+     */
+    @Override
+    public void onComplete(Runnable callback) {
+        completionCallbacks.add(callback);
+    }
+
+    /**
+     * Releases uploaded files, and invokes the completion callbacks. Each callback is invoked only once, even if
+     * this method is called several times. It must not be called while the action may still read the uploaded
+     * files.
      */
     public void cleanup() {
         request.getFiles().forEach(VertxFileUpload::cleanup);
+        complete();
+    }
+
+    /**
+     * Invokes the completion callbacks, without releasing the uploaded files. Each callback is invoked only once,
+     * even if this method is called several times.
+     */
+    public void complete() {
+        Runnable callback;
+        while ((callback = completionCallbacks.poll()) != null) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("A completion callback of the request {} has thrown an exception", id, e);
+            }
+        }
     }
 
     /**
@@ -28,6 +28,7 @@ import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.streams.Pump;
+import io.vertx.core.streams.ReadStream;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +46,9 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -90,6 +94,17 @@ public class HttpHandler implements Handler<HttpServerRequest> {
     public void handle(final HttpServerRequest request) {
         LOGGER.debug("A request has arrived on the server : {} {}", request.method(), request.path());
         final ContextFromVertx context = new ContextFromVertx(vertx, vertx.getOrCreateContext(), accessor, request);
+        // The connection may be closed before the response is written, for instance when the client leaves or when
+        // an asynchronous result never completes. Run the completion callbacks anyway. Once dispatched, the action
+        // may still be reading the uploaded files, they are released when its response is written or abandoned.
+        final AtomicBoolean dispatched = new AtomicBoolean();
+        request.response().closeHandler(event -> {
+            if (dispatched.get()) {
+                context.complete();
+            } else {
+                context.cleanup();
+            }
+        });
 
         if (!server.accept(request.path())) {
             LOGGER.warn("Request on {} denied by {}", request.path(), server.name());
@@ -149,6 +164,7 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                 req.setRawBody(raw);
                 // Notifies the context that the request has been read, we start the dispatching.
                 if (context.ready()) {
+                    dispatched.set(true);
                     // Dispatch.
                     dispatch(context, (RequestFromVertx) context.request());
                 } else {
@@ -218,6 +234,10 @@ public class HttpHandler implements Handler<HttpServerRequest> {
         try {
             return route.invoke();
         } catch (Throwable e) { //NOSONAR
+            if (isRejection(e)) {
+                LOGGER.warn("Cannot process {} {}, the executor is saturated", route.getHttpMethod(), route.getUrl());
+                return serviceUnavailable();
+            }
             if (e.getCause() != null) {
                 // We don't really care about the parent exception, dump the cause only.
                 LOGGER.error("An error occurred during route invocation", e.getCause());
@@ -234,44 +254,98 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             final RequestFromVertx request,
             final AsyncResult asyncResult) {
 
-        ManagedFutureTask<Result> future = accessor.getExecutor().submit(asyncResult.callable());
+        if (asyncResult.completion() != null) {
+            // The result is completed by non-blocking code, no need to hold a thread while waiting.
+            asyncResult.completion().whenComplete((result, failure) -> {
+                if (failure == null) {
+                    onAsyncResult(context, request, asyncResult, result);
+                } else if (failure instanceof CompletionException && failure.getCause() != null) {
+                    onAsyncFailure(context, request, failure.getCause());
+                } else {
+                    onAsyncFailure(context, request, failure);
+                }
+            });
+            return;
+        }
+
+        ManagedFutureTask<Result> future;
+        try {
+            future = accessor.getExecutor().submit(asyncResult.callable());
+        } catch (RejectedExecutionException e) {
+            // Fail fast instead of letting the request wait, the client can retry later.
+            LOGGER.warn("Cannot process {} {}, the executor is saturated", request.method(), context.path());
+            writeResponse(context, request, serviceUnavailable(), false, false);
+            return;
+        }
         Futures.addCallback(future, new FutureCallback<Result>() {
             @Override
             public void onSuccess(Result result) {
-                // We got a result, write it here.
-                // Merge the headers of the initial result and the async results.
-                final Map<String, String> headers = result.getHeaders();
-                for (Map.Entry<String, String> header : asyncResult.getHeaders().entrySet()) {
-                    if (!headers.containsKey(header.getKey())) {
-                        headers.put(header.getKey(), header.getValue());
-                    }
-                }
-                writeResponse(context, request, result, true, false);
+                onAsyncResult(context, request, asyncResult, result);
             }
 
             @Override
             public void onFailure(Throwable t) {
-                //We got a failure, handle it here
+                onAsyncFailure(context, request, t);
+            }
+        }/*, MoreExecutors.directExecutor()*/);
+        //TODO Which executor should we use here ?
+    }
 
-                // Check whether it's a HTTPException
-                if (t instanceof HttpException) {
-                    writeResponse(context, request, ((HttpException) t).toResult(), false, false);
-                    return;
-                }
+    /**
+     * Checks whether the given failure comes from an executor refusing a task.
+     *
+     * @param t the failure
+     * @return {@code true} if the failure or its cause is a {@link RejectedExecutionException}
+     */
+    private static boolean isRejection(Throwable t) {
+        return t instanceof RejectedExecutionException || t.getCause() instanceof RejectedExecutionException;
+    }
 
-                // Check if we have a mapper
-                if (t instanceof Exception) {
-                    ExceptionMapper mapper = accessor.getExceptionMapper((Exception) t);
-                    if (mapper != null) {
-                        writeResponse(context, request, mapper.toResult((Exception) t), false, false);
-                        return;
-                    }
-                }
+    /**
+     * @return the result sent when the request cannot be processed because the executor is saturated.
+     */
+    private static Result serviceUnavailable() {
+        return Results.status(Status.SERVICE_UNAVAILABLE).noContentIfNone();
+    }
 
-                writeResponse(context, request, Results.internalServerError(t), false, false);
+    private void onAsyncResult(ContextFromVertx context, RequestFromVertx request, AsyncResult asyncResult,
+                               Result result) {
+        // We got a result, write it here.
+        // Merge the headers of the initial result and the async results.
+        final Map<String, String> headers = result.getHeaders();
+        for (Map.Entry<String, String> header : asyncResult.getHeaders().entrySet()) {
+            if (!headers.containsKey(header.getKey())) {
+                headers.put(header.getKey(), header.getValue());
             }
-        }/*, MoreExecutors.directExecutor()*/);
-        //TODO Which executor should we use here ?
+        }
+        writeResponse(context, request, result, true, false);
+    }
+
+    private void onAsyncFailure(ContextFromVertx context, RequestFromVertx request, Throwable t) {
+        //We got a failure, handle it here
+
+        // The task was rejected, or dropped from the queue of a saturated executor.
+        if (isRejection(t) || t instanceof CancellationException) {
+            writeResponse(context, request, serviceUnavailable(), false, false);
+            return;
+        }
+
+        // Check whether it's a HTTPException
+        if (t instanceof HttpException) {
+            writeResponse(context, request, ((HttpException) t).toResult(), false, false);
+            return;
+        }
+
+        // Check if we have a mapper
+        if (t instanceof Exception) {
+            ExceptionMapper mapper = accessor.getExceptionMapper((Exception) t);
+            if (mapper != null) {
+                writeResponse(context, request, mapper.toResult((Exception) t), false, false);
+                return;
+            }
+        }
+
+        writeResponse(context, request, Results.internalServerError(t), false, false);
     }
 
     private void writeResponse(
@@ -286,11 +360,13 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             renderable = NoHttpBody.INSTANCE;
         }
 
-        InputStream stream;
+        InputStream stream = null;
         boolean success = true;
         try {
-            // Process the result, and apply serialization if required.
-            stream = HttpUtils.processResult(accessor, context, renderable, result);
+            // Process the result, and apply serialization if required. Vert.x streams are written as they are.
+            if (!(renderable.content() instanceof ReadStream)) {
+                stream = HttpUtils.processResult(accessor, context, renderable, result);
+            }
         } catch (Exception e) {
             LOGGER.error("Cannot render the response to " + request.uri(), e);
             stream = new ByteArrayInputStream(NoHttpBody.empty());
@@ -312,8 +388,15 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             result.withoutCompression();
         }
 
-        finalizeWriteReponse(context, request.getVertxRequest(),
-                result, stream, success, handleFlashAndSessionCookie, closeConnection);
+        try {
+            finalizeWriteReponse(context, request.getVertxRequest(),
+                    result, stream, success, handleFlashAndSessionCookie, closeConnection);
+        } catch (RuntimeException e) {
+            // The response may never be ended, do not wait for the connection to be closed to release the
+            // resources. The completion callbacks are invoked only once, even if an error response is written.
+            context.cleanup();
+            throw e;
+        }
     }
 
     /**
@@ -380,7 +463,9 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             response.headers().add(HeaderNames.SET_COOKIE, encoded);
         }
         response.setStatusCode(HttpUtils.getStatusFromResult(result, success));
-        if (renderable.mustBeChunked()) {
+        if (stream == null && renderable.content() instanceof ReadStream) {
+            writeReadStream(context, request, response, (ReadStream<?>) renderable.content());
+        } else if (renderable.mustBeChunked()) {
             LOGGER.debug("Building the chunked response for {} {} ({})", request.method(), request.uri(), context);
             if (renderable.length() > 0 && !response.headers().contains(HeaderNames.CONTENT_LENGTH)) {
                 response.putHeader(HeaderNames.CONTENT_LENGTH, Long.toString(renderable.length()));
@@ -445,6 +530,46 @@ public class HttpHandler implements Handler<HttpServerRequest> {
         }
     }
 
+    /**
+     * Writes the content of a Vert.x stream (such as the response of a Vert.x HTTP client) to the response. The
+     * stream is expected to be paused, it is resumed once the pump is started. The content is pumped with
+     * back-pressure, so the stream is paused while the client is not reading.
+     *
+     * @param context  the HTTP context
+     * @param request  the Vert.x request
+     * @param response the response
+     * @param content  the stream of buffers
+     */
+    @SuppressWarnings("unchecked")
+    private void writeReadStream(final ContextFromVertx context, final HttpServerRequest request,
+                                 final HttpServerResponse response, final ReadStream<?> content) {
+        final ReadStream<Buffer> stream = (ReadStream<Buffer>) content;
+        LOGGER.debug("Streaming the response for {} {} ({})", request.method(), request.uri(), context);
+        if (!response.headers().contains(HeaderNames.CONTENT_LENGTH)) {
+            response.setChunked(true);
+        }
+        final Pump pump = Pump.pump(stream, response);
+        stream.endHandler(event -> context.vertxContext().runOnContext(event1 -> {
+                    response.end();
+                    cleanup(context);
+                })
+        );
+        stream.exceptionHandler(event -> context.vertxContext().runOnContext(event1 -> {
+                    LOGGER.error("Cannot read the result stream of {}", request.uri(), event);
+                    response.close();
+                    cleanup(context);
+                })
+        );
+        response.closeHandler(event -> {
+            // The client left, consume the rest of the stream to release the source.
+            pump.stop();
+            stream.resume();
+            context.cleanup();
+        });
+        pump.start();
+        stream.resume();
+    }
+
     private boolean shouldEncodingBeDisabledForResponse(long length, Result result) {
         return server.hasCompressionEnabled()
                 && (
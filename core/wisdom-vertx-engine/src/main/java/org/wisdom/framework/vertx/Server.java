@@ -404,6 +404,19 @@ public class Server {
         return host;
     }
 
+    /**
+     * @return the maximum size of a web socket message received in several frames. Beyond, the partial message is
+     * dropped and the connection closed. By default it's 4 times the maximum frame size
+     * ({@code vertx.maxWebSocketFrameSize}).
+     */
+    public int getMaxWebSocketMessageSize() {
+        int frame = configuration.getIntegerWithDefault("vertx.maxWebSocketFrameSize", -1);
+        if (frame == -1) {
+            frame = HttpServerOptions.DEFAULT_MAX_WEBSOCKET_FRAME_SIZE;
+        }
+        return configuration.getIntegerWithDefault("vertx.maxWebSocketMessageSize", 4 * frame);
+    }
+
     /**
      * @return whether or not the compression is enabled.
      */
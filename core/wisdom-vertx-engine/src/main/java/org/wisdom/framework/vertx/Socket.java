@@ -20,9 +20,11 @@
 package org.wisdom.framework.vertx;
 
 
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketFrame;
 
 /**
  * A class abstracting the differences between the WebSocket API and the SockJs API.
@@ -35,25 +37,24 @@ public class Socket {
      */
     private final ServerWebSocket delegate;
 
+    /**
+     * The Vert.x context on which the socket has been opened, {@code null} if the socket has been created outside
+     * of a Vert.x thread.
+     */
+    private final Context context;
+
     /**
      * Creates an instance of {@link org.wisdom.framework.vertx.Socket} delegating to
-     * a {@link ServerWebSocket} instance.
+     * a {@link ServerWebSocket} instance. The frames are written from the Vert.x context calling this constructor.
      *
      * @param delegate the delegate
      */
     public Socket(ServerWebSocket delegate) {
         this.delegate = delegate;
+        this.context = Vertx.currentContext();
     }
 
 
-    private String getWriteHandlerId() {
-        return delegate.textHandlerID();
-    }
-
-    private String getBinaryWriteHandlerId() {
-        return delegate.binaryHandlerID();
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -77,22 +78,50 @@ public class Socket {
     }
 
     /**
-     * Sends a text frame on the socket.
+     * Writes a text frame on the socket. The frame is written directly, not through the event bus.
      *
      * @param message the message
-     * @param bus     the Vert.x event bus.
      */
-    public void publish(String message, EventBus bus) {
-        bus.publish(getWriteHandlerId(), message);
+    public void write(String message) {
+        write(WebSocketFrame.textFrame(message, true));
     }
 
     /**
-     * Sends a binary frame on the socket.
+     * Writes a binary frame on the socket. The content is not copied. The frame is written directly, not through the
+     * event bus.
      *
      * @param message the message
-     * @param bus     the Vert.x event bus.
      */
-    public void publish(byte[] message, EventBus bus) {
-        bus.publish(getBinaryWriteHandlerId(), Buffer.buffer(message));
+    public void write(Buffer message) {
+        write(WebSocketFrame.binaryFrame(message, true));
+    }
+
+    private void write(WebSocketFrame frame) {
+        if (context == null || Vertx.currentContext() == context) {
+            delegate.writeFrame(frame);
+        } else {
+            context.runOnContext(v -> delegate.writeFrame(frame));
+        }
+    }
+
+    /**
+     * Stops reading the frames sent by the client.
+     */
+    public void pause() {
+        delegate.pause();
+    }
+
+    /**
+     * Reads again the frames sent by the client.
+     */
+    public void resume() {
+        delegate.resume();
+    }
+
+    /**
+     * Closes the connection.
+     */
+    public void close() {
+        delegate.close();
     }
 }
@@ -20,7 +20,9 @@
 package org.wisdom.framework.vertx;
 
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketFrame;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -78,7 +80,64 @@ public class WebSocketHandler implements Handler<ServerWebSocket> {
             accessor.getDispatcher().removeSocket(socket.path(), sock);
         });
 
-        socket.handler(event -> accessor.getDispatcher().received(socket.path(), event.getBytes(), sock));
+        final int maxMessageSize = configuration.getMaxWebSocketMessageSize();
+        socket.frameHandler(new Handler<WebSocketFrame>() {
+            /**
+             * The content of the fragmented message being received, {@code null} if none.
+             */
+            private Buffer pending;
+
+            /**
+             * Whether the message being received is a binary or a text message. The continuation frames do not
+             * carry this information.
+             */
+            private boolean binary;
+
+            /**
+             * Whether a message has exceeded the maximum size. The connection is being closed, and the remaining
+             * frames are ignored.
+             */
+            private boolean overflow;
+
+            @Override
+            public void handle(WebSocketFrame frame) {
+                if (overflow) {
+                    return;
+                }
+                if (!frame.isContinuation()) {
+                    if (!frame.isText() && !frame.isBinary()) {
+                        return;
+                    }
+                    binary = frame.isBinary();
+                    pending = null;
+                }
+
+                if (frame.isFinal() && pending == null) {
+                    // Most common case, the message is not fragmented.
+                    accessor.getDispatcher().received(socket.path(), frame.binaryData().getBytes(), binary, sock);
+                    return;
+                }
+
+                if (pending == null) {
+                    pending = Buffer.buffer();
+                }
+                if (pending.length() + frame.binaryData().length() > maxMessageSize) {
+                    // Do not let a client exhaust the memory with an endless fragmented message.
+                    LOGGER.warn("Web Socket message on {} exceeds the maximum size ({} bytes), closing the " +
+                            "connection", socket.uri(), maxMessageSize);
+                    pending = null;
+                    overflow = true;
+                    sock.close();
+                    return;
+                }
+                pending.appendBuffer(frame.binaryData());
+                if (frame.isFinal()) {
+                    byte[] content = pending.getBytes();
+                    pending = null;
+                    accessor.getDispatcher().received(socket.path(), content, binary, sock);
+                }
+            }
+        });
 
     }
 }
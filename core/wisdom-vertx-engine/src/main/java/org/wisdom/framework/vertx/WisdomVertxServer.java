@@ -19,7 +19,11 @@
  */
 package org.wisdom.framework.vertx;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.spi.VerticleFactory;
 import org.apache.felix.ipojo.annotations.*;
 import org.slf4j.Logger;
@@ -37,6 +41,9 @@ import org.wisdom.api.router.Router;
 
 import java.net.InetAddress;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 /**
@@ -52,15 +59,44 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WisdomVertxServer.class);
 
+    /**
+     * The configuration key enabling the cluster-wide publication of web socket messages. It is only used when
+     * Vert.x runs clustered.
+     */
+    public static final String CLUSTER_PUBLISH = "vertx.websocket.cluster-publish";
+
+    /**
+     * The prefix of the event bus addresses on which the messages published on a web socket are sent when the
+     * cluster-wide publication is enabled. The web socket url is appended to this prefix.
+     */
+    public static final String CLUSTER_PUBLISH_ADDRESS_PREFIX = "wisdom.websocket.publish:";
+
     /**
      * The set of Web Socket Listeners used to dispatch data received on web sockets.
      */
-    private List<WebSocketListener> listeners = new ArrayList<>();
+    private final List<WebSocketListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
-     * The map of uri / list of channel context keeping a reference on all opened web sockets.
+     * The map of uri / set of sockets keeping a reference on all opened web sockets.
      */
-    private Map<String, List<Socket>> socketsByUri = new HashMap<>();
+    private ConcurrentMap<String, Set<Socket>> socketsByUri = new ConcurrentHashMap<>();
+
+    /**
+     * The map of client id / socket, used to send messages to a specific client.
+     */
+    private final ConcurrentMap<String, Socket> socketsById = new ConcurrentHashMap<>();
+
+    /**
+     * Whether or not the published messages are sent to the whole cluster. In this case, every node having
+     * clients connected on a web socket listens on the event bus address of this web socket.
+     */
+    volatile boolean clusterPublish;
+
+    /**
+     * The event bus consumers receiving the messages published in the cluster, indexed by web socket url. A node
+     * only listens for the web socket having connected clients on this node.
+     */
+    private final ConcurrentMap<String, MessageConsumer<Object>> consumers = new ConcurrentHashMap<>();
 
     /**
      * The vertx singleton.
@@ -134,6 +170,11 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
 
         initializeInetAddress();
 
+        clusterPublish = vertx.isClustered()
+                && accessor.getConfiguration().getBooleanWithDefault(CLUSTER_PUBLISH, false);
+        if (clusterPublish) {
+            LOGGER.info("Web socket messages are published to the whole cluster");
+        }
 
         // Parse server configuration if any
         Configuration servers = configuration.getConfiguration("vertx.servers");
@@ -195,6 +236,10 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
     @Invalidate
     public void stop() {
         listeners.clear();
+        for (MessageConsumer<Object> consumer : consumers.values()) {
+            consumer.unregister();
+        }
+        consumers.clear();
         LOGGER.info("Stopping the vert.x server");
 
         vertx.runOnContext(v -> {
@@ -245,46 +290,76 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
     /**
      * Publishes the given message to all clients subscribed to the socket (either a web socket of a SockJS socket)
      * specified using its url. For SockJS, it must match one of the configured prefix.
+     * <p>
+     * Each frame is written from the context of its socket. The Vert.x API only builds text frames from a String, so
+     * the message is encoded in UTF-8 for each socket: the allocation is O(n) in the number of sockets, unlike
+     * {@link #publish(String, byte[])} that shares the same buffer.
      *
      * @param url  the url of the web socket, must not be {@literal null}
      * @param data the data, must not be {@literal null}
      */
     @Override
     public void publish(String url, String data) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(url);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
-            } else {
-                sockets = Collections.emptyList();
-            }
+        if (clusterPublish) {
+            vertx.eventBus().publish(CLUSTER_PUBLISH_ADDRESS_PREFIX + url, data);
+            return;
         }
-        for (Socket socket : sockets) {
-            socket.publish(data, vertx.eventBus());
+        Set<Socket> sockets = socketsByUri.get(url);
+        if (sockets != null && !sockets.isEmpty()) {
+            for (Socket socket : sockets) {
+                socket.write(data);
+            }
         }
     }
 
     /**
      * Publishes the given message to all clients subscribed to the socket ((either a web socket of a SockJS socket))
      * specified using its url. For SockJS, it must match one of the configured prefix.
+     * <p>
+     * The same buffer, wrapping the given data, is written to all the sockets.
      *
      * @param url  the url of the socket, must not be {@literal null}
      * @param data the data, must not be {@literal null}
      */
     @Override
-    public synchronized void publish(String url, byte[] data) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(url);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
-            } else {
-                sockets = Collections.emptyList();
+    public void publish(String url, byte[] data) {
+        if (clusterPublish) {
+            vertx.eventBus().publish(CLUSTER_PUBLISH_ADDRESS_PREFIX + url, Buffer.buffer(data));
+            return;
+        }
+        Set<Socket> sockets = socketsByUri.get(url);
+        if (sockets != null && !sockets.isEmpty()) {
+            broadcast(sockets, Unpooled.wrappedBuffer(data));
+        }
+    }
+
+    /**
+     * Writes a message received from the cluster to the sockets connected to this node.
+     *
+     * @param url  the web socket url
+     * @param body the message, a String for text messages or a Buffer for binary messages
+     */
+    private void deliver(String url, Object body) {
+        Set<Socket> sockets = socketsByUri.get(url);
+        if (sockets == null || sockets.isEmpty()) {
+            return;
+        }
+        if (body instanceof Buffer) {
+            broadcast(sockets, ((Buffer) body).getByteBuf());
+        } else if (body != null) {
+            String message = body.toString();
+            for (Socket socket : sockets) {
+                socket.write(message);
             }
         }
+    }
+
+    private void broadcast(Set<Socket> sockets, ByteBuf content) {
+        // The buffer is shared by all the frames, so it must not be released once written to a socket. Each frame
+        // gets its own view, with its own indexes.
+        ByteBuf shared = Unpooled.unreleasableBuffer(content);
         for (Socket socket : sockets) {
-            socket.publish(data, vertx.eventBus());
+            socket.write(Buffer.buffer(shared.duplicate()));
         }
     }
 
@@ -296,19 +371,24 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     public void addSocket(String url, Socket socket) {
         LOGGER.info("Adding web socket on {} bound to {}", url, socket);
-        List<WebSocketListener> webSocketListeners;
-        synchronized (this) {
-            List<Socket> channels = socketsByUri.get(url);
-            if (channels == null) {
-                channels = new ArrayList<>();
+        socketsByUri.compute(url, (key, sockets) -> {
+            Set<Socket> set = sockets;
+            if (set == null) {
+                set = Collections.newSetFromMap(new ConcurrentHashMap<>());
+                if (clusterPublish) {
+                    // First client on this web socket, listen for the messages published in the cluster.
+                    consumers.put(url, vertx.eventBus().consumer(CLUSTER_PUBLISH_ADDRESS_PREFIX + url,
+                            message -> deliver(url, message.body())));
+                }
             }
-            channels.add(socket);
-            socketsByUri.put(url, channels);
-            webSocketListeners = new ArrayList<>(this.listeners);
-        }
+            set.add(socket);
+            return set;
+        });
+        String id = id(socket);
+        socketsById.put(id, socket);
 
-        for (WebSocketListener listener : webSocketListeners) {
-            listener.opened(url, id(socket));
+        for (WebSocketListener listener : listeners) {
+            listener.opened(url, id);
         }
     }
 
@@ -320,20 +400,22 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     public void removeSocket(String url, Socket socket) {
         LOGGER.info("Removing web socket on {} bound to {}", url, socket.path());
-        List<WebSocketListener> webSocketListeners;
-        synchronized (this) {
-            List<Socket> channels = socketsByUri.get(url);
-            if (channels != null) {
-                channels.remove(socket);
-                if (channels.isEmpty()) {
-                    socketsByUri.remove(url);
+        socketsByUri.computeIfPresent(url, (key, sockets) -> {
+            sockets.remove(socket);
+            if (sockets.isEmpty()) {
+                MessageConsumer<Object> consumer = consumers.remove(url);
+                if (consumer != null) {
+                    consumer.unregister();
                 }
+                return null;
             }
-            webSocketListeners = new ArrayList<>(this.listeners);
-        }
+            return sockets;
+        });
+        String id = id(socket);
+        socketsById.remove(id, socket);
 
-        for (WebSocketListener listener : webSocketListeners) {
-            listener.closed(url, id(socket));
+        for (WebSocketListener listener : listeners) {
+            listener.closed(url, id);
         }
     }
 
@@ -345,14 +427,10 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void register(WebSocketListener listener) {
-        Map<String, List<Socket>> copy;
-        synchronized (this) {
-            listeners.add(listener);
-            copy = new HashMap<>(socketsByUri);
-        }
+        listeners.add(listener);
 
         // Call open on each opened web socket
-        for (Map.Entry<String, List<Socket>> entry : copy.entrySet()) {
+        for (Map.Entry<String, Set<Socket>> entry : socketsByUri.entrySet()) {
             for (Socket client : entry.getValue()) {
                 listener.opened(entry.getKey(), id(client));
             }
@@ -366,9 +444,7 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void unregister(WebSocketListener listener) {
-        synchronized (this) {
-            listeners.remove(listener);
-        }
+        listeners.remove(listener);
     }
 
     /**
@@ -381,19 +457,9 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void send(String uri, String client, String message) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(uri);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
-            } else {
-                sockets = Collections.emptyList();
-            }
-        }
-        for (Socket socket : sockets) {
-            if (client.equals(id(socket))) {
-                socket.publish(message, vertx.eventBus());
-            }
+        Socket socket = find(uri, client);
+        if (socket != null) {
+            socket.write(message);
         }
     }
 
@@ -417,22 +483,79 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void send(String uri, String client, byte[] message) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(uri);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
-            } else {
-                sockets = Collections.emptyList();
-            }
+        Socket socket = find(uri, client);
+        if (socket != null) {
+            // Binary frame wrapping the given array, without copy.
+            socket.write(Buffer.buffer(Unpooled.wrappedBuffer(message)));
         }
-        for (Socket socket : sockets) {
-            if (client.equals(id(socket))) {
-                socket.publish(message, vertx.eventBus());
-            }
+    }
+
+    /**
+     * Stops reading the frames sent by the client identify by its id and listening to the websocket having the
+     * given url.
+     *
+     * @param uri    the web socket url
+     * @param client the client id
+     */
+    @Override
+    public void pause(String uri, String client) {
+        Socket socket = find(uri, client);
+        if (socket != null) {
+            socket.pause();
         }
     }
 
+    /**
+     * Reads again the frames sent by the client identify by its id and listening to the websocket having the
+     * given url.
+     *
+     * @param uri    the web socket url
+     * @param client the client id
+     */
+    @Override
+    public void resume(String uri, String client) {
+        Socket socket = find(uri, client);
+        if (socket != null) {
+            socket.resume();
+        }
+    }
+
+    /**
+     * Closes the connection of the client identify by its id and listening to the websocket having the given url.
+     *
+     * @param uri    the web socket url
+     * @param client the client id
+     */
+    @Override
+    public void close(String uri, String client) {
+        Socket socket = find(uri, client);
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    /**
+     * Finds the socket of the given client.
+     *
+     * @param uri    the web socket url
+     * @param client the client id
+     * @return the socket, {@code null} if the client is not connected to the given web socket.
+     */
+    private Socket find(String uri, String client) {
+        if (client == null) {
+            return null;
+        }
+        Socket socket = socketsById.get(client);
+        if (socket == null) {
+            return null;
+        }
+        Set<Socket> sockets = socketsByUri.get(uri);
+        if (sockets != null && sockets.contains(socket)) {
+            return socket;
+        }
+        return null;
+    }
+
     /**
      * Method called when some data is received on a web socket. It delegates to the registered listeners.
      *
@@ -441,13 +564,21 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      * @param socket  the client channel
      */
     public void received(String uri, byte[] content, Socket socket) {
-        List<WebSocketListener> localListeners;
-        synchronized (this) {
-            localListeners = new ArrayList<>(this.listeners);
-        }
+        received(uri, content, false, socket);
+    }
 
-        for (WebSocketListener listener : localListeners) {
-            listener.received(uri, id(socket), content);
+    /**
+     * Method called when a message is received on a web socket. It delegates to the registered listeners.
+     *
+     * @param uri     the web socket url
+     * @param content the data
+     * @param binary  whether the message was sent as binary or text frames
+     * @param socket  the client channel
+     */
+    public void received(String uri, byte[] content, boolean binary, Socket socket) {
+        String id = id(socket);
+        for (WebSocketListener listener : listeners) {
+            listener.received(uri, id, content, binary);
         }
     }
 
@@ -459,10 +590,8 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
     @Override
     public Map<String, Integer> getNumberOpenedSockets() {
         Map<String, Integer> numberOpenedSocketByUri = new LinkedHashMap<>();
-        synchronized (this) {
-            for (Map.Entry<String, List<Socket>> socketByUri : socketsByUri.entrySet()) {
-                numberOpenedSocketByUri.put(socketByUri.getKey(), socketByUri.getValue().size());
-            }
+        for (Map.Entry<String, Set<Socket>> socketByUri : socketsByUri.entrySet()) {
+            numberOpenedSocketByUri.put(socketByUri.getKey(), socketByUri.getValue().size());
         }
         return numberOpenedSocketByUri;
     }
@@ -475,21 +604,19 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public Integer getNumberOpenedSocketsByUri(String uri) {
-        Integer numberOpenedSocketForUri = 0;
-        synchronized (this) {
-            if (socketsByUri.containsKey(uri)) {
-                numberOpenedSocketForUri = socketsByUri.get(uri).size();
-            }
+        Set<Socket> sockets = socketsByUri.get(uri);
+        if (sockets == null) {
+            return 0;
         }
-        return numberOpenedSocketForUri;
+        return sockets.size();
     }
 
     /**
      * For testing purpose only
      *
-     * @return a direct reference on the sockets and their corresponding uri.
+     * @param socketsByUri the sockets and their corresponding uri.
      */
-    public void setSocketsByUri( Map<String, List<Socket>> socketsByUri) {
+    public void setSocketsByUri(ConcurrentMap<String, Set<Socket>> socketsByUri) {
         this.socketsByUri = socketsByUri;
     }
 
@@ -498,7 +625,7 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      *
      * @return a direct reference on the sockets and their corresponding uri.
      */
-    protected Map<String, List<Socket>> getSocketsByUri() {
+    protected Map<String, Set<Socket>> getSocketsByUri() {
         return socketsByUri;
     }
 
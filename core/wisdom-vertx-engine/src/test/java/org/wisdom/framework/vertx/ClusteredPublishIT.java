@@ -0,0 +1,148 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import com.google.common.base.Charsets;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketFrame;
+import io.vertx.spi.cluster.hazelcast.HazelcastClusterManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the cluster-wide publication of web socket messages, using two clustered vert.x instances running in the
+ * same JVM and communicating over the loopback interface.
+ */
+public class ClusteredPublishIT {
+
+    private Vertx vertx1;
+    private Vertx vertx2;
+
+    private WisdomVertxServer server1;
+    private WisdomVertxServer server2;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        vertx1 = clustered();
+        vertx2 = clustered();
+        server1 = server(vertx1);
+        server2 = server(vertx2);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        server1.stop();
+        server2.stop();
+        close(vertx1);
+        close(vertx2);
+    }
+
+    @Test
+    public void testPublishReachesEveryNodeOnce() throws InterruptedException {
+        ServerWebSocket socket1 = mock(ServerWebSocket.class);
+        ServerWebSocket socket2 = mock(ServerWebSocket.class);
+        ServerWebSocket socket3 = mock(ServerWebSocket.class);
+        ServerWebSocket other = mock(ServerWebSocket.class);
+        server1.addSocket("/hello", new Socket(socket1));
+        server2.addSocket("/hello", new Socket(socket2));
+        server2.addSocket("/hello", new Socket(socket3));
+        server2.addSocket("/other", new Socket(other));
+        // Let the subscriptions reach the other node.
+        Thread.sleep(2000);
+
+        server1.publish("/hello", "yep !");
+
+        ArgumentCaptor<WebSocketFrame> frame = ArgumentCaptor.forClass(WebSocketFrame.class);
+        verify(socket2, timeout(10000).times(1)).writeFrame(frame.capture());
+        assertThat(frame.getValue().isText()).isTrue();
+        assertThat(frame.getValue().textData()).isEqualTo("yep !");
+        verify(socket1, timeout(10000).times(1)).writeFrame(any(WebSocketFrame.class));
+        verify(socket3, timeout(10000).times(1)).writeFrame(any(WebSocketFrame.class));
+
+        server2.publish("/hello", "data".getBytes(Charsets.UTF_8));
+        frame = ArgumentCaptor.forClass(WebSocketFrame.class);
+        verify(socket1, timeout(10000).times(2)).writeFrame(frame.capture());
+        assertThat(frame.getValue().isBinary()).isTrue();
+        assertThat(frame.getValue().binaryData().getBytes()).isEqualTo("data".getBytes(Charsets.UTF_8));
+        verify(socket2, timeout(10000).times(2)).writeFrame(any(WebSocketFrame.class));
+        verify(socket3, timeout(10000).times(2)).writeFrame(any(WebSocketFrame.class));
+
+        // Check that no message is delivered twice.
+        Thread.sleep(1000);
+        verify(socket1, times(2)).writeFrame(any(WebSocketFrame.class));
+        verify(socket2, times(2)).writeFrame(any(WebSocketFrame.class));
+        verify(socket3, times(2)).writeFrame(any(WebSocketFrame.class));
+        verify(other, never()).writeFrame(any(WebSocketFrame.class));
+    }
+
+    private static WisdomVertxServer server(Vertx vertx) {
+        WisdomVertxServer server = new WisdomVertxServer();
+        server.vertx = vertx;
+        server.clusterPublish = true;
+        return server;
+    }
+
+    private static Vertx clustered() throws InterruptedException {
+        Config config = new Config();
+        config.getGroupConfig().setName("wisdom-clustered-publish-it");
+        config.getNetworkConfig().getInterfaces().setEnabled(true).addInterface("127.0.0.1");
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+
+        VertxOptions options = new VertxOptions()
+                .setClustered(true)
+                .setClusterHost("127.0.0.1")
+                .setClusterManager(new HazelcastClusterManager(config));
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<Vertx> reference = new AtomicReference<>();
+        Vertx.clusteredVertx(options, ar -> {
+            if (ar.succeeded()) {
+                reference.set(ar.result());
+            }
+            latch.countDown();
+        });
+        assertThat(latch.await(60, TimeUnit.SECONDS)).isTrue();
+        assertThat(reference.get()).isNotNull();
+        return reference.get();
+    }
+
+    private static void close(Vertx vertx) throws InterruptedException {
+        if (vertx == null) {
+            return;
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        vertx.close(v -> latch.countDown());
+        latch.await(30, TimeUnit.SECONDS);
+    }
+}
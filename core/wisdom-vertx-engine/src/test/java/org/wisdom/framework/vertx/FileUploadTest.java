@@ -21,6 +21,7 @@ package org.wisdom.framework.vertx;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
@@ -46,10 +47,13 @@ import org.wisdom.framework.vertx.file.DiskFileUpload;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.util.Collections;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.*;
@@ -400,6 +404,105 @@ public class FileUploadTest extends VertxBaseTest {
 
     }
 
+    @Test
+    public void testUploadIsKeptWhenTheClientLeavesDuringTheAction() throws InterruptedException, IOException {
+        // Prepare the configuration
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("request.body.max.size", 100 * 1024)).thenReturn(100 * 1024);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+        // Reduce it to force disk storage
+        when(configuration.getLongWithDefault("http.upload.disk.threshold", DiskFileUpload.MINSIZE)).thenReturn
+                (1024l);
+        when(configuration.getLongWithDefault("http.upload.max", -1l)).thenReturn(-1l);
+
+        final CountDownLatch clientLeft = new CountDownLatch(1);
+        final CountDownLatch actionDone = new CountDownLatch(1);
+        final AtomicInteger read = new AtomicInteger(-1);
+        final AtomicReference<File> uploaded = new AtomicReference<>();
+
+        // A slow action, still running when the client leaves.
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                final FileItem item = context().file("upload");
+                return async(new Callable<Result>() {
+                    @Override
+                    public Result call() throws Exception {
+                        try {
+                            clientLeft.await(10, TimeUnit.SECONDS);
+                            uploaded.set(item.toFile());
+                            read.set(item.bytes().length);
+                            return ok();
+                        } finally {
+                            actionDone.countDown();
+                        }
+                    }
+                });
+            }
+        };
+        Router router = mock(Router.class);
+        Route route = new RouteBuilder().route(HttpMethod.POST)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        ContentEngine contentEngine = getMockContentEngine();
+
+        // Configure the server.
+        server = new WisdomVertxServer();
+        server.accessor = new ServiceAccessor(
+                null,
+                configuration,
+                router,
+                contentEngine,
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+        server.configuration = configuration;
+        server.vertx = vertx;
+        server.start();
+
+        VertxHttpServerTest.waitForStart(server);
+
+        int port = server.httpPort();
+        CloseableHttpClient httpclient = HttpClients.custom()
+                .setDefaultRequestConfig(RequestConfig.custom().setSocketTimeout(500).build())
+                .build();
+        HttpPost post = new HttpPost("http://localhost:" + port + "/");
+        byte[] data = new byte[2048];
+        RANDOM.nextBytes(data);
+        post.setEntity(MultipartEntityBuilder.create()
+                .addPart("upload", new ByteArrayBody(data, "my-file.dat"))
+                .build());
+        try {
+            httpclient.execute(post);
+            Assert.fail("The action should not have answered");
+        } catch (SocketTimeoutException e) {
+            // Expected, the client gives up.
+        } finally {
+            IOUtils.closeQuietly(httpclient);
+        }
+        // Let the server notice the closed connection.
+        Thread.sleep(500);
+        clientLeft.countDown();
+
+        assertThat(actionDone.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(read.get()).isEqualTo(2048);
+        // The upload is released once the action has returned.
+        long deadline = System.currentTimeMillis() + 10000;
+        while (uploaded.get().exists() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(uploaded.get()).doesNotExist();
+    }
+
     private class Client implements Runnable {
         private final CountDownLatch startSignal;
         private final CountDownLatch doneSignal;
@@ -22,9 +22,11 @@ package org.wisdom.framework.vertx;
 import com.google.common.base.Charsets;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketFrame;
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.content.ContentEngine;
 import org.wisdom.api.exceptions.ExceptionMapper;
@@ -42,6 +44,8 @@ import java.security.NoSuchAlgorithmException;
 import java.security.cert.X509Certificate;
 import java.util.Collections;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -268,6 +272,78 @@ public class VertxDispatcherTest extends VertxBaseTest {
 
     }
 
+    @Test
+    public void testPublishWritesTheSameContentToEverySocket() throws InterruptedException, IOException {
+        prepareServer();
+
+        final ServerWebSocket socket1 = mock(ServerWebSocket.class);
+        final Socket sock1 = new Socket(socket1);
+        final ServerWebSocket socket2 = mock(ServerWebSocket.class);
+        final Socket sock2 = new Socket(socket2);
+        final ServerWebSocket socket3 = mock(ServerWebSocket.class);
+        final Socket sock3 = new Socket(socket3);
+
+        server.addSocket("/hello", sock1);
+        server.addSocket("/hello", sock2);
+        server.addSocket("/other", sock3);
+        assertThat(server.getNumberOpenedSocketsByUri("/hello")).isEqualTo(2);
+        assertThat(server.getNumberOpenedSockets()).hasSize(2);
+
+        server.publish("/hello", "yep !");
+
+        ArgumentCaptor<WebSocketFrame> frame1 = ArgumentCaptor.forClass(WebSocketFrame.class);
+        ArgumentCaptor<WebSocketFrame> frame2 = ArgumentCaptor.forClass(WebSocketFrame.class);
+        verify(socket1, times(1)).writeFrame(frame1.capture());
+        verify(socket2, times(1)).writeFrame(frame2.capture());
+        verify(socket3, never()).writeFrame(any(WebSocketFrame.class));
+        assertThat(frame1.getValue().isText()).isTrue();
+        assertThat(frame1.getValue().textData()).isEqualTo("yep !");
+        assertThat(frame2.getValue().textData()).isEqualTo("yep !");
+
+        server.publish("/other", "data".getBytes(Charsets.UTF_8));
+        ArgumentCaptor<WebSocketFrame> frame3 = ArgumentCaptor.forClass(WebSocketFrame.class);
+        verify(socket3, times(1)).writeFrame(frame3.capture());
+        assertThat(frame3.getValue().isBinary()).isTrue();
+        assertThat(frame3.getValue().binaryData().getBytes()).isEqualTo("data".getBytes(Charsets.UTF_8));
+
+        // Sending to a client connected on another web socket does nothing.
+        server.close("/hello", WisdomVertxServer.id(sock3));
+        verify(socket3, never()).close();
+        server.close("/other", WisdomVertxServer.id(sock3));
+        verify(socket3, times(1)).close();
+
+        server.removeSocket("/hello", sock1);
+        server.removeSocket("/hello", sock2);
+        assertThat(server.getNumberOpenedSocketsByUri("/hello")).isEqualTo(0);
+        assertThat(server.getNumberOpenedSockets()).hasSize(1);
+    }
+
+    @Test
+    public void testFramesAreWrittenFromTheSocketContext() throws InterruptedException {
+        final ServerWebSocket socket = mock(ServerWebSocket.class);
+        final AtomicReference<Socket> sock = new AtomicReference<>();
+        final AtomicReference<Thread> opening = new AtomicReference<>();
+        final CountDownLatch opened = new CountDownLatch(1);
+        vertx.runOnContext(v -> {
+            opening.set(Thread.currentThread());
+            sock.set(new Socket(socket));
+            opened.countDown();
+        });
+        assertThat(opened.await(10, TimeUnit.SECONDS)).isTrue();
+
+        final AtomicReference<Thread> writing = new AtomicReference<>();
+        final CountDownLatch written = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.set(Thread.currentThread());
+            written.countDown();
+            return socket;
+        }).when(socket).writeFrame(any(WebSocketFrame.class));
+
+        sock.get().write("hello");
+        assertThat(written.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(writing.get()).isSameAs(opening.get());
+    }
+
     private void prepareServer() throws IOException, InterruptedException {
         ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
         when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
@@ -315,6 +391,11 @@ public class VertxDispatcherTest extends VertxBaseTest {
             this.lastClient = client;
         }
 
+        @Override
+        public void received(String uri, String client, byte[] content, boolean binary) {
+            received(uri, client, content);
+        }
+
         @Override
         public void opened(String uri, String client) {
             this.opened = client;
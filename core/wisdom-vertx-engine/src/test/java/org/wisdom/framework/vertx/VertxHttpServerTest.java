@@ -25,6 +25,7 @@ import org.junit.After;
 import org.junit.Test;
 import org.wisdom.api.Controller;
 import org.wisdom.api.DefaultController;
+import org.wisdom.api.concurrent.ManagedExecutorService;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.exceptions.ExceptionMapper;
 import org.wisdom.api.http.*;
@@ -35,9 +36,13 @@ import org.wisdom.framework.vertx.ssl.SSLServerContext;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -134,7 +139,73 @@ public class VertxHttpServerTest extends VertxBaseTest {
         assertThat(connection.getResponseCode()).isEqualTo(500);
     }
 
+    @Test
+    public void testSaturatedExecutor() throws InterruptedException, IOException {
+        ManagedExecutorService saturated = mock(ManagedExecutorService.class);
+        when(saturated.submit(any(Callable.class))).thenThrow(new RejectedExecutionException("saturated"));
+        Router router = prepareServer(saturated);
+
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return async(() -> ok("Alright"));
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        int port = server.httpPort();
+        URL url = new URL("http://localhost:" + port + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(503);
+    }
+
+    @Test
+    public void testCompletionCallbacksInvokedWhenTheClientLeaves() throws InterruptedException, IOException {
+        Router router = prepareServer();
+        CountDownLatch completed = new CountDownLatch(1);
+
+        // The result never completes, the response is never written.
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                context().onComplete(completed::countDown);
+                return async(new CompletableFuture<>());
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        int port = server.httpPort();
+        URL url = new URL("http://localhost:" + port + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setReadTimeout(500);
+        try {
+            connection.getResponseCode();
+        } catch (SocketTimeoutException e) {
+            // Expected, the client gives up.
+        }
+        connection.disconnect();
+
+        assertThat(completed.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
     private Router prepareServer() {
+        return prepareServer(null);
+    }
+
+    private Router prepareServer(ManagedExecutorService pool) {
         // Prepare the configuration
         ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
         when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
@@ -157,7 +228,7 @@ public class VertxHttpServerTest extends VertxBaseTest {
                 configuration,
                 router,
                 getMockContentEngine(),
-                null,
+                pool,
                 null,
                 Collections.<ExceptionMapper>emptyList()
         );
@@ -22,6 +22,7 @@ package org.wisdom.framework.vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.WebSocketFrame;
 import org.junit.After;
 import org.junit.Test;
 import org.wisdom.api.configuration.ApplicationConfiguration;
@@ -177,6 +178,33 @@ public class WebSocketTest extends VertxBaseTest {
         assertThat(success).hasSize(num);
     }
 
+    @Test
+    public void testFragmentedMessageExceedingTheMaximumSize() throws InterruptedException, IOException {
+        prepareServer();
+
+        Spy spy = new Spy(server);
+        server.register(spy);
+
+        final CountDownLatch closed = new CountDownLatch(1);
+        final StringBuilder marker = new StringBuilder();
+
+        HttpClient client = vertx.createHttpClient(new HttpClientOptions().setDefaultHost("localhost")
+                .setDefaultPort(server.httpPort()));
+
+        client.websocket("/some-uri", ws -> {
+            ws.handler(event -> marker.append(event.toString()));
+            ws.closeHandler(v -> closed.countDown());
+            // 3 fragments of 10 bytes, the maximum size is 16 bytes.
+            ws.writeFrame(WebSocketFrame.textFrame("0123456789", false));
+            ws.writeFrame(WebSocketFrame.continuationFrame(Buffer.buffer("0123456789"), false));
+            ws.writeFrame(WebSocketFrame.continuationFrame(Buffer.buffer("0123456789"), true));
+        });
+
+        assertThat(closed.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(marker).isEmpty();
+        client.close();
+    }
+
     private void prepareServer() throws InterruptedException, IOException {
         // Prepare the configuration
         ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
@@ -189,6 +217,7 @@ public class WebSocketTest extends VertxBaseTest {
         when(configuration.getLongWithDefault("http.upload.max", -1L)).thenReturn(-1L);
         when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
         when(configuration.getIntegerWithDefault("vertx.maxWebSocketFrameSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault(eq("vertx.maxWebSocketMessageSize"), anyInt())).thenReturn(16);
         when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
         when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
 
@@ -228,6 +257,11 @@ public class WebSocketTest extends VertxBaseTest {
             }
         }
 
+        @Override
+        public void received(String uri, String client, byte[] content, boolean binary) {
+            received(uri, client, content);
+        }
+
         @Override
         public void opened(String uri, String client) {
 
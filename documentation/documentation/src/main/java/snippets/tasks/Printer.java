@@ -22,6 +22,7 @@ package snippets.tasks;
 import org.apache.felix.ipojo.annotations.Component;
 import org.apache.felix.ipojo.annotations.Instantiate;
 import org.apache.felix.ipojo.annotations.Provides;
+import org.wisdom.api.annotations.scheduler.Cron;
 import org.wisdom.api.annotations.scheduler.Every;
 import org.wisdom.api.scheduler.Scheduled;
 
@@ -49,3 +50,19 @@ public class Printer implements Scheduled {
     }
 }
 // end::scheduled[]
+
+/**
+ * A component with a cron job.
+ */
+// tag::cron[]
+@Component
+@Provides
+@Instantiate
+class Compactor implements Scheduled {
+
+    @Cron(value = "0 0 3 * * ?", timezone = "Europe/Paris", jitter = "15m", overlap = false)
+    public void compact() {
+        System.out.println("Compacting...");
+    }
+}
+// end::cron[]
@@ -20,6 +20,8 @@
 package org.wisdom.framework.filters;
 
 import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.wisdom.api.http.HttpMethod;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.http.Results;
@@ -30,7 +32,9 @@ import org.wisdom.api.router.Router;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import static org.wisdom.api.http.HeaderNames.*;
@@ -40,11 +44,30 @@ import static org.wisdom.api.http.HeaderNames.*;
  * Wisdom provides a configuration based implementation, but you can extend this class directly to cusotmize the CORS
  * support.
  * CORS is defined by the W3C as a recommendation : http://www.w3.org/TR/cors/
+ * <p>
+ * The methods allowed on a path are computed from the router on the first preflight request targeting this path,
+ * and then reused. They are recomputed once the max-age has elapsed, or when the routes have changed (i.e. when
+ * the {@linkplain Router#getRoutesGeneration() generation} of the routes differs from the one read when computing
+ * them).
  */
 public abstract class AbstractCorsFilter implements Filter {
 
+    /**
+     * The maximum number of paths for which the allowed methods are kept.
+     */
+    private static final int PREFLIGHT_CACHE_SIZE = 1000;
+
+    private static final Pattern ALL = Pattern.compile(".*");
+
     private final Router router;
 
+    /**
+     * The allowed methods, indexed by path.
+     */
+    private final Cache<String, AllowedMethods> preflights = CacheBuilder.newBuilder()
+            .maximumSize(PREFLIGHT_CACHE_SIZE)
+            .build();
+
     /**
      * Creates an {@link org.wisdom.framework.filters.AbstractCorsFilter} instance.
      *
@@ -85,13 +108,9 @@ public abstract class AbstractCorsFilter implements Filter {
         // Try "Preflight"
 
         // Find existing methods for other routes
-        Collection<Route> routes = router.getRoutes();
-        List<String> methods = new ArrayList<>(4); // expect POST PUT GET DELETE
-        for (Route r : routes) {
-            if (r.matches(r.getHttpMethod(), route.getUrl())) {
-                methods.add(r.getHttpMethod().name());
-            }
-        }
+        Integer maxAge = getMaxAge();
+        AllowedMethods allowed = getAllowedMethods(route.getUrl(), maxAge);
+        List<String> methods = allowed.methods;
 
         // If there's none, proceed to 404
         if (methods.isEmpty()) {
@@ -111,7 +130,6 @@ public abstract class AbstractCorsFilter implements Filter {
             res = Results.unauthorized("No such method for this route");
         }
 
-        Integer maxAge = getMaxAge();
         if (maxAge != null) {
             res = res.with(ACCESS_CONTROL_MAX_AGE, String.valueOf(maxAge));
         }
@@ -121,10 +139,8 @@ public abstract class AbstractCorsFilter implements Filter {
         String exposedHeaders = getExposedHeadersHeader();
         String allowedHosts = getAllowedHostsHeader(originHeader);
 
-        String allowedMethods = Joiner.on(", ").join(methods);
-
         Result result = res.with(ACCESS_CONTROL_ALLOW_ORIGIN, allowedHosts)
-                .with(ACCESS_CONTROL_ALLOW_METHODS, allowedMethods).with(ACCESS_CONTROL_ALLOW_HEADERS, exposedHeaders);
+                .with(ACCESS_CONTROL_ALLOW_METHODS, allowed.header).with(ACCESS_CONTROL_ALLOW_HEADERS, exposedHeaders);
         if (getAllowCredentials()) {
             result = result.with(ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
         }
@@ -132,6 +148,43 @@ public abstract class AbstractCorsFilter implements Filter {
         return result;
     }
 
+    /**
+     * Gets the methods allowed on the given path, computing them from the routes if they are not known or too old.
+     *
+     * @param path   the path
+     * @param maxAge the max-age in seconds, {@code null} if the methods do not expire
+     * @return the allowed methods
+     */
+    private AllowedMethods getAllowedMethods(String path, Integer maxAge) {
+        long now = System.currentTimeMillis();
+        // Read before the routes, so methods computed from routes changing concurrently are recomputed next time.
+        long generation = router.getRoutesGeneration();
+        AllowedMethods allowed = preflights.getIfPresent(path);
+        if (allowed != null && allowed.generation == generation
+                && (maxAge == null || now - allowed.computedAt < TimeUnit.SECONDS.toMillis(maxAge))) {
+            return allowed;
+        }
+
+        Collection<Route> routes = router.getRoutes();
+        List<String> methods = new ArrayList<>(4); // expect POST PUT GET DELETE
+        for (Route r : routes) {
+            if (r.matches(r.getHttpMethod(), path)) {
+                methods.add(r.getHttpMethod().name());
+            }
+        }
+        allowed = new AllowedMethods(methods, generation, now);
+        preflights.put(path, allowed);
+        return allowed;
+    }
+
+    /**
+     * Clears the allowed methods computed for the preflight requests. Changes of the routes are detected without
+     * calling this method.
+     */
+    public void clearPreflightCache() {
+        preflights.invalidateAll();
+    }
+
     protected Result retrieveAndReturnResult(RequestContext context, String originHeader) throws Exception {
         Result result = context.proceed();
 
@@ -170,7 +223,7 @@ public abstract class AbstractCorsFilter implements Filter {
      * @return {@code .*}
      */
     public Pattern uri() {
-        return Pattern.compile(".*");
+        return ALL;
     }
 
     /**
@@ -210,4 +263,20 @@ public abstract class AbstractCorsFilter implements Filter {
      */
     public abstract Integer getMaxAge();
 
+    /**
+     * The methods allowed on a path.
+     */
+    private static final class AllowedMethods {
+        private final List<String> methods;
+        private final String header;
+        private final long generation;
+        private final long computedAt;
+
+        private AllowedMethods(List<String> methods, long generation, long computedAt) {
+            this.methods = Collections.unmodifiableList(methods);
+            this.header = Joiner.on(", ").join(methods);
+            this.generation = generation;
+            this.computedAt = computedAt;
+        }
+    }
 }
@@ -21,18 +21,35 @@ package org.wisdom.framework.filters;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.vertx.core.Vertx;
+import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
+import org.wisdom.api.concurrent.ManagedScheduledFutureTask;
 import org.wisdom.api.configuration.Configuration;
+import org.wisdom.api.http.AsyncResult;
 import org.wisdom.api.http.HeaderNames;
 import org.wisdom.api.http.Request;
 import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Status;
 import org.wisdom.api.interception.Filter;
 import org.wisdom.api.interception.RequestContext;
 import org.wisdom.api.router.Route;
 
+import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A filter acting as a load balancer between {@link org.wisdom.framework.filters
@@ -41,6 +58,12 @@ import java.util.concurrent.atomic.AtomicLong;
  * However sticky session is limited by dynamism, and may not be enforced if the targeted member has
  * left. If no members are bound to the balancer, the request is just delegated to the next filter.
  * <p>
+ * The member receiving a request is chosen by a {@link BalancerStrategy} (round-robin by default, see {@link
+ * BalancerStrategies}). Members failing several requests in a row (5xx responses or connection errors) are ejected
+ * for a while. Members can also be checked periodically by calling a health check url, unhealthy members do not
+ * receive requests until they recover (see {@link #startHealthChecks(ManagedScheduledExecutorService)}). If no
+ * member is available, all the members are used.
+ * <p>
  * To create an instance of {@link org.wisdom.framework.filters.BalancerFilter}, you need to override this class and
  * declare it as a {@link org.wisdom.api.annotations.Service}. You can override most of its behavior. You have to
  * manage the binding and unbinding of {@link org.wisdom.framework.filters.BalancerMember}.
@@ -57,9 +80,9 @@ public class BalancerFilter extends ProxyFilter implements Filter {
     );
 
     /**
-     * List of members.
+     * List of members. Modifications are rare, while it is read on every request.
      */
-    private final List<BalancerMember> members = new ArrayList<>();
+    private final List<BalancerMemberState> members = new CopyOnWriteArrayList<>();
     /**
      * The name of the balancer.
      */
@@ -74,9 +97,50 @@ public class BalancerFilter extends ProxyFilter implements Filter {
     private final boolean proxyPassReverse;
 
     /**
-     * Counter to return unique id.
+     * The strategy selecting the members.
+     */
+    private final BalancerStrategy strategy;
+    /**
+     * The number of consecutive failures ejecting a member, 0 to disable the ejection.
+     */
+    private final int maxFailures;
+    /**
+     * The ejection duration in milliseconds.
+     */
+    private final long ejectionTime;
+    /**
+     * The path of the health check url, relative to the member url. {@code null} to disable health checks.
+     */
+    private final String healthCheckPath;
+    /**
+     * The health check period in milliseconds.
+     */
+    private final long healthCheckInterval;
+    /**
+     * The health check timeout in milliseconds.
+     */
+    private final long healthCheckTimeout;
+
+    /**
+     * The member selected for the request being forwarded by the current thread.
+     */
+    private final ThreadLocal<Selection> selection = new ThreadLocal<>();
+
+    /**
+     * The periodic health check, {@code null} if not started.
+     */
+    private ManagedScheduledFutureTask<?> healthCheck;
+
+    /**
+     * The threads calling the health check urls, {@code null} if not started. The calls are blocking, so they do not
+     * run on the scheduler threads.
+     */
+    private volatile ExecutorService healthCheckExecutor;
+
+    /**
+     * Whether a round of health checks is running, so slow members do not pile up rounds.
      */
-    private final AtomicLong counter = new AtomicLong();
+    private final AtomicBoolean checking = new AtomicBoolean();
 
     /**
      * Creates a {@link org.wisdom.framework.filters.BalancerFilter} instance. This instance requires that the {@link
@@ -86,6 +150,12 @@ public class BalancerFilter extends ProxyFilter implements Filter {
         this.name = getName();
         this.stickySession = getStickySession();
         this.proxyPassReverse = getProxyPassReverse();
+        this.strategy = getStrategy();
+        this.maxFailures = getMaxFailures();
+        this.ejectionTime = getEjectionTime();
+        this.healthCheckPath = getHealthCheckPath();
+        this.healthCheckInterval = getHealthCheckInterval();
+        this.healthCheckTimeout = getHealthCheckTimeout();
     }
 
     /**
@@ -95,11 +165,28 @@ public class BalancerFilter extends ProxyFilter implements Filter {
      * @param configuration the configuration object
      */
     public BalancerFilter(Configuration configuration) {
-        super(configuration);
+        this(configuration, null);
+    }
+
+    /**
+     * Creates a {@link org.wisdom.framework.filters.BalancerFilter} instance forwarding the requests using the
+     * non-blocking Vert.x HTTP client. Configuration is taken from the given configuration object.
+     *
+     * @param configuration the configuration object
+     * @param vertx         the Vert.x instance, may be {@literal null}
+     */
+    public BalancerFilter(Configuration configuration, Vertx vertx) {
+        super(configuration, vertx);
         this.name = getName();
         this.prefix = getPrefix();
         this.stickySession = getStickySession();
         this.proxyPassReverse = getProxyPassReverse();
+        this.strategy = getStrategy();
+        this.maxFailures = getMaxFailures();
+        this.ejectionTime = getEjectionTime();
+        this.healthCheckPath = getHealthCheckPath();
+        this.healthCheckInterval = getHealthCheckInterval();
+        this.healthCheckTimeout = getHealthCheckTimeout();
     }
 
     /**
@@ -116,7 +203,7 @@ public class BalancerFilter extends ProxyFilter implements Filter {
     /**
      * Methods called on incoming request. If there are no members attached to this balancer, the request is
      * processed using {@link org.wisdom.api.interception.RequestContext#proceed()}. Otherwise, a member is selected
-     * and the request is delegated.
+     * and the request is delegated. The outcome of the request is recorded to eject failing members.
      *
      * @param route   the route
      * @param context the filter context
@@ -125,15 +212,123 @@ public class BalancerFilter extends ProxyFilter implements Filter {
      */
     @Override
     public Result call(Route route, RequestContext context) throws Exception {
-        if (getMembers().isEmpty()) {
+        if (members.isEmpty()) {
             return context.proceed();
+        }
+
+        final Selection current = new Selection();
+        final Result result;
+        selection.set(current);
+        try {
+            result = super.call(route, context);
+        } catch (Exception e) {
+            complete(current, null, e);
+            throw e;
+        } finally {
+            selection.remove();
+        }
+
+        if (!(result instanceof AsyncResult)) {
+            complete(current, result, null);
+            return result;
+        }
+        final AsyncResult async = (AsyncResult) result;
+        if (async.completion() != null) {
+            async.completion().whenComplete((r, t) -> {
+                if (t == null && r != null && r.getStatusCode() < Status.INTERNAL_SERVER_ERROR
+                        && r.getRenderable() instanceof RenderableReadStream) {
+                    // The member is still sending the content, it is released once the content is streamed.
+                    ((RenderableReadStream) r.getRenderable()).whenDone(failure -> complete(current, r, failure));
+                } else {
+                    complete(current, r, t);
+                }
+            });
+            return async;
+        }
+        // The member is selected when the callable is executed.
+        return new AsyncResult(new Callable<Result>() {
+            @Override
+            public Result call() throws Exception {
+                selection.set(current);
+                try {
+                    Result r = async.callable().call();
+                    complete(current, r, null);
+                    return r;
+                } catch (Exception e) {
+                    complete(current, null, e);
+                    throw e;
+                } finally {
+                    selection.remove();
+                }
+            }
+        });
+    }
+
+    /**
+     * Records the outcome of a request: releases the selected member, and ejects it if it failed too many times in
+     * a row.
+     */
+    private void complete(Selection current, Result result, Throwable failure) {
+        BalancerMemberState member = current.member;
+        if (member == null) {
+            return;
+        }
+        current.member = null;
+        member.release();
+        if (failure != null || result == null || result.getStatusCode() >= Status.INTERNAL_SERVER_ERROR) {
+            if (member.failed(System.currentTimeMillis(), maxFailures, ejectionTime)) {
+                logger.warn("Ejecting balancer member '{}' from balancer '{}' for {} ms after {} consecutive " +
+                        "failures", member.member().getName(), name, ejectionTime, maxFailures);
+            }
         } else {
-            return super.call(route, context);
+            member.succeeded();
+        }
+    }
+
+    private List<BalancerMember> getMembers() {
+        List<BalancerMember> list = new ArrayList<>(members.size());
+        for (BalancerMemberState state : members) {
+            list.add(state.member());
         }
+        return list;
+    }
+
+    /**
+     * Gets the state of the members, giving access to the number of requests in flight and to their availability.
+     *
+     * @return the state of the members
+     */
+    public List<BalancerMemberState> getMemberStates() {
+        return Collections.unmodifiableList(new ArrayList<>(members));
     }
 
-    private synchronized List<BalancerMember> getMembers() {
-        return new ArrayList<>(members);
+    /**
+     * Gets the members that can receive requests. If none are available, all the members are returned, as
+     * refusing every request is worse than trying an unhealthy member.
+     */
+    private List<BalancerMemberState> getAvailableMembers() {
+        List<BalancerMemberState> all = new ArrayList<>(members);
+        List<BalancerMemberState> available = new ArrayList<>(all.size());
+        long now = System.currentTimeMillis();
+        for (BalancerMemberState member : all) {
+            if (member.isAvailable(now)) {
+                available.add(member);
+            }
+        }
+        if (available.isEmpty()) {
+            logger.debug("No available member in balancer '{}', using all the members", name);
+            return all;
+        }
+        return available;
+    }
+
+    private BalancerMemberState getState(BalancerMember member) {
+        for (BalancerMemberState state : members) {
+            if (state.member().equals(member)) {
+                return state;
+            }
+        }
+        return null;
     }
 
     /**
@@ -146,12 +341,22 @@ public class BalancerFilter extends ProxyFilter implements Filter {
     @Override
     public URI rewriteURI(RequestContext rc) throws URISyntaxException {
         Request request = rc.request();
-        BalancerMember member = selectBalancerMember(rc);
-        logger.debug("Selected {}", member.getName());
         String path = request.path();
         if (!path.startsWith(prefix)) {
             return null;
         }
+        BalancerMember member = selectBalancerMember(rc);
+        logger.debug("Selected {}", member.getName());
+
+        // Track the request if it is forwarded by this balancer.
+        Selection current = selection.get();
+        if (current != null && current.member == null) {
+            BalancerMemberState state = getState(member);
+            if (state != null) {
+                state.acquire();
+                current.member = state;
+            }
+        }
 
         return computeDestinationURI(
                 request,
@@ -162,7 +367,7 @@ public class BalancerFilter extends ProxyFilter implements Filter {
     }
 
     protected BalancerMember selectBalancerMember(RequestContext request) {
-        BalancerMember member;
+        List<BalancerMemberState> available = getAvailableMembers();
         if (stickySession) {
             String balancer = request.context().session().get("_balancer");
             if (balancer == null) {
@@ -172,24 +377,22 @@ public class BalancerFilter extends ProxyFilter implements Filter {
 
             // A balancer hint was given.
             if (balancer != null) {
-                member = getBalancerMember(balancer);
-                if (member != null) {
-                    // Member still around.
-                    return member;
+                for (BalancerMemberState state : available) {
+                    if (state.member().getName().equals(balancer)) {
+                        // Member still around.
+                        return state.member();
+                    }
                 }
             }
             // The member left, we can't ensure the sticky session.
             logger.warn("Cannot enforce sticky session policy for {} - the member ({}) has left", request.request().uri(), balancer);
         }
 
-        synchronized (this) {
-            int index = (int) (counter.getAndIncrement() % members.size());
-            member = members.get(index);
-            if (stickySession) {
-                request.context().session().put("_balancer", member.getName());
-            }
-            return member;
+        BalancerMember member = strategy.select(available).member();
+        if (stickySession) {
+            request.context().session().put("_balancer", member.getName());
         }
+        return member;
     }
 
     /**
@@ -236,15 +439,6 @@ public class BalancerFilter extends ProxyFilter implements Filter {
         return false;
     }
 
-    private BalancerMember getBalancerMember(String balancer) {
-        for (BalancerMember member : getMembers()) {
-            if (member.getName().equals(balancer)) {
-                return member;
-            }
-        }
-        return null;
-    }
-
     /**
      * Gets the balancer name.
      *
@@ -285,6 +479,225 @@ public class BalancerFilter extends ProxyFilter implements Filter {
         }
     }
 
+    /**
+     * Gets the strategy selecting the members. By default, it is created from the 'strategy' entry of the
+     * configuration object (see {@link BalancerStrategies#fromName(String)}), and is round-robin if not set.
+     *
+     * @return the strategy
+     */
+    protected BalancerStrategy getStrategy() {
+        if (configuration == null) {
+            return BalancerStrategies.roundRobin();
+        } else {
+            return BalancerStrategies.fromName(configuration.get("strategy"));
+        }
+    }
+
+    /**
+     * Gets the number of consecutive failures (5xx responses or connection errors) ejecting a member (5 by
+     * default). 0 disables the ejection.
+     *
+     * @return the number of failures
+     */
+    protected int getMaxFailures() {
+        if (configuration == null) {
+            return 5;
+        } else {
+            return configuration.getIntegerWithDefault("outlier.failures", 5);
+        }
+    }
+
+    /**
+     * Gets the time during which an ejected member does not receive requests (30 seconds by default).
+     *
+     * @return the duration in milliseconds
+     */
+    protected long getEjectionTime() {
+        if (configuration == null) {
+            return TimeUnit.SECONDS.toMillis(30);
+        } else {
+            return configuration.getDuration("outlier.ejection", TimeUnit.MILLISECONDS,
+                    TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    /**
+     * Gets the path of the url called to check the health of the members, resolved against the member url.
+     * Health checks are disabled if not set (default).
+     *
+     * @return the path, {@code null} if health checks are disabled
+     */
+    protected String getHealthCheckPath() {
+        if (configuration == null) {
+            return null;
+        } else {
+            return configuration.get("healthCheck.path");
+        }
+    }
+
+    /**
+     * Gets the health check period (10 seconds by default).
+     *
+     * @return the period in milliseconds
+     */
+    protected long getHealthCheckInterval() {
+        if (configuration == null) {
+            return TimeUnit.SECONDS.toMillis(10);
+        } else {
+            return configuration.getDuration("healthCheck.interval", TimeUnit.MILLISECONDS,
+                    TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Gets the health check timeout (2 seconds by default).
+     *
+     * @return the timeout in milliseconds
+     */
+    protected long getHealthCheckTimeout() {
+        if (configuration == null) {
+            return TimeUnit.SECONDS.toMillis(2);
+        } else {
+            return configuration.getDuration("healthCheck.timeout", TimeUnit.MILLISECONDS,
+                    TimeUnit.SECONDS.toMillis(2));
+        }
+    }
+
+    /**
+     * Starts checking the health of the members periodically. This method does nothing if the health check path is
+     * not set. It is generally called when the balancer is validated, with the system scheduler. The scheduler only
+     * triggers the checks, the health check urls are called from threads owned by the balancer.
+     *
+     * @param scheduler the scheduler triggering the checks
+     */
+    public synchronized void startHealthChecks(ManagedScheduledExecutorService scheduler) {
+        stopHealthChecks();
+        if (healthCheckPath == null || healthCheckInterval <= 0) {
+            logger.debug("Health checks disabled for balancer '{}'", name);
+            return;
+        }
+        final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("balancer-" + name + "-health-check-%d")
+                .build());
+        healthCheckExecutor = executor;
+        healthCheck = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                if (!checking.compareAndSet(false, true)) {
+                    logger.debug("Skipping the health checks of balancer '{}', the previous ones are still running",
+                            name);
+                    return;
+                }
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            checkMembers();
+                        } finally {
+                            checking.set(false);
+                        }
+                    }
+                });
+            }
+        }, healthCheckInterval, healthCheckInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic health checks.
+     */
+    public synchronized void stopHealthChecks() {
+        if (healthCheck != null) {
+            healthCheck.cancel(false);
+            healthCheck = null;
+        }
+        if (healthCheckExecutor != null) {
+            healthCheckExecutor.shutdownNow();
+            healthCheckExecutor = null;
+        }
+        checking.set(false);
+    }
+
+    /**
+     * Checks the health of all the members, ejecting the unhealthy members and readmitting the members that
+     * have recovered. When the health checks are started, the members are checked in parallel, and a member not
+     * answering within the health check timeout is unhealthy.
+     */
+    public void checkMembers() {
+        List<BalancerMemberState> states = new ArrayList<>(members);
+        List<Future<Boolean>> checks = new ArrayList<>(states.size());
+        ExecutorService executor = healthCheckExecutor;
+        if (executor != null) {
+            for (final BalancerMemberState state : states) {
+                checks.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return isHealthy(state.member());
+                    }
+                }));
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(healthCheckTimeout);
+        for (int i = 0; i < states.size(); i++) {
+            BalancerMemberState state = states.get(i);
+            boolean healthy;
+            try {
+                if (checks.isEmpty()) {
+                    healthy = isHealthy(state.member());
+                } else {
+                    healthy = checks.get(i).get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                }
+            } catch (TimeoutException e) {
+                logger.debug("Health check of balancer member '{}' timed out", state.member().getName());
+                checks.get(i).cancel(true);
+                healthy = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | RuntimeException e) {
+                logger.error("Cannot check the health of balancer member '{}'", state.member().getName(), e);
+                healthy = false;
+            }
+            if (healthy != state.isHealthy()) {
+                if (healthy) {
+                    logger.info("Balancer member '{}' of balancer '{}' is healthy again", state.member().getName(),
+                            name);
+                } else {
+                    logger.warn("Balancer member '{}' of balancer '{}' is unhealthy", state.member().getName(),
+                            name);
+                }
+                state.setHealthy(healthy);
+            }
+        }
+    }
+
+    /**
+     * Checks the health of a member. By default, it calls the health check url of the member, and considers the
+     * member healthy if the response is a 2xx or 3xx response. It can be overridden to implement another check.
+     *
+     * @param member the member
+     * @return {@code true} if the member is healthy
+     */
+    protected boolean isHealthy(BalancerMember member) {
+        HttpURLConnection connection = null;
+        try {
+            URL url = new URL(new URL(member.proxyTo()), healthCheckPath);
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout((int) healthCheckTimeout);
+            connection.setReadTimeout((int) healthCheckTimeout);
+            connection.setInstanceFollowRedirects(false);
+            int status = connection.getResponseCode();
+            return status >= Status.OK && status < Status.BAD_REQUEST;
+        } catch (IOException e) {
+            logger.debug("Health check of balancer member '{}' failed", member.getName(), e);
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
     /**
      * Adds a new member.
      *
@@ -293,7 +706,7 @@ public class BalancerFilter extends ProxyFilter implements Filter {
     public synchronized void addMember(BalancerMember member) {
         if (member.getBalancerName().equals(name)) {
             logger.info("Adding balancer member '{}' to balancer '{}'", member.getName(), name);
-            members.add(member);
+            members.add(new BalancerMemberState(member));
         }
     }
 
@@ -303,8 +716,16 @@ public class BalancerFilter extends ProxyFilter implements Filter {
      * @param member the member.
      */
     public synchronized void removeMember(BalancerMember member) {
-        if (members.remove(member)) {
+        BalancerMemberState state = getState(member);
+        if (state != null && members.remove(state)) {
             logger.info("Removing balancer member '{}' from balancer '{}'", member.getName(), name);
         }
     }
+
+    /**
+     * The member selected to forward a request.
+     */
+    private static final class Selection {
+        private BalancerMemberState member;
+    }
 }
@@ -47,4 +47,12 @@ public interface BalancerMember {
      */
     String getBalancerName();
 
+    /**
+     * Gets the weight of the member, used by the weighted strategies. A member with a weight of 2 receives twice
+     * as many requests as a member with a weight of 1.
+     *
+     * @return the weight, strictly positive. {@link DefaultBalancerMember} uses 1 by default.
+     */
+    int getWeight();
+
 }
@@ -0,0 +1,136 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The runtime state of a {@link BalancerMember} managed by a {@link BalancerFilter}: the number of requests in
+ * flight, and whether or not the member can receive requests. A member is not available when its health check
+ * fails, or when it has been ejected temporarily because of consecutive failures.
+ * <p>
+ * The state is updated without locking, so it can be read by {@link BalancerStrategy} implementations on every
+ * request.
+ */
+public final class BalancerMemberState {
+
+    private final BalancerMember member;
+
+    private final int weight;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private volatile boolean healthy = true;
+
+    private volatile long ejectedUntil;
+
+    /**
+     * Creates the state of a member.
+     *
+     * @param member the member
+     */
+    BalancerMemberState(BalancerMember member) {
+        this.member = member;
+        this.weight = Math.max(1, member.getWeight());
+    }
+
+    /**
+     * @return the member.
+     */
+    public BalancerMember member() {
+        return member;
+    }
+
+    /**
+     * @return the weight of the member, at least 1.
+     */
+    public int weight() {
+        return weight;
+    }
+
+    /**
+     * @return the number of requests sent to the member and not yet completed.
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return whether or not the last health check of the member succeeded. Members are healthy until checked.
+     */
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /**
+     * Checks whether or not the member can receive requests.
+     *
+     * @param now the current time in milliseconds
+     * @return {@literal true} if the member is healthy and not ejected.
+     */
+    public boolean isAvailable(long now) {
+        return healthy && now >= ejectedUntil;
+    }
+
+    void acquire() {
+        inFlight.incrementAndGet();
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    /**
+     * Records a successful request.
+     */
+    void succeeded() {
+        if (failures.get() != 0) {
+            failures.set(0);
+        }
+    }
+
+    /**
+     * Records a failed request, and ejects the member if it has failed too many times in a row.
+     *
+     * @param now          the current time in milliseconds
+     * @param maxFailures  the number of consecutive failures triggering the ejection
+     * @param ejectionTime the ejection duration in milliseconds
+     * @return {@literal true} if the member has been ejected.
+     */
+    boolean failed(long now, int maxFailures, long ejectionTime) {
+        if (maxFailures > 0 && failures.incrementAndGet() >= maxFailures) {
+            failures.set(0);
+            ejectedUntil = now + ejectionTime;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return member.getName() + "[in-flight=" + inFlight.get() + ", healthy=" + healthy + "]";
+    }
+}
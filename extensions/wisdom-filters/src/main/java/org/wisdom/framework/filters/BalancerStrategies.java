@@ -0,0 +1,168 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link BalancerStrategy} implementations provided by default. They only rely on atomic counters. As some of
+ * them keep a state, a new instance must be created for each balancer.
+ */
+public final class BalancerStrategies {
+
+    /**
+     * The name of the round-robin strategy, used by default.
+     */
+    public static final String ROUND_ROBIN = "round-robin";
+
+    /**
+     * The name of the weighted round-robin strategy.
+     */
+    public static final String WEIGHTED_ROUND_ROBIN = "weighted-round-robin";
+
+    /**
+     * The name of the least-in-flight strategy.
+     */
+    public static final String LEAST_IN_FLIGHT = "least-in-flight";
+
+    /**
+     * The name of the power-of-two-choices strategy.
+     */
+    public static final String POWER_OF_TWO_CHOICES = "power-of-two-choices";
+
+    private BalancerStrategies() {
+        // Avoid direct instantiation.
+    }
+
+    /**
+     * Creates a strategy from its name.
+     *
+     * @param name the name of the strategy, {@literal null} for the default strategy
+     * @return the strategy
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static BalancerStrategy fromName(String name) {
+        if (name == null || ROUND_ROBIN.equalsIgnoreCase(name)) {
+            return roundRobin();
+        }
+        if (WEIGHTED_ROUND_ROBIN.equalsIgnoreCase(name)) {
+            return weightedRoundRobin();
+        }
+        if (LEAST_IN_FLIGHT.equalsIgnoreCase(name)) {
+            return leastInFlight();
+        }
+        if (POWER_OF_TWO_CHOICES.equalsIgnoreCase(name) || "p2c".equalsIgnoreCase(name)) {
+            return powerOfTwoChoices();
+        }
+        throw new IllegalArgumentException("Unknown balancer strategy: " + name);
+    }
+
+    /**
+     * @return a strategy selecting the members in turn.
+     */
+    public static BalancerStrategy roundRobin() {
+        final AtomicLong counter = new AtomicLong();
+        return new BalancerStrategy() {
+            @Override
+            public BalancerMemberState select(List<BalancerMemberState> members) {
+                return members.get((int) (counter.getAndIncrement() % members.size()));
+            }
+        };
+    }
+
+    /**
+     * @return a strategy selecting the members in turn, each member receiving a number of requests proportional
+     * to its weight.
+     */
+    public static BalancerStrategy weightedRoundRobin() {
+        final AtomicLong counter = new AtomicLong();
+        return new BalancerStrategy() {
+            @Override
+            public BalancerMemberState select(List<BalancerMemberState> members) {
+                int total = 0;
+                for (BalancerMemberState member : members) {
+                    total += member.weight();
+                }
+                long position = counter.getAndIncrement() % total;
+                for (BalancerMemberState member : members) {
+                    position -= member.weight();
+                    if (position < 0) {
+                        return member;
+                    }
+                }
+                // Not reached, the members may have changed concurrently.
+                return members.get(0);
+            }
+        };
+    }
+
+    /**
+     * @return a strategy selecting the member having the lowest number of requests in flight relative to its
+     * weight. Ties are broken in turn.
+     */
+    public static BalancerStrategy leastInFlight() {
+        final AtomicLong counter = new AtomicLong();
+        return new BalancerStrategy() {
+            @Override
+            public BalancerMemberState select(List<BalancerMemberState> members) {
+                int size = members.size();
+                int start = (int) (counter.getAndIncrement() % size);
+                BalancerMemberState best = null;
+                for (int i = 0; i < size; i++) {
+                    BalancerMemberState member = members.get((start + i) % size);
+                    if (best == null || load(member) < load(best)) {
+                        best = member;
+                    }
+                }
+                return best;
+            }
+        };
+    }
+
+    /**
+     * @return a strategy picking two members at random and selecting the one having the lowest number of requests
+     * in flight relative to its weight. It balances almost as well as {@link #leastInFlight()}, without reading the
+     * counters of every member.
+     */
+    public static BalancerStrategy powerOfTwoChoices() {
+        return new BalancerStrategy() {
+            @Override
+            public BalancerMemberState select(List<BalancerMemberState> members) {
+                int size = members.size();
+                if (size == 1) {
+                    return members.get(0);
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int first = random.nextInt(size);
+                // Pick a second member, different from the first one.
+                int second = (first + 1 + random.nextInt(size - 1)) % size;
+                BalancerMemberState a = members.get(first);
+                BalancerMemberState b = members.get(second);
+                return load(b) < load(a) ? b : a;
+            }
+        };
+    }
+
+    private static double load(BalancerMemberState member) {
+        return (double) member.inFlight() / member.weight();
+    }
+}
@@ -29,18 +29,25 @@ public class DefaultBalancerMember implements BalancerMember {
     private final String name;
     private final String proxyTo;
     private final String balancerName;
+    private final int weight;
 
     public DefaultBalancerMember(String name, String proxyTo, String balancerName) {
+        this(name, proxyTo, balancerName, 1);
+    }
+
+    public DefaultBalancerMember(String name, String proxyTo, String balancerName, int weight) {
         this.name = name;
         this.proxyTo = proxyTo;
         this.balancerName = balancerName;
+        this.weight = weight;
     }
 
     public DefaultBalancerMember(Configuration configuration) {
         this(
                 configuration.getOrDie("name"),
                 configuration.getOrDie("proxyTo"),
-                configuration.getOrDie("balancerName")
+                configuration.getOrDie("balancerName"),
+                configuration.getIntegerWithDefault("weight", 1)
         );
     }
 
@@ -74,4 +81,14 @@ public class DefaultBalancerMember implements BalancerMember {
     public String getBalancerName() {
         return balancerName;
     }
+
+    /**
+     * Gets the weight of the member, used by the weighted strategies.
+     *
+     * @return the weight
+     */
+    @Override
+    public int getWeight() {
+        return weight;
+    }
 }
@@ -23,6 +23,11 @@ import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
@@ -49,10 +54,28 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 
 /**
  * A filter implementation to extend to create a transparent proxy to a specific location.
+ * <p>
+ * When created with the {@link Vertx} instance (available as a service), the requests are forwarded using the
+ * non-blocking Vert.x HTTP client: connections to the targets are pooled and kept alive, no thread is held while
+ * waiting for the target, and the response is streamed back to the client with back-pressure. Otherwise, the
+ * requests are forwarded using a blocking HTTP client, executed in another thread.
+ * <p>
+ * The Vert.x HTTP client is configured using the following entries of the configuration object:
+ * <ul>
+ * <li>{@code connectTimeout}: the connection timeout (duration, 10 seconds by default)</li>
+ * <li>{@code idleTimeout}: the time after which an idle pooled connection is closed (duration, 60 seconds by
+ * default)</li>
+ * <li>{@code timeout}: the maximum time to wait for data from the target once the request is sent (duration, no
+ * timeout by default). A {@literal 504 - Gateway Timeout} response is returned when it expires</li>
+ * <li>{@code maxPoolSize}: the maximum number of connections per target (100 by default)</li>
+ * </ul>
  */
 public class ProxyFilter implements Filter {
 
@@ -75,6 +98,9 @@ public class ProxyFilter implements Filter {
 
     protected Logger logger;
     private HttpClient client;
+    private io.vertx.core.http.HttpClient vertxClient;
+    private io.vertx.core.http.HttpClient vertxSslClient;
+    private long timeout;
     private String proxyTo;
     protected String prefix;
 
@@ -91,9 +117,27 @@ public class ProxyFilter implements Filter {
      * @param conf the configuration
      */
     public ProxyFilter(Configuration conf) {
+        this(conf, null);
+    }
+
+    /**
+     * Constructor receiving a configuration and the Vert.x instance. If the Vert.x instance is not {@literal
+     * null}, the requests are forwarded using the non-blocking Vert.x HTTP client.
+     *
+     * @param conf  the configuration
+     * @param vertx the Vert.x instance, may be {@literal null}
+     */
+    public ProxyFilter(Configuration conf, Vertx vertx) {
         configuration = conf;
         logger = createLogger();
-        client = newHttpClient();
+        if (vertx == null) {
+            client = newHttpClient();
+        } else {
+            HttpClientOptions options = newHttpClientOptions();
+            vertxClient = vertx.createHttpClient(options);
+            vertxSslClient = vertx.createHttpClient(new HttpClientOptions(options).setSsl(true));
+            timeout = getDuration("timeout", 0L);
+        }
         proxyTo = getProxyTo();
         prefix = getPrefix();
 
@@ -109,7 +153,7 @@ public class ProxyFilter implements Filter {
     /**
      * Retrieves the HTTP Client instance used by this filter.
      *
-     * @return the HTTP Client instance
+     * @return the HTTP Client instance, {@literal null} if the filter uses the Vert.x HTTP client
      */
     public HttpClient getClient() {
         return client;
@@ -139,6 +183,29 @@ public class ProxyFilter implements Filter {
                 .build();
     }
 
+    /**
+     * Creates the options of the Vert.x HTTP client. It can be overridden to customize the client. Redirections are
+     * not followed, and the connections are kept alive and pooled per target.
+     *
+     * @return the options
+     */
+    protected HttpClientOptions newHttpClientOptions() {
+        return new HttpClientOptions()
+                .setKeepAlive(true)
+                .setTryUseCompression(false)
+                .setConnectTimeout((int) getDuration("connectTimeout", TimeUnit.SECONDS.toMillis(10)))
+                .setIdleTimeout((int) TimeUnit.MILLISECONDS.toSeconds(getDuration("idleTimeout",
+                        TimeUnit.SECONDS.toMillis(60))))
+                .setMaxPoolSize(configuration == null ? 100 : configuration.getIntegerWithDefault("maxPoolSize", 100));
+    }
+
+    private long getDuration(String key, long defaultValue) {
+        if (configuration == null) {
+            return defaultValue;
+        }
+        return configuration.getDuration(key, TimeUnit.MILLISECONDS, defaultValue);
+    }
+
     /**
      * Customizes the redirect policy of the default HTTP Client.
      *
@@ -161,8 +228,9 @@ public class ProxyFilter implements Filter {
 
     /**
      * The interception method. Re-emit the request to the target folder and forward the response. This method
-     * returns an {@link org.wisdom.api.http.AsyncResult} as the proxy need to be run in another thread. It also
-     * invokes a couple of callbacks letting developers to customize the request and result.
+     * returns an {@link org.wisdom.api.http.AsyncResult} as the proxy need to be run in another thread, or is
+     * completed when the target answers when the Vert.x HTTP client is used. It also invokes a couple of callbacks
+     * letting developers to customize the request and result.
      *
      * @param route   the route
      * @param context the filter context
@@ -171,6 +239,9 @@ public class ProxyFilter implements Filter {
      */
     @Override
     public Result call(final Route route, final RequestContext context) throws Exception {
+        if (vertxClient != null) {
+            return forward(context);
+        }
         return new AsyncResult(new Callable<Result>() {
             @Override
             public Result call() throws Exception {
@@ -182,65 +253,13 @@ public class ProxyFilter implements Filter {
 
                 BasicHttpEntityEnclosingRequest request
                         = new BasicHttpEntityEnclosingRequest(context.request().method(), rewrittenURI.toString());
-                // Any header listed by the Connection header must be removed:
-                // http://tools.ietf.org/html/rfc7230#section-6.1.
-                Set<String> hopHeaders = new HashSet<>();
-                List<String> connectionHeaders = context.request().headers().get(HeaderNames.CONNECTION);
-                for (String s : connectionHeaders) {
-                    for (String entry : Splitter.on(",").omitEmptyStrings().trimResults().splitToList(s)) {
-                        hopHeaders.add(entry.toLowerCase(Locale.ENGLISH));
-                    }
-                }
-
-                boolean hasContent = context.request().contentType() != null;
-                final String host = getHost();
-                Multimap<String, String> headers = ArrayListMultimap.create();
-                for (Map.Entry<String, List<String>> entry : context.request().headers().entrySet()) {
-                    String name = entry.getKey();
-                    if (HeaderNames.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
-                        hasContent = true;
-                    }
-                    if (host != null && HeaderNames.HOST.equalsIgnoreCase(name)) {
-                        continue;
-                    }
-                    // Remove hop-by-hop headers.
-                    String lower = name.toLowerCase(Locale.ENGLISH);
-                    if (HOP_HEADERS.contains(lower) || hopHeaders.contains(lower)) {
-                        continue;
-                    }
-
-                    for (String v : entry.getValue()) {
-                        headers.put(name, v);
-                    }
-                }
-
-                // Force the Host header if configured
-                headers.removeAll(HeaderNames.HOST);
-                if (host != null) {
-                    headers.put(HeaderNames.HOST, host);
-                    headers.put("X-Forwarded-Server", host);
-                } else {
-                    // Set of the URI one
-                    headers.put("X-Forwarded-Server", rewrittenURI.getHost());
-                }
-
-                // Add proxy headers
-                if (getVia() != null) {
-                    headers.put(HeaderNames.VIA, "http/1.1 " + getVia());
-                }
-                headers.put("X-Forwarded-For", context.request().remoteAddress());
-                if (host != null) {
-                    headers.put("X-Forwarded-Host", host);
-                }
-
-                updateHeaders(context, headers);
-                for (Map.Entry<String, String> s : headers.entries()) {
+                for (Map.Entry<String, String> s : computeHeaders(context, rewrittenURI).entries()) {
                     request.addHeader(s.getKey(), s.getValue());
                 }
                 // Remove content-length as it is computed by the HTTP client.
                 request.removeHeaders(HeaderNames.CONTENT_LENGTH);
 
-                if (hasContent) {
+                if (hasContent(context)) {
                     ByteArrayEntity entity = new ByteArrayEntity(context.context().raw(),
                             ContentType.create(context.request().contentMimeType(), context.request().contentCharset()));
                     request.setEntity(entity);
@@ -253,6 +272,135 @@ public class ProxyFilter implements Filter {
 
     }
 
+    /**
+     * Forwards the request using the Vert.x HTTP client. The returned result is completed when the target answers,
+     * and its content streams the response of the target.
+     *
+     * @param context the filter context
+     * @return the result
+     * @throws URISyntaxException if the destination URI cannot be computed
+     */
+    private Result forward(final RequestContext context) throws URISyntaxException {
+        io.vertx.core.http.HttpMethod method;
+        try {
+            method = io.vertx.core.http.HttpMethod.valueOf(context.request().method().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            return Results.status(Status.NOT_IMPLEMENTED);
+        }
+
+        final URI rewrittenURI = rewriteURI(context);
+        logger.debug("Proxy request - rewriting {} to {}", context.request().uri(), rewrittenURI);
+        if (rewrittenURI == null) {
+            return onRewriteFailed(context);
+        }
+
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+        io.vertx.core.http.HttpClient http = "https".equalsIgnoreCase(rewrittenURI.getScheme()) ? vertxSslClient
+                : vertxClient;
+        HttpClientRequest request = http.requestAbs(method, rewrittenURI.toString(),
+                response -> {
+                    // Do not read the content before the engine starts writing the response.
+                    response.pause();
+                    try {
+                        future.complete(onResult(toResult(response)));
+                    } catch (RuntimeException e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+        request.exceptionHandler(t -> {
+            if (future.isDone()) {
+                logger.error("Proxy request - failure while streaming the response of {}", rewrittenURI, t);
+            } else if (t instanceof TimeoutException) {
+                logger.warn("Proxy request - {} did not answer in time", rewrittenURI);
+                future.complete(Results.status(Status.GATEWAY_TIMEOUT));
+            } else {
+                logger.warn("Proxy request - cannot reach {}", rewrittenURI, t);
+                future.complete(Results.status(Status.BAD_GATEWAY));
+            }
+        });
+        if (timeout > 0) {
+            request.setTimeout(timeout);
+        }
+        for (Map.Entry<String, String> s : computeHeaders(context, rewrittenURI).entries()) {
+            if (s.getValue() != null) {
+                request.headers().add(s.getKey(), s.getValue());
+            }
+        }
+        // Remove content-length as it is computed by the HTTP client.
+        request.headers().remove(HeaderNames.CONTENT_LENGTH);
+
+        if (hasContent(context)) {
+            request.end(Buffer.buffer(context.context().raw()));
+        } else {
+            request.end();
+        }
+        return new AsyncResult(future);
+    }
+
+    private boolean hasContent(RequestContext context) {
+        if (context.request().contentType() != null) {
+            return true;
+        }
+        for (String name : context.request().headers().keySet()) {
+            if (HeaderNames.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Multimap<String, String> computeHeaders(RequestContext context, URI rewrittenURI) {
+        // Any header listed by the Connection header must be removed:
+        // http://tools.ietf.org/html/rfc7230#section-6.1.
+        Set<String> hopHeaders = new HashSet<>();
+        List<String> connectionHeaders = context.request().headers().get(HeaderNames.CONNECTION);
+        for (String s : connectionHeaders) {
+            for (String entry : Splitter.on(",").omitEmptyStrings().trimResults().splitToList(s)) {
+                hopHeaders.add(entry.toLowerCase(Locale.ENGLISH));
+            }
+        }
+
+        final String host = getHost();
+        Multimap<String, String> headers = ArrayListMultimap.create();
+        for (Map.Entry<String, List<String>> entry : context.request().headers().entrySet()) {
+            String name = entry.getKey();
+            if (host != null && HeaderNames.HOST.equalsIgnoreCase(name)) {
+                continue;
+            }
+            // Remove hop-by-hop headers.
+            String lower = name.toLowerCase(Locale.ENGLISH);
+            if (HOP_HEADERS.contains(lower) || hopHeaders.contains(lower)) {
+                continue;
+            }
+
+            for (String v : entry.getValue()) {
+                headers.put(name, v);
+            }
+        }
+
+        // Force the Host header if configured
+        headers.removeAll(HeaderNames.HOST);
+        if (host != null) {
+            headers.put(HeaderNames.HOST, host);
+            headers.put("X-Forwarded-Server", host);
+        } else {
+            // Set of the URI one
+            headers.put("X-Forwarded-Server", rewrittenURI.getHost());
+        }
+
+        // Add proxy headers
+        if (getVia() != null) {
+            headers.put(HeaderNames.VIA, "http/1.1 " + getVia());
+        }
+        headers.put("X-Forwarded-For", context.request().remoteAddress());
+        if (host != null) {
+            headers.put("X-Forwarded-Host", host);
+        }
+
+        updateHeaders(context, headers);
+        return headers;
+    }
+
     /**
      * Callback that can be overridden to customize the header ot the request.
      *
@@ -280,6 +428,21 @@ public class ProxyFilter implements Filter {
         return result;
     }
 
+    private Result toResult(HttpClientResponse response) {
+        Result result = new Result(response.statusCode());
+        // Copy headers, except the hop-by-hop headers as the response is re-encoded.
+        for (Map.Entry<String, String> h : response.headers()) {
+            if (!HOP_HEADERS.contains(h.getKey().toLowerCase(Locale.ENGLISH))) {
+                result.with(h.getKey(), h.getValue());
+            }
+        }
+
+        // Stream the content
+        String length = response.getHeader(HeaderNames.CONTENT_LENGTH);
+        result.render(new RenderableReadStream(response, length == null ? -1 : Long.parseLong(length)));
+        return result;
+    }
+
     /**
      * Callback invokes when the URL rewrite fails. By default, it returns an internal error.
      *
@@ -0,0 +1,482 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.configuration.Configuration;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Results;
+import org.wisdom.api.interception.Filter;
+import org.wisdom.api.interception.RequestContext;
+import org.wisdom.api.router.Route;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * A filter limiting the rate of the requests emitted by each client. Each client gets a {@link TokenBucket}
+ * containing {@code burst} tokens, and refilled with {@code refill} tokens per second. Each request takes a token,
+ * and is rejected with a {@code 429 - Too Many Requests} result when the bucket is empty.
+ * <p>
+ * Clients are identified by their IP address (default), by their user name, by a session entry or by a header. The
+ * buckets of the clients are kept in a bounded map, and are evicted after an idle period.
+ * <p>
+ * A client can send as many header values or sessions as it wants. So when clients are not identified by their IP
+ * address, each IP address also gets a bucket, with {@code ipBurst} tokens (10 times {@code burst} by default)
+ * refilled with {@code ipRefill} tokens per second (10 times {@code refill} by default). This bucket is checked
+ * first, so a client changing its key on every request is limited by its IP address and cannot evict the buckets of
+ * the other clients. Subclasses can also override {@link #getClientKey(RequestContext)} to only accept validated
+ * keys.
+ * <p>
+ * The filter can be configured from the configuration given to the constructor:
+ * <pre>
+ * prefix = /api
+ * key = header:X-Api-Key
+ * burst = 100
+ * refill = 10
+ * ipBurst = 1000
+ * ipRefill = 100
+ * limits {
+ *     upload {
+ *         uri = /api/upload.*
+ *         burst = 5
+ *         refill = 0.1
+ *     }
+ * }
+ * </pre>
+ * The first limit whose {@code uri} matches the request path is used, the top-level {@code burst} and {@code refill}
+ * apply to the other requests. Most of the configuration can also be provided by overriding the {@code get*}
+ * methods.
+ */
+public class RateLimitFilter implements Filter {
+
+    /**
+     * The maximum number of requests a client can emit in a row.
+     */
+    public static final String RATELIMIT_LIMIT = "RateLimit-Limit";
+
+    /**
+     * The number of requests the client can still emit in a row.
+     */
+    public static final String RATELIMIT_REMAINING = "RateLimit-Remaining";
+
+    /**
+     * The number of seconds before the client can emit {@code RateLimit-Limit} requests in a row again.
+     */
+    public static final String RATELIMIT_RESET = "RateLimit-Reset";
+
+    /**
+     * The status code of the rejected requests.
+     */
+    public static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Identifies the clients by their IP address.
+     */
+    public static final String KEY_IP = "ip";
+
+    /**
+     * Identifies the clients by the name of the authenticated user.
+     */
+    public static final String KEY_USER = "user";
+
+    /**
+     * Identifies the clients by a session entry, the name of the entry follows the prefix.
+     */
+    public static final String KEY_SESSION_PREFIX = "session:";
+
+    /**
+     * Identifies the clients by a header, the name of the header follows the prefix.
+     */
+    public static final String KEY_HEADER_PREFIX = "header:";
+
+    private final Configuration configuration;
+
+    protected Logger logger;
+
+    private final String prefix;
+
+    private final String key;
+
+    private final List<Limit> limits;
+
+    private final Limit defaultLimit;
+
+    /**
+     * Default constructor, not configuration.
+     */
+    public RateLimitFilter() {
+        this(null);
+    }
+
+    /**
+     * Constructor receiving a configuration.
+     *
+     * @param conf the configuration
+     */
+    public RateLimitFilter(Configuration conf) {
+        configuration = conf;
+        logger = createLogger();
+        String p = getPrefix();
+        prefix = p == null ? "" : p;
+        String k = getKey();
+        key = k == null ? KEY_IP : k;
+
+        int maxKeys = getMaxKeys();
+        long idle = getIdleTime();
+        List<Limit> list = new ArrayList<>();
+        if (configuration != null) {
+            Configuration section = configuration.getConfiguration("limits");
+            if (section != null) {
+                for (String name : section.asMap().keySet()) {
+                    Configuration limit = section.getConfiguration(name);
+                    int burst = limit.getIntegerWithDefault("burst", getBurst());
+                    double refill = limit.getDoubleWithDefault("refill", getRefill());
+                    list.add(new Limit(Pattern.compile(limit.getOrDie("uri")),
+                            new Buckets(burst, refill, maxKeys, idle),
+                            ipBuckets(limit.getIntegerWithDefault("ipBurst", times10(burst)),
+                                    limit.getDoubleWithDefault("ipRefill", 10 * refill), maxKeys, idle)));
+                }
+            }
+        }
+        limits = Collections.unmodifiableList(list);
+        defaultLimit = new Limit(null, new Buckets(getBurst(), getRefill(), maxKeys, idle),
+                ipBuckets(getIpBurst(), getIpRefill(), maxKeys, idle));
+    }
+
+    /**
+     * Creates the buckets of the IP addresses, {@code null} when the clients are already identified by their IP
+     * address.
+     */
+    private Buckets ipBuckets(int burst, double refill, int maxKeys, long idle) {
+        if (KEY_IP.equals(key)) {
+            return null;
+        }
+        return new Buckets(burst, refill, maxKeys, idle);
+    }
+
+    private static int times10(int burst) {
+        return (int) Math.min(Integer.MAX_VALUE, 10L * burst);
+    }
+
+    /**
+     * Creates the logger instance used by this filter. It can be overridden to customize the logger instance.
+     *
+     * @return the logger
+     */
+    protected Logger createLogger() {
+        return LoggerFactory.getLogger(RateLimitFilter.class.getName() + "-" + uri().toString());
+    }
+
+    /**
+     * The interception method. It takes a token from the bucket of the client, and rejects the request if there are
+     * none left. Otherwise, the request proceeds and the {@code RateLimit-*} headers are added to the result.
+     *
+     * @param route   the route
+     * @param context the filter context
+     * @return the result
+     * @throws Exception if anything bad happen
+     */
+    @Override
+    public Result call(Route route, RequestContext context) throws Exception {
+        String client = getClientKey(context);
+        if (client == null) {
+            return context.proceed();
+        }
+        Limit limit = getLimit(context.request().path());
+        long now = nanoTime();
+        String ip = context.request().remoteAddress();
+        if (limit.ips != null && ip != null) {
+            // Checked before the client key, which may be forged.
+            TokenBucket bucket = limit.ips.bucket(ip, now);
+            if (!bucket.tryAcquire(now)) {
+                return reject(context, ip, bucket, now);
+            }
+        }
+        TokenBucket bucket = limit.keys.bucket(client, now);
+        if (!bucket.tryAcquire(now)) {
+            return reject(context, client, bucket, now);
+        }
+        return context.proceed()
+                .with(RATELIMIT_LIMIT, String.valueOf(bucket.burst()))
+                .with(RATELIMIT_REMAINING, String.valueOf(bucket.available(now)))
+                .with(RATELIMIT_RESET, seconds(bucket.fullTime(now)));
+    }
+
+    private Result reject(RequestContext context, String client, TokenBucket bucket, long now) {
+        logger.debug("Too many requests from {} on {}", client, context.request().path());
+        return onLimitReached(context, bucket, now)
+                .with(HeaderNames.RETRY_AFTER, seconds(bucket.waitTime(now)))
+                .with(RATELIMIT_LIMIT, String.valueOf(bucket.burst()))
+                .with(RATELIMIT_REMAINING, "0")
+                .with(RATELIMIT_RESET, seconds(bucket.fullTime(now)));
+    }
+
+    private static String seconds(long nanos) {
+        // Round up, so the client does not retry too early.
+        return String.valueOf((nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private Limit getLimit(String path) {
+        for (Limit limit : limits) {
+            if (limit.uri.matcher(path).matches()) {
+                return limit;
+            }
+        }
+        return defaultLimit;
+    }
+
+    /**
+     * Callback invoked when a client has no token left. By default, it returns a {@code 429 - Too Many Requests}
+     * result. The {@code Retry-After} and {@code RateLimit-*} headers are added to the returned result.
+     *
+     * @param context the request context
+     * @param bucket  the bucket of the client
+     * @param now     the current time in nanoseconds
+     * @return the result sent to the client
+     */
+    protected Result onLimitReached(RequestContext context, TokenBucket bucket, long now) {
+        return Results.status(TOO_MANY_REQUESTS).render("Too many requests").as("text/plain");
+    }
+
+    /**
+     * Computes the key identifying the client emitting the request, according to {@link #getKey()}. When the user
+     * name, the session entry or the header is missing, the IP address is used.
+     *
+     * @param context the request context
+     * @return the key, {@code null} to not limit the request
+     */
+    protected String getClientKey(RequestContext context) {
+        Request request = context.request();
+        String value = null;
+        if (KEY_USER.equals(key)) {
+            value = request.username();
+        } else if (key.startsWith(KEY_SESSION_PREFIX)) {
+            value = context.context().session().get(key.substring(KEY_SESSION_PREFIX.length()));
+        } else if (key.startsWith(KEY_HEADER_PREFIX)) {
+            value = request.getHeader(key.substring(KEY_HEADER_PREFIX.length()));
+        }
+        if (value == null) {
+            return request.remoteAddress();
+        }
+        return value;
+    }
+
+    /**
+     * @return the current time in nanoseconds, {@link System#nanoTime()} by default.
+     */
+    protected long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Gets the Regex Pattern used to determine whether the route is handled by the filter or not.
+     * Notice that the router are caching these patterns and so cannot be changed.
+     */
+    @Override
+    public Pattern uri() {
+        return Pattern.compile(getPrefix() + ".*");
+    }
+
+    /**
+     * Gets the filter priority, determining the position of the filter in the filter chain. Filter with a high
+     * priority are called first. Notice that the router are caching these priorities and so cannot changed.
+     * <p>
+     * By default, the rate limit filter runs before the proxy and redirect filters, so rejected requests are not
+     * forwarded.
+     *
+     * @return the priority
+     */
+    @Override
+    public int priority() {
+        return 2000;
+    }
+
+    /**
+     * Gets the prefix of the limited requests. By default, it returns the 'prefix' entry of the configuration object,
+     * or an empty string, meaning all requests.
+     *
+     * @return the prefix
+     */
+    protected String getPrefix() {
+        if (configuration == null) {
+            return "";
+        } else {
+            return configuration.getWithDefault("prefix", "");
+        }
+    }
+
+    /**
+     * Gets the way clients are identified: {@code ip}, {@code user}, {@code session:name} or {@code header:name}. By
+     * default, it returns the 'key' entry of the configuration object, or {@code ip}.
+     *
+     * @return the key
+     */
+    protected String getKey() {
+        if (configuration == null) {
+            return KEY_IP;
+        } else {
+            return configuration.getWithDefault("key", KEY_IP);
+        }
+    }
+
+    /**
+     * Gets the maximum number of requests a client can emit in a row. By default, it returns the 'burst' entry of the
+     * configuration object, or 100.
+     *
+     * @return the burst
+     */
+    protected int getBurst() {
+        if (configuration == null) {
+            return 100;
+        } else {
+            return configuration.getIntegerWithDefault("burst", 100);
+        }
+    }
+
+    /**
+     * Gets the number of tokens given back to each client every second. By default, it returns the 'refill' entry of
+     * the configuration object, or 10.
+     *
+     * @return the refill rate
+     */
+    protected double getRefill() {
+        if (configuration == null) {
+            return 10;
+        } else {
+            return configuration.getDoubleWithDefault("refill", 10.0);
+        }
+    }
+
+    /**
+     * Gets the maximum number of requests an IP address can emit in a row, when the clients are not identified by
+     * their IP address. By default, it returns the 'ipBurst' entry of the configuration object, or 10 times the
+     * burst.
+     *
+     * @return the burst of the IP addresses
+     */
+    protected int getIpBurst() {
+        if (configuration == null) {
+            return times10(getBurst());
+        } else {
+            return configuration.getIntegerWithDefault("ipBurst", times10(getBurst()));
+        }
+    }
+
+    /**
+     * Gets the number of tokens given back to each IP address every second, when the clients are not identified by
+     * their IP address. By default, it returns the 'ipRefill' entry of the configuration object, or 10 times the
+     * refill rate.
+     *
+     * @return the refill rate of the IP addresses
+     */
+    protected double getIpRefill() {
+        if (configuration == null) {
+            return 10 * getRefill();
+        } else {
+            return configuration.getDoubleWithDefault("ipRefill", 10 * getRefill());
+        }
+    }
+
+    /**
+     * Gets the maximum number of buckets kept for each limit. When reached, the least recently used buckets are
+     * evicted. By default, it returns the 'maxKeys' entry of the configuration object, or 10000.
+     *
+     * @return the maximum number of buckets
+     */
+    protected int getMaxKeys() {
+        if (configuration == null) {
+            return 10000;
+        } else {
+            return configuration.getIntegerWithDefault("maxKeys", 10000);
+        }
+    }
+
+    /**
+     * Gets the time in milliseconds after which the bucket of an idle client is evicted. An evicted client starts
+     * again with a full bucket. By default, it returns the 'idle' entry of the configuration object, or 10 minutes.
+     *
+     * @return the idle time in milliseconds
+     */
+    protected long getIdleTime() {
+        if (configuration == null) {
+            return TimeUnit.MINUTES.toMillis(10);
+        } else {
+            return configuration.getDuration("idle", TimeUnit.MILLISECONDS, TimeUnit.MINUTES.toMillis(10));
+        }
+    }
+
+    /**
+     * A limit, and the buckets of the clients and of the IP addresses it applies to.
+     */
+    private static final class Limit {
+        private final Pattern uri;
+        private final Buckets keys;
+        private final Buckets ips;
+
+        private Limit(Pattern uri, Buckets keys, Buckets ips) {
+            this.uri = uri;
+            this.keys = keys;
+            this.ips = ips;
+        }
+    }
+
+    /**
+     * The buckets of a limit, indexed by client key.
+     */
+    private static final class Buckets {
+        private final int burst;
+        private final double refill;
+        private final Cache<String, TokenBucket> buckets;
+
+        private Buckets(int burst, double refill, int maxKeys, long idle) {
+            if (burst <= 0 || refill <= 0) {
+                throw new IllegalArgumentException("Invalid rate limit: the burst and the refill rate must be " +
+                        "strictly positive");
+            }
+            this.burst = burst;
+            this.refill = refill;
+            this.buckets = CacheBuilder.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(idle, TimeUnit.MILLISECONDS)
+                    .build();
+        }
+
+        private TokenBucket bucket(String client, long now) {
+            TokenBucket bucket = buckets.getIfPresent(client);
+            if (bucket == null) {
+                bucket = new TokenBucket(burst, refill, now);
+                TokenBucket existing = buckets.asMap().putIfAbsent(client, bucket);
+                if (existing != null) {
+                    bucket = existing;
+                }
+            }
+            return bucket;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Renderable;
+import org.wisdom.api.http.RenderableException;
+import org.wisdom.api.http.Result;
+
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A renderable object wrapping a Vert.x stream, such as the response of a Vert.x HTTP client. The Vert.x engine
+ * pumps the stream to the client with back-pressure, without blocking any thread. The stream must be paused when
+ * the renderable is created, the engine resumes it when it starts writing the response.
+ */
+class RenderableReadStream implements Renderable<ReadStream<Buffer>> {
+
+    private ReadStream<Buffer> stream;
+
+    private final long length;
+
+    /**
+     * Creates a new renderable stream.
+     *
+     * @param stream the paused stream
+     * @param length the length of the content, {@literal -1} if unknown
+     */
+    RenderableReadStream(ReadStream<Buffer> stream, long length) {
+        this.stream = stream;
+        this.length = length;
+    }
+
+    /**
+     * Registers a callback invoked once when the stream ends or fails, before the handlers set by the engine. It must
+     * be called before the engine starts writing the response.
+     *
+     * @param callback the callback, receiving {@literal null} when the stream ends, or the failure
+     */
+    void whenDone(final Handler<Throwable> callback) {
+        final ReadStream<Buffer> delegate = stream;
+        final AtomicBoolean done = new AtomicBoolean();
+        stream = new ReadStream<Buffer>() {
+            @Override
+            public ReadStream<Buffer> exceptionHandler(final Handler<Throwable> handler) {
+                delegate.exceptionHandler(t -> {
+                    if (done.compareAndSet(false, true)) {
+                        callback.handle(t);
+                    }
+                    if (handler != null) {
+                        handler.handle(t);
+                    }
+                });
+                return this;
+            }
+
+            @Override
+            public ReadStream<Buffer> handler(Handler<Buffer> handler) {
+                delegate.handler(handler);
+                return this;
+            }
+
+            @Override
+            public ReadStream<Buffer> pause() {
+                delegate.pause();
+                return this;
+            }
+
+            @Override
+            public ReadStream<Buffer> resume() {
+                delegate.resume();
+                return this;
+            }
+
+            @Override
+            public ReadStream<Buffer> endHandler(final Handler<Void> handler) {
+                delegate.endHandler(v -> {
+                    if (done.compareAndSet(false, true)) {
+                        callback.handle(null);
+                    }
+                    if (handler != null) {
+                        handler.handle(v);
+                    }
+                });
+                return this;
+            }
+        };
+    }
+
+    /**
+     * The content cannot be read as an input stream without blocking, it is written by the engine directly.
+     *
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @return never returns
+     * @throws RenderableException always
+     */
+    @Override
+    public InputStream render(Context context, Result result) throws RenderableException {
+        throw new RenderableException("A Vert.x stream cannot be rendered as an input stream");
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return {@literal null}, the Content-Type header is copied from the source.
+     */
+    @Override
+    public String mimetype() {
+        return null;
+    }
+
+    @Override
+    public ReadStream<Buffer> content() {
+        return stream;
+    }
+
+    /**
+     * Streams do not need serializer as we assume the data is already serialized.
+     *
+     * @return {@literal false}
+     */
+    @Override
+    public boolean requireSerializer() {
+        return false;
+    }
+
+    @Override
+    public void setSerializedForm(String serialized) {
+        // Nothing because serialization is not supported for this renderable class.
+    }
+
+    /**
+     * @return {@literal true}, the content is streamed.
+     */
+    @Override
+    public boolean mustBeChunked() {
+        return true;
+    }
+}
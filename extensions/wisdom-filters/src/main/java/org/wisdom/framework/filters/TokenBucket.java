@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket. The bucket contains at most {@code burst} tokens, and is refilled with {@code refill}
+ * tokens per second.
+ * <p>
+ * Instead of counting the tokens, the bucket stores the instant (in nanoseconds) at which it will be full again. The
+ * number of available tokens is derived from this instant, so the state holds in a single {@link AtomicLong} and
+ * taking a token is a single compare-and-set. Times are given by the caller, in the {@link System#nanoTime()} time
+ * base.
+ */
+public final class TokenBucket {
+
+    private final int burst;
+
+    /**
+     * The time needed to get a token back, in nanoseconds.
+     */
+    private final long interval;
+
+    /**
+     * The time needed to refill the whole bucket, in nanoseconds.
+     */
+    private final long capacity;
+
+    /**
+     * The instant at which the bucket is full.
+     */
+    private final AtomicLong full;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param burst  the maximum number of tokens, must be strictly positive
+     * @param refill the number of tokens given back per second, must be strictly positive
+     * @param now    the current time in nanoseconds
+     */
+    public TokenBucket(int burst, double refill, long now) {
+        if (burst <= 0) {
+            throw new IllegalArgumentException("The burst must be strictly positive");
+        }
+        if (refill <= 0) {
+            throw new IllegalArgumentException("The refill rate must be strictly positive");
+        }
+        this.burst = burst;
+        this.interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / refill));
+        this.capacity = interval * burst;
+        this.full = new AtomicLong(now);
+    }
+
+    /**
+     * @return the maximum number of tokens.
+     */
+    public int burst() {
+        return burst;
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @param now the current time in nanoseconds
+     * @return {@literal true} if a token has been taken, {@literal false} if the bucket is empty.
+     */
+    public boolean tryAcquire(long now) {
+        while (true) {
+            long current = full.get();
+            long next = Math.max(current, now) + interval;
+            if (next - now > capacity) {
+                return false;
+            }
+            if (full.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param now the current time in nanoseconds
+     * @return the number of available tokens.
+     */
+    public int available(long now) {
+        long current = Math.max(full.get(), now);
+        return (int) ((now + capacity - current) / interval);
+    }
+
+    /**
+     * @param now the current time in nanoseconds
+     * @return the time in nanoseconds before a token is available, {@literal 0} if a token is available.
+     */
+    public long waitTime(long now) {
+        return Math.max(0L, full.get() + interval - capacity - now);
+    }
+
+    /**
+     * @param now the current time in nanoseconds
+     * @return the time in nanoseconds before the bucket is full, {@literal 0} if it is full.
+     */
+    public long fullTime(long now) {
+        return Math.max(0L, full.get() - now);
+    }
+}
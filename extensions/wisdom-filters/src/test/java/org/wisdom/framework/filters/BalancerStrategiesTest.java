@@ -0,0 +1,121 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the balancer strategies.
+ */
+public class BalancerStrategiesTest {
+
+    private static BalancerMemberState member(String name, int weight) {
+        return new BalancerMemberState(new DefaultBalancerMember(name, "http://" + name, "balancer", weight));
+    }
+
+    private static Map<String, Integer> distribution(BalancerStrategy strategy, List<BalancerMemberState> members,
+                                                     int requests) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < requests; i++) {
+            String name = strategy.select(members).member().getName();
+            Integer count = counts.get(name);
+            counts.put(name, count == null ? 1 : count + 1);
+        }
+        return counts;
+    }
+
+    @Test
+    public void testRoundRobin() {
+        BalancerMemberState a = member("a", 1);
+        BalancerMemberState b = member("b", 5);
+        BalancerStrategy strategy = BalancerStrategies.fromName(null);
+        List<BalancerMemberState> members = ImmutableList.of(a, b);
+        assertThat(strategy.select(members)).isSameAs(a);
+        assertThat(strategy.select(members)).isSameAs(b);
+        assertThat(strategy.select(members)).isSameAs(a);
+    }
+
+    @Test
+    public void testWeightedRoundRobin() {
+        BalancerStrategy strategy = BalancerStrategies.fromName(BalancerStrategies.WEIGHTED_ROUND_ROBIN);
+        Map<String, Integer> counts = distribution(strategy, ImmutableList.of(member("a", 1), member("b", 3)), 400);
+        assertThat(counts.get("a")).isEqualTo(100);
+        assertThat(counts.get("b")).isEqualTo(300);
+    }
+
+    @Test
+    public void testLeastInFlight() {
+        BalancerMemberState a = member("a", 1);
+        BalancerMemberState b = member("b", 1);
+        BalancerMemberState c = member("c", 2);
+        a.acquire();
+        a.acquire();
+        b.acquire();
+        c.acquire();
+        BalancerStrategy strategy = BalancerStrategies.fromName(BalancerStrategies.LEAST_IN_FLIGHT);
+        // c has the lowest load relative to its weight.
+        assertThat(strategy.select(ImmutableList.of(a, b, c))).isSameAs(c);
+        c.acquire();
+        c.acquire();
+        assertThat(strategy.select(ImmutableList.of(a, b, c))).isSameAs(b);
+    }
+
+    @Test
+    public void testPowerOfTwoChoices() {
+        BalancerMemberState a = member("a", 1);
+        BalancerMemberState b = member("b", 1);
+        for (int i = 0; i < 10; i++) {
+            a.acquire();
+        }
+        BalancerStrategy strategy = BalancerStrategies.fromName("p2c");
+        // With two members, both are always compared, so the least loaded is selected.
+        for (int i = 0; i < 20; i++) {
+            assertThat(strategy.select(ImmutableList.of(a, b))).isSameAs(b);
+        }
+        assertThat(strategy.select(ImmutableList.of(a))).isSameAs(a);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownStrategy() {
+        BalancerStrategies.fromName("random");
+    }
+
+    @Test
+    public void testEjection() {
+        BalancerMemberState a = member("a", 1);
+        assertThat(a.isAvailable(0)).isTrue();
+        assertThat(a.failed(1000, 2, 500)).isFalse();
+        a.succeeded();
+        assertThat(a.failed(1000, 2, 500)).isFalse();
+        assertThat(a.failed(1000, 2, 500)).isTrue();
+        assertThat(a.isAvailable(1200)).isFalse();
+        assertThat(a.isAvailable(1500)).isTrue();
+
+        a.setHealthy(false);
+        assertThat(a.isAvailable(2000)).isFalse();
+    }
+}
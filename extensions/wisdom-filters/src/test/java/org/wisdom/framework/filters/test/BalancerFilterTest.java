@@ -22,19 +22,33 @@ package org.wisdom.framework.filters.test;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.net.HttpHeaders;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.streams.ReadStream;
 import org.junit.Test;
+import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
 import org.wisdom.api.configuration.Configuration;
 import org.wisdom.api.http.*;
 import org.wisdom.api.interception.RequestContext;
 import org.wisdom.api.router.Route;
 import org.wisdom.framework.filters.BalancerFilter;
 import org.wisdom.framework.filters.BalancerMember;
+import org.wisdom.framework.filters.BalancerMemberState;
 import org.wisdom.framework.filters.DefaultBalancerMember;
 import org.wisdom.test.parents.FakeContext;
 import org.wisdom.test.parents.FakeRequest;
 import org.wisdom.test.parents.WisdomUnitTest;
 
+import java.net.ServerSocket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -369,4 +383,194 @@ public class BalancerFilterTest extends WisdomUnitTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testHealthChecks() throws Exception {
+        BalancerMember member1 = new DefaultBalancerMember("member-1", "http://foo.com", "balancer");
+        BalancerMember member2 = new DefaultBalancerMember("member-2", "http://bar.com", "balancer");
+        final boolean[] healthy = {true};
+
+        BalancerFilter balancer = new BalancerFilter() {
+            @Override
+            public String getName() {
+                return "balancer";
+            }
+
+            @Override
+            protected boolean isHealthy(BalancerMember member) {
+                return healthy[0] || member.getName().equals("member-2");
+            }
+        };
+        balancer.addMember(member1);
+        balancer.addMember(member2);
+
+        RequestContext rc = mock(RequestContext.class);
+        FakeContext context = new FakeContext();
+        context.setPath("/");
+        FakeRequest request = new FakeRequest(context).method(HttpMethod.GET).uri("/");
+        when(rc.context()).thenReturn(context);
+        when(rc.request()).thenReturn(request);
+
+        assertThat(balancer.rewriteURI(rc).getHost()).isEqualTo("foo.com");
+        assertThat(balancer.rewriteURI(rc).getHost()).isEqualTo("bar.com");
+
+        // member-1 is ejected.
+        healthy[0] = false;
+        balancer.checkMembers();
+        assertThat(balancer.getMemberStates().get(0).isHealthy()).isFalse();
+        for (int i = 0; i < 4; i++) {
+            assertThat(balancer.rewriteURI(rc).getHost()).isEqualTo("bar.com");
+        }
+
+        // member-1 is readmitted.
+        healthy[0] = true;
+        balancer.checkMembers();
+        assertThat(balancer.getMemberStates().get(0).isHealthy()).isTrue();
+        assertThat(balancer.rewriteURI(rc).getHost()).isNotEqualTo(balancer.rewriteURI(rc).getHost());
+    }
+
+    @Test
+    public void testOutlierEjection() throws Exception {
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.get("prefix")).thenReturn("/app");
+        when(configuration.getOrDie("name")).thenReturn("balancer");
+        when(configuration.getIntegerWithDefault("maxPoolSize", 100)).thenReturn(10);
+        when(configuration.getIntegerWithDefault("outlier.failures", 5)).thenReturn(2);
+        when(configuration.getDuration(eq("outlier.ejection"), eq(TimeUnit.MILLISECONDS), anyLong()))
+                .thenReturn(TimeUnit.MINUTES.toMillis(1));
+
+        Vertx vertx = Vertx.vertx();
+        try {
+            BalancerFilter balancer = new BalancerFilter(configuration, vertx);
+            // Nothing listens on port 1.
+            balancer.addMember(new DefaultBalancerMember("member-1", "http://localhost:1", "balancer"));
+            BalancerMemberState state = balancer.getMemberStates().get(0);
+
+            Route route = mock(Route.class);
+            RequestContext rc = mock(RequestContext.class);
+            FakeContext context = new FakeContext();
+            context.setPath("/app/");
+            FakeRequest request = new FakeRequest(context).method(HttpMethod.GET).uri("/app/");
+            when(rc.context()).thenReturn(context);
+            when(rc.request()).thenReturn(request);
+
+            for (int i = 0; i < 2; i++) {
+                Result result = ((AsyncResult) balancer.call(route, rc)).completion().toCompletableFuture()
+                        .get(10, TimeUnit.SECONDS);
+                assertThat(result.getStatusCode()).isEqualTo(Status.BAD_GATEWAY);
+            }
+            // The outcome is recorded right after the completion of the result.
+            long deadline = System.currentTimeMillis() + 5000;
+            while (state.isAvailable(System.currentTimeMillis()) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(state.isAvailable(System.currentTimeMillis())).isFalse();
+            assertThat(state.inFlight()).isEqualTo(0);
+        } finally {
+            vertx.close();
+        }
+    }
+
+    @Test
+    public void testHealthCheckTimeout() throws Exception {
+        BalancerFilter balancer = new BalancerFilter() {
+            @Override
+            public String getName() {
+                return "balancer";
+            }
+
+            @Override
+            protected String getHealthCheckPath() {
+                return "/health";
+            }
+
+            @Override
+            protected long getHealthCheckTimeout() {
+                return 100;
+            }
+
+            @Override
+            protected boolean isHealthy(BalancerMember member) {
+                if (member.getName().equals("member-1")) {
+                    try {
+                        Thread.sleep(10000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return true;
+            }
+        };
+        balancer.addMember(new DefaultBalancerMember("member-1", "http://foo.com", "balancer"));
+        balancer.addMember(new DefaultBalancerMember("member-2", "http://bar.com", "balancer"));
+
+        balancer.startHealthChecks(mock(ManagedScheduledExecutorService.class));
+        try {
+            long begin = System.currentTimeMillis();
+            balancer.checkMembers();
+            assertThat(System.currentTimeMillis() - begin).isLessThan(5000);
+            assertThat(balancer.getMemberStates().get(0).isHealthy()).isFalse();
+            assertThat(balancer.getMemberStates().get(1).isHealthy()).isTrue();
+        } finally {
+            balancer.stopHealthChecks();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMemberReleasedAtTheEndOfTheStream() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.get("prefix")).thenReturn("/app");
+        when(configuration.getOrDie("name")).thenReturn("balancer");
+        when(configuration.getIntegerWithDefault("maxPoolSize", 100)).thenReturn(10);
+
+        Vertx vertx = Vertx.vertx();
+        try {
+            final AtomicReference<HttpServerResponse> pending = new AtomicReference<>();
+            final CountDownLatch listening = new CountDownLatch(1);
+            HttpServer server = vertx.createHttpServer().requestHandler(req -> {
+                pending.set(req.response());
+                req.response().setChunked(true).write("hello");
+            });
+            server.listen(port, "localhost", ar -> listening.countDown());
+            assertThat(listening.await(10, TimeUnit.SECONDS)).isTrue();
+
+            BalancerFilter balancer = new BalancerFilter(configuration, vertx);
+            balancer.addMember(new DefaultBalancerMember("member-1", "http://localhost:" + port, "balancer"));
+            BalancerMemberState state = balancer.getMemberStates().get(0);
+
+            Route route = mock(Route.class);
+            RequestContext rc = mock(RequestContext.class);
+            FakeContext context = new FakeContext();
+            context.setPath("/app/");
+            FakeRequest request = new FakeRequest(context).method(HttpMethod.GET).uri("/app/");
+            when(rc.context()).thenReturn(context);
+            when(rc.request()).thenReturn(request);
+
+            Result result = ((AsyncResult) balancer.call(route, rc)).completion().toCompletableFuture()
+                    .get(10, TimeUnit.SECONDS);
+            assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+            // The headers are received, but the member is still sending the content.
+            assertThat(state.inFlight()).isEqualTo(1);
+
+            final CountDownLatch ended = new CountDownLatch(1);
+            ReadStream<Buffer> stream = (ReadStream<Buffer>) result.getRenderable().content();
+            stream.handler(buffer -> {
+                // Drop the content.
+            });
+            stream.endHandler(v -> ended.countDown());
+            stream.resume();
+            pending.get().end();
+
+            assertThat(ended.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(state.inFlight()).isEqualTo(0);
+            assertThat(state.isAvailable(System.currentTimeMillis())).isTrue();
+        } finally {
+            vertx.close();
+        }
+    }
+
+}
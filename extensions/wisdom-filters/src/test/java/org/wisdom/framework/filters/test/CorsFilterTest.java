@@ -0,0 +1,187 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters.test;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Status;
+import org.wisdom.api.interception.RequestContext;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.Router;
+import org.wisdom.framework.filters.AbstractCorsFilter;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the computation and the caching of the preflight answers.
+ */
+public class CorsFilterTest {
+
+    private Router router;
+    private AbstractCorsFilter filter;
+    private Integer maxAge;
+
+    @Before
+    public void setUp() {
+        router = mock(Router.class);
+        maxAge = null;
+        filter = new AbstractCorsFilter(router) {
+            @Override
+            public List<String> getExposedHeaders() {
+                return Collections.singletonList("X-Custom-Header");
+            }
+
+            @Override
+            public List<String> getAllowedHosts() {
+                return Collections.singletonList("*");
+            }
+
+            @Override
+            public boolean getAllowCredentials() {
+                return false;
+            }
+
+            @Override
+            public Integer getMaxAge() {
+                return maxAge;
+            }
+        };
+    }
+
+    private static Route route(HttpMethod method, String url) {
+        Route route = mock(Route.class);
+        when(route.getHttpMethod()).thenReturn(method);
+        when(route.getUrl()).thenReturn(url);
+        when(route.matches(method, url)).thenReturn(true);
+        return route;
+    }
+
+    private static Route preflight(String url) {
+        Route route = mock(Route.class);
+        when(route.getHttpMethod()).thenReturn(HttpMethod.OPTIONS);
+        when(route.getUrl()).thenReturn(url);
+        when(route.isUnbound()).thenReturn(true);
+        return route;
+    }
+
+    private static RequestContext context(String method) {
+        RequestContext context = mock(RequestContext.class);
+        Request request = mock(Request.class);
+        when(context.request()).thenReturn(request);
+        when(request.getHeader(HeaderNames.ORIGIN)).thenReturn("http://localhost");
+        when(request.getHeader(HeaderNames.ACCESS_CONTROL_REQUEST_METHOD)).thenReturn(method);
+        return context;
+    }
+
+    @Test
+    public void testUriIsCompiledOnce() {
+        assertThat(filter.uri()).isSameAs(filter.uri());
+        assertThat(filter.uri().matcher("/anything").matches()).isTrue();
+    }
+
+    @Test
+    public void testPreflightIsComputedOnce() throws Exception {
+        when(router.getRoutes()).thenReturn(ImmutableList.of(
+                route(HttpMethod.GET, "/hello"),
+                route(HttpMethod.POST, "/hello"),
+                route(HttpMethod.GET, "/other")));
+
+        Result result = filter.call(preflight("/hello"), context("POST"));
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_METHODS)).isEqualTo("GET, POST");
+        assertThat(result.getHeaders()).doesNotContainKey(HeaderNames.ACCESS_CONTROL_MAX_AGE);
+
+        result = filter.call(preflight("/hello"), context("DELETE"));
+        assertThat(result.getStatusCode()).isEqualTo(Status.UNAUTHORIZED);
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_METHODS)).isEqualTo("GET, POST");
+
+        verify(router, times(1)).getRoutes();
+
+        result = filter.call(preflight("/other"), context("GET"));
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_METHODS)).isEqualTo("GET");
+        verify(router, times(2)).getRoutes();
+    }
+
+    @Test
+    public void testPreflightIsRecomputedWhenRoutesChange() throws Exception {
+        when(router.getRoutes()).thenReturn(ImmutableList.of(route(HttpMethod.GET, "/hello")));
+        Result result = filter.call(preflight("/hello"), context("GET"));
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_METHODS)).isEqualTo("GET");
+
+        when(router.getRoutes()).thenReturn(ImmutableList.of(
+                route(HttpMethod.GET, "/hello"),
+                route(HttpMethod.PUT, "/hello")));
+        result = filter.call(preflight("/hello"), context("PUT"));
+        assertThat(result.getStatusCode()).isEqualTo(Status.UNAUTHORIZED);
+
+        filter.clearPreflightCache();
+        result = filter.call(preflight("/hello"), context("PUT"));
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_METHODS)).isEqualTo("GET, PUT");
+    }
+
+    @Test
+    public void testPreflightIsRecomputedWhenTheRoutesGenerationChanges() throws Exception {
+        when(router.getRoutesGeneration()).thenReturn(1L);
+        when(router.getRoutes()).thenReturn(ImmutableList.of(route(HttpMethod.GET, "/hello")));
+        Result result = filter.call(preflight("/hello"), context("PUT"));
+        assertThat(result.getStatusCode()).isEqualTo(Status.UNAUTHORIZED);
+
+        // A controller has been bound.
+        when(router.getRoutesGeneration()).thenReturn(2L);
+        when(router.getRoutes()).thenReturn(ImmutableList.of(
+                route(HttpMethod.GET, "/hello"),
+                route(HttpMethod.PUT, "/hello")));
+        result = filter.call(preflight("/hello"), context("PUT"));
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_METHODS)).isEqualTo("GET, PUT");
+
+        filter.call(preflight("/hello"), context("PUT"));
+        verify(router, times(2)).getRoutes();
+    }
+
+    @Test
+    public void testPreflightExpiresWithMaxAge() throws Exception {
+        maxAge = 0;
+        when(router.getRoutes()).thenReturn(ImmutableList.of(route(HttpMethod.GET, "/hello")));
+
+        Result result = filter.call(preflight("/hello"), context("GET"));
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_MAX_AGE)).isEqualTo("0");
+        filter.call(preflight("/hello"), context("GET"));
+        verify(router, times(2)).getRoutes();
+    }
+
+    @Test
+    public void testUnknownPathProceeds() throws Exception {
+        when(router.getRoutes()).thenReturn(ImmutableList.of(route(HttpMethod.GET, "/hello")));
+        RequestContext context = context("GET");
+        filter.call(preflight("/missing"), context);
+        verify(context).proceed();
+    }
+}
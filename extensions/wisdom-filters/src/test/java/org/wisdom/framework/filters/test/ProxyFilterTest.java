@@ -23,6 +23,10 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Multimap;
 import com.google.common.net.HttpHeaders;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.streams.ReadStream;
 import org.junit.Test;
 import org.wisdom.api.configuration.Configuration;
 import org.wisdom.api.http.*;
@@ -35,6 +39,8 @@ import org.wisdom.test.parents.WisdomUnitTest;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -282,4 +288,87 @@ public class ProxyFilterTest extends WisdomUnitTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testProxyWithVertx() throws Exception {
+        Vertx vertx = Vertx.vertx();
+        try {
+            CompletableFuture<HttpServer> listening = new CompletableFuture<>();
+            vertx.createHttpServer().requestHandler(req -> req.bodyHandler(body -> req.response()
+                    .putHeader(HeaderNames.CONTENT_TYPE, MimeTypes.TEXT)
+                    .putHeader("X-Via", req.getHeader(HeaderNames.VIA))
+                    .end(req.method() + " " + req.uri() + " " + body.toString())))
+                    .listen(0, "localhost", ar -> listening.complete(ar.result()));
+            final int port = listening.get(10, TimeUnit.SECONDS).actualPort();
+
+            Configuration configuration = mock(Configuration.class);
+            when(configuration.get("prefix")).thenReturn("/proxy");
+            when(configuration.get("via")).thenReturn("wisdom");
+            when(configuration.get("proxyTo")).thenReturn("http://localhost:" + port + "/target");
+            when(configuration.getIntegerWithDefault("maxPoolSize", 100)).thenReturn(100);
+            ProxyFilter filter = new ProxyFilter(configuration, vertx);
+
+            Route route = mock(Route.class);
+            RequestContext rc = mock(RequestContext.class);
+            FakeContext context = new FakeContext().setBody("Hello");
+            context.setPath("/proxy/foo")
+                    .setHeader(HttpHeaders.CONNECTION, "keep-alive")
+                    .setHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.TEXT);
+            FakeRequest request = new FakeRequest(context).method(HttpMethod.POST).uri("/proxy/foo?q=1");
+            when(rc.context()).thenReturn(context);
+            when(rc.request()).thenReturn(request);
+
+            AsyncResult async = (AsyncResult) filter.call(route, rc);
+            assertThat(async.completion()).isNotNull();
+            Result result = async.completion().toCompletableFuture().get(10, TimeUnit.SECONDS);
+            assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+            assertThat(result.getHeaders().get(HeaderNames.CONTENT_TYPE)).isEqualTo(MimeTypes.TEXT);
+            assertThat(result.getHeaders().get("X-Via")).contains("wisdom");
+
+            // The content is streamed, read it as the engine would.
+            @SuppressWarnings("unchecked")
+            ReadStream<Buffer> stream = (ReadStream<Buffer>) result.getRenderable().content();
+            Buffer content = Buffer.buffer();
+            CompletableFuture<String> read = new CompletableFuture<>();
+            stream.handler(content::appendBuffer);
+            stream.endHandler(v -> read.complete(content.toString()));
+            stream.resume();
+            assertThat(read.get(10, TimeUnit.SECONDS)).isEqualTo("POST /target/foo?q=1 Hello");
+        } finally {
+            vertx.close();
+        }
+    }
+
+    @Test
+    public void testProxyWithVertxOnUnreachableTarget() throws Exception {
+        Vertx vertx = Vertx.vertx();
+        try {
+            ProxyFilter filter = new ProxyFilter(null, vertx) {
+                @Override
+                protected String getProxyTo() {
+                    // Nothing listens on port 1.
+                    return "http://localhost:1";
+                }
+
+                @Override
+                protected String getPrefix() {
+                    return "/proxy";
+                }
+            };
+
+            Route route = mock(Route.class);
+            RequestContext rc = mock(RequestContext.class);
+            FakeContext context = new FakeContext();
+            context.setPath("/proxy");
+            FakeRequest request = new FakeRequest(context).method(HttpMethod.GET).uri("/proxy");
+            when(rc.context()).thenReturn(context);
+            when(rc.request()).thenReturn(request);
+
+            Result result = ((AsyncResult) filter.call(route, rc)).completion().toCompletableFuture()
+                    .get(10, TimeUnit.SECONDS);
+            assertThat(result.getStatusCode()).isEqualTo(Status.BAD_GATEWAY);
+        } finally {
+            vertx.close();
+        }
+    }
+
+}
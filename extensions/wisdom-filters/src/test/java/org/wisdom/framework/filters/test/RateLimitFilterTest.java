@@ -0,0 +1,182 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters.test;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.wisdom.api.configuration.Configuration;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Results;
+import org.wisdom.api.http.Status;
+import org.wisdom.api.interception.RequestContext;
+import org.wisdom.api.router.Route;
+import org.wisdom.framework.filters.RateLimitFilter;
+import org.wisdom.framework.filters.TokenBucket;
+import org.wisdom.test.parents.FakeConfiguration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the token buckets and the rate limit filter.
+ */
+public class RateLimitFilterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private long now = 1000 * SECOND;
+
+    private RateLimitFilter filter(Configuration configuration) {
+        return new RateLimitFilter(configuration) {
+            @Override
+            protected long nanoTime() {
+                return now;
+            }
+        };
+    }
+
+    private static RequestContext context(String path, String ip, String apiKey) throws Exception {
+        RequestContext context = mock(RequestContext.class);
+        Request request = mock(Request.class);
+        when(context.request()).thenReturn(request);
+        when(request.path()).thenReturn(path);
+        when(request.remoteAddress()).thenReturn(ip);
+        when(request.getHeader("X-Api-Key")).thenReturn(apiKey);
+        when(context.proceed()).thenReturn(Results.ok());
+        return context;
+    }
+
+    @Test
+    public void testTokenBucket() {
+        TokenBucket bucket = new TokenBucket(2, 1, now);
+        assertThat(bucket.available(now)).isEqualTo(2);
+        assertThat(bucket.fullTime(now)).isEqualTo(0);
+        assertThat(bucket.tryAcquire(now)).isTrue();
+        assertThat(bucket.tryAcquire(now)).isTrue();
+        assertThat(bucket.tryAcquire(now)).isFalse();
+        assertThat(bucket.available(now)).isEqualTo(0);
+        assertThat(bucket.waitTime(now)).isEqualTo(SECOND);
+        assertThat(bucket.fullTime(now)).isEqualTo(2 * SECOND);
+
+        now += SECOND / 2;
+        assertThat(bucket.tryAcquire(now)).isFalse();
+        now += SECOND / 2;
+        assertThat(bucket.available(now)).isEqualTo(1);
+        assertThat(bucket.tryAcquire(now)).isTrue();
+        assertThat(bucket.tryAcquire(now)).isFalse();
+
+        // The bucket does not contain more than the burst.
+        now += 10 * SECOND;
+        assertThat(bucket.available(now)).isEqualTo(2);
+    }
+
+    @Test
+    public void testLimitPerClient() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("burst", 2);
+        map.put("refill", 0.5);
+        RateLimitFilter filter = filter(new FakeConfiguration(map));
+        Route route = mock(Route.class);
+
+        Result result = filter.call(route, context("/", "1.2.3.4", null));
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(result.getHeaders().get(RateLimitFilter.RATELIMIT_LIMIT)).isEqualTo("2");
+        assertThat(result.getHeaders().get(RateLimitFilter.RATELIMIT_REMAINING)).isEqualTo("1");
+        assertThat(result.getHeaders().get(RateLimitFilter.RATELIMIT_RESET)).isEqualTo("2");
+
+        result = filter.call(route, context("/", "1.2.3.4", null));
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(result.getHeaders().get(RateLimitFilter.RATELIMIT_REMAINING)).isEqualTo("0");
+
+        RequestContext context = context("/", "1.2.3.4", null);
+        result = filter.call(route, context);
+        assertThat(result.getStatusCode()).isEqualTo(RateLimitFilter.TOO_MANY_REQUESTS);
+        assertThat(result.getHeaders().get(HeaderNames.RETRY_AFTER)).isEqualTo("2");
+        assertThat(result.getHeaders().get(RateLimitFilter.RATELIMIT_REMAINING)).isEqualTo("0");
+        assertThat(result.getHeaders().get(RateLimitFilter.RATELIMIT_RESET)).isEqualTo("4");
+        verify(context, never()).proceed();
+
+        // Another client has its own bucket.
+        result = filter.call(route, context("/", "5.6.7.8", null));
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+
+        now += 2 * SECOND;
+        result = filter.call(route, context("/", "1.2.3.4", null));
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+    }
+
+    @Test
+    public void testLimitPerHeaderAndUri() throws Exception {
+        Map<String, Object> upload = new HashMap<>();
+        upload.put("uri", "/upload.*");
+        upload.put("burst", 1);
+        Map<String, Object> map = new HashMap<>();
+        map.put("key", "header:X-Api-Key");
+        map.put("burst", 10);
+        map.put("limits", new FakeConfiguration(ImmutableMap.<String, Object>of("upload",
+                new FakeConfiguration(upload))));
+        RateLimitFilter filter = filter(new FakeConfiguration(map));
+        Route route = mock(Route.class);
+
+        assertThat(filter.call(route, context("/upload/1", "1.2.3.4", "key")).getStatusCode())
+                .isEqualTo(Status.OK);
+        assertThat(filter.call(route, context("/upload/2", "1.2.3.4", "key")).getStatusCode())
+                .isEqualTo(RateLimitFilter.TOO_MANY_REQUESTS);
+        // Same IP, but another key.
+        assertThat(filter.call(route, context("/upload/2", "1.2.3.4", "other")).getStatusCode())
+                .isEqualTo(Status.OK);
+        // Other paths use the default limit.
+        Result result = filter.call(route, context("/", "1.2.3.4", "key"));
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(result.getHeaders().get(RateLimitFilter.RATELIMIT_LIMIT)).isEqualTo("10");
+        assertThat(result.getHeaders().get(RateLimitFilter.RATELIMIT_REMAINING)).isEqualTo("9");
+    }
+
+    @Test
+    public void testForgedKeysAreLimitedByIp() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("key", "header:X-Api-Key");
+        map.put("burst", 10);
+        map.put("ipBurst", 5);
+        RateLimitFilter filter = filter(new FakeConfiguration(map));
+        Route route = mock(Route.class);
+
+        assertThat(filter.call(route, context("/", "5.6.7.8", "key")).getStatusCode()).isEqualTo(Status.OK);
+        // A new key on each request does not get a new burst.
+        for (int i = 0; i < 5; i++) {
+            assertThat(filter.call(route, context("/", "1.2.3.4", "random-" + i)).getStatusCode())
+                    .isEqualTo(Status.OK);
+        }
+        Result result = filter.call(route, context("/", "1.2.3.4", "random-5"));
+        assertThat(result.getStatusCode()).isEqualTo(RateLimitFilter.TOO_MANY_REQUESTS);
+        assertThat(result.getHeaders().get(RateLimitFilter.RATELIMIT_LIMIT)).isEqualTo("5");
+
+        // The bucket of the legitimate key is kept.
+        result = filter.call(route, context("/", "5.6.7.8", "key"));
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(result.getHeaders().get(RateLimitFilter.RATELIMIT_REMAINING)).isEqualTo("8");
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.cache;
+
+import com.codahale.metrics.*;
+import com.google.common.collect.ImmutableMap;
+import org.apache.felix.ipojo.annotations.*;
+import org.wisdom.api.cache.CacheStatistics;
+
+import java.util.Map;
+
+/**
+ * Registers the statistics of the available caches into the metric registry. Metrics are named
+ * {@code cache.<name>.<metric>}.
+ */
+@Component
+@Instantiate
+public class CacheMetrics {
+
+    @Requires
+    MetricRegistry metrics;
+
+    /**
+     * Registers the metrics of a new cache.
+     *
+     * @param statistics the cache statistics
+     */
+    @Bind(aggregate = true, optional = true)
+    public synchronized void bindCache(CacheStatistics statistics) {
+        // The metrics may have been registered by a previous instance of the cache.
+        unregister(statistics);
+        metrics.register(prefix(statistics), metricsForCache(statistics));
+    }
+
+    /**
+     * Removes the metrics of a departing cache.
+     *
+     * @param statistics the cache statistics
+     */
+    @Unbind
+    public synchronized void unbindCache(CacheStatistics statistics) {
+        unregister(statistics);
+    }
+
+    private void unregister(CacheStatistics statistics) {
+        final String prefix = prefix(statistics) + ".";
+        metrics.removeMatching(new MetricFilter() {
+            @Override
+            public boolean matches(String name, Metric metric) {
+                return name.startsWith(prefix);
+            }
+        });
+    }
+
+    private static String prefix(CacheStatistics statistics) {
+        return "cache." + statistics.name();
+    }
+
+    static MetricSet metricsForCache(final CacheStatistics statistics) {
+        return new MetricSet() {
+            @Override
+            public Map<String, Metric> getMetrics() {
+                return ImmutableMap.<String, Metric>builder()
+                        .put("hits", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return statistics.getHitCount();
+                            }
+                        })
+                        .put("misses", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return statistics.getMissCount();
+                            }
+                        })
+                        .put("hit_ratio", new RatioGauge() {
+                            @Override
+                            protected Ratio getRatio() {
+                                long hits = statistics.getHitCount();
+                                return Ratio.of(hits, hits + statistics.getMissCount());
+                            }
+                        })
+                        .put("evictions", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return statistics.getEvictionCount();
+                            }
+                        })
+                        .put("size", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return statistics.getSize();
+                            }
+                        })
+                        .put("heap_bytes", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return statistics.getHeapSizeInBytes();
+                            }
+                        })
+                        .put("disk_bytes", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return statistics.getDiskSizeInBytes();
+                            }
+                        })
+                        .build();
+            }
+        };
+    }
+}
@@ -48,6 +48,7 @@ import org.wisdom.api.http.Result;
 import org.wisdom.api.http.websockets.Publisher;
 import org.wisdom.api.security.Authenticated;
 import org.wisdom.api.templates.Template;
+import org.wisdom.monitor.extensions.prometheus.PrometheusController;
 import org.wisdom.monitor.service.HealthCheck;
 import org.wisdom.monitor.service.MonitorExtension;
 
@@ -98,6 +99,7 @@ public class DashboardExtension extends DefaultController implements MonitorExte
     private ScheduledFuture task;
     private HttpMetricFilter httpMetricFilter;
     private ServiceRegistration<MetricRegistry> reg;
+    private ServiceRegistration<org.wisdom.api.Controller> prometheusReg;
 
     /**
      * Creates the instance of dashboard extension.
@@ -146,6 +148,12 @@ public class DashboardExtension extends DefaultController implements MonitorExte
         logger().info("Registering the metric registry as service");
         reg = bc.registerService(MetricRegistry.class, registry, null);
 
+        if (configuration.getBooleanWithDefault("monitor.prometheus.enabled", false)) {
+            logger().info("Exposing the metrics to Prometheus");
+            prometheusReg = bc.registerService(org.wisdom.api.Controller.class,
+                    new PrometheusController(registry, configuration), null);
+        }
+
         task = scheduler.scheduleAtFixedRate(new Runnable() {
             /**
              * Sends updated data to the websocket.
@@ -253,6 +261,11 @@ public class DashboardExtension extends DefaultController implements MonitorExte
      */
     @Invalidate
     public void stop() {
+        if (prometheusReg != null) {
+            prometheusReg.unregister();
+            prometheusReg = null;
+        }
+
         if (reg != null) {
             reg.unregister();
             reg = null;
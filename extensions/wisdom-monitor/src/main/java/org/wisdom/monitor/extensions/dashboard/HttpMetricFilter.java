@@ -21,11 +21,13 @@ package org.wisdom.monitor.extensions.dashboard;
 
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.http.Context;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.http.Status;
 import org.wisdom.api.interception.Filter;
@@ -36,16 +38,29 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 /**
  * A class exposing a HTTP Request filter to compute HTTP metrics.
+ * <p>
+ * In addition to the global {@code http.requests} timer, a timer is maintained per route (method and URI template),
+ * named {@code http.routes.METHOD URI}. To bound the number of metrics, once {@code monitor.http.routes.max} routes
+ * are tracked, the other routes are aggregated in {@code http.routes.others}. Requests not matching any route are
+ * aggregated in {@code http.routes.unbound}.
+ * <p>
+ * Timers are stopped when the response has been written (or when the connection has been closed before), so they
+ * include the processing of asynchronous results.
+ * They rely on {@link LatencyReservoir}, recording values without contention. Their snapshots cover the recent
+ * requests, while the cumulative counts are exported to Prometheus.
  */
 public class HttpMetricFilter implements Filter, Status {
 
     private final BundleContext context;
     private final Pattern interceptionPattern;
     private final Integer interceptionPriority;
+    private final int maxRoutes;
+    private final MetricRegistry registry;
     private ServiceRegistration<Filter> reg;
 
     // initialized after call of init method
@@ -53,6 +68,9 @@ public class HttpMetricFilter implements Filter, Status {
     private Meter otherMeter;
     private Counter activeRequests;
     private Timer requestTimer;
+    private final ConcurrentMap<String, Timer> routeTimers = new ConcurrentHashMap<>();
+    private Timer otherRoutesTimer;
+    private Timer unboundTimer;
 
 
     /**
@@ -65,9 +83,11 @@ public class HttpMetricFilter implements Filter, Status {
     public HttpMetricFilter(BundleContext context, ApplicationConfiguration configuration,
                             MetricRegistry registry) {
         this.context = context;
+        this.registry = registry;
         Map<Integer, String> meterNamesByStatusCode = createMeterNamesByStatusCode();
         this.interceptionPattern = Pattern.compile(configuration.getWithDefault("monitor.http.interception", ".*"));
         this.interceptionPriority = configuration.getIntegerWithDefault("monitor.http.priority", 10000);
+        this.maxRoutes = configuration.getIntegerWithDefault("monitor.http.routes.max", 200);
         this.metersByStatusCode = new ConcurrentHashMap<>(meterNamesByStatusCode
                 .size());
         for (Map.Entry<Integer, String> entry : meterNamesByStatusCode.entrySet()) {
@@ -76,7 +96,17 @@ public class HttpMetricFilter implements Filter, Status {
         }
         this.otherMeter = registry.meter("http.responseCodes.others");
         this.activeRequests = registry.counter("http.activeRequests");
-        this.requestTimer = registry.timer("http.requests");
+        this.requestTimer = register("http.requests");
+        this.otherRoutesTimer = register("http.routes.others");
+        this.unboundTimer = register("http.routes.unbound");
+    }
+
+    private Timer register(String name) {
+        Metric existing = registry.getMetrics().get(name);
+        if (existing instanceof Timer) {
+            return (Timer) existing;
+        }
+        return registry.register(name, new LatencyTimer());
     }
 
     private static Map<Integer, String> createMeterNamesByStatusCode() {
@@ -105,6 +135,10 @@ public class HttpMetricFilter implements Filter, Status {
             reg.unregister();
             reg = null;
         }
+        for (String key : routeTimers.keySet()) {
+            registry.remove("http.routes." + key);
+        }
+        routeTimers.clear();
     }
 
 
@@ -120,18 +154,55 @@ public class HttpMetricFilter implements Filter, Status {
     @Override
     public Result call(Route route, RequestContext context) throws Exception {
         activeRequests.inc();
-        final Timer.Context ctxt = requestTimer.time();
+        final long start = System.nanoTime();
+        final Timer routeTimer = getRouteTimer(route);
+        Runnable stop = new Runnable() {
+            @Override
+            public void run() {
+                long duration = System.nanoTime() - start;
+                requestTimer.update(duration, TimeUnit.NANOSECONDS);
+                routeTimer.update(duration, TimeUnit.NANOSECONDS);
+                activeRequests.dec();
+            }
+        };
+        Context http = context.context();
+        if (http != null) {
+            // Stop the timers once the response is written.
+            http.onComplete(stop);
+        }
         Result result = null;
         try {
             result = context.proceed();
             return result;
         } finally {
-            ctxt.stop();
-            activeRequests.dec();
+            if (http == null) {
+                stop.run();
+            }
             markMeterForStatusCode(result);
         }
     }
 
+    /**
+     * Gets the timer of the given route, creating it if needed.
+     *
+     * @param route the route
+     * @return the timer
+     */
+    private Timer getRouteTimer(Route route) {
+        if (route == null || route.isUnbound()) {
+            return unboundTimer;
+        }
+        String key = route.getHttpMethod() + " " + route.getUrl();
+        Timer timer = routeTimers.get(key);
+        if (timer == null) {
+            if (routeTimers.size() >= maxRoutes) {
+                return otherRoutesTimer;
+            }
+            timer = routeTimers.computeIfAbsent(key, k -> register("http.routes." + k));
+        }
+        return timer;
+    }
+
     private void markMeterForStatusCode(Result result) {
         if (result == null) {
             otherMeter.mark();
@@ -0,0 +1,442 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.dashboard;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import com.google.common.base.Charsets;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A reservoir counting the recorded values in log-linear buckets, as HDR histograms do. Each power of two is split
+ * into 16 buckets, so the computed quantiles are within about 6% of the recorded values. Values are expected to be
+ * durations in nanoseconds, and are capped to about 18 minutes.
+ * <p>
+ * Values are recorded in a small, fixed, number of stripes, selected from the recording thread, so recording does
+ * not require any lock and contention stays low. The memory used by a reservoir is bounded, whatever the number of
+ * recording threads. The stripes are merged when a snapshot is taken.
+ * <p>
+ * The stripes count all the values recorded since the creation of the reservoir, they are returned by
+ * {@link #getCumulativeSnapshot()} (used to export histograms). {@link #getSnapshot()} covers a recent window
+ * instead: the values recorded since the beginning of the previous rotation interval (one minute by default), so
+ * the dashboard shows the recent behavior, as the default decaying reservoirs do.
+ */
+public class LatencyReservoir implements Reservoir {
+
+    /**
+     * The number of bits used to split each power of two.
+     */
+    static final int SUB_BUCKET_BITS = 4;
+
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The greatest recorded value is {@code 2^MAX_MAGNITUDE - 1}.
+     */
+    static final int MAX_MAGNITUDE = 40;
+
+    static final long MAX_VALUE = (1L << MAX_MAGNITUDE) - 1;
+
+    static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    /**
+     * The number of stripes, a power of two. Each stripe uses about 5KB.
+     */
+    static final int STRIPES = 4;
+
+    /**
+     * The merged counts are followed by the total count, the sum, the minimum and the maximum.
+     */
+    private static final int COUNT = BUCKETS;
+    private static final int SUM = BUCKETS + 1;
+    private static final int MIN = BUCKETS + 2;
+    private static final int MAX = BUCKETS + 3;
+
+    /**
+     * The stripes, created on first use.
+     */
+    private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    private final Clock clock;
+
+    private final long window;
+
+    /**
+     * The cumulative counts at the beginning of the previous interval, subtracted from the current counts to compute
+     * the recent window. Guarded by {@code this}.
+     */
+    private long[] previous = new long[BUCKETS + 4];
+
+    /**
+     * The cumulative counts at the beginning of the current interval. Guarded by {@code this}.
+     */
+    private long[] current = new long[BUCKETS + 4];
+
+    private long rotation;
+
+    /**
+     * Creates a reservoir whose snapshots cover the last one to two minutes.
+     */
+    public LatencyReservoir() {
+        this(1, TimeUnit.MINUTES, Clock.defaultClock());
+    }
+
+    /**
+     * Creates a reservoir.
+     *
+     * @param interval the rotation interval, snapshots cover one to two intervals
+     * @param unit     the unit of the interval
+     * @param clock    the clock
+     */
+    public LatencyReservoir(long interval, TimeUnit unit, Clock clock) {
+        this.clock = clock;
+        this.window = unit.toNanos(interval);
+        this.rotation = clock.getTick();
+    }
+
+    /**
+     * Computes the index of the bucket containing the given value.
+     *
+     * @param value the value, between 0 and {@link #MAX_VALUE}
+     * @return the index
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @param index the index of a bucket
+     * @return the lowest value contained in the bucket.
+     */
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * @param index the index of a bucket
+     * @return the highest value contained in the bucket.
+     */
+    static long upperBound(int index) {
+        return lowerBound(index + 1) - 1;
+    }
+
+    /**
+     * @return the number of values recorded since the creation of the reservoir, capped to
+     * {@link Integer#MAX_VALUE}.
+     */
+    @Override
+    public int size() {
+        long count = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            Stripe stripe = stripes.get(i);
+            if (stripe != null) {
+                count += stripe.count.get();
+            }
+        }
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Records a value. Negative values are recorded as {@literal 0}, and values greater than {@link #MAX_VALUE} as
+     * {@link #MAX_VALUE}.
+     *
+     * @param value the value
+     */
+    @Override
+    public void update(long value) {
+        int index = (int) mix(Thread.currentThread().getId()) & (STRIPES - 1);
+        Stripe stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new Stripe());
+            stripe = stripes.get(index);
+        }
+        stripe.record(Math.min(Math.max(value, 0L), MAX_VALUE));
+    }
+
+    private static long mix(long id) {
+        // Spreads consecutive thread ids over the stripes.
+        long h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * Gets a snapshot of the recent values: the values recorded since the beginning of the previous rotation
+     * interval. The minimum and the maximum are as precise as the buckets.
+     *
+     * @return the snapshot
+     */
+    @Override
+    public LatencySnapshot getSnapshot() {
+        long[] now = merge();
+        long[] since;
+        synchronized (this) {
+            long tick = clock.getTick();
+            if (tick - rotation >= window) {
+                previous = current;
+                current = now;
+                rotation = tick;
+            }
+            since = previous;
+        }
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        int lowest = -1;
+        int highest = -1;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = Math.max(0L, now[i] - since[i]);
+            if (counts[i] != 0) {
+                count += counts[i];
+                highest = i;
+                if (lowest == -1) {
+                    lowest = i;
+                }
+            }
+        }
+        if (count == 0) {
+            return new LatencySnapshot(counts, 0, 0, 0, 0);
+        }
+        long sum = Math.max(0L, now[SUM] - since[SUM]);
+        // Bounded by the extremes recorded since the creation of the reservoir.
+        return new LatencySnapshot(counts, count, sum, Math.max(lowerBound(lowest), now[MIN]),
+                Math.min(upperBound(highest), now[MAX]));
+    }
+
+    /**
+     * Gets a snapshot of all the values recorded since the creation of the reservoir.
+     *
+     * @return the snapshot
+     */
+    public LatencySnapshot getCumulativeSnapshot() {
+        long[] merged = merge();
+        long[] counts = new long[BUCKETS];
+        System.arraycopy(merged, 0, counts, 0, BUCKETS);
+        return new LatencySnapshot(counts, merged[COUNT], merged[SUM], merged[MIN], merged[MAX]);
+    }
+
+    /**
+     * Merges the stripes.
+     *
+     * @return the counts per bucket, followed by the total count, the sum, the minimum and the maximum
+     */
+    private long[] merge() {
+        long[] merged = new long[BUCKETS + 4];
+        long min = Long.MAX_VALUE;
+        for (int s = 0; s < STRIPES; s++) {
+            Stripe stripe = stripes.get(s);
+            if (stripe == null) {
+                continue;
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                merged[i] += stripe.counts.get(i);
+            }
+            merged[COUNT] += stripe.count.get();
+            merged[SUM] += stripe.sum.get();
+            min = Math.min(min, stripe.min.get());
+            merged[MAX] = Math.max(merged[MAX], stripe.max.get());
+        }
+        merged[MIN] = merged[COUNT] == 0 ? 0 : min;
+        return merged;
+    }
+
+    /**
+     * The values recorded by the threads sharing a stripe.
+     */
+    private static final class Stripe {
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong();
+
+        private void record(long value) {
+            counts.incrementAndGet(index(value));
+            sum.addAndGet(value);
+            long m = min.get();
+            while (value < m && !min.compareAndSet(m, value)) {
+                m = min.get();
+            }
+            m = max.get();
+            while (value > m && !max.compareAndSet(m, value)) {
+                m = max.get();
+            }
+            count.incrementAndGet();
+        }
+    }
+
+    /**
+     * A snapshot of a {@link LatencyReservoir}. Quantiles are computed from the buckets, and {@link #getValues()}
+     * returns a bounded sample of evenly spaced quantiles instead of all the recorded values.
+     */
+    public static final class LatencySnapshot extends Snapshot {
+
+        /**
+         * The maximum number of values returned by {@link #getValues()}.
+         */
+        private static final int SAMPLE_SIZE = 1024;
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+
+        private LatencySnapshot(long[] counts, long count, long sum, long min, long max) {
+            super(new long[0]);
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        /**
+         * @return the number of recorded values.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return the sum of the recorded values.
+         */
+        public long sum() {
+            return sum;
+        }
+
+        /**
+         * Counts the values lower than or equal to each of the given bounds. The values sharing the bucket of a bound
+         * are counted as lower, so the counts are as precise as the buckets.
+         *
+         * @param bounds the bounds, in ascending order
+         * @return the number of values lower than or equal to each bound
+         */
+        public long[] countsAtOrBelow(long[] bounds) {
+            long[] result = new long[bounds.length];
+            long seen = 0;
+            int bucket = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                int last = index(Math.min(Math.max(bounds[i], 0L), MAX_VALUE));
+                while (bucket <= last) {
+                    seen += counts[bucket++];
+                }
+                result[i] = seen;
+            }
+            return result;
+        }
+
+        /**
+         * @param quantile the quantile, between 0 and 1
+         * @return the highest value of the bucket containing the quantile, bounded by the minimum and maximum
+         * recorded values.
+         */
+        @Override
+        public double getValue(double quantile) {
+            if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+                throw new IllegalArgumentException(quantile + " is not in [0..1]");
+            }
+            if (count == 0) {
+                return 0.0;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.max(min, Math.min(max, upperBound(i)));
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(count, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public long[] getValues() {
+            int size = (int) Math.min(count, SAMPLE_SIZE);
+            long[] values = new long[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = (long) getValue((i + 1.0) / size);
+            }
+            return values;
+        }
+
+        @Override
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public long getMin() {
+            return min;
+        }
+
+        @Override
+        public double getMean() {
+            if (count == 0) {
+                return 0.0;
+            }
+            return (double) sum / count;
+        }
+
+        @Override
+        public double getStdDev() {
+            if (count <= 1) {
+                return 0.0;
+            }
+            double mean = getMean();
+            double squares = 0.0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    double middle = (lowerBound(i) + upperBound(i)) / 2.0 - mean;
+                    squares += counts[i] * middle * middle;
+                }
+            }
+            return Math.sqrt(squares / (count - 1));
+        }
+
+        @Override
+        public void dump(OutputStream output) {
+            try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, Charsets.UTF_8))) {
+                for (long value : getValues()) {
+                    writer.printf("%d%n", value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.dashboard;
+
+import com.codahale.metrics.Timer;
+
+/**
+ * A timer relying on a {@link LatencyReservoir}. Its snapshot covers the recent values, while
+ * {@link #getCumulativeSnapshot()} gives access to all the values recorded since its creation.
+ */
+public class LatencyTimer extends Timer {
+
+    private final LatencyReservoir reservoir;
+
+    /**
+     * Creates a timer with a default {@link LatencyReservoir}.
+     */
+    public LatencyTimer() {
+        this(new LatencyReservoir());
+    }
+
+    /**
+     * Creates a timer.
+     *
+     * @param reservoir the reservoir
+     */
+    public LatencyTimer(LatencyReservoir reservoir) {
+        super(reservoir);
+        this.reservoir = reservoir;
+    }
+
+    /**
+     * @return a snapshot of all the values recorded since the creation of the timer.
+     */
+    public LatencyReservoir.LatencySnapshot getCumulativeSnapshot() {
+        return reservoir.getCumulativeSnapshot();
+    }
+}
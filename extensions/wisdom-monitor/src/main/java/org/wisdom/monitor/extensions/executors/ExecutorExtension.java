@@ -92,6 +92,13 @@ public class ExecutorExtension extends DefaultController implements MonitorExten
                             public Integer getValue() {
                                 return getCompletedTasks();
                             }
+                        },
+                        "rejected.count", new Gauge<Long>() {
+
+                            @Override
+                            public Long getValue() {
+                                return getRejectedTasks();
+                            }
                         }
                 );
             }
@@ -123,6 +130,18 @@ public class ExecutorExtension extends DefaultController implements MonitorExten
                                 return executor.getCompletedTaskCount();
                             }
                         })
+                        .put("queue.remaining", new Gauge<Integer>() {
+                            @Override
+                            public Integer getValue() {
+                                return executor.getQueue().remainingCapacity();
+                            }
+                        })
+                        .put("rejected", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return executor.getRejectedTaskCount();
+                            }
+                        })
                         .put("hung", new Gauge<Integer>() {
                             @Override
                             public Integer getValue() {
@@ -206,6 +225,7 @@ public class ExecutorExtension extends DefaultController implements MonitorExten
                         .put("schedulers", getExecutorsAsMap(schedulers))
                         .put("hung", getHungTasks())
                         .put("completed", getCompletedTasks())
+                        .put("rejected", getRejectedTasks())
                         .build()
         );
     }
@@ -240,6 +260,17 @@ public class ExecutorExtension extends DefaultController implements MonitorExten
         return count;
     }
 
+    private long getRejectedTasks() {
+        long count = 0;
+        for (ManagedExecutorService svc : executors) {
+            count += svc.getRejectedTaskCount();
+        }
+        for (ManagedScheduledExecutorService svc : schedulers) {
+            count += svc.getRejectedTaskCount();
+        }
+        return count;
+    }
+
     /**
      * @return the label displayed in the menu.
      */
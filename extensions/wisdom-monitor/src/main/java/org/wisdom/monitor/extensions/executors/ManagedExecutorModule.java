@@ -47,6 +47,8 @@ public class ManagedExecutorModule extends SimpleModule {
                 jsonGenerator.writeNumberField("size", executor.getPoolSize());
                 jsonGenerator.writeNumberField("active", executor.getActiveCount());
                 jsonGenerator.writeNumberField("queue", executor.getQueue().size());
+                jsonGenerator.writeNumberField("queue_remaining", executor.getQueue().remainingCapacity());
+                jsonGenerator.writeNumberField("rejected", executor.getRejectedTaskCount());
                 jsonGenerator.writeNumberField("hung", executor.getHungTasks().size());
                 jsonGenerator.writeNumberField("completed", executor.getCompletedTaskCount());
                 final ManagedExecutorService.ExecutionStatistics statistics = executor.getExecutionTimeStatistics();
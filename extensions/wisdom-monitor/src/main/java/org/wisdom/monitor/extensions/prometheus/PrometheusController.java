@@ -0,0 +1,106 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.prometheus;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Exposes the metric registry using the Prometheus text format, so it can be scraped without JMX. The endpoint is
+ * served on {@code /monitor/metrics}, or on the path set in {@code monitor.prometheus.path}.
+ * <p>
+ * This controller is not an iPOJO component: the dashboard extension registers it only when
+ * {@code monitor.prometheus.enabled} is {@literal true}, so no route is claimed when the endpoint is disabled.
+ * As scrapers cannot log into the monitor, the endpoint is not protected by the monitor authenticator. Instead,
+ * when {@code monitor.prometheus.token} is set, the scraper must send it as a bearer token.
+ */
+public class PrometheusController extends DefaultController {
+
+    /**
+     * The default path of the endpoint.
+     */
+    public static final String DEFAULT_PATH = "/monitor/metrics";
+
+    private final MetricRegistry registry;
+
+    private final String path;
+
+    private final String token;
+
+    /**
+     * The size of the last response, used to size the buffer of the next one.
+     */
+    private volatile int lastSize = 4096;
+
+    /**
+     * Creates the controller.
+     *
+     * @param registry      the metric registry
+     * @param configuration the application configuration
+     */
+    public PrometheusController(MetricRegistry registry, ApplicationConfiguration configuration) {
+        this.registry = registry;
+        this.path = configuration.getWithDefault("monitor.prometheus.path", DEFAULT_PATH);
+        this.token = configuration.get("monitor.prometheus.token");
+    }
+
+    /**
+     * @return the route serving the metrics on the configured path.
+     */
+    @Override
+    public List<Route> routes() {
+        return ImmutableList.of(new RouteBuilder().route(HttpMethod.GET).on(path).to(this, "metrics"));
+    }
+
+    /**
+     * Writes the metrics.
+     *
+     * @return the metrics in the Prometheus text format, {@literal 401} if the token is missing or wrong.
+     */
+    public Result metrics() {
+        if (token != null && !isAuthorized(token, context().header(HeaderNames.AUTHORIZATION))) {
+            return unauthorized();
+        }
+        StringBuilder builder = new StringBuilder(lastSize + lastSize / 4);
+        PrometheusWriter.write(registry, builder);
+        lastSize = builder.length();
+        return ok().render(builder).as(PrometheusWriter.CONTENT_TYPE).with(Charsets.UTF_8);
+    }
+
+    private static boolean isAuthorized(String token, String authorization) {
+        if (authorization == null) {
+            return false;
+        }
+        // Constant time comparison.
+        return MessageDigest.isEqual(("Bearer " + token).getBytes(Charsets.UTF_8),
+                authorization.getBytes(Charsets.UTF_8));
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.prometheus;
+
+import com.codahale.metrics.*;
+import org.wisdom.monitor.extensions.dashboard.LatencyReservoir;
+import org.wisdom.monitor.extensions.dashboard.LatencyTimer;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the content of a {@link MetricRegistry} using the Prometheus text exposition format (version 0.0.4).
+ * <p>
+ * Metric names are sanitized, i.e. every character not allowed by Prometheus is replaced by {@code _}. Gauges
+ * holding a number or a boolean are written as gauges, counters and meters as counters (suffixed by
+ * {@code _total}), histograms as summaries, and timers as summaries in seconds. {@link LatencyTimer}s are written
+ * as histograms of all the values recorded since their creation, so they can be aggregated by the Prometheus
+ * server. The per-route timers ({@code http.routes.*}) are written as a single {@code http_route_duration_seconds}
+ * family, with {@code method} and {@code route} labels.
+ * <p>
+ * Several metrics may lead to the same family name once sanitized (such as {@code a.b} and {@code a_b}, or a
+ * counter {@code x} and a meter {@code x}). As Prometheus rejects a family declared twice, only the first one is
+ * written, the others are skipped.
+ */
+public final class PrometheusWriter {
+
+    /**
+     * The content type of the Prometheus text format.
+     */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+
+    /**
+     * The prefix of the per-route timers.
+     */
+    private static final String ROUTES = "http.routes.";
+
+    private static final String ROUTES_FAMILY = "http_route_duration_seconds";
+
+    /**
+     * The upper bounds (in seconds) of the buckets of the histograms.
+     */
+    private static final double[] BUCKETS = {
+            0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0
+    };
+
+    private static final long[] BUCKETS_IN_NANOS = new long[BUCKETS.length];
+
+    static {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            BUCKETS_IN_NANOS[i] = (long) (BUCKETS[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private static final double[] QUANTILES = {0.5, 0.75, 0.95, 0.98, 0.99, 0.999};
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final StringBuilder out;
+
+    /**
+     * The names already used, i.e. the written families and the samples they generate.
+     */
+    private final Set<String> names = new HashSet<>();
+
+    private PrometheusWriter(StringBuilder out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes all the metrics of the given registry.
+     *
+     * @param registry the registry
+     * @param out      the builder receiving the text
+     */
+    public static void write(MetricRegistry registry, StringBuilder out) {
+        PrometheusWriter writer = new PrometheusWriter(out);
+        for (Map.Entry<String, Gauge> entry : registry.getGauges().entrySet()) {
+            writer.writeGauge(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Counter> entry : registry.getCounters().entrySet()) {
+            writer.writeCounter(sanitize(entry.getKey()) + "_total", entry.getValue().getCount());
+        }
+        for (Map.Entry<String, Meter> entry : registry.getMeters().entrySet()) {
+            writer.writeCounter(sanitize(entry.getKey()) + "_total", entry.getValue().getCount());
+        }
+        for (Map.Entry<String, Histogram> entry : registry.getHistograms().entrySet()) {
+            Histogram histogram = entry.getValue();
+            writer.writeSummary(sanitize(entry.getKey()), null, histogram.getSnapshot(), histogram.getCount(), 1.0);
+        }
+        boolean routesTyped = false;
+        boolean routesWritten = false;
+        for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+            String name = entry.getKey();
+            Timer timer = entry.getValue();
+            if (name.startsWith(ROUTES) && timer instanceof LatencyTimer) {
+                if (!routesTyped) {
+                    routesWritten = writer.type(ROUTES_FAMILY, "histogram");
+                    routesTyped = true;
+                }
+                if (routesWritten) {
+                    writer.writeHistogram(ROUTES_FAMILY, routeLabels(name.substring(ROUTES.length())),
+                            ((LatencyTimer) timer).getCumulativeSnapshot());
+                }
+            } else if (timer instanceof LatencyTimer) {
+                String family = sanitize(name) + "_seconds";
+                if (writer.type(family, "histogram")) {
+                    writer.writeHistogram(family, null, ((LatencyTimer) timer).getCumulativeSnapshot());
+                }
+            } else {
+                writer.writeSummary(sanitize(name) + "_seconds", null, timer.getSnapshot(), timer.getCount(),
+                        NANOS_PER_SECOND);
+            }
+        }
+    }
+
+    /**
+     * Sanitizes a metric name: the characters not allowed by Prometheus are replaced by {@code _}.
+     *
+     * @param name the name
+     * @return the sanitized name
+     */
+    static String sanitize(String name) {
+        StringBuilder builder = new StringBuilder(name.length() + 1);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':'
+                    || (c >= '0' && c <= '9' && i > 0)) {
+                builder.append(c);
+            } else if (c >= '0' && c <= '9') {
+                builder.append('_').append(c);
+            } else {
+                builder.append('_');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Computes the labels of a route timer, from the route key ({@code METHOD URI}, {@code others} or
+     * {@code unbound}).
+     */
+    private static String routeLabels(String key) {
+        int index = key.indexOf(' ');
+        StringBuilder labels = new StringBuilder();
+        labels.append("method=\"");
+        if (index != -1) {
+            escape(labels, key.substring(0, index));
+        }
+        labels.append("\",route=\"");
+        escape(labels, index == -1 ? key : key.substring(index + 1));
+        return labels.append('"').toString();
+    }
+
+    private static void escape(StringBuilder builder, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\') {
+                builder.append("\\\\");
+            } else if (c == '"') {
+                builder.append("\\\"");
+            } else if (c == '\n') {
+                builder.append("\\n");
+            } else {
+                builder.append(c);
+            }
+        }
+    }
+
+    /**
+     * Declares a family, unless its name, or the name of one of its samples, is already used.
+     *
+     * @param name the family name
+     * @param type the family type
+     * @return {@code true} if the family has been declared and its samples can be written, {@code false} if the
+     * family must be skipped
+     */
+    private boolean type(String name, String type) {
+        String[] samples;
+        if ("summary".equals(type)) {
+            samples = new String[]{name, name + "_sum", name + "_count"};
+        } else if ("histogram".equals(type)) {
+            samples = new String[]{name, name + "_bucket", name + "_sum", name + "_count"};
+        } else {
+            samples = new String[]{name};
+        }
+        for (String sample : samples) {
+            if (names.contains(sample)) {
+                return false;
+            }
+        }
+        for (String sample : samples) {
+            names.add(sample);
+        }
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return true;
+    }
+
+    private void writeGauge(String name, Gauge gauge) {
+        Object value;
+        try {
+            value = gauge.getValue();
+        } catch (RuntimeException e) { //NOSONAR
+            // A failing gauge must not prevent the other metrics from being scraped.
+            return;
+        }
+        double number;
+        if (value instanceof Number) {
+            number = ((Number) value).doubleValue();
+        } else if (value instanceof Boolean) {
+            number = (Boolean) value ? 1.0 : 0.0;
+        } else {
+            // Not a numeric value.
+            return;
+        }
+        String sanitized = sanitize(name);
+        if (!type(sanitized, "gauge")) {
+            return;
+        }
+        sample(sanitized, null, null, number);
+    }
+
+    private void writeCounter(String name, long count) {
+        if (!type(name, "counter")) {
+            return;
+        }
+        out.append(name).append(' ').append(count).append('\n');
+    }
+
+    private void writeSummary(String name, String labels, Snapshot snapshot, long count, double unit) {
+        if (!type(name, "summary")) {
+            return;
+        }
+        for (double quantile : QUANTILES) {
+            sample(name, labels, "quantile=\"" + quantile + "\"", snapshot.getValue(quantile) / unit);
+        }
+        if (snapshot instanceof LatencyReservoir.LatencySnapshot) {
+            sample(name + "_sum", labels, null, ((LatencyReservoir.LatencySnapshot) snapshot).sum() / unit);
+        }
+        out.append(name).append("_count");
+        labels(labels, null);
+        out.append(' ').append(count).append('\n');
+    }
+
+    private void writeHistogram(String name, String labels, LatencyReservoir.LatencySnapshot snapshot) {
+        long[] counts = snapshot.countsAtOrBelow(BUCKETS_IN_NANOS);
+        for (int i = 0; i < BUCKETS.length; i++) {
+            out.append(name).append("_bucket");
+            labels(labels, "le=\"" + BUCKETS[i] + "\"");
+            out.append(' ').append(counts[i]).append('\n');
+        }
+        out.append(name).append("_bucket");
+        labels(labels, "le=\"+Inf\"");
+        out.append(' ').append(snapshot.count()).append('\n');
+        sample(name + "_sum", labels, null, snapshot.sum() / NANOS_PER_SECOND);
+        out.append(name).append("_count");
+        labels(labels, null);
+        out.append(' ').append(snapshot.count()).append('\n');
+    }
+
+    private void sample(String name, String labels, String extra, double value) {
+        out.append(name);
+        labels(labels, extra);
+        out.append(' ');
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private void labels(String labels, String extra) {
+        if (labels == null && extra == null) {
+            return;
+        }
+        out.append('{');
+        if (labels != null) {
+            out.append(labels);
+            if (extra != null) {
+                out.append(',');
+            }
+        }
+        if (extra != null) {
+            out.append(extra);
+        }
+        out.append('}');
+    }
+}
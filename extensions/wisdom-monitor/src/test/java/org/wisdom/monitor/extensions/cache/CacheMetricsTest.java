@@ -0,0 +1,58 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.cache;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+import org.wisdom.api.cache.CacheStatistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CacheMetricsTest {
+
+    @Test
+    public void testBindAndUnbind() {
+        CacheStatistics statistics = mock(CacheStatistics.class);
+        when(statistics.name()).thenReturn("wisdom");
+        when(statistics.getHitCount()).thenReturn(3L);
+        when(statistics.getMissCount()).thenReturn(1L);
+        when(statistics.getSize()).thenReturn(10L);
+
+        CacheMetrics cacheMetrics = new CacheMetrics();
+        cacheMetrics.metrics = new MetricRegistry();
+
+        cacheMetrics.bindCache(statistics);
+        assertThat(cacheMetrics.metrics.getGauges()).hasSize(7)
+                .containsKey("cache.wisdom.hits")
+                .containsKey("cache.wisdom.hit_ratio")
+                .containsKey("cache.wisdom.disk_bytes");
+        assertThat(cacheMetrics.metrics.getGauges().get("cache.wisdom.hits").getValue()).isEqualTo(3L);
+        assertThat((Double) cacheMetrics.metrics.getGauges().get("cache.wisdom.hit_ratio").getValue())
+                .isEqualTo(0.75);
+
+        // Rebinding does not fail.
+        cacheMetrics.bindCache(statistics);
+
+        cacheMetrics.unbindCache(statistics);
+        assertThat(cacheMetrics.metrics.getGauges()).isEmpty();
+    }
+}
@@ -20,14 +20,17 @@
 package org.wisdom.monitor.extensions.dashboard;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.osgi.framework.BundleContext;
+import org.wisdom.api.Controller;
 import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.monitor.extensions.prometheus.PrometheusController;
 
+import java.util.Dictionary;
 import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class DashboardExtensionTest {
 
@@ -72,6 +75,31 @@ public class DashboardExtensionTest {
         extension.stop();
     }
 
+    @Test
+    public void testPrometheusEndpointRegisteredOnlyWhenEnabled() throws Exception {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        BundleContext context = mock(BundleContext.class);
+
+        DashboardExtension extension = new DashboardExtension();
+        extension.configuration = configuration;
+        extension.bc = context;
+        extension.scheduler = Executors.newSingleThreadScheduledExecutor();
+        extension.start();
+        verify(context, never()).registerService(eq(Controller.class), any(Controller.class), any(Dictionary.class));
+        extension.stop();
+
+        when(configuration.getBooleanWithDefault("monitor.prometheus.enabled", false)).thenReturn(true);
+        when(configuration.getWithDefault("monitor.prometheus.path", PrometheusController.DEFAULT_PATH))
+                .thenReturn(PrometheusController.DEFAULT_PATH);
+        extension.start();
+        ArgumentCaptor<Controller> captor = ArgumentCaptor.forClass(Controller.class);
+        verify(context).registerService(eq(Controller.class), captor.capture(), any(Dictionary.class));
+        assertThat(captor.getValue()).isInstanceOf(PrometheusController.class);
+        assertThat(captor.getValue().routes()).hasSize(1);
+        assertThat(captor.getValue().routes().get(0).getUrl()).isEqualTo("/monitor/metrics");
+        extension.stop();
+    }
+
     @Test
     public void testLabel() throws Exception {
         DashboardExtension extension = new DashboardExtension();
@@ -0,0 +1,114 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.dashboard;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.osgi.framework.BundleContext;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Results;
+import org.wisdom.api.interception.RequestContext;
+import org.wisdom.api.router.Route;
+import org.wisdom.test.parents.FakeContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class HttpMetricFilterTest {
+
+    private MetricRegistry registry;
+    private HttpMetricFilter filter;
+
+    @Before
+    public void setUp() {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        Answer<Object> defaultValue = new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return invocation.getArguments()[1];
+            }
+        };
+        when(configuration.getWithDefault(anyString(), anyString())).thenAnswer(defaultValue);
+        when(configuration.getIntegerWithDefault(anyString(), anyInt())).thenAnswer(defaultValue);
+        when(configuration.getIntegerWithDefault("monitor.http.routes.max", 200)).thenReturn(2);
+        registry = new MetricRegistry();
+        filter = new HttpMetricFilter(mock(BundleContext.class), configuration, registry);
+    }
+
+    private static Route route(HttpMethod method, String uri) {
+        Route route = mock(Route.class);
+        when(route.getHttpMethod()).thenReturn(method);
+        when(route.getUrl()).thenReturn(uri);
+        return route;
+    }
+
+    private FakeContext call(Route route) throws Exception {
+        FakeContext context = new FakeContext();
+        RequestContext rc = mock(RequestContext.class);
+        when(rc.context()).thenReturn(context);
+        when(rc.proceed()).thenReturn(Results.ok());
+        filter.call(route, rc);
+        return context;
+    }
+
+    @Test
+    public void testTimersAreStoppedOnCompletion() throws Exception {
+        FakeContext context = call(route(HttpMethod.GET, "/users/{id}"));
+        Timer timer = registry.getTimers().get("http.routes.GET /users/{id}");
+        assertThat(timer).isNotNull();
+        assertThat(timer.getCount()).isEqualTo(0);
+        assertThat(registry.counter("http.activeRequests").getCount()).isEqualTo(1);
+        assertThat(registry.meter("http.responseCodes.ok").getCount()).isEqualTo(1);
+
+        context.complete();
+        assertThat(timer.getCount()).isEqualTo(1);
+        assertThat(registry.getTimers().get("http.requests").getCount()).isEqualTo(1);
+        assertThat(registry.counter("http.activeRequests").getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testRouteCardinalityIsBounded() throws Exception {
+        call(route(HttpMethod.GET, "/a")).complete();
+        call(route(HttpMethod.POST, "/a")).complete();
+        call(route(HttpMethod.GET, "/b")).complete();
+        call(route(HttpMethod.GET, "/a")).complete();
+
+        Route unbound = route(HttpMethod.GET, "/missing");
+        when(unbound.isUnbound()).thenReturn(true);
+        call(unbound).complete();
+
+        assertThat(registry.getTimers().get("http.routes.GET /a").getCount()).isEqualTo(2);
+        assertThat(registry.getTimers().get("http.routes.POST /a").getCount()).isEqualTo(1);
+        assertThat(registry.getTimers()).doesNotContainKey("http.routes.GET /b");
+        assertThat(registry.getTimers().get("http.routes.others").getCount()).isEqualTo(1);
+        assertThat(registry.getTimers().get("http.routes.unbound").getCount()).isEqualTo(1);
+        assertThat(registry.getTimers().get("http.requests").getCount()).isEqualTo(5);
+
+        filter.stop();
+        assertThat(registry.getTimers()).doesNotContainKey("http.routes.GET /a");
+    }
+}
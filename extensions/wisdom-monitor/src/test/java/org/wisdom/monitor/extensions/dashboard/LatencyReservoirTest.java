@@ -0,0 +1,141 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.dashboard;
+
+import com.codahale.metrics.Clock;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyReservoirTest {
+
+    @Test
+    public void testBuckets() {
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyReservoir.index(value);
+            assertThat(LatencyReservoir.lowerBound(index)).isLessThanOrEqualTo(value);
+            assertThat(LatencyReservoir.upperBound(index)).isGreaterThanOrEqualTo(value);
+        }
+        assertThat(LatencyReservoir.index(LatencyReservoir.MAX_VALUE)).isEqualTo(LatencyReservoir.BUCKETS - 1);
+        assertThat(LatencyReservoir.upperBound(LatencyReservoir.BUCKETS - 1)).isEqualTo(LatencyReservoir.MAX_VALUE);
+        // Relative error bounded by the bucket width.
+        int index = LatencyReservoir.index(TimeUnit.MILLISECONDS.toNanos(150));
+        double width = LatencyReservoir.upperBound(index) - LatencyReservoir.lowerBound(index);
+        assertThat(width / TimeUnit.MILLISECONDS.toNanos(150)).isLessThan(0.07);
+    }
+
+    @Test
+    public void testEmptySnapshot() {
+        LatencyReservoir reservoir = new LatencyReservoir();
+        LatencyReservoir.LatencySnapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.size()).isEqualTo(0);
+        assertThat(snapshot.getMin()).isEqualTo(0);
+        assertThat(snapshot.getMax()).isEqualTo(0);
+        assertThat(snapshot.getMedian()).isEqualTo(0.0);
+        assertThat(snapshot.getValues()).isEmpty();
+    }
+
+    @Test
+    public void testQuantiles() {
+        LatencyReservoir reservoir = new LatencyReservoir();
+        for (int i = 1; i <= 1000; i++) {
+            reservoir.update(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        LatencyReservoir.LatencySnapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.size()).isEqualTo(1000);
+        assertThat(snapshot.count()).isEqualTo(1000);
+        assertThat(snapshot.getMin()).isEqualTo(1000);
+        assertThat(snapshot.getMax()).isEqualTo(1000000);
+        assertThat(snapshot.getMean()).isEqualTo(500500.0);
+        assertThat(snapshot.getMedian()).isCloseTo(500000.0, within(500000.0 * 0.07));
+        assertThat(snapshot.get99thPercentile()).isCloseTo(990000.0, within(990000.0 * 0.07));
+        assertThat(snapshot.getValue(1.0)).isEqualTo(1000000.0);
+        assertThat(snapshot.getStdDev()).isCloseTo(288819.0, within(288819.0 * 0.07));
+        assertThat(snapshot.getValues()).hasSize(1000).isSorted();
+    }
+
+    @Test
+    public void testOutOfRangeValues() {
+        LatencyReservoir reservoir = new LatencyReservoir();
+        reservoir.update(-5);
+        reservoir.update(Long.MAX_VALUE);
+        LatencyReservoir.LatencySnapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.getMin()).isEqualTo(0);
+        assertThat(snapshot.getMax()).isEqualTo(LatencyReservoir.MAX_VALUE);
+    }
+
+    @Test
+    public void testRecordingFromSeveralThreads() throws InterruptedException {
+        final LatencyReservoir reservoir = new LatencyReservoir();
+        final CountDownLatch done = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        reservoir.update(i);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(reservoir.size()).isEqualTo(40000);
+        assertThat(reservoir.getSnapshot().getMax()).isEqualTo(9999);
+    }
+
+    @Test
+    public void testRecentWindow() {
+        final AtomicLong tick = new AtomicLong();
+        Clock clock = new Clock() {
+            @Override
+            public long getTick() {
+                return tick.get();
+            }
+        };
+        LatencyReservoir reservoir = new LatencyReservoir(1, TimeUnit.MINUTES, clock);
+        reservoir.update(TimeUnit.SECONDS.toNanos(10));
+        assertThat(reservoir.getSnapshot().count()).isEqualTo(1);
+
+        // The snapshot covers the previous and the current intervals.
+        tick.set(TimeUnit.SECONDS.toNanos(61));
+        reservoir.update(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(reservoir.getSnapshot().count()).isEqualTo(2);
+
+        // The values recorded before the previous rotation are out of the window.
+        tick.set(TimeUnit.SECONDS.toNanos(122));
+        reservoir.update(TimeUnit.MILLISECONDS.toNanos(30));
+        LatencyReservoir.LatencySnapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.count()).isEqualTo(1);
+        assertThat((double) snapshot.getMax()).isCloseTo(30000000.0, within(30000000.0 * 0.07));
+        assertThat((double) snapshot.getMin()).isCloseTo(30000000.0, within(30000000.0 * 0.07));
+
+        // The cumulative snapshot keeps everything.
+        LatencyReservoir.LatencySnapshot cumulative = reservoir.getCumulativeSnapshot();
+        assertThat(cumulative.count()).isEqualTo(3);
+        assertThat(cumulative.getMax()).isEqualTo(TimeUnit.SECONDS.toNanos(10));
+        assertThat(cumulative.getMin()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+}
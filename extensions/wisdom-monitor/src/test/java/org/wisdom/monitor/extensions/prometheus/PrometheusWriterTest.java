@@ -0,0 +1,134 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.prometheus;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.junit.Test;
+import org.wisdom.monitor.extensions.dashboard.LatencyTimer;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrometheusWriterTest {
+
+    private static String write(MetricRegistry registry) {
+        StringBuilder builder = new StringBuilder();
+        PrometheusWriter.write(registry, builder);
+        return builder.toString();
+    }
+
+    @Test
+    public void testSanitize() {
+        assertThat(PrometheusWriter.sanitize("jvm.memory.heap.used")).isEqualTo("jvm_memory_heap_used");
+        assertThat(PrometheusWriter.sanitize("cache.my-cache.hit_ratio")).isEqualTo("cache_my_cache_hit_ratio");
+        assertThat(PrometheusWriter.sanitize("1st")).isEqualTo("_1st");
+    }
+
+    @Test
+    public void testGaugesCountersAndMeters() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.register("jvm.cpu.processors", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return 4;
+            }
+        });
+        registry.register("jvm.name", new Gauge<String>() {
+            @Override
+            public String getValue() {
+                return "not a number";
+            }
+        });
+        registry.counter("http.activeRequests").inc(3);
+        registry.meter("http.responseCodes.ok").mark(5);
+
+        String text = write(registry);
+        assertThat(text).contains("# TYPE jvm_cpu_processors gauge\njvm_cpu_processors 4.0\n");
+        assertThat(text).doesNotContain("jvm_name");
+        assertThat(text).contains("# TYPE http_activeRequests_total counter\nhttp_activeRequests_total 3\n");
+        assertThat(text).contains("# TYPE http_responseCodes_ok_total counter\nhttp_responseCodes_ok_total 5\n");
+    }
+
+    @Test
+    public void testFamiliesAreWrittenOnce() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.counter("a.b").inc(1);
+        registry.counter("a_b").inc(2);
+        registry.meter("x").mark(3);
+        registry.register("x_total", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return 4;
+            }
+        });
+        registry.register("task_seconds_count", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return 5;
+            }
+        });
+        registry.timer("task").update(2, TimeUnit.SECONDS);
+
+        String text = write(registry);
+        assertThat(text.split("# TYPE a_b_total ", -1)).hasSize(2);
+        assertThat(text.split("\na_b_total ", -1)).hasSize(2);
+        assertThat(text.split("# TYPE x_total ", -1)).hasSize(2);
+        assertThat(text.split("\nx_total ", -1)).hasSize(2);
+        // The gauge has the name of a sample of the summary, the summary is skipped.
+        assertThat(text).contains("# TYPE task_seconds_count gauge\ntask_seconds_count 5.0\n");
+        assertThat(text).doesNotContain("task_seconds summary");
+    }
+
+    @Test
+    public void testTimers() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.timer("task").update(2, TimeUnit.SECONDS);
+        Timer requests = registry.register("http.requests", new LatencyTimer());
+        requests.update(20, TimeUnit.MILLISECONDS);
+        requests.update(3, TimeUnit.SECONDS);
+        registry.register("http.routes.GET /users/{id}", new LatencyTimer())
+                .update(20, TimeUnit.MILLISECONDS);
+        registry.register("http.routes.others", new LatencyTimer());
+
+        String text = write(registry);
+        assertThat(text).contains("# TYPE task_seconds summary\n");
+        assertThat(text).contains("task_seconds{quantile=\"0.5\"} 2.0\n");
+        assertThat(text).contains("task_seconds_count 1\n");
+
+        assertThat(text).contains("# TYPE http_requests_seconds histogram\n");
+        assertThat(text).contains("http_requests_seconds_bucket{le=\"0.01\"} 0\n");
+        assertThat(text).contains("http_requests_seconds_bucket{le=\"0.025\"} 1\n");
+        assertThat(text).contains("http_requests_seconds_bucket{le=\"2.5\"} 1\n");
+        assertThat(text).contains("http_requests_seconds_bucket{le=\"5.0\"} 2\n");
+        assertThat(text).contains("http_requests_seconds_bucket{le=\"+Inf\"} 2\n");
+        assertThat(text).contains("http_requests_seconds_sum 3.02\n");
+        assertThat(text).contains("http_requests_seconds_count 2\n");
+
+        // A single family for all routes.
+        assertThat(text.split("# TYPE http_route_duration_seconds histogram\n", -1)).hasSize(2);
+        assertThat(text).contains(
+                "http_route_duration_seconds_bucket{method=\"GET\",route=\"/users/{id}\",le=\"0.025\"} 1\n");
+        assertThat(text).contains("http_route_duration_seconds_count{method=\"GET\",route=\"/users/{id}\"} 1\n");
+        assertThat(text).contains("http_route_duration_seconds_count{method=\"\",route=\"others\"} 0\n");
+    }
+}
@@ -19,7 +19,9 @@
  */
 package org.wisdom.cache.ehcache;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
+import org.apache.commons.io.IOUtils;
 import org.apache.felix.ipojo.annotations.Component;
 import org.apache.felix.ipojo.annotations.Instantiate;
 import org.apache.felix.ipojo.annotations.Provides;
@@ -27,15 +29,38 @@ import org.apache.felix.ipojo.annotations.Requires;
 import org.joda.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wisdom.api.bodies.NoHttpBody;
 import org.wisdom.api.cache.Cache;
 import org.wisdom.api.cache.Cached;
+import org.wisdom.api.content.ContentEngine;
+import org.wisdom.api.content.ContentSerializer;
+import org.wisdom.api.http.AsyncResult;
 import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.Renderable;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.interception.Interceptor;
 import org.wisdom.api.interception.RequestContext;
 
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
 /**
  * An action interceptor caching the result of an action and returning the cached result if it was cached already.
+ * <p>
+ * Results are cached in their serialized form (status, headers and body bytes), under a key including the values of
+ * the request headers listed in {@link Cached#vary()}. Cache hits carry a strong {@literal ETag}, and conditional
+ * requests matching it are answered with {@literal 304 Not Modified}.
+ * <p>
+ * Concurrent cache misses on the same key are coalesced: only one request invokes the action while the others wait
+ * for its result. When {@link Cached#staleWhileRevalidate()} is set, the first request reading an expired result
+ * recomputes it, while the concurrent requests are served the expired result instead of waiting. The recomputation
+ * always runs within a live request, never on behalf of a request that has already been answered.
  */
 @Component
 @Provides(specifications = Interceptor.class)
@@ -45,6 +70,13 @@ public class CachedActionInterceptor extends Interceptor<Cached> {
     @Requires
     protected Cache cache;
 
+    @Requires(optional = true, nullable = false, proxy = false)
+    protected ContentEngine engine;
+
+    /**
+     * The computations currently running, indexed by cache key.
+     */
+    private final ConcurrentMap<String, FutureTask<CachedResponse>> inFlight = new ConcurrentHashMap<>();
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CachedActionInterceptor.class);
 
@@ -54,7 +86,8 @@ public class CachedActionInterceptor extends Interceptor<Cached> {
      * In this case, the interception chain is cut.
      * <p>
      * If the result is not yet cached, the interception chain continues, and the result is cached to be used during
-     * the next invocation.
+     * the next invocation. If another request is already computing the result for the same key, the current request
+     * waits for it instead of invoking the action a second time.
      *
      * @param configuration the interception configuration
      * @param context       the interception context
@@ -67,40 +100,191 @@ public class CachedActionInterceptor extends Interceptor<Cached> {
         boolean nocache =
                 HeaderNames.NOCACHE_VALUE.equalsIgnoreCase(context.context().header(HeaderNames.CACHE_CONTROL));
 
-        String key;
+        String key = key(configuration, context);
+
+        if (!nocache) {
+            Object cached = cache.get(key);
+            if (cached instanceof CachedResponse) {
+                CachedResponse response = (CachedResponse) cached;
+                if (response.isFresh()) {
+                    LOGGER.info("Returning cached result for {} (key:{})",
+                            context.request().uri(), key);
+                    return toResult(response, context);
+                }
+                // Expired, but still in the stale window.
+                return compute(configuration, context, key, response);
+            }
+        }
+
+        return compute(configuration, context, key, null);
+    }
+
+    /**
+     * Computes the cache key. It's either the configured key or the request URI, followed by the values of the
+     * request headers listed in {@link Cached#vary()}.
+     *
+     * @param configuration the interception configuration
+     * @param context       the interception context
+     * @return the key
+     */
+    private static String key(Cached configuration, RequestContext context) {
+        StringBuilder key = new StringBuilder();
         if (Strings.isNullOrEmpty(configuration.key())) {
-            key = context.request().uri();
+            key.append(context.request().uri());
         } else {
-            key = configuration.key();
+            key.append(configuration.key());
         }
+        for (String header : configuration.vary()) {
+            String value = context.context().header(header);
+            if (value != null) {
+                key.append('|').append(header).append('=').append(value);
+            }
+        }
+        return key.toString();
+    }
 
-        Result result = null;
-        if (!nocache) {
-            result = (Result) cache.get(key);
+    private static Result toResult(CachedResponse response, RequestContext context) {
+        return response.toResult(context.context().header(HeaderNames.IF_NONE_MATCH));
+    }
+
+    /**
+     * Computes the result of the action, unless another request is already computing it. In this case, returns the
+     * stale result if any, or waits for the in-flight computation and returns its result.
+     *
+     * @param configuration the interception configuration
+     * @param context       the interception context
+     * @param key           the cache key
+     * @param stale         the expired result still in the stale window, {@literal null} if none
+     * @return the result
+     * @throws Exception if the action has thrown an exception
+     */
+    private Result compute(Cached configuration, RequestContext context, String key, CachedResponse stale)
+            throws Exception {
+        Computation computation = new Computation(configuration, context, key);
+        FutureTask<CachedResponse> task = new FutureTask<>(computation);
+        FutureTask<CachedResponse> existing = inFlight.putIfAbsent(key, task);
+        if (existing != null) {
+            if (stale != null) {
+                LOGGER.info("Returning stale result for {} while it is recomputed (key:{})",
+                        context.request().uri(), key);
+                return toResult(stale, context);
+            }
+            LOGGER.debug("Waiting for the in-flight computation of {} (key:{})", context.request().uri(), key);
+            CachedResponse response = await(existing);
+            if (response != null) {
+                return toResult(response, context);
+            }
+            // The in-flight result cannot be shared, compute our own.
+            return context.proceed();
         }
+        try {
+            task.run();
+        } finally {
+            inFlight.remove(key, task);
+        }
+        CachedResponse response = await(task);
+        if (response != null) {
+            return toResult(response, context);
+        }
+        return computation.raw;
+    }
 
-        if (result == null) {
-            result = context.proceed();
-        } else {
-            LOGGER.info("Returning cached result for {} (key:{})",
-                    context.request().uri(), key);
-            return result;
+    /**
+     * Serializes the given result. Only complete (non-chunked, synchronous) successful results without cookies
+     * can be cached.
+     *
+     * @param configuration the interception configuration
+     * @param context       the interception context
+     * @param result        the result
+     * @return the serialized response, {@literal null} if the result cannot be cached
+     * @throws Exception if the result cannot be rendered
+     */
+    private CachedResponse serialize(Cached configuration, RequestContext context, Result result) throws Exception {
+        if (result == null || result instanceof AsyncResult
+                || result.getStatusCode() < Result.OK || result.getStatusCode() >= Result.MULTIPLE_CHOICES
+                || !result.getCookies().isEmpty()) {
+            return null;
+        }
+        Renderable<?> renderable = result.getRenderable();
+        if (renderable == null) {
+            renderable = NoHttpBody.INSTANCE;
+        }
+        if (renderable.mustBeChunked()) {
+            return null;
+        }
+        if (renderable.requireSerializer()) {
+            ContentSerializer serializer = null;
+            if (engine != null) {
+                if (result.getContentType() != null) {
+                    serializer = engine.getContentSerializerForContentType(result.getContentType());
+                }
+                if (serializer == null) {
+                    serializer = engine.getBestSerializer(context.request().mediaTypes());
+                    if (serializer != null) {
+                        result.with(HeaderNames.CONTENT_TYPE, serializer.getContentType());
+                    }
+                }
+            }
+            if (serializer == null) {
+                // Let the server handle it.
+                return null;
+            }
+            serializer.serialize(renderable);
         }
 
-        Duration duration;
-        if (configuration.duration() == 0) {
-            // Eternity == 1 year.
-            duration = Duration.standardDays(365);
-        } else {
-            duration = Duration.standardSeconds(configuration.duration());
+        byte[] body;
+        try (InputStream stream = renderable.render(context.context(), result)) {
+            body = IOUtils.toByteArray(stream);
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>(result.getHeaders());
+        String contentType = result.getFullContentType();
+        if (contentType == null) {
+            contentType = renderable.mimetype();
+        }
+        if (contentType != null) {
+            headers.put(HeaderNames.CONTENT_TYPE, contentType);
+        }
+        if (configuration.vary().length > 0) {
+            headers.put(HeaderNames.VARY, Joiner.on(", ").join(configuration.vary()));
         }
 
+        long freshUntil = Long.MAX_VALUE;
+        if (configuration.staleWhileRevalidate() > 0) {
+            freshUntil = System.currentTimeMillis() + duration(configuration).getMillis();
+        }
+        return new CachedResponse(result.getStatusCode(), headers, body, freshUntil);
+    }
 
-        cache.set(key, result, duration);
-        LoggerFactory.getLogger(this.getClass()).info("Caching result of {} for {} seconds (key:{})",
+    private void store(Cached configuration, RequestContext context, String key, CachedResponse response) {
+        Duration duration = duration(configuration);
+        if (configuration.staleWhileRevalidate() > 0) {
+            // Keep the entry in the cache during the stale window, the freshness is checked on read.
+            duration = duration.plus(Duration.standardSeconds(configuration.staleWhileRevalidate()));
+        }
+        cache.set(key, response, duration);
+        LOGGER.info("Caching result of {} for {} seconds (key:{})",
                 context.request().uri(), configuration.duration(), key);
+    }
+
+    private static Duration duration(Cached configuration) {
+        if (configuration.duration() == 0) {
+            // Eternity == 1 year.
+            return Duration.standardDays(365);
+        } else {
+            return Duration.standardSeconds(configuration.duration());
+        }
+    }
 
-        return result;
+    private static CachedResponse await(FutureTask<CachedResponse> task) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
     }
 
     /**
@@ -110,4 +294,33 @@ public class CachedActionInterceptor extends Interceptor<Cached> {
     public Class<Cached> annotation() {
         return Cached.class;
     }
+
+    /**
+     * Invokes the action, and caches its serialized result when possible. The raw result is kept for the request
+     * having triggered the computation, in case it cannot be cached.
+     */
+    private class Computation implements Callable<CachedResponse> {
+
+        private final Cached configuration;
+        private final RequestContext context;
+        private final String key;
+
+        private Result raw;
+
+        Computation(Cached configuration, RequestContext context, String key) {
+            this.configuration = configuration;
+            this.context = context;
+            this.key = key;
+        }
+
+        @Override
+        public CachedResponse call() throws Exception {
+            raw = context.proceed();
+            CachedResponse response = serialize(configuration, context, raw);
+            if (response != null) {
+                store(configuration, context, key, response);
+            }
+            return response;
+        }
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.cache.ehcache;
+
+import com.google.common.hash.Hashing;
+import org.wisdom.api.bodies.RenderableByteArray;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Status;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The fully serialized form of a cached result: status, headers and body bytes. Instances are immutable, so they can
+ * be shared by all the requests hitting the same cache entry. A new {@link Result} is built for each hit.
+ */
+class CachedResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+    private final LinkedHashMap<String, String> headers;
+    private final byte[] body;
+    private final String etag;
+    private final long freshUntil;
+
+    /**
+     * Creates a new cached response.
+     *
+     * @param status     the status code
+     * @param headers    the headers, including the full content type
+     * @param body       the serialized body, the array is not copied
+     * @param freshUntil the date (in ms) after which the response is considered as stale
+     */
+    CachedResponse(int status, Map<String, String> headers, byte[] body, long freshUntil) {
+        this.status = status;
+        this.headers = new LinkedHashMap<>(headers);
+        this.body = body;
+        this.etag = "\"" + Hashing.murmur3_128().hashBytes(body).toString() + "\"";
+        this.freshUntil = freshUntil;
+    }
+
+    /**
+     * @return the strong entity tag computed from the body.
+     */
+    String etag() {
+        return etag;
+    }
+
+    /**
+     * @return the serialized body.
+     */
+    byte[] body() {
+        return body;
+    }
+
+    /**
+     * @return whether or not the response is still fresh.
+     */
+    boolean isFresh() {
+        return System.currentTimeMillis() < freshUntil;
+    }
+
+    /**
+     * Checks whether the given {@literal If-None-Match} header value matches the entity tag of this response.
+     *
+     * @param ifNoneMatch the header value, may be {@literal null}
+     * @return {@literal true} if the client copy is up to date
+     */
+    boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            // If-None-Match uses the weak comparison.
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if ("*".equals(candidate) || etag.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the result sent to the client. If the client copy is up to date, a {@literal 304 Not Modified} result
+     * without body is returned.
+     *
+     * @param ifNoneMatch the {@literal If-None-Match} header value, may be {@literal null}
+     * @return a new result
+     */
+    Result toResult(String ifNoneMatch) {
+        Result result;
+        if (matches(ifNoneMatch)) {
+            result = new Result(Status.NOT_MODIFIED);
+            String vary = headers.get(HeaderNames.VARY);
+            if (vary != null) {
+                result.with(HeaderNames.VARY, vary);
+            }
+        } else {
+            result = new Result(status).render(new RenderableByteArray(body, false));
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                result.with(header.getKey(), header.getValue());
+            }
+        }
+        return result.with(HeaderNames.ETAG, etag);
+    }
+}
@@ -21,23 +21,31 @@ package org.wisdom.cache.ehcache;
 
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Element;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+import net.sf.ehcache.config.ConfigurationFactory;
+import net.sf.ehcache.config.DiskStoreConfiguration;
+import net.sf.ehcache.statistics.LiveCacheStatistics;
 import org.apache.felix.ipojo.annotations.*;
 import org.joda.time.Duration;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.wisdom.api.cache.Cache;
+import org.wisdom.api.cache.CacheStatistics;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 
 import java.io.File;
 import java.net.URL;
-import java.util.Hashtable;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 /**
  * An implementation of the cache service based on EhCache.
  */
 @Component(immediate = true)
 @Instantiate
-public class EhCacheService implements Cache {
+public class EhCacheService implements Cache, CacheStatistics {
 
     private static final String WISDOM_KEY = "wisdom";
 
@@ -53,6 +61,26 @@ public class EhCacheService implements Cache {
      */
     public static final String INTERNAL_CONFIGURATION = "org/wisdom/cache/ehcache/ehcache-default.xml";
 
+    /**
+     * The configuration key bounding the heap used by the cache (in bytes, such as {@literal 64M}). When set, it
+     * replaces the element count limit of the EhCache configuration.
+     */
+    public static final String MAX_BYTES_LOCAL_HEAP = "ehcache.max-bytes-local-heap";
+
+    /**
+     * The configuration key enabling the disk tier. Entries evicted from the heap overflow to the local disk,
+     * bounded by the given size (in bytes, such as {@literal 1G}).
+     */
+    public static final String MAX_BYTES_LOCAL_DISK = "ehcache.max-bytes-local-disk";
+
+    /**
+     * The configuration key setting the directory of the disk tier, relative to the Wisdom base directory. This
+     * directory is only used if the EhCache configuration does not set it.
+     */
+    public static final String DISK_STORE = "ehcache.disk-store";
+
+    private static final String DEFAULT_DISK_STORE = "cache";
+
     private net.sf.ehcache.Cache cache;
     private CacheManager manager;
 
@@ -61,7 +89,7 @@ public class EhCacheService implements Cache {
 
     @Context
     BundleContext context;
-    ServiceRegistration<Cache> registration;
+    ServiceRegistration<?> registration;
 
 
     /**
@@ -78,21 +106,31 @@ public class EhCacheService implements Cache {
         final ClassLoader original = Thread.currentThread().getContextClassLoader();
         try {
             Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
+            Configuration ehcacheConfiguration;
             if (config.isFile()) {
-                manager = CacheManager.create(config.getAbsolutePath());
+                ehcacheConfiguration = ConfigurationFactory.parseConfiguration(config);
             } else {
                 URL url = EhCacheService.class.getClassLoader().getResource(INTERNAL_CONFIGURATION);
                 if (url != null) {
-                    manager = CacheManager.create(url);
+                    ehcacheConfiguration = ConfigurationFactory.parseConfiguration(url);
                 } else {
                     throw new ExceptionInInitializerError("Cannot instantiate EhCache, " +
                             "cannot load " + INTERNAL_CONFIGURATION + " file");
                 }
             }
-            manager.addCache(WISDOM_KEY);
+            if (configuration.getBytes(MAX_BYTES_LOCAL_DISK) != null
+                    && ehcacheConfiguration.getDiskStoreConfiguration() == null) {
+                File store = new File(configuration.getBaseDir(),
+                        configuration.getWithDefault(DISK_STORE, DEFAULT_DISK_STORE));
+                ehcacheConfiguration.diskStore(new DiskStoreConfiguration().path(store.getAbsolutePath()));
+            }
+            manager = CacheManager.create(ehcacheConfiguration);
+            manager.addCache(new net.sf.ehcache.Cache(createCacheConfiguration()));
             cache = manager.getCache(WISDOM_KEY);
 
-            registration = context.registerService(Cache.class, this, new Hashtable<String, Object>());
+            registration = context.registerService(
+                    new String[]{Cache.class.getName(), CacheStatistics.class.getName()},
+                    this, new Hashtable<String, Object>());
         } finally {
             Thread.currentThread().setContextClassLoader(original);
         }
@@ -100,6 +138,33 @@ public class EhCacheService implements Cache {
 
     }
 
+    /**
+     * Creates the configuration of the Wisdom cache. It's based on the default cache configuration, bounded by the
+     * sizes (in bytes) set in the application configuration if any.
+     *
+     * @return the cache configuration
+     */
+    private CacheConfiguration createCacheConfiguration() {
+        CacheConfiguration cacheConfiguration = manager.getConfiguration().getDefaultCacheConfiguration().clone();
+        cacheConfiguration.setName(WISDOM_KEY);
+        cacheConfiguration.setStatistics(true);
+
+        Long heap = configuration.getBytes(MAX_BYTES_LOCAL_HEAP);
+        if (heap != null) {
+            // Element count and size limits cannot be used together.
+            cacheConfiguration.setMaxEntriesLocalHeap(0);
+            cacheConfiguration.setMaxBytesLocalHeap(heap);
+        }
+
+        Long disk = configuration.getBytes(MAX_BYTES_LOCAL_DISK);
+        if (disk != null) {
+            // Values evicted from the heap overflow to the disk tier. They must be serializable.
+            cacheConfiguration.setOverflowToDisk(true);
+            cacheConfiguration.setMaxEntriesLocalDisk(0);
+            cacheConfiguration.setMaxBytesLocalDisk(disk);
+        }
+        return cacheConfiguration;
+    }
 
     /**
      * Cleans up everything.
@@ -141,11 +206,24 @@ public class EhCacheService implements Cache {
      */
     @Override
     public void set(String key, Object value, Duration expiration) {
-        Element element = new Element(key, value);
-        if (expiration == null) {
-            element.setEternal(true);
-        } else {
-            element.setTimeToLive((int) expiration.getStandardSeconds());
+        cache.put(element(key, value, expiration));
+    }
+
+    /**
+     * Adds an entry in the cache with a time-to-live and a time-to-idle.
+     *
+     * @param key        Item key.
+     * @param value      Item value.
+     * @param expiration Expiration time, {@literal null} means eternity.
+     * @param idle       Maximum time between two accesses, {@literal null} means no idle expiration.
+     * @param <T>        the type of the value.
+     */
+    @Override
+    public <T> void set(String key, T value, Duration expiration, Duration idle) {
+        Element element = element(key, value, expiration);
+        if (idle != null) {
+            element.setEternal(false);
+            element.setTimeToIdle((int) idle.getStandardSeconds());
         }
         cache.put(element);
     }
@@ -175,4 +253,186 @@ public class EhCacheService implements Cache {
     public boolean remove(String key) {
         return cache.remove(key);
     }
+
+    /**
+     * Gets a set of entries from the cache.
+     *
+     * @param keys the keys
+     * @param <T>  the expected type of values.
+     * @return the stored objects indexed by key, missing and expired entries are not contained in the map.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAll(Collection<String> keys) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<Object, Element> entry : cache.getAll(keys).entrySet()) {
+            if (entry.getValue() != null) {
+                values.put((String) entry.getKey(), entry.getValue().getObjectValue());
+            }
+        }
+        return (Map<String, T>) values;
+    }
+
+    /**
+     * Adds a set of entries in the cache.
+     *
+     * @param entries    the entries
+     * @param expiration Expiration time.
+     */
+    @Override
+    public void setAll(Map<String, ?> entries, Duration expiration) {
+        List<Element> elements = new ArrayList<>(entries.size());
+        for (Map.Entry<String, ?> entry : entries.entrySet()) {
+            elements.add(element(entry.getKey(), entry.getValue(), expiration));
+        }
+        cache.putAll(elements);
+    }
+
+    /**
+     * Adds an entry in the cache if not already present.
+     *
+     * @param key        Item key.
+     * @param value      Item value.
+     * @param expiration Expiration time.
+     * @param <T>        the type of the value.
+     * @return the already stored object, {@literal null} if the given value was stored.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T putIfAbsent(String key, T value, Duration expiration) {
+        Element previous = cache.putIfAbsent(element(key, value, expiration));
+        if (previous != null) {
+            return (T) previous.getObjectValue();
+        }
+        return null;
+    }
+
+    /**
+     * Replaces an entry in the cache if its current value is equal to the expected one.
+     *
+     * @param key        Item key.
+     * @param expected   the expected value, {@literal null} to only set the value if absent.
+     * @param value      the new value.
+     * @param expiration Expiration time.
+     * @param <T>        the type of the value.
+     * @return {@literal true} if the value was replaced, {@literal false} otherwise.
+     */
+    @Override
+    public <T> boolean compareAndSet(String key, T expected, T value, Duration expiration) {
+        Element element = element(key, value, expiration);
+        if (expected == null) {
+            return cache.putIfAbsent(element) == null;
+        }
+        return cache.replace(new Element(key, expected), element);
+    }
+
+    /**
+     * Gets an entry from the cache, or computes and stores it if missing. The computation holds the write lock of
+     * the key, so concurrent callers wait for it instead of invoking the loader again.
+     *
+     * @param key        Item key.
+     * @param loader     the loader.
+     * @param expiration Expiration time of the computed value.
+     * @return the stored or computed object.
+     * @throws ExecutionException if the loader has thrown an exception
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T computeIfAbsent(String key, Callable<? extends T> loader, Duration expiration)
+            throws ExecutionException {
+        Element element = cache.get(key);
+        if (element != null) {
+            return (T) element.getObjectValue();
+        }
+        cache.acquireWriteLockOnKey(key);
+        try {
+            // Check again, another thread may have computed it while we were waiting for the lock.
+            element = cache.get(key);
+            if (element != null) {
+                return (T) element.getObjectValue();
+            }
+            T value = loader.call();
+            if (value == null) {
+                throw new ExecutionException(new NullPointerException("The loader of " + key + " returned null"));
+            }
+            cache.put(element(key, value, expiration));
+            return value;
+        } catch (ExecutionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExecutionException(e);
+        } finally {
+            cache.releaseWriteLockOnKey(key);
+        }
+    }
+
+    /**
+     * @return the name of the cache.
+     */
+    @Override
+    public String name() {
+        return WISDOM_KEY;
+    }
+
+    /**
+     * @return the number of cache hits.
+     */
+    @Override
+    public long getHitCount() {
+        return statistics().getCacheHitCount();
+    }
+
+    /**
+     * @return the number of cache misses, including expired entries.
+     */
+    @Override
+    public long getMissCount() {
+        return statistics().getCacheMissCount();
+    }
+
+    /**
+     * @return the number of evicted entries.
+     */
+    @Override
+    public long getEvictionCount() {
+        return statistics().getEvictedCount();
+    }
+
+    /**
+     * @return the number of entries.
+     */
+    @Override
+    public long getSize() {
+        return statistics().getSize();
+    }
+
+    /**
+     * @return the heap used by the entries, as computed by EhCache.
+     */
+    @Override
+    public long getHeapSizeInBytes() {
+        return statistics().getLocalHeapSizeInBytes();
+    }
+
+    /**
+     * @return the disk used by the entries, as computed by EhCache.
+     */
+    @Override
+    public long getDiskSizeInBytes() {
+        return statistics().getLocalDiskSizeInBytes();
+    }
+
+    private LiveCacheStatistics statistics() {
+        return cache.getLiveCacheStatistics();
+    }
+
+    private static Element element(String key, Object value, Duration expiration) {
+        Element element = new Element(key, value);
+        if (expiration == null) {
+            element.setEternal(true);
+        } else {
+            element.setTimeToLive((int) expiration.getStandardSeconds());
+        }
+        return element;
+    }
 }
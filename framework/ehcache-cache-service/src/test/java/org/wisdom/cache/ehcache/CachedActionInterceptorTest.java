@@ -22,16 +22,23 @@ package org.wisdom.cache.ehcache;
 import org.joda.time.Duration;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.wisdom.api.cache.Cache;
 import org.wisdom.api.cache.Cached;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.http.*;
 import org.wisdom.api.interception.RequestContext;
 
-import java.util.TreeMap;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -47,105 +54,258 @@ public class CachedActionInterceptorTest {
     public void testCaching() throws Exception {
         CachedActionInterceptor interceptor = new CachedActionInterceptor();
         interceptor.cache = mock(Cache.class);
-        Cached cached = mock(Cached.class);
-        when(cached.duration()).thenReturn(10);
-        when(cached.key()).thenReturn("key");
+        Cached cached = cached("key", 10);
 
-        RequestContext context = mock(RequestContext.class);
-        when(context.request()).thenReturn(mock(Request.class));
-        Context ctx = mock(Context.class);
-        when(context.context()).thenReturn(ctx);
-        when(context.context().header(anyString())).thenReturn(null);
+        RequestContext context = context(mock(Request.class));
         final Result r = Results.ok("Result");
         when(context.proceed()).thenReturn(r);
 
         Result result = interceptor.call(cached, context);
-        assertThat(result.getRenderable().<String>content()).isEqualTo("Result");
-        assertThat(result).isEqualTo(r);
-        // Check that the result was put in cache.
+        assertThat(body(result)).isEqualTo("Result");
+        assertThat(result.getHeaders().get(HeaderNames.ETAG)).isNotNull();
+        // Check that the serialized result was put in cache.
         verify(interceptor.cache, times(1)).get("key");
-        verify(interceptor.cache, times(1)).set("key", r, Duration.standardSeconds(10));
+        ArgumentCaptor<CachedResponse> captor = ArgumentCaptor.forClass(CachedResponse.class);
+        verify(interceptor.cache, times(1)).set(eq("key"), captor.capture(), eq(Duration.standardSeconds(10)));
+        assertThat(new String(captor.getValue().body(), StandardCharsets.UTF_8)).isEqualTo("Result");
 
-        when(interceptor.cache.get("key")).thenReturn(r);
+        when(interceptor.cache.get("key")).thenReturn(captor.getValue());
         result = interceptor.call(cached, context);
-        assertThat(result).isEqualTo(r);
+        assertThat(body(result)).isEqualTo("Result");
+        assertThat(result.getHeaders().get(HeaderNames.ETAG)).isEqualTo(captor.getValue().etag());
 
         verify(interceptor.cache, times(2)).get("key");
+        verify(context, times(1)).proceed();
     }
 
     @Test
     public void testCachingWithoutKey() throws Exception {
         CachedActionInterceptor interceptor = new CachedActionInterceptor();
         interceptor.cache = mock(Cache.class);
-        Cached cached = mock(Cached.class);
-        when(cached.duration()).thenReturn(10);
-        when(cached.key()).thenReturn("");
+        Cached cached = cached("", 10);
 
-        RequestContext context = mock(RequestContext.class);
         final Request request = mock(Request.class);
         when(request.uri()).thenReturn("/my/url?withquery");
-        when(context.request()).thenReturn(request);
-        Context ctx = mock(Context.class);
-        when(context.context()).thenReturn(ctx);
-        when(context.context().header(anyString())).thenReturn(null);
+        RequestContext context = context(request);
         final Result r = Results.ok("Result");
         when(context.proceed()).thenReturn(r);
 
         Result result = interceptor.call(cached, context);
-        assertThat(result.getRenderable().<String>content()).isEqualTo("Result");
-        assertThat(result).isEqualTo(r);
+        assertThat(body(result)).isEqualTo("Result");
         // Check that the result was put in cache.
         verify(interceptor.cache, times(1)).get("/my/url?withquery");
-        verify(interceptor.cache, times(1)).set("/my/url?withquery", r, Duration.standardSeconds(10));
-
-        when(interceptor.cache.get("key")).thenReturn(r);
-        result = interceptor.call(cached, context);
-        assertThat(result).isEqualTo(r);
-
-        verify(interceptor.cache, times(2)).get("/my/url?withquery");
+        verify(interceptor.cache, times(1)).set(eq("/my/url?withquery"), any(CachedResponse.class),
+                eq(Duration.standardSeconds(10)));
     }
 
     @Test
     public void testCachingNoCache() throws Exception {
         CachedActionInterceptor interceptor = new CachedActionInterceptor();
         interceptor.cache = new DummyCache();
-        Cached cached = mock(Cached.class);
-        when(cached.duration()).thenReturn(10);
-        when(cached.key()).thenReturn("key");
+        Cached cached = cached("key", 10);
 
-        RequestContext context = mock(RequestContext.class);
-        when(context.request()).thenReturn(mock(Request.class));
-        Context ctx = mock(Context.class);
-        when(context.context()).thenReturn(ctx);
-        when(context.context().header(anyString())).thenReturn(null);
-        final Result r = Results.ok("Result");
-        when(context.proceed()).thenReturn(r);
+        RequestContext context = context(mock(Request.class));
+        when(context.proceed()).thenReturn(Results.ok("Result"));
 
         Result result = interceptor.call(cached, context);
+        assertThat(body(result)).isEqualTo("Result");
 
-        assertThat(result.getRenderable().<String>content()).isEqualTo("Result");
-        assertThat(result).isEqualTo(r);
-
-        final Result r2 = Results.ok("Result2");
-        when(context.proceed()).thenReturn(r2);
+        when(context.proceed()).thenReturn(Results.ok("Result2"));
 
         result = interceptor.call(cached, context);
-        // r is cached return r even is r2 is the new result.
-        assertThat(result).isEqualTo(r);
+        // Result is cached return it even is Result2 is the new result.
+        assertThat(body(result)).isEqualTo("Result");
 
         // The object is cached, let's use NO CACHE
         when(context.context().header(HeaderNames.CACHE_CONTROL)).thenReturn(HeaderNames.NOCACHE_VALUE);
 
         result = interceptor.call(cached, context);
-        assertThat(result).isNotEqualTo(r).isEqualTo(r2);
+        assertThat(body(result)).isEqualTo("Result2");
 
-        final Result r3 = Results.ok("Result3");
-        when(context.proceed()).thenReturn(r3);
+        when(context.proceed()).thenReturn(Results.ok("Result3"));
 
         // Remove the cache-control
         when(context.context().header(HeaderNames.CACHE_CONTROL)).thenReturn(null);
         result = interceptor.call(cached, context);
-        assertThat(result).isEqualTo(r2).isNotEqualTo(r3);
+        assertThat(body(result)).isEqualTo("Result2");
+    }
+
+    @Test
+    public void testVaryHeaders() throws Exception {
+        CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+        Cached cached = cached("key", 10);
+
+        RequestContext context = context(mock(Request.class));
+        when(context.context().header(HeaderNames.ACCEPT)).thenReturn(MimeTypes.JSON);
+        when(context.proceed()).thenReturn(Results.ok("{\"a\":1}").as(MimeTypes.JSON));
+
+        Result result = interceptor.call(cached, context);
+        assertThat(body(result)).isEqualTo("{\"a\":1}");
+        assertThat(result.getHeaders().get(HeaderNames.VARY)).isEqualTo(HeaderNames.ACCEPT);
+        assertThat(result.getFullContentType()).startsWith(MimeTypes.JSON);
+
+        // Another representation.
+        when(context.context().header(HeaderNames.ACCEPT)).thenReturn(MimeTypes.HTML);
+        when(context.proceed()).thenReturn(Results.ok("<p>1</p>").as(MimeTypes.HTML));
+        result = interceptor.call(cached, context);
+        assertThat(body(result)).isEqualTo("<p>1</p>");
+        assertThat(((DummyCache) interceptor.cache))
+                .containsKey("key|" + HeaderNames.ACCEPT + "=" + MimeTypes.JSON)
+                .containsKey("key|" + HeaderNames.ACCEPT + "=" + MimeTypes.HTML);
+
+        // Back to the first one, served from the cache.
+        when(context.context().header(HeaderNames.ACCEPT)).thenReturn(MimeTypes.JSON);
+        result = interceptor.call(cached, context);
+        assertThat(body(result)).isEqualTo("{\"a\":1}");
+        verify(context, times(2)).proceed();
+    }
+
+    @Test
+    public void testConditionalRequest() throws Exception {
+        CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+        Cached cached = cached("key", 10);
+
+        RequestContext context = context(mock(Request.class));
+        when(context.proceed()).thenReturn(Results.ok("Result"));
+
+        Result result = interceptor.call(cached, context);
+        String etag = result.getHeaders().get(HeaderNames.ETAG);
+        assertThat(etag).startsWith("\"").endsWith("\"");
+
+        when(context.context().header(HeaderNames.IF_NONE_MATCH)).thenReturn(etag);
+        result = interceptor.call(cached, context);
+        assertThat(result.getStatusCode()).isEqualTo(Status.NOT_MODIFIED);
+        assertThat(result.getRenderable()).isNull();
+        assertThat(result.getHeaders().get(HeaderNames.ETAG)).isEqualTo(etag);
+
+        when(context.context().header(HeaderNames.IF_NONE_MATCH)).thenReturn("\"something-else\"");
+        result = interceptor.call(cached, context);
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(body(result)).isEqualTo("Result");
+
+        verify(context, times(1)).proceed();
+    }
+
+    @Test
+    public void testErrorsAreNotCached() throws Exception {
+        CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+        Cached cached = cached("key", 10);
+
+        RequestContext context = context(mock(Request.class));
+        final Result error = Results.internalServerError("Failure");
+        when(context.proceed()).thenReturn(error);
+
+        assertThat(interceptor.call(cached, context)).isSameAs(error);
+        assertThat(((DummyCache) interceptor.cache)).isEmpty();
+    }
+
+    @Test
+    public void testConcurrentMissesAreCoalesced() throws Exception {
+        final int client = 10;
+        final CountDownLatch lookups = new CountDownLatch(client);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger invocations = new AtomicInteger();
+
+        final CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache() {
+            @Override
+            public Object get(String key) {
+                lookups.countDown();
+                return null;
+            }
+
+            @Override
+            public synchronized void set(String key, Object value, Duration expiration) {
+                super.set(key, value, expiration);
+            }
+        };
+        final Cached cached = cached("key", 10);
+
+        final RequestContext context = context(mock(Request.class));
+        when(context.proceed()).thenAnswer(new Answer<Result>() {
+            @Override
+            public Result answer(InvocationOnMock invocation) throws Throwable {
+                invocations.incrementAndGet();
+                release.await(10, TimeUnit.SECONDS);
+                return Results.ok("Result");
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(client);
+        List<Future<Result>> results = new ArrayList<>();
+        for (int i = 0; i < client; i++) {
+            results.add(executor.submit(new Callable<Result>() {
+                @Override
+                public Result call() throws Exception {
+                    return interceptor.call(cached, context);
+                }
+            }));
+        }
+
+        // Wait until all the clients have missed the cache.
+        assertThat(lookups.await(10, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<Result> result : results) {
+            assertThat(body(result.get(10, TimeUnit.SECONDS))).isEqualTo("Result");
+        }
+        assertThat(invocations.get()).isEqualTo(1);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        final CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+
+        final Cached cached = cached("key", 10);
+        when(cached.staleWhileRevalidate()).thenReturn(60);
+
+        // An expired entry still in the stale window.
+        interceptor.cache.set("key", new CachedResponse(Status.OK,
+                Collections.<String, String>emptyMap(), "Result".getBytes(StandardCharsets.UTF_8),
+                System.currentTimeMillis() - 1000), 0);
+
+        // The first request recomputes the result, the action is blocked until released.
+        final CountDownLatch invoked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RequestContext first = context(mock(Request.class));
+        when(first.proceed()).thenAnswer(new Answer<Result>() {
+            @Override
+            public Result answer(InvocationOnMock invocation) throws Throwable {
+                invoked.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return Results.ok("Result2");
+            }
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Result> recomputed = executor.submit(new Callable<Result>() {
+            @Override
+            public Result call() throws Exception {
+                return interceptor.call(cached, first);
+            }
+        });
+        assertThat(invoked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // A concurrent request is served the stale result, without invoking the action.
+        RequestContext second = context(mock(Request.class));
+        assertThat(body(interceptor.call(cached, second))).isEqualTo("Result");
+
+        release.countDown();
+        assertThat(body(recomputed.get(10, TimeUnit.SECONDS))).isEqualTo("Result2");
+
+        // The recomputation ran against the live request only.
+        verify(first, times(1)).proceed();
+        verify(second, never()).proceed();
+
+        // The recomputed result is fresh.
+        assertThat(body(interceptor.call(cached, second))).isEqualTo("Result2");
+        verify(second, never()).proceed();
+        executor.shutdownNow();
     }
 
     @Test
@@ -158,9 +318,7 @@ public class CachedActionInterceptorTest {
 
         final CachedActionInterceptor interceptor = new CachedActionInterceptor();
         interceptor.cache = svc;
-        final Cached cached = mock(Cached.class);
-        when(cached.duration()).thenReturn(10);
-        when(cached.key()).thenReturn("key");
+        final Cached cached = cached("key", 10);
 
         CountDownLatch startSignal = new CountDownLatch(1);
         final int client = 100;
@@ -173,16 +331,11 @@ public class CachedActionInterceptorTest {
                 @Override
                 public void run() {
                     try {
-                        RequestContext context = mock(RequestContext.class);
-                        when(context.request()).thenReturn(mock(Request.class));
-                        Context ctx = mock(Context.class);
-                        when(context.context()).thenReturn(ctx);
-                        when(context.context().header(anyString())).thenReturn(null);
-                        final Result r = Results.ok("Result");
-                        when(context.proceed()).thenReturn(r);
+                        RequestContext context = context(mock(Request.class));
+                        when(context.proceed()).thenReturn(Results.ok("Result"));
                         Result result = interceptor.call(cached, context);
 
-                        if (! result.getRenderable().content().equals("Result")) {
+                        if (!body(result).equals("Result")) {
                             counter.getAndIncrement();
                         }
                     } catch (Exception e) {
@@ -203,6 +356,27 @@ public class CachedActionInterceptorTest {
         svc.stop();
     }
 
+    private static Cached cached(String key, int duration) {
+        Cached cached = mock(Cached.class);
+        when(cached.duration()).thenReturn(duration);
+        when(cached.key()).thenReturn(key);
+        when(cached.vary()).thenReturn(new String[]{HeaderNames.ACCEPT});
+        return cached;
+    }
+
+    private static RequestContext context(Request request) {
+        RequestContext context = mock(RequestContext.class);
+        when(context.request()).thenReturn(request);
+        Context ctx = mock(Context.class);
+        when(context.context()).thenReturn(ctx);
+        when(ctx.header(anyString())).thenReturn(null);
+        return context;
+    }
+
+    private static String body(Result result) {
+        return new String((byte[]) result.getRenderable().content(), StandardCharsets.UTF_8);
+    }
+
     private class DummyCache extends TreeMap<String, Object> implements Cache {
         @Override
         public void set(String key, Object value, int expiration) {
@@ -223,5 +397,55 @@ public class CachedActionInterceptorTest {
         public boolean remove(String key) {
             return super.remove(key) != null;
         }
+
+        @Override
+        public <T> void set(String key, T value, Duration expiration, Duration idle) {
+            put(key, value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Map<String, T> getAll(Collection<String> keys) {
+            Map<String, T> values = new HashMap<>();
+            for (String key : keys) {
+                if (containsKey(key)) {
+                    values.put(key, (T) get(key));
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public void setAll(Map<String, ?> entries, Duration expiration) {
+            putAll(entries);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T putIfAbsent(String key, T value, Duration expiration) {
+            return (T) super.putIfAbsent(key, value);
+        }
+
+        @Override
+        public <T> boolean compareAndSet(String key, T expected, T value, Duration expiration) {
+            if (expected == null) {
+                return super.putIfAbsent(key, value) == null;
+            }
+            return super.replace(key, expected, value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T computeIfAbsent(String key, Callable<? extends T> loader, Duration expiration)
+                throws ExecutionException {
+            if (!containsKey(key)) {
+                try {
+                    put(key, loader.call());
+                } catch (Exception e) {
+                    throw new ExecutionException(e);
+                }
+            }
+            return (T) get(key);
+        }
     }
 }
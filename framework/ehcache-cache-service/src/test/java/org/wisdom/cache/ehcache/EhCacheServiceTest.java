@@ -26,13 +26,19 @@ import org.osgi.framework.BundleContext;
 import org.wisdom.api.cache.Cache;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -133,6 +139,99 @@ public class EhCacheServiceTest {
         impl.stop();
     }
 
+    @Test
+    public void testBulkAndAtomicOperations() throws Exception {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getBooleanWithDefault("ehcache.enabled", true)).thenReturn(true);
+        EhCacheService impl = new EhCacheService();
+        impl.configuration = configuration;
+        impl.context = mock(BundleContext.class);
+        impl.start();
+
+        Cache svc = impl;
+
+        Map<String, Object> entries = new HashMap<>();
+        entries.put("a", 1);
+        entries.put("b", 2);
+        svc.setAll(entries, Duration.standardSeconds(10));
+        Map<String, Integer> values = svc.getAll(Arrays.asList("a", "b", "c"));
+        assertThat(values).hasSize(2).containsEntry("a", 1).containsEntry("b", 2);
+
+        assertThat(svc.<Integer>putIfAbsent("a", 10, null)).isEqualTo(1);
+        assertThat(svc.<Integer>putIfAbsent("c", 3, null)).isNull();
+        assertThat(svc.<Integer>get("c")).isEqualTo(3);
+
+        assertThat(svc.compareAndSet("c", 4, 5, null)).isFalse();
+        assertThat(svc.compareAndSet("c", 3, 5, null)).isTrue();
+        assertThat(svc.<Integer>get("c")).isEqualTo(5);
+        assertThat(svc.compareAndSet("d", null, 1, null)).isTrue();
+        assertThat(svc.compareAndSet("d", null, 2, null)).isFalse();
+
+        final AtomicInteger calls = new AtomicInteger();
+        Callable<Integer> loader = new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return calls.incrementAndGet();
+            }
+        };
+        assertThat(svc.computeIfAbsent("e", loader, Duration.standardSeconds(10))).isEqualTo(1);
+        assertThat(svc.computeIfAbsent("e", loader, Duration.standardSeconds(10))).isEqualTo(1);
+        assertThat(calls.get()).isEqualTo(1);
+
+        try {
+            svc.computeIfAbsent("f", new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    throw new IllegalStateException("bad");
+                }
+            }, null);
+            fail("Exception expected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(svc.<Object>get("f")).isNull();
+
+        svc.set("key", "value", null, Duration.standardSeconds(1));
+        assertThat(svc.<String>get("key")).isEqualTo("value");
+        // Not accessed during the idle time.
+        Thread.sleep(2500);
+        assertThat(svc.<String>get("key")).isNull();
+
+        impl.stop();
+    }
+
+    @Test
+    public void testSizeBoundedCacheAndStatistics() {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getBooleanWithDefault("ehcache.enabled", true)).thenReturn(true);
+        when(configuration.getBytes(EhCacheService.MAX_BYTES_LOCAL_HEAP)).thenReturn(1024L * 1024L);
+        EhCacheService svc = new EhCacheService();
+        svc.configuration = configuration;
+        svc.context = mock(BundleContext.class);
+        svc.start();
+
+        assertThat(svc.name()).isEqualTo("wisdom");
+        assertThat(svc.getSize()).isEqualTo(0);
+
+        svc.set("key", "value", 0);
+        assertThat(svc.get("key")).isEqualTo("value");
+        assertThat(svc.get("missing")).isNull();
+
+        assertThat(svc.getSize()).isEqualTo(1);
+        assertThat(svc.getHitCount()).isGreaterThanOrEqualTo(1);
+        assertThat(svc.getMissCount()).isGreaterThanOrEqualTo(1);
+
+        // Fill the cache with more than 1 MB, entries must be evicted.
+        for (int i = 0; i < 100; i++) {
+            svc.set("large-" + i, new byte[64 * 1024], 0);
+        }
+        assertThat(svc.getHeapSizeInBytes()).isLessThanOrEqualTo(1024L * 1024L);
+        assertThat(svc.getEvictionCount()).isGreaterThan(0);
+        assertThat(svc.getDiskSizeInBytes()).isEqualTo(0);
+
+        svc.stop();
+    }
+
     private static class User {
         String name;
 
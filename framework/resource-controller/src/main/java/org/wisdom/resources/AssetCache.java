@@ -0,0 +1,270 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.resources;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.asset.Asset;
+import org.wisdom.api.asset.DefaultAsset;
+import org.wisdom.api.bodies.RenderableFile;
+import org.wisdom.api.bodies.RenderableURL;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.crypto.Crypto;
+import org.wisdom.api.http.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the metadata of the served assets (content, length, last modification date, ETag and mime type), so
+ * serving an asset, and especially answering a conditional request, does not require resolving the asset,
+ * reading the configuration and computing the ETag each time.
+ * <p>
+ * Entries are re-validated when they are older than the check interval: the asset is resolved again and its
+ * metadata is recomputed only if its location, last modification date or length have changed. The ETag is a
+ * strong validator computed from the asset content. When the content cannot be read, it falls back to the hash of
+ * the last modification date. Both are quoted, as required for the ETag header.
+ */
+class AssetCache {
+
+    /**
+     * The configuration key setting the delay between two checks of the same asset.
+     */
+    public static final String HTTP_ASSET_CHECK_INTERVAL = "http.asset_check_interval";
+
+    /**
+     * The default check interval (in milliseconds) when not running in dev mode. In dev mode, assets are checked
+     * on every request.
+     */
+    public static final long HTTP_ASSET_CHECK_INTERVAL_DEFAULT = 10000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssetCache.class);
+
+    /**
+     * Resolves an asset from its path.
+     */
+    interface Resolver {
+
+        /**
+         * @param path the path
+         * @return the asset, {@code null} if not found.
+         */
+        Asset<?> resolve(String path);
+    }
+
+    private final ConcurrentMap<String, Metadata<?>> entries = new ConcurrentHashMap<>();
+
+    private final Crypto crypto;
+
+    private final boolean useEtag;
+
+    private final String cacheControl;
+
+    private final long interval;
+
+    /**
+     * Creates a new asset cache. The configuration is read once.
+     *
+     * @param configuration the application configuration
+     * @param crypto        the crypto service, used when the asset content cannot be read
+     */
+    AssetCache(ApplicationConfiguration configuration, Crypto crypto) {
+        this.crypto = crypto;
+        this.useEtag = configuration.getBooleanWithDefault(CacheUtils.HTTP_USE_ETAG,
+                CacheUtils.HTTP_USE_ETAG_DEFAULT);
+        String maxAge = configuration.getWithDefault(CacheUtils.HTTP_CACHE_CONTROL_MAX_AGE,
+                CacheUtils.HTTP_CACHE_CONTROL_DEFAULT);
+        if ("0".equals(maxAge)) {
+            this.cacheControl = HeaderNames.NOCACHE_VALUE;
+        } else {
+            this.cacheControl = "max-age=" + maxAge;
+        }
+        Long delay = configuration.getDuration(HTTP_ASSET_CHECK_INTERVAL, TimeUnit.MILLISECONDS,
+                configuration.isDev() ? 0 : HTTP_ASSET_CHECK_INTERVAL_DEFAULT);
+        this.interval = delay == null ? 0 : delay;
+    }
+
+    /**
+     * Gets the asset at the given path. If the cached metadata are older than the check interval, the asset is
+     * resolved again.
+     *
+     * @param path     the path
+     * @param resolver the resolver used on a miss or when the entry needs to be checked
+     * @return the asset with its metadata, {@code null} if the asset cannot be found.
+     */
+    Metadata<?> get(String path, Resolver resolver) {
+        long now = System.currentTimeMillis();
+        Metadata<?> cached = entries.get(path);
+        if (cached != null && now - cached.checkedAt < interval) {
+            return cached;
+        }
+
+        Asset<?> asset = resolver.resolve(path);
+        if (asset == null) {
+            if (cached != null) {
+                entries.remove(path, cached);
+            }
+            return null;
+        }
+
+        if (cached != null && cached.isUnchanged(asset)) {
+            cached.checkedAt = now;
+            return cached;
+        }
+
+        Metadata<?> metadata = create(asset, now);
+        entries.put(path, metadata);
+        return metadata;
+    }
+
+    /**
+     * Removes all entries, for instance because the set of asset sources has changed.
+     */
+    void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the number of cached entries.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Computes the result serving the given asset. It returns a {@literal NOT MODIFIED} result if the request is a
+     * conditional request and the asset has not changed.
+     *
+     * @param context  the HTTP context
+     * @param metadata the asset
+     * @return the result
+     */
+    Result toResult(Context context, Metadata<?> metadata) {
+        if (CacheUtils.isNotModified(context, metadata.getLastModified(), metadata.getEtag())) {
+            return new Result(Status.NOT_MODIFIED);
+        }
+        Result result;
+        Object content = metadata.getContent();
+        if (content instanceof File) {
+            result = new Result(Status.OK).render(new RenderableFile((File) content))
+                    .with(HeaderNames.CONTENT_LENGTH, Long.toString(metadata.length));
+        } else if (content instanceof URL) {
+            result = new Result(Status.OK).render(new RenderableURL((URL) content));
+        } else {
+            // Use object, probably won't work.
+            result = Results.ok(content);
+        }
+        if (metadata.mimeType != null) {
+            result.as(metadata.mimeType);
+        }
+        CacheUtils.addLastModified(result, metadata.getLastModified());
+        result.with(HeaderNames.CACHE_CONTROL, cacheControl);
+        if (metadata.getEtag() != null) {
+            result.with(HeaderNames.ETAG, metadata.getEtag());
+        }
+        return result;
+    }
+
+    private <T> Metadata<T> create(Asset<T> asset, long now) {
+        T content = asset.getContent();
+        long lastModified = asset.getLastModified();
+        long length = -1;
+        String mime = null;
+        if (content instanceof File) {
+            File file = (File) content;
+            lastModified = file.lastModified();
+            length = file.length();
+            mime = MimeTypes.getMimeTypeForFile(file);
+        } else if (content instanceof URL) {
+            mime = MimeTypes.getMimeTypeForFile((URL) content);
+        }
+        String etag = useEtag ? etag(content, lastModified) : null;
+        return new Metadata<>(asset.getPath(), content, asset.getSource(), lastModified, etag, length, mime, now);
+    }
+
+    private String etag(Object content, long lastModified) {
+        try {
+            if (content instanceof File) {
+                return "\"" + Files.asByteSource((File) content).hash(Hashing.sha1()) + "\"";
+            } else if (content instanceof URL) {
+                return "\"" + Resources.asByteSource((URL) content).hash(Hashing.sha1()) + "\"";
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Cannot read the content of {} to compute its ETag, using its last modification date",
+                    content, e);
+        }
+        return "\"" + crypto.hexSHA1(Long.toString(lastModified)) + "\"";
+    }
+
+    /**
+     * An asset enhanced with the metadata required to serve it.
+     *
+     * @param <T> the type of content
+     */
+    static class Metadata<T> extends DefaultAsset<T> {
+
+        private final long length;
+
+        private final String mimeType;
+
+        private volatile long checkedAt;
+
+        Metadata(String path, T content, String source, long lastModified, String etag, long length,
+                 String mimeType, long checkedAt) {
+            super(path, content, source, lastModified, etag);
+            this.length = length;
+            this.mimeType = mimeType;
+            this.checkedAt = checkedAt;
+        }
+
+        /**
+         * @return the content length, {@literal -1} if unknown.
+         */
+        long length() {
+            return length;
+        }
+
+        /**
+         * @return the mime type, {@code null} if unknown.
+         */
+        String mimeType() {
+            return mimeType;
+        }
+
+        private boolean isUnchanged(Asset<?> asset) {
+            Object content = asset.getContent();
+            if (!String.valueOf(content).equals(String.valueOf(getContent()))) {
+                return false;
+            }
+            if (content instanceof File) {
+                File file = (File) content;
+                return file.lastModified() == getLastModified() && file.length() == length;
+            }
+            return asset.getLastModified() == getLastModified();
+        }
+    }
+}
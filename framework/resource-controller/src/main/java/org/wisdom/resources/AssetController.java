@@ -63,6 +63,25 @@ public class AssetController extends DefaultController implements AssetProvider
     private final String pathInBundles;
     private final String root;
 
+    /**
+     * The metadata of the served assets.
+     */
+    private final AssetCache cache;
+
+    /**
+     * Resolves the served assets, from the file system first and then from the bundles if enabled.
+     */
+    private final AssetCache.Resolver resolver = new AssetCache.Resolver() {
+        @Override
+        public Asset<?> resolve(String path) {
+            Asset<?> asset = getAssetFromFS(path);
+            if (asset == null && manageAssetsFromBundles) {
+                asset = getAssetFromBundle(path);
+            }
+            return asset;
+        }
+    };
+
     @Requires
     ApplicationConfiguration configuration;
     @Requires
@@ -100,6 +119,7 @@ public class AssetController extends DefaultController implements AssetProvider
         this.manageAssetsFromBundles = manageAssetsFromBundles;
         this.pathInBundles = computePathInBundle(pathInBundles);
         this.root = computeRoot(url);
+        this.cache = new AssetCache(configuration, crypto);
     }
 
     /**
@@ -122,6 +142,7 @@ public class AssetController extends DefaultController implements AssetProvider
         this.manageAssetsFromBundles = manageAssetsFromBundles;
         this.pathInBundles = computePathInBundle(pathInBundles);
         this.root = computeRoot(url);
+        this.cache = new AssetCache(configuration, crypto); //NOSONAR - injected services.
 
         if (manageAssetsFromBundles) {
             LOGGER.info("Serving assets from bundles ({}) on {}",
@@ -173,13 +194,9 @@ public class AssetController extends DefaultController implements AssetProvider
             path = path.substring(1);
         }
 
-        Asset<?> asset = getAssetFromFS(path);
-        if (asset == null && manageAssetsFromBundles) {
-            asset = getAssetFromBundle(path);
-        }
-
+        AssetCache.Metadata<?> asset = cache.get(path, resolver);
         if (asset != null) {
-            return CacheUtils.fromAsset(context(), asset, configuration);
+            return cache.toResult(context(), asset);
         }
         return notFound();
     }
@@ -191,8 +208,7 @@ public class AssetController extends DefaultController implements AssetProvider
             URL url = bundles[i].getResource(pathInBundles + path);
             if (url != null) {
                 return new DefaultAsset<>(root + "/" + path, url, bundles[i].getSymbolicName(),
-                        bundles[i].getLastModified(),
-                        CacheUtils.computeEtag(bundles[i].getLastModified(), configuration, crypto));
+                        bundles[i].getLastModified(), null);
             }
         }
         return null; // Asset not found, just returning null.
@@ -206,8 +222,7 @@ public class AssetController extends DefaultController implements AssetProvider
         if (!file.exists()) {
             return null;
         }
-        return new DefaultAsset<>(root + "/" + path, file, file.getAbsolutePath(), file.lastModified(),
-                CacheUtils.computeEtag(file.lastModified(), configuration, crypto));
+        return new DefaultAsset<>(root + "/" + path, file, file.getAbsolutePath(), file.lastModified(), null);
     }
 
     /**
@@ -281,10 +296,6 @@ public class AssetController extends DefaultController implements AssetProvider
      */
     @Override
     public Asset<?> assetAt(String path) {
-        Asset<?> asset = getAssetFromFS(path);
-        if (asset == null) {
-            asset = getAssetFromBundle(path);
-        }
-        return asset;
+        return cache.get(path, resolver);
     }
 }
@@ -168,7 +168,22 @@ public class CacheUtils {
 
     public static Result fromBundle(Bundle bundle, URL url, Context context, ApplicationConfiguration configuration,
                                     Crypto crypto) {
-        long lastModified = bundle.getLastModified();
+        return fromURL(url, bundle.getLastModified(), context, configuration, crypto);
+    }
+
+    /**
+     * Computes the result to sent the given url. Cache headers are automatically set by this method.
+     *
+     * @param url           the url of the resource to send to the client
+     * @param lastModified  the last modification date of the resource
+     * @param context       the context
+     * @param configuration the application configuration
+     * @param crypto        the crypto service
+     * @return the result, it can be a NOT_MODIFIED if the resource was not modified since the last request,
+     * or an OK result with the cache headers set.
+     */
+    public static Result fromURL(URL url, long lastModified, Context context, ApplicationConfiguration configuration,
+                                 Crypto crypto) {
         String etag = CacheUtils.computeEtag(lastModified, configuration, crypto);
         if (CacheUtils.isNotModified(context, lastModified, etag)) {
             return new Result(Status.NOT_MODIFIED);
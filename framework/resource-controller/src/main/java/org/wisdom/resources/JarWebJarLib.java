@@ -0,0 +1,176 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.resources;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.crypto.Crypto;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Results;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+/**
+ * Represents and serves a web jar library directly from its jar file, without un-packaging it. The jar file is
+ * opened once and shared by all the libraries it contains. Only the entry names are indexed, the resources are
+ * read on demand.
+ */
+class JarWebJarLib extends WebJarLib {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JarWebJarLib.class);
+
+    /**
+     * The jar file containing the library.
+     */
+    public final File file;
+
+    /**
+     * The source, i.e. the name of the jar file.
+     */
+    public final String source;
+
+    private final JarFile jar;
+
+    private final String prefix;
+
+    private final Map<String, ZipEntry> index = new TreeMap<>();
+
+    /**
+     * Opens connections on the entries of {@link #jar}, so the content is read from the shared jar file.
+     */
+    private final URLStreamHandler handler = new URLStreamHandler() {
+        @Override
+        protected URLConnection openConnection(URL url) throws IOException {
+            String file = url.getFile();
+            final ZipEntry entry = jar.getEntry(file.substring(file.indexOf("!/") + 2));
+            if (entry == null) {
+                throw new FileNotFoundException(url.toExternalForm());
+            }
+            return new URLConnection(url) {
+                @Override
+                public void connect() {
+                    connected = true;
+                }
+
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    return jar.getInputStream(entry);
+                }
+
+                @Override
+                public long getContentLengthLong() {
+                    return entry.getSize();
+                }
+
+                @Override
+                public long getLastModified() {
+                    return entry.getTime();
+                }
+            };
+        }
+    };
+
+    /**
+     * Creates the library.
+     *
+     * @param name    the name
+     * @param version the version
+     * @param jar     the opened jar file, it is not closed by this library
+     * @param file    the jar file
+     */
+    JarWebJarLib(String name, String version, JarFile jar, File file) {
+        super(name, version);
+        this.jar = jar;
+        this.file = file;
+        this.source = file.getName();
+        this.prefix = WebJarController.WEBJAR_LOCATION + name + "/" + version + "/";
+        index();
+    }
+
+    @Override
+    public Collection<String> names() {
+        return index.keySet();
+    }
+
+    @Override
+    public Result get(String path, Context context, ApplicationConfiguration configuration, Crypto crypto) {
+        URL url = (URL) get(path);
+        if (url == null) {
+            return Results.notFound();
+        }
+        return CacheUtils.fromURL(url, lastModified(), context, configuration, crypto);
+    }
+
+    /**
+     * Gets the url of the resource. The returned url reads the content from the shared jar file.
+     *
+     * @param path the resource's path
+     * @return the url, {@code null} if the library does not contain the resource.
+     */
+    @Override
+    public Object get(String path) {
+        ZipEntry entry = index.get(path);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return new URL("jar", null, -1, file.toURI() + "!/" + entry.getName(), handler);
+        } catch (MalformedURLException e) {
+            LOGGER.error("Cannot build the url of {} from {}", path, source, e);
+            return null;
+        }
+    }
+
+    @Override
+    public long lastModified() {
+        return file.lastModified();
+    }
+
+    private void index() {
+        LOGGER.debug("Indexing entries for WebJar library {}-{} from {}", name, version, source);
+        Enumeration<? extends ZipEntry> entries = jar.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory() && entry.getName().startsWith(prefix)) {
+                index.put(entry.getName().substring(prefix.length()), entry);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + '-' + source;
+    }
+}
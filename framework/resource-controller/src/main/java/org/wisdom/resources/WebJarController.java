@@ -78,6 +78,12 @@ public class WebJarController extends DefaultController implements BundleTracker
      */
     public static final Pattern WEBJAR_REGEX = Pattern.compile(".*META-INF/resources/webjars/([^/]+)/([^/]+)/.*");
 
+    /**
+     * The configuration key indicating whether or not the WebJars deployed from jar files are un-packaged. If set
+     * to {@literal false}, the resources are served directly from the jar files.
+     */
+    public static final String WEBJARS_EXPAND = "webjars.expand";
+
     /**
      * The RegEx pattern to identify the shape of the url.
      */
@@ -95,19 +101,46 @@ public class WebJarController extends DefaultController implements BundleTracker
 
     private final BundleTracker<List<BundleWebJarLib>> tracker;
 
+    /**
+     * The metadata of the served resources, cleared when the set of libraries changes.
+     */
+    private final AssetCache cache;
+
+    private final AssetCache.Resolver resolver = new AssetCache.Resolver() {
+        @Override
+        public Asset<?> resolve(String path) {
+            return WebJarController.this.resolve(path);
+        }
+    };
+
     Set<WebJarLib> libraries = new TreeSet<>(new Comparator<WebJarLib>() {
         @Override
         public int compare(WebJarLib o1, WebJarLib o2) {
-            if (o1 instanceof FileWebJarLib && o2 instanceof BundleWebJarLib) {
-                return -1;
+            // Exploded libraries first, then libraries served from jar files, and finally libraries from bundles.
+            int diff = rank(o1) - rank(o2);
+            if (diff != 0) {
+                return diff;
             }
-            if (o1 instanceof BundleWebJarLib && o2 instanceof FileWebJarLib) {
+            return o1.toString().compareTo(o2.toString());
+        }
+
+        private int rank(WebJarLib lib) {
+            if (lib instanceof FileWebJarLib) {
+                return 0;
+            }
+            if (lib instanceof JarWebJarLib) {
                 return 1;
             }
-            return o1.toString().compareTo(o2.toString());
+            return 2;
         }
     });
 
+    /**
+     * The index of the libraries, rebuilt and replaced each time {@link #libraries} is modified. It is read
+     * without lock when serving requests.
+     */
+    private volatile WebJarIndex index = WebJarIndex.EMPTY;
+
     @Requires
     Crypto crypto;
 
@@ -127,6 +160,7 @@ public class WebJarController extends DefaultController implements BundleTracker
         directory = new File(configuration.getBaseDir(), path);  //NOSONAR Injected field
         tracker = null;
         deployer = null;
+        cache = new AssetCache(configuration, crypto);
         start();
     }
 
@@ -140,7 +174,9 @@ public class WebJarController extends DefaultController implements BundleTracker
             name = "path") String path) {
         directory = new File(configuration.getBaseDir(), path); //NOSONAR Injected field
         tracker = new BundleTracker<>(context, Bundle.ACTIVE, this);
-        deployer = new WebJarDeployer(context, this);
+        deployer = new WebJarDeployer(context, this,
+                configuration.getBooleanWithDefault(WEBJARS_EXPAND, true)); //NOSONAR Injected field
+        cache = new AssetCache(configuration, crypto); //NOSONAR Injected fields
     }
 
     /**
@@ -170,7 +206,19 @@ public class WebJarController extends DefaultController implements BundleTracker
         if (tracker != null) {
             tracker.close();
         }
-        libraries.clear();
+        synchronized (this) {
+            libraries.clear();
+            reindex();
+        }
+    }
+
+    /**
+     * Rebuilds the index and clears the cached asset metadata. Must be called with the lock held, after any
+     * modification of {@link #libraries}.
+     */
+    private void reindex() {
+        index = new WebJarIndex(libraries);
+        cache.clear();
     }
 
     private void buildFileIndex() {
@@ -208,40 +256,17 @@ public class WebJarController extends DefaultController implements BundleTracker
                     libraries.add(lib);
                 }
             }
+            reindex();
         }
 
     }
 
     int indexSize() {
-        int count = 0;
-        for (WebJarLib lib : libs()) {
-            count += lib.names().size();
-        }
-        return count;
-    }
-
-    synchronized List<WebJarLib> libs() {
-        return new ArrayList<>(libraries);
+        return index.size();
     }
 
-    private List<WebJarLib> findLibsContaining(String path) {
-        List<WebJarLib> list = new ArrayList<>();
-        for (WebJarLib lib : libs()) {
-            if (lib.contains(path)) {
-                list.add(lib);
-            }
-        }
-        return list;
-    }
-
-    private List<WebJarLib> find(String name) {
-        List<WebJarLib> list = new ArrayList<>();
-        for (WebJarLib lib : libs()) {
-            if (lib.name.equals(name)) {
-                list.add(lib);
-            }
-        }
-        return list;
+    List<WebJarLib> libs() {
+        return index.libraries();
     }
 
     /**
@@ -267,21 +292,12 @@ public class WebJarController extends DefaultController implements BundleTracker
             return badRequest();
         }
 
-        Asset<?> asset = assetAt(path);
+        AssetCache.Metadata<?> asset = cache.get(path, resolver);
         if (asset == null) {
             return notFound();
         }
 
-        return CacheUtils.fromAsset(context(), asset, configuration);
-    }
-
-    private WebJarLib find(String name, String version) {
-        for (WebJarLib lib : libs()) {
-            if (lib.name.equals(name) && lib.version.equals(version)) {
-                return lib;
-            }
-        }
-        return null;
+        return cache.toResult(context(), asset);
     }
 
     /**
@@ -327,6 +343,7 @@ public class WebJarController extends DefaultController implements BundleTracker
     public void addWebJarLibs(Collection<? extends WebJarLib> list) {
         synchronized (this) {
             libraries.addAll(list);
+            reindex();
         }
     }
 
@@ -361,6 +378,7 @@ public class WebJarController extends DefaultController implements BundleTracker
     public void removeWebJarLibs(Collection<? extends WebJarLib> webJarLibs) {
         synchronized (this) {
             libraries.removeAll(webJarLibs);
+            reindex();
         }
     }
 
@@ -370,7 +388,7 @@ public class WebJarController extends DefaultController implements BundleTracker
     @Override
     public Collection<Asset<?>> assets() {
         List<Asset<?>> assets = new ArrayList<>();
-        for (WebJarLib lib : libraries) {
+        for (WebJarLib lib : libs()) {
             for (String path : lib.names()) {
                 if (path.endsWith("/") || path.startsWith(".")) {
                     continue;
@@ -394,7 +412,12 @@ public class WebJarController extends DefaultController implements BundleTracker
      */
     @Override
     public Asset<?> assetAt(String path) {
-        List<WebJarLib> candidates = findLibsContaining(path);
+        return cache.get(path, resolver);
+    }
+
+    private Asset<?> resolve(String path) {
+        WebJarIndex index = this.index;
+        List<WebJarLib> candidates = index.containing(path);
 
         if (candidates.size() == 1) {
             // Perfect ! only one match
@@ -403,7 +426,7 @@ public class WebJarController extends DefaultController implements BundleTracker
                     candidates.get(0).get(path),
                     candidates.get(0).toString(),
                     candidates.get(0).lastModified(),
-                    CacheUtils.computeEtag(candidates.get(0).lastModified(), configuration, crypto)
+                    null
             );
         } else if (candidates.size() > 1) {
             // Several candidates
@@ -414,7 +437,7 @@ public class WebJarController extends DefaultController implements BundleTracker
                     candidates.get(0).get(path),
                     candidates.get(0).toString(),
                     candidates.get(0).lastModified(),
-                    CacheUtils.computeEtag(candidates.get(0).lastModified(), configuration, crypto)
+                    null
             );
         } else {
             Matcher matcher = PATTERN.matcher(path);
@@ -429,14 +452,14 @@ public class WebJarController extends DefaultController implements BundleTracker
                 String rel = matcher.group(4);
                 // We have a name and a version
                 // Try to find the matching library
-                WebJarLib lib = find(name, version);
+                WebJarLib lib = index.get(name, version);
                 if (lib != null) {
                     return new DefaultAsset<>(
                             rel,
                             lib.get(rel),
                             lib.toString(),
                             lib.lastModified(),
-                            CacheUtils.computeEtag(lib.lastModified(), configuration, crypto)
+                            null
                     );
                 }
                 // If not found, it may be because the version is not really the version but a segment of the path.
@@ -448,7 +471,7 @@ public class WebJarController extends DefaultController implements BundleTracker
                 rel = version + "/" + rel;
             }
 
-            List<WebJarLib> libs = find(name);
+            List<WebJarLib> libs = index.named(name);
             if (libs.size() == 1) {
                 // Only on library has the given name
                 if (libs.get(0).contains(rel)) {
@@ -458,7 +481,7 @@ public class WebJarController extends DefaultController implements BundleTracker
                             lib.get(rel),
                             lib.toString(),
                             lib.lastModified(),
-                            CacheUtils.computeEtag(lib.lastModified(), configuration, crypto)
+                            null
                     );
                 }
             } else if (libs.size() > 1) {
@@ -487,7 +510,7 @@ public class WebJarController extends DefaultController implements BundleTracker
                             higher.get(rel),
                             higher.toString(),
                             higher.lastModified(),
-                            CacheUtils.computeEtag(higher.lastModified(), configuration, crypto)
+                            null
                     );
                 }
 
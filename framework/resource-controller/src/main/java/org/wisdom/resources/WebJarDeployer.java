@@ -50,21 +50,50 @@ public class WebJarDeployer extends ExtensionBasedDeployer {
     private final File cache;
     private final WebJarController controller;
 
+    /**
+     * Whether or not the libraries are un-packaged. If not, they are served from the jar files.
+     */
+    private final boolean expand;
+
     private Set<FileWebJarLib> libs = new LinkedHashSet<>();
+
+    /**
+     * The libraries served from jar files.
+     */
+    private Set<JarWebJarLib> jarLibs = new LinkedHashSet<>();
+
+    /**
+     * The opened jar files, shared by the libraries they contain.
+     */
+    private Map<File, JarFile> jars = new HashMap<>();
+
     private ServiceRegistration<Deployer> reg;
 
     /**
-     * Creates an install of the {@link org.wisdom.resources.WebJarDeployer}.
+     * Creates an install of the {@link org.wisdom.resources.WebJarDeployer} un-packaging the libraries.
      *
      * @param context          the bundle context
      * @param webJarController the instance of controller in which libraries are added and removed
      */
     public WebJarDeployer(BundleContext context, WebJarController webJarController) {
+        this(context, webJarController, true);
+    }
+
+    /**
+     * Creates an install of the {@link org.wisdom.resources.WebJarDeployer}.
+     *
+     * @param context          the bundle context
+     * @param webJarController the instance of controller in which libraries are added and removed
+     * @param expand           whether or not the libraries are un-packaged. If not, they are served directly
+     *                         from the jar files.
+     */
+    public WebJarDeployer(BundleContext context, WebJarController webJarController, boolean expand) {
         super("jar");
         this.context = context;
         this.controller = webJarController;
+        this.expand = expand;
         cache = context.getBundle().getDataFile("webjars");
-        if (!cache.isDirectory()) {
+        if (expand && !cache.isDirectory()) {
             boolean made = cache.mkdirs();
             LOGGER.debug("Creating webjars directory : {}", made);
         }
@@ -72,14 +101,17 @@ public class WebJarDeployer extends ExtensionBasedDeployer {
 
     /**
      * A new file was created. It checks whether or not this file contained web jar libraries,
-     * and if so proceed to their installation (i.e. un-packaking and indexation).
+     * and if so proceed to their installation (i.e. un-packaking and indexation, or only indexation if the
+     * libraries are served from the jar file).
      *
      * @param file the file
      */
     @Override
     public synchronized void onFileCreate(File file) {
         final Set<DetectedWebJar> listOfDetectedWebJarLib = isWebJar(file);
-        if (listOfDetectedWebJarLib != null) {
+        if (listOfDetectedWebJarLib != null && !expand) {
+            open(file, listOfDetectedWebJarLib);
+        } else if (listOfDetectedWebJarLib != null) {
             JarFile jar = null;
             try {
                 jar = new JarFile(file);
@@ -102,6 +134,23 @@ public class WebJarDeployer extends ExtensionBasedDeployer {
         }
     }
 
+    private void open(File file, Set<DetectedWebJar> detected) {
+        try {
+            JarFile jar = new JarFile(file);
+            jars.put(file, jar);
+            List<JarWebJarLib> installed = new ArrayList<>();
+            for (DetectedWebJar lib : detected) {
+                JarWebJarLib webJarLib = new JarWebJarLib(lib.name, lib.version, jar, file);
+                jarLibs.add(webJarLib);
+                installed.add(webJarLib);
+                LOGGER.info("{} served from {}", lib.id, file.getAbsolutePath());
+            }
+            controller.addWebJarLibs(installed);
+        } catch (IOException e) {
+            LOGGER.error("Cannot open the jar file {}", file.getAbsolutePath(), e);
+        }
+    }
+
     private FileWebJarLib expand(DetectedWebJar lib, JarFile jar) {
         File out = new File(cache, lib.id);
         Enumeration<? extends ZipEntry> entries = jar.entries();
@@ -167,7 +216,17 @@ public class WebJarDeployer extends ExtensionBasedDeployer {
             }
         }
 
+        List<JarWebJarLib> toClose = new ArrayList<>();
+        for (JarWebJarLib lib : new ArrayList<>(jarLibs)) {
+            if (lib.source.equals(file.getName())) {
+                jarLibs.remove(lib);
+                toClose.add(lib);
+            }
+        }
+
         controller.removeWebJarLibs(toRemove);
+        controller.removeWebJarLibs(toClose);
+        IOUtils.closeQuietly(jars.remove(file));
     }
 
     /**
@@ -238,6 +297,12 @@ public class WebJarDeployer extends ExtensionBasedDeployer {
         if (reg != null) {
             reg.unregister();
         }
+        controller.removeWebJarLibs(jarLibs);
+        jarLibs.clear();
+        for (JarFile jar : jars.values()) {
+            IOUtils.closeQuietly(jar);
+        }
+        jars.clear();
     }
 
     /**
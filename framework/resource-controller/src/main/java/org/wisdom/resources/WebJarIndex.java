@@ -0,0 +1,125 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.resources;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable index of the WebJar libraries. It gives access to the libraries by name, by name and version, and to
+ * the libraries containing a given resource without scanning them.
+ * <p>
+ * Instances are never modified: a new index is built each time the set of libraries changes and published
+ * atomically, so lookups do not require any lock.
+ */
+final class WebJarIndex {
+
+    /**
+     * The empty index.
+     */
+    static final WebJarIndex EMPTY = new WebJarIndex(ImmutableList.<WebJarLib>of());
+
+    private final List<WebJarLib> libraries;
+
+    private final ImmutableListMultimap<String, WebJarLib> byName;
+
+    private final ImmutableListMultimap<String, WebJarLib> byPath;
+
+    private final ImmutableMap<String, WebJarLib> byNameAndVersion;
+
+    private final int size;
+
+    /**
+     * Builds the index of the given libraries.
+     *
+     * @param libraries the libraries, in their priority order
+     */
+    WebJarIndex(Collection<? extends WebJarLib> libraries) {
+        this.libraries = ImmutableList.copyOf(libraries);
+        ImmutableListMultimap.Builder<String, WebJarLib> names = ImmutableListMultimap.builder();
+        ImmutableListMultimap.Builder<String, WebJarLib> paths = ImmutableListMultimap.builder();
+        Map<String, WebJarLib> versions = new HashMap<>();
+        int count = 0;
+        for (WebJarLib lib : this.libraries) {
+            names.put(lib.name, lib);
+            String key = key(lib.name, lib.version);
+            if (!versions.containsKey(key)) {
+                versions.put(key, lib);
+            }
+            for (String path : lib.names()) {
+                paths.put(path, lib);
+                count++;
+            }
+        }
+        this.byName = names.build();
+        this.byPath = paths.build();
+        this.byNameAndVersion = ImmutableMap.copyOf(versions);
+        this.size = count;
+    }
+
+    private static String key(String name, String version) {
+        return name + "/" + version;
+    }
+
+    /**
+     * @return the indexed libraries.
+     */
+    List<WebJarLib> libraries() {
+        return libraries;
+    }
+
+    /**
+     * @return the number of indexed resources.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param path the path of the resource relative to the library root
+     * @return the libraries containing the given resource, empty if none.
+     */
+    List<WebJarLib> containing(String path) {
+        return byPath.get(path);
+    }
+
+    /**
+     * @param name the library name
+     * @return the libraries having the given name, empty if none.
+     */
+    List<WebJarLib> named(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * @param name    the library name
+     * @param version the library version
+     * @return the library, {@code null} if not found.
+     */
+    WebJarLib get(String name, String version) {
+        return byNameAndVersion.get(key(name, version));
+    }
+}
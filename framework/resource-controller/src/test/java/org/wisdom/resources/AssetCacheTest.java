@@ -0,0 +1,150 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.resources;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.asset.Asset;
+import org.wisdom.api.asset.DefaultAsset;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.crypto.Crypto;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Status;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the asset metadata cache.
+ */
+public class AssetCacheTest {
+
+    private File file;
+    private Crypto crypto;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File("target/asset-cache/script.js");
+        FileUtils.write(file, "var a = 1;");
+        crypto = mock(Crypto.class);
+    }
+
+    private ApplicationConfiguration configuration(long interval) {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getWithDefault(CacheUtils.HTTP_CACHE_CONTROL_MAX_AGE,
+                CacheUtils.HTTP_CACHE_CONTROL_DEFAULT)).thenReturn(CacheUtils.HTTP_CACHE_CONTROL_DEFAULT);
+        when(configuration.getBooleanWithDefault(CacheUtils.HTTP_USE_ETAG,
+                CacheUtils.HTTP_USE_ETAG_DEFAULT)).thenReturn(true);
+        when(configuration.getDuration(eq(AssetCache.HTTP_ASSET_CHECK_INTERVAL), eq(TimeUnit.MILLISECONDS),
+                anyLong())).thenReturn(interval);
+        return configuration;
+    }
+
+    private AssetCache.Resolver resolver(final AtomicInteger counter) {
+        return new AssetCache.Resolver() {
+            @Override
+            public Asset<?> resolve(String path) {
+                counter.incrementAndGet();
+                if (!file.exists()) {
+                    return null;
+                }
+                return new DefaultAsset<>("/assets/" + path, file, file.getAbsolutePath(), file.lastModified(), null);
+            }
+        };
+    }
+
+    @Test
+    public void testMetadataAreComputedOnce() {
+        AtomicInteger counter = new AtomicInteger();
+        AssetCache cache = new AssetCache(configuration(60000), crypto);
+
+        AssetCache.Metadata<?> metadata = cache.get("script.js", resolver(counter));
+        assertThat(metadata).isNotNull();
+        assertThat(metadata.getEtag()).startsWith("\"").endsWith("\"");
+        assertThat(metadata.length()).isEqualTo(file.length());
+        assertThat(metadata.mimeType()).contains("javascript");
+
+        assertThat(cache.get("script.js", resolver(counter))).isSameAs(metadata);
+        assertThat(counter.get()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEtagFallbackIsQuoted() throws IOException {
+        when(crypto.hexSHA1(anyString())).thenReturn("abcdef");
+        final URL missing = new File("target/asset-cache/missing.js").toURI().toURL();
+        AssetCache cache = new AssetCache(configuration(60000), crypto);
+
+        AssetCache.Metadata<?> metadata = cache.get("missing.js", new AssetCache.Resolver() {
+            @Override
+            public Asset<?> resolve(String path) {
+                return new DefaultAsset<>("/assets/" + path, missing, missing.toExternalForm(), 0, null);
+            }
+        });
+        assertThat(metadata.getEtag()).isEqualTo("\"abcdef\"");
+    }
+
+    @Test
+    public void testModificationsAreDetected() throws IOException {
+        AtomicInteger counter = new AtomicInteger();
+        AssetCache cache = new AssetCache(configuration(0), crypto);
+
+        AssetCache.Metadata<?> metadata = cache.get("script.js", resolver(counter));
+        assertThat(cache.get("script.js", resolver(counter))).isSameAs(metadata);
+
+        FileUtils.write(file, "var a = 2; var b = 3;");
+        AssetCache.Metadata<?> updated = cache.get("script.js", resolver(counter));
+        assertThat(updated).isNotSameAs(metadata);
+        assertThat(updated.getEtag()).isNotEqualTo(metadata.getEtag());
+
+        FileUtils.deleteQuietly(file);
+        assertThat(cache.get("script.js", resolver(counter))).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testConditionalRequest() {
+        AssetCache cache = new AssetCache(configuration(60000), crypto);
+        AssetCache.Metadata<?> metadata = cache.get("script.js", resolver(new AtomicInteger()));
+
+        Context context = mock(Context.class);
+        Result result = cache.toResult(context, metadata);
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(result.getHeaders().get(HeaderNames.ETAG)).isEqualTo(metadata.getEtag());
+        assertThat(result.getHeaders().get(HeaderNames.CACHE_CONTROL)).isEqualTo("max-age=3600");
+        assertThat(result.getHeaders().get(HeaderNames.CONTENT_LENGTH)).isEqualTo(Long.toString(file.length()));
+
+        when(context.header(HeaderNames.IF_NONE_MATCH)).thenReturn(metadata.getEtag());
+        assertThat(cache.toResult(context, metadata).getStatusCode()).isEqualTo(Status.NOT_MODIFIED);
+    }
+}
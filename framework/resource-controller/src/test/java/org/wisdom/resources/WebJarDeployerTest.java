@@ -20,14 +20,21 @@
 package org.wisdom.resources;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.ow2.chameleon.core.services.Deployer;
+import org.wisdom.api.asset.Asset;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.crypto.Crypto;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -84,4 +91,39 @@ public class WebJarDeployerTest {
         assertThat(expanded).doesNotExist();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testServeFromJar() throws IOException {
+        File acorn = new File("src/test/resources/webjars/acorn-0.5.0.jar");
+        BundleContext context = mock(BundleContext.class);
+        Bundle bundle = mock(Bundle.class);
+        when(bundle.getDataFile("webjars")).thenReturn(new File("target/junk/lazy-webjars"));
+        when(context.getBundle()).thenReturn(bundle);
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getBaseDir()).thenReturn(new File("target/junk"));
+        WebJarController controller = new WebJarController(mock(Crypto.class), configuration, "assets/libs");
+        WebJarDeployer deployer = new WebJarDeployer(context, controller, false);
+
+        deployer.onFileCreate(acorn);
+
+        // acorn should not have been expanded
+        assertThat(new File("target/junk/lazy-webjars/acorn-0.5.0")).doesNotExist();
+        assertThat(controller.libs()).hasSize(1);
+        assertThat(controller.libs().get(0)).isInstanceOf(JarWebJarLib.class);
+        assertThat(controller.indexSize()).isEqualTo(2);
+
+        Asset<?> asset = controller.assetAt("acorn.js");
+        assertThat(asset).isNotNull();
+        assertThat(asset.getContent()).isInstanceOf(URL.class);
+        InputStream stream = ((URL) asset.getContent()).openStream();
+        assertThat(IOUtils.toString(stream)).contains("acorn");
+        IOUtils.closeQuietly(stream);
+
+        deployer.onFileChange(acorn);
+        assertThat(controller.libs()).hasSize(1);
+
+        deployer.onFileDelete(acorn);
+        assertThat(controller.libs()).isEmpty();
+        assertThat(controller.assetAt("acorn.js")).isNull();
+    }
+
+}
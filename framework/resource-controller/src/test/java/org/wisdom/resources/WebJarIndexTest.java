@@ -0,0 +1,95 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.resources;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.crypto.Crypto;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Result;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the WebJar index.
+ */
+public class WebJarIndexTest {
+
+    private static WebJarLib lib(String name, String version, final String... paths) {
+        return new WebJarLib(name, version) {
+            @Override
+            public Collection<String> names() {
+                return Arrays.asList(paths);
+            }
+
+            @Override
+            public Result get(String path, Context context, ApplicationConfiguration configuration, Crypto crypto) {
+                return null;
+            }
+
+            @Override
+            public Object get(String path) {
+                return contains(path) ? path : null;
+            }
+
+            @Override
+            public long lastModified() {
+                return 0;
+            }
+        };
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        assertThat(WebJarIndex.EMPTY.size()).isEqualTo(0);
+        assertThat(WebJarIndex.EMPTY.libraries()).isEmpty();
+        assertThat(WebJarIndex.EMPTY.containing("jquery.js")).isEmpty();
+        assertThat(WebJarIndex.EMPTY.named("jquery")).isEmpty();
+        assertThat(WebJarIndex.EMPTY.get("jquery", "2.1.1")).isNull();
+    }
+
+    @Test
+    public void testLookups() {
+        WebJarLib jquery1 = lib("jquery", "1.11.1", "jquery.js", "jquery.min.js");
+        WebJarLib jquery2 = lib("jquery", "2.1.1", "jquery.js", "jquery.min.js");
+        WebJarLib bootstrap = lib("bootstrap", "3.2.0", "css/bootstrap.css", "js/bootstrap.js");
+        WebJarIndex index = new WebJarIndex(ImmutableList.of(jquery1, jquery2, bootstrap));
+
+        assertThat(index.size()).isEqualTo(6);
+        assertThat(index.libraries()).containsExactly(jquery1, jquery2, bootstrap);
+
+        List<WebJarLib> candidates = index.containing("jquery.js");
+        assertThat(candidates).containsExactly(jquery1, jquery2);
+        assertThat(index.containing("css/bootstrap.css")).containsExactly(bootstrap);
+        assertThat(index.containing("missing.js")).isEmpty();
+
+        assertThat(index.named("jquery")).containsExactly(jquery1, jquery2);
+        assertThat(index.named("angular")).isEmpty();
+
+        assertThat(index.get("jquery", "2.1.1")).isSameAs(jquery2);
+        assertThat(index.get("bootstrap", "3.2.0")).isSameAs(bootstrap);
+        assertThat(index.get("bootstrap", "3.3.0")).isNull();
+    }
+}
@@ -37,6 +37,8 @@ public class FakeRouter extends AbstractRouter {
 
     private Set<Route> routes = new LinkedHashSet<Route>();
 
+    private long generation;
+
     public FakeRouter() {
 
     }
@@ -44,12 +46,14 @@ public class FakeRouter extends AbstractRouter {
     public FakeRouter addController(Controller controller) {
         routes.addAll(controller.routes());
         routes.addAll(RouteUtils.collectRouteFromControllerAnnotations(controller));
+        generation++;
         return this;
     }
 
     public FakeRouter removeController(Controller controller) {
         routes.removeAll(controller.routes());
         routes.removeAll(RouteUtils.collectRouteFromControllerAnnotations(controller));
+        generation++;
         return this;
     }
 
@@ -99,6 +103,11 @@ public class FakeRouter extends AbstractRouter {
         return copy();
     }
 
+    @Override
+    public long getRoutesGeneration() {
+        return generation;
+    }
+
     private String computeUrlForRoute(Route route, Map<String, Object> params) {
         if (params == null) {
             // No variables, return the raw url.